@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma;
+
+/*
+ * Computes the delay until the next check based on how close the memory conditions are to being
+ * violated: the closer the memory usage gets, and the faster it gets closer, the shorter the delay,
+ * always between the minimum and the maximum check interval. Not thread-safe; it is meant to be
+ * used only by the thread running the checks.
+ */
+class AdaptiveCheckInterval {
+
+  private final long minIntervalInMillis;
+
+  private final long maxIntervalInMillis;
+
+  private double lastProximity = Double.NaN;
+
+  private long lastTimestamp;
+
+  AdaptiveCheckInterval(final long minIntervalInMillis, final long maxIntervalInMillis) {
+    this.minIntervalInMillis = minIntervalInMillis;
+    this.maxIntervalInMillis = Math.max(minIntervalInMillis, maxIntervalInMillis);
+  }
+
+  boolean isAdaptive() {
+    return minIntervalInMillis < maxIntervalInMillis;
+  }
+
+  /*
+   * The proximity ranges from 0 (far from any violation) to 1 (a memory condition is violated)
+   */
+  long next(final double proximity, final long timestamp) {
+    if (!isAdaptive()) {
+      return maxIntervalInMillis;
+    }
+
+    final double headroom = 1d - Math.max(0d, Math.min(proximity, 1d));
+
+    // Linear between the maximum interval with all headroom left, and the minimum with none
+    double intervalInMillis =
+        minIntervalInMillis + (maxIntervalInMillis - minIntervalInMillis) * headroom;
+
+    /*
+     * If the proximity is growing, make sure to check at least twice before the memory usage
+     * would reach the violation at the current pace
+     */
+    if (!Double.isNaN(lastProximity) && timestamp > lastTimestamp && proximity > lastProximity) {
+      final double growthPerMilli = (proximity - lastProximity) / (timestamp - lastTimestamp);
+      intervalInMillis = Math.min(intervalInMillis, headroom / growthPerMilli / 2d);
+    }
+
+    lastProximity = proximity;
+    lastTimestamp = timestamp;
+
+    return Math.max(minIntervalInMillis,
+        Math.min(maxIntervalInMillis, Math.round(intervalInMillis)));
+  }
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma;
+
+import static com.sap.jma.concurrent.ThreadFactories.deamons;
+
+import com.sap.jma.time.Clock;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Creates the heap dumps requested by the checks on a thread of its own, so that the checks keep
+ * running while a heap dump, and the commands before and after it, are in progress.
+ *
+ * At most one request waits behind the heap dump in progress: the requests arriving while one is
+ * waiting are coalesced into it, so that the violations found by the checks during a heap dump
+ * yield one more heap dump at most, rather than one per check. The outcome of each request is
+ * reported to the listener, on the thread of the worker unless stated otherwise.
+ */
+class HeapDumpWorker {
+
+  interface Listener {
+
+    /*
+     * Invoked on the thread of the check whose request is coalesced into the waiting one
+     */
+    void onCoalesced(Request request, CharSequence causes);
+
+    /*
+     * Invoked on the thread of the check whose request cannot be accepted, as the worker is
+     * shut down
+     */
+    void onRejected(Request request);
+
+    void onStarted(Request request);
+
+    void onCompleted(Request request, long durationInMillis);
+
+    /*
+     * The heap dump is not created due to the maximum frequency of heap dumps
+     */
+    void onSkipped(Request request);
+
+    void onFailed(Request request, Exception ex);
+
+  }
+
+  /*
+   * The causes of one or more coalesced requests for a heap dump
+   */
+  static final class Request {
+
+    private final long requestedAtMillis;
+
+    private final StringBuilder causes = new StringBuilder();
+
+    private int count;
+
+    private Request(final long requestedAtMillis, final CharSequence causes) {
+      this.requestedAtMillis = requestedAtMillis;
+      coalesce(causes);
+    }
+
+    private void coalesce(final CharSequence causes) {
+      this.causes.append(causes);
+      ++count;
+    }
+
+    long getRequestedAtMillis() {
+      return requestedAtMillis;
+    }
+
+    /*
+     * Returns how many requests have been coalesced into this one
+     */
+    int getCount() {
+      return count;
+    }
+
+    String getCauses() {
+      return causes.toString();
+    }
+
+  }
+
+  private final Callable<Boolean> heapDump;
+
+  private final ExecutorService executorService;
+
+  private final Listener listener;
+
+  private final Clock clock;
+
+  private final Object lock = new Object();
+
+  // Guarded by lock
+  private Request pending;
+
+  // Guarded by lock
+  private Request inFlight;
+
+  /*
+   * The heap dump returns whether it has been created, rather than skipped
+   */
+  HeapDumpWorker(final Callable<Boolean> heapDump, final Listener listener, final Clock clock) {
+    // The queue holds the request waiting behind the one in progress
+    this(heapDump, new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(1), deamons("JavaMemoryAssistant-HeapDump")),
+        listener, clock);
+  }
+
+  // VisibleForTesting
+  HeapDumpWorker(final Callable<Boolean> heapDump, final ExecutorService executorService,
+                 final Listener listener, final Clock clock) {
+    this.heapDump = heapDump;
+    this.executorService = executorService;
+    this.listener = listener;
+    this.clock = clock;
+  }
+
+  /*
+   * Requests a heap dump for the given causes, without waiting for it
+   */
+  void submit(final CharSequence causes) {
+    final Request request;
+    final boolean isCoalesced;
+    synchronized (lock) {
+      isCoalesced = pending != null;
+      if (isCoalesced) {
+        pending.coalesce(causes);
+        request = pending;
+      } else {
+        request = new Request(clock.getMillis(), causes);
+        pending = request;
+      }
+    }
+
+    if (isCoalesced) {
+      listener.onCoalesced(request, causes);
+      return;
+    }
+
+    try {
+      executorService.execute(new Runnable() {
+        @Override
+        public void run() {
+          runNext();
+        }
+      });
+    } catch (final RejectedExecutionException ex) {
+      synchronized (lock) {
+        if (pending == request) {
+          pending = null;
+        }
+      }
+
+      listener.onRejected(request);
+    }
+  }
+
+  /*
+   * Whether a heap dump is in progress or waiting to be
+   */
+  boolean isBusy() {
+    synchronized (lock) {
+      return inFlight != null || pending != null;
+    }
+  }
+
+  /*
+   * Drops the waiting request, if any, and lets the heap dump in progress complete
+   */
+  void shutdown() {
+    synchronized (lock) {
+      pending = null;
+    }
+
+    executorService.shutdown();
+  }
+
+  private void runNext() {
+    final Request request;
+    synchronized (lock) {
+      request = pending;
+      pending = null;
+      inFlight = request;
+    }
+
+    if (request == null) {
+      // Dropped at shutdown
+      return;
+    }
+
+    try {
+      listener.onStarted(request);
+
+      final long start = clock.getMillis();
+      try {
+        if (heapDump.call()) {
+          listener.onCompleted(request, clock.getMillis() - start);
+        } else {
+          listener.onSkipped(request);
+        }
+      } catch (final Exception ex) {
+        listener.onFailed(request, ex);
+      }
+    } finally {
+      synchronized (lock) {
+        inFlight = null;
+      }
+    }
+  }
+
+}
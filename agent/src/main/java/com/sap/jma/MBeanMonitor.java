@@ -8,28 +8,117 @@ package com.sap.jma;
 
 import static com.sap.jma.concurrent.ThreadFactories.deamons;
 
+import com.sap.jma.conditions.Evaluation;
+import com.sap.jma.conditions.ReportOnlyCondition;
 import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.configuration.CheckMode;
+import com.sap.jma.configuration.ClassHistogramThresholdConfiguration;
+import com.sap.jma.configuration.CompositeConditionConfiguration;
 import com.sap.jma.configuration.Configuration;
+import com.sap.jma.configuration.ThresholdConfiguration;
 import com.sap.jma.configuration.UsageThresholdConfiguration;
 import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import com.sap.jma.utils.TimerWheel;
 import com.sap.jma.vms.JavaVirtualMachine;
 import com.sap.jma.vms.MemoryPool;
+import com.sap.jma.vms.Snapshot;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
 
 class MBeanMonitor extends Monitor {
 
-  private final List<UsageThresholdCondition> memoryPoolConditions =
+  private static final int WHEEL_BUCKETS = 64;
+
+  /*
+   * Passed explicitly to the varargs of the logger, which would otherwise allocate an empty array
+   * at each check
+   */
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+
+  private final List<UsageThresholdCondition<?>> memoryPoolConditions =
+      new ArrayList<>();
+
+  /*
+   * The conditions without an interval of their own, checked at the check interval of the agent
+   * and after garbage collections
+   */
+  private final List<UsageThresholdCondition<?>> defaultConditions = new ArrayList<>();
+
+  /*
+   * The default conditions on the memory pools whose usage the garbage collections report,
+   * the only ones checked after garbage collections; the conditions on other signals, some of
+   * them measured over time-frames or expensive to sample, are checked at the check interval
+   */
+  private final List<UsageThresholdCondition<?>> garbageCollectionConditions =
+      new ArrayList<>();
+
+  /*
+   * The conditions with an interval of their own, keyed by interval, checked only at it
+   */
+  private final Map<Long, List<UsageThresholdCondition<?>>> conditionsByInterval =
+      new TreeMap<>();
+
+  /*
+   * Conditions translated into usage thresholds of the memory pools, evaluated only when
+   * the JVM notifies us that one of the thresholds has been exceeded
+   */
+  private final List<UsageThresholdCondition<?>> usageThresholdConditions =
       new ArrayList<>();
 
   private final Callable<ScheduledExecutorService> executorServiceProvider;
 
-  private ScheduledExecutorService executorService;
+  private final List<NotificationEmitter> garbageCollectionEmitters = new ArrayList<>();
+
+  private final GarbageCollectionListener garbageCollectionListener =
+      new GarbageCollectionListener();
+
+  private final GarbageCollectionCheck garbageCollectionCheck = new GarbageCollectionCheck();
+
+  private final UsageThresholdListener usageThresholdListener = new UsageThresholdListener();
+
+  private NotificationEmitter memoryEmitter;
+
+  private Snapshot snapshot = new Snapshot(Collections.<MemoryPoolMXBean>emptyList(),
+      Collections.<MemoryPool>emptyList(), Collections.<GarbageCollectorMXBean>emptyList());
+
+  /*
+   * The reasons of the violations found by a check, reused across checks, which run on one
+   * thread only, so that checks finding nothing allocate nothing
+   */
+  private final List<CharSequence> reasons = new ArrayList<>();
+
+  private final List<CharSequence> reports = new ArrayList<>();
+
+  private volatile ScheduledExecutorService executorService;
+
+  private volatile HeapDumpWorker heapDumpWorker;
 
   MBeanMonitor(final HeapDumpCreator heapDumpCreator, final Configuration configuration) {
     this(heapDumpCreator, configuration, new Callable<ScheduledExecutorService>() {
@@ -53,59 +142,391 @@ class MBeanMonitor extends Monitor {
 
     final JavaVirtualMachine jvm = currentJvm();
 
+    heapDumpWorker = newHeapDumpWorker();
+
     final UsageThresholdConfiguration heapConfiguration =
         configuration.getHeapMemoryUsageThreshold();
 
+    final boolean isGarbageCollectionMode =
+        configuration.getCheckMode() == CheckMode.GARBAGE_COLLECTION;
+
+    // The conditions on the memory pools whose usage the garbage collections report
+    final List<UsageThresholdCondition<?>> collectedMemoryPoolConditions = new ArrayList<>();
+
+    // The memory pools with conditions that the snapshots read on their own
+    final List<MemoryPool> sampledMemoryPools = new ArrayList<>();
+
     if (heapConfiguration != null) {
-      memoryPoolConditions.add(heapConfiguration.toCondition(
-          jvm.getHeapMemoryPool()));
+      final UsageThresholdCondition<?> heapCondition =
+          toCondition(jvm.getHeapMemoryPool(), configuration);
+      if (heapCondition != null) {
+        memoryPoolConditions.add(heapCondition);
+        collectedMemoryPoolConditions.add(heapCondition);
+      }
+    }
+
+    for (final UsageThresholdConfiguration jvmConfiguration : configuration.getJvmThresholds()) {
+      final UsageThresholdCondition<?> jvmCondition =
+          toCondition(jvmConfiguration, jvm.getHeapMemoryPool());
+      if (jvmCondition != null) {
+        memoryPoolConditions.add(jvmCondition);
+      }
     }
 
+    for (final ClassHistogramThresholdConfiguration classHistogramConfiguration
+        : configuration.getClassHistogramThresholds().values()) {
+      memoryPoolConditions.add(classHistogramConfiguration.toCondition(jvm));
+    }
+
+    for (final CompositeConditionConfiguration compositeConfiguration
+        : configuration.getCompositeConditions().values()) {
+      try {
+        memoryPoolConditions.add(compositeConfiguration.toCondition(jvm));
+      } catch (final IllegalArgumentException ex) {
+        logger.warning("%s; the agent will not check the condition '%s'", ex.getMessage(),
+            compositeConfiguration.getName());
+      }
+    }
+
+    final NotificationEmitter memoryEmitter =
+        configuration.getCheckMode() == CheckMode.USAGE_THRESHOLD
+            ? getMemoryNotificationEmitter() : null;
+
     final List<MemoryPool> memoryPools = jvm.getMemoryPools();
     for (final MemoryPool memoryPool : memoryPools) {
-      final UsageThresholdCondition memoryPoolCondition = memoryPool.toCondition(configuration);
+      final UsageThresholdCondition<?> memoryPoolCondition =
+          toCondition(memoryPool, configuration);
+
+      if (memoryPoolCondition == null) {
+        continue;
+      }
 
-      if (memoryPoolCondition != null) {
+      /*
+       * The JVM notifies only when the usage crosses the threshold, so the thresholds that must be
+       * violated at several checks are not translated
+       */
+      if (memoryEmitter != null
+          && memoryPoolCondition.getUsageThresholdConfiguration().getDebouncing().isImmediate()
+          && memoryPool.setUsageThreshold(memoryPoolCondition.getUsageThresholdConfiguration())) {
+        usageThresholdConditions.add(memoryPoolCondition);
+      } else {
         memoryPoolConditions.add(memoryPoolCondition);
+        if (isSampledOnItsOwn(memoryPool)) {
+          sampledMemoryPools.add(memoryPool);
+        } else if (isGarbageCollectionMode) {
+          collectedMemoryPoolConditions.add(memoryPoolCondition);
+        }
+      }
+    }
+
+    final Map<String, UsageThresholdConfiguration> nativeMemoryThresholds =
+        configuration.getNativeMemoryThresholds();
+    if (nativeMemoryThresholds != null) {
+      for (final String category : nativeMemoryThresholds.keySet()) {
+        final MemoryPool nativeMemoryPool = jvm.getNativeMemoryPool(category);
+        if (nativeMemoryPool == null) {
+          logger.warning("The native memory category '%s' is not tracked; the agent will not "
+              + "check this memory condition (is the JVM running with "
+              + "-XX:NativeMemoryTracking=summary?)", category);
+          continue;
+        }
+
+        final UsageThresholdCondition<?> nativeMemoryCondition =
+            toCondition(nativeMemoryPool, configuration);
+        if (nativeMemoryCondition != null) {
+          memoryPoolConditions.add(nativeMemoryCondition);
+          sampledMemoryPools.add(nativeMemoryPool);
+        }
+      }
+    }
+
+    snapshot = new Snapshot(getMemoryPoolBeans(), sampledMemoryPools,
+        getGarbageCollectorBeans());
+
+    for (final UsageThresholdCondition<?> condition : memoryPoolConditions) {
+      final long checkIntervalInMillis = getCheckIntervalInMillis(condition);
+      if (checkIntervalInMillis < 1) {
+        defaultConditions.add(condition);
+        if (collectedMemoryPoolConditions.contains(condition)) {
+          garbageCollectionConditions.add(condition);
+        }
+        continue;
       }
+
+      List<UsageThresholdCondition<?>> conditions = conditionsByInterval.get(checkIntervalInMillis);
+      if (conditions == null) {
+        conditions = new ArrayList<>();
+        conditionsByInterval.put(checkIntervalInMillis, conditions);
+      }
+      conditions.add(condition);
     }
 
-    if (memoryPoolConditions.isEmpty()) {
+    if (memoryPoolConditions.isEmpty() && usageThresholdConditions.isEmpty()) {
       logger.warning("No memory conditions have been specified; the agent will not perform checks");
       return;
     }
 
-    final String memoryConditionsMessage = (memoryPoolConditions.size() == 1)
-        ? "One memory condition has been specified"
-        : memoryPoolConditions.size() + " memory conditions have been specified";
+    if (!usageThresholdConditions.isEmpty()) {
+      memoryEmitter.addNotificationListener(usageThresholdListener,
+          new UsageThresholdNotificationFilter(), null);
+      this.memoryEmitter = memoryEmitter;
+
+      logger.debug("%s (checks will occur when the JVM reports a usage threshold to be "
+              + "exceeded):%s", getConditionsMessage(usageThresholdConditions, "specified"),
+          describe(usageThresholdConditions));
+    }
+
+    if (!defaultConditions.isEmpty()) {
+      scheduleChecks(configuration, memoryEmitter == null
+          ? "specified" : "specified that cannot be translated into usage thresholds");
+    }
+
+    for (final Map.Entry<Long, List<UsageThresholdCondition<?>>> entry
+        : conditionsByInterval.entrySet()) {
+      logger.debug("%s (checks will occur every %d milliseconds):%s",
+          getConditionsMessage(entry.getValue(), "specified with a check interval"),
+          entry.getKey(), describe(entry.getValue()));
+    }
+
+    if (this.memoryEmitter != null || !garbageCollectionEmitters.isEmpty()
+        || configuration.getCheckIntervalInMillis() > 0 || !conditionsByInterval.isEmpty()) {
+      executorService = executorServiceProvider.call();
+
+      schedulePeriodicChecks(configuration);
+    }
+  }
+
+  /*
+   * Puts the default conditions, if the agent has a check interval, and the conditions with an
+   * interval of their own on one timer wheel, driven by the check thread; the tick of the wheel
+   * is the shortest interval
+   */
+  private void schedulePeriodicChecks(final Configuration configuration) {
+    final boolean isPollingMode = configuration.getCheckIntervalInMillis() > 0
+        && !defaultConditions.isEmpty();
+    if (!isPollingMode && conditionsByInterval.isEmpty()) {
+      return;
+    }
+
+    long tickInMillis = isPollingMode
+        ? configuration.getMinCheckIntervalInMillis() : Long.MAX_VALUE;
+    for (final long checkIntervalInMillis : conditionsByInterval.keySet()) {
+      tickInMillis = Math.min(tickInMillis, checkIntervalInMillis);
+    }
+
+    final long now = getClock().getMillis();
+    final TimerWheel<CheckGroup> wheel =
+        new TimerWheel<>(Math.max(1L, tickInMillis), WHEEL_BUCKETS, now);
+
+    if (isPollingMode) {
+      final CheckGroup checkGroup = new CheckGroup(new AdaptiveCheckInterval(
+          configuration.getMinCheckIntervalInMillis(),
+          configuration.getMaxCheckIntervalInMillis()), wheel);
+      checkGroup.conditions.addAll(defaultConditions);
+      wheel.schedule(checkGroup.timeout, now + configuration.getCheckIntervalInMillis());
+    }
+
+    for (final Map.Entry<Long, List<UsageThresholdCondition<?>>> entry
+        : conditionsByInterval.entrySet()) {
+      final CheckGroup checkGroup =
+          new CheckGroup(new AdaptiveCheckInterval(entry.getKey(), entry.getKey()), wheel);
+      checkGroup.conditions.addAll(entry.getValue());
+      wheel.schedule(checkGroup.timeout, now + entry.getKey());
+    }
+
+    executorService.schedule(new PeriodicHeapDumpCheck(wheel), wheel.getNextDeadline() - now,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /*
+   * Returns 0 if the condition is checked at the check interval of the agent; the conditions on
+   * the class histogram, which forces a full garbage collection, have a long interval of their
+   * own by default
+   */
+  private static long getCheckIntervalInMillis(final UsageThresholdCondition<?> condition) {
+    final ThresholdConfiguration configuration = condition.getUsageThresholdConfiguration();
+    if (configuration == null) {
+      return 0L;
+    }
+
+    if (configuration.getCheckInterval() != null
+        && configuration.getCheckInterval().getIntervalInMillis() > 0) {
+      return configuration.getCheckInterval().getIntervalInMillis();
+    }
+
+    if (configuration instanceof ClassHistogramThresholdConfiguration
+        || (configuration instanceof CompositeConditionConfiguration
+            && ((CompositeConditionConfiguration) configuration).isOnClassHistogram())) {
+      return ClassHistogramThresholdConfiguration.DEFAULT_CHECK_INTERVAL_IN_MILLIS;
+    }
+
+    return 0L;
+  }
+
+  /*
+   * Subscribes to the garbage collections if configured so, and logs how the memory conditions
+   * that are not translated into usage thresholds will be checked
+   */
+  private void scheduleChecks(final Configuration configuration, final String qualifier) {
+    final boolean isGarbageCollectionMode =
+        configuration.getCheckMode() == CheckMode.GARBAGE_COLLECTION;
+    final boolean isPollingMode = configuration.getCheckIntervalInMillis() > 0;
+
+    if (isGarbageCollectionMode) {
+      if (garbageCollectionConditions.isEmpty()) {
+        logger.warning("No memory condition is on a memory pool whose usage the garbage "
+            + "collections report; memory conditions will be checked only based on the check "
+            + "interval");
+      } else if (!subscribeToGarbageCollections()) {
+        logger.warning("No garbage collector emits notifications; "
+            + "memory conditions will be checked only based on the check interval");
+      }
+    }
 
-    if (configuration.getCheckIntervalInMillis() < 0) {
-      logger.error(memoryConditionsMessage
+    if (!isPollingMode && garbageCollectionEmitters.isEmpty()) {
+      logger.error(getConditionsMessage(defaultConditions, qualifier)
           + ", but no check interval has been provided; "
           + "the heap-dump agent will not perform checks");
+      return;
+    }
+
+    if (garbageCollectionEmitters.isEmpty()) {
+      logger.debug("%s (checks will occur every %d milliseconds):%s",
+          getConditionsMessage(defaultConditions, qualifier),
+          configuration.getCheckIntervalInMillis(), describe(defaultConditions));
     } else {
-      final StringBuilder conditions = new StringBuilder();
-      for (final UsageThresholdCondition memoryPoolCondition :
-          memoryPoolConditions) {
-        conditions.append('\n');
-        conditions.append('*');
-        conditions.append(' ');
-        conditions.append(memoryPoolCondition);
+      final List<UsageThresholdCondition<?>> otherConditions =
+          new ArrayList<>(defaultConditions);
+      otherConditions.removeAll(garbageCollectionConditions);
+
+      if (isPollingMode) {
+        logger.debug("%s (checks will occur after each garbage collection and every %d "
+                + "milliseconds):%s", getConditionsMessage(garbageCollectionConditions, qualifier),
+            configuration.getCheckIntervalInMillis(), describe(garbageCollectionConditions));
+        if (!otherConditions.isEmpty()) {
+          logger.debug("%s (checks will occur every %d milliseconds):%s",
+              getConditionsMessage(otherConditions, qualifier),
+              configuration.getCheckIntervalInMillis(), describe(otherConditions));
+        }
+      } else {
+        logger.debug("%s (checks will occur after each garbage collection):%s",
+            getConditionsMessage(garbageCollectionConditions, qualifier),
+            describe(garbageCollectionConditions));
+        if (!otherConditions.isEmpty()) {
+          logger.warning("No check interval has been provided; the heap-dump agent will not "
+              + "check the memory conditions that are not on memory pools whose usage the "
+              + "garbage collections report:%s", describe(otherConditions));
+        }
       }
+    }
 
-      logger.debug("%s (checks will occur every %d milliseconds):%s", memoryConditionsMessage,
-          configuration.getCheckIntervalInMillis(), conditions);
+    if (isPollingMode && configuration.getMinCheckIntervalInMillis()
+        < configuration.getMaxCheckIntervalInMillis()) {
+      logger.debug("The check interval will adapt between %d and %d milliseconds depending on "
+              + "how close the memory usage gets to the memory conditions",
+          configuration.getMinCheckIntervalInMillis(),
+          configuration.getMaxCheckIntervalInMillis());
+    }
+  }
 
-      executorService = executorServiceProvider.call();
-      executorService.scheduleWithFixedDelay(new HeapDumpCheck(),
-          getConfiguration().getCheckIntervalInMillis(),
-          getConfiguration().getCheckIntervalInMillis(),
-          TimeUnit.MILLISECONDS);
+  /*
+   * Returns null if the configuration cannot be applied to the memory pool, e.g., a threshold on
+   * the usage after garbage collections for a memory pool that is not garbage collected
+   */
+  private UsageThresholdCondition<?> toCondition(final MemoryPool memoryPool,
+                                                 final Configuration configuration) {
+    try {
+      return memoryPool.toCondition(configuration);
+    } catch (final IllegalArgumentException ex) {
+      logger.warning("%s; the agent will not check this memory condition", ex.getMessage());
+      return null;
+    }
+  }
+
+  /*
+   * Returns null if the JVM does not support the condition
+   */
+  private UsageThresholdCondition<?> toCondition(final UsageThresholdConfiguration configuration,
+                                                 final MemoryPool memoryPool) {
+    try {
+      return configuration.toCondition(memoryPool);
+    } catch (final IllegalArgumentException ex) {
+      logger.warning("%s; the agent will not check this memory condition", ex.getMessage());
+      return null;
+    }
+  }
+
+  /*
+   * Whether the memory pool is not a memory pool of the JVM, i.e., a buffer pool, or memory
+   * accounted by the kernel or the Native Memory Tracking; the garbage collections do not report
+   * its usage, and the snapshots read it through the memory pool rather than a memory pool bean
+   */
+  private static boolean isSampledOnItsOwn(final MemoryPool memoryPool) {
+    final MemoryPool.Type type = memoryPool.getType();
+    return type != null && (type.isBufferPool() || type.isProcessMemory()
+        || type == MemoryPool.Type.NATIVE_MEMORY);
+  }
+
+  private static String getConditionsMessage(final List<UsageThresholdCondition<?>> conditions,
+                                             final String qualifier) {
+    return (conditions.size() == 1)
+        ? "One memory condition has been " + qualifier
+        : conditions.size() + " memory conditions have been " + qualifier;
+  }
+
+  private static String describe(final List<UsageThresholdCondition<?>> conditions) {
+    final StringBuilder sb = new StringBuilder();
+    for (final UsageThresholdCondition<?> condition : conditions) {
+      sb.append('\n');
+      sb.append('*');
+      sb.append(' ');
+      sb.append(condition);
+    }
+    return sb.toString();
+  }
+
+  /*
+   * Returns whether at least one garbage collector will notify us about its collections
+   */
+  private boolean subscribeToGarbageCollections() {
+    try {
+      for (final GarbageCollectorMXBean garbageCollectorBean : getGarbageCollectorBeans()) {
+        if (garbageCollectorBean instanceof NotificationEmitter) {
+          final NotificationEmitter emitter = (NotificationEmitter) garbageCollectorBean;
+          emitter.addNotificationListener(garbageCollectionListener,
+              new GarbageCollectionNotificationFilter(), null);
+          garbageCollectionEmitters.add(emitter);
+        }
+      }
+    } catch (final LinkageError ex) {
+      // The JVM does not ship com.sun.management.GarbageCollectionNotificationInfo
+      logger.debug("Garbage collection notifications are not supported by this JVM");
     }
+
+    return !garbageCollectionEmitters.isEmpty();
   }
 
   @Override
   protected void shutdown() {
+    if (memoryEmitter != null) {
+      try {
+        memoryEmitter.removeNotificationListener(usageThresholdListener);
+      } catch (final ListenerNotFoundException ex) {
+        // Nothing to do
+      } finally {
+        memoryEmitter = null;
+      }
+    }
+
+    for (final NotificationEmitter emitter : garbageCollectionEmitters) {
+      try {
+        emitter.removeNotificationListener(garbageCollectionListener);
+      } catch (final ListenerNotFoundException ex) {
+        // Nothing to do
+      }
+    }
+    garbageCollectionEmitters.clear();
+
     try {
       if (executorService != null) {
         executorService.shutdownNow();
@@ -113,6 +534,27 @@ class MBeanMonitor extends Monitor {
     } finally {
       executorService = null;
     }
+
+    // A heap dump in progress is completed, as interrupting it would leave a truncated file
+    if (heapDumpWorker != null) {
+      heapDumpWorker.shutdown();
+      heapDumpWorker = null;
+    }
+  }
+
+  // VisibleForTesting
+  HeapDumpWorker newHeapDumpWorker() {
+    return new HeapDumpWorker(new Callable<Boolean>() {
+      @Override
+      public Boolean call() throws Exception {
+        return triggerHeapDump();
+      }
+    }, new HeapDumpListener(), getClock());
+  }
+
+  // VisibleForTesting
+  Clock getClock() {
+    return Clock.SYSTEM;
   }
 
   // VisibleForTesting
@@ -120,50 +562,172 @@ class MBeanMonitor extends Monitor {
     return JavaVirtualMachine.Factory.INSTANCE.get(logger);
   }
 
+  // VisibleForTesting
+  List<MemoryPoolMXBean> getMemoryPoolBeans() {
+    return ManagementFactory.getMemoryPoolMXBeans();
+  }
+
+  // VisibleForTesting
+  List<GarbageCollectorMXBean> getGarbageCollectorBeans() {
+    return ManagementFactory.getGarbageCollectorMXBeans();
+  }
+
+  /*
+   * Returns null if the JVM does not notify about exceeded usage thresholds
+   */
+  // VisibleForTesting
+  NotificationEmitter getMemoryNotificationEmitter() {
+    final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    if (memoryBean instanceof NotificationEmitter) {
+      return (NotificationEmitter) memoryBean;
+    }
+
+    logger.warning("The JVM does not emit notifications about memory usage thresholds; "
+        + "memory conditions will be checked only based on the check interval");
+    return null;
+  }
+
+  /*
+   * Checks the garbage collection conditions against the memory usages after a garbage
+   * collection, on the check thread; see GarbageCollectionCheck
+   */
+  // VisibleForTesting
+  void checkAfterGarbageCollection(final Map<String, MemoryUsage> memoryUsagesAfterGc) {
+    garbageCollectionCheck.submit(memoryUsagesAfterGc);
+  }
+
   // VisibleForTesting
   void runChecks() {
-    final List<String> reasons = new LinkedList<>();
-    for (final UsageThresholdCondition condition : memoryPoolConditions) {
-      try {
-        condition.evaluate();
-      } catch (UsageThresholdCondition.UsageThresholdConditionViolatedException ex) {
-        reasons.add(ex.getMessage());
+    runChecks(Collections.<String, MemoryUsage>emptyMap());
+  }
+
+  /*
+   * The memory usages, keyed by memory pool name, take precedence over the current usage of
+   * the memory pools; used for evaluating conditions against the outcome of a garbage collection
+   */
+  // VisibleForTesting
+  void runChecks(final Map<String, MemoryUsage> memoryUsages) {
+    runChecks(memoryPoolConditions, memoryUsages);
+  }
+
+  private void runChecks(final List<UsageThresholdCondition<?>> conditions,
+                         final Map<String, MemoryUsage> reportedMemoryUsages) {
+    // All the conditions see the memory pools as they are at the beginning of the check
+    final Map<String, MemoryUsage> memoryUsages = snapshot.sample(reportedMemoryUsages);
+
+    // Left over if a previous check failed half-way
+    reasons.clear();
+    reports.clear();
+
+    for (int i = 0; i < conditions.size(); ++i) {
+      final UsageThresholdCondition<?> condition = conditions.get(i);
+      final Evaluation evaluation = condition.check(memoryUsages);
+      if (!evaluation.isViolated()) {
+        continue;
+      }
+
+      if (condition instanceof ReportOnlyCondition) {
+        reports.add(evaluation.getReason());
+      } else {
+        reasons.add(evaluation.getReason());
       }
     }
 
+    if (!reports.isEmpty()) {
+      final StringBuilder sb = new StringBuilder("Memory conditions violated (no heap dump is "
+          + "triggered for these):");
+      for (final CharSequence report : reports) {
+        sb.append("\n* ");
+        sb.append(report);
+      }
+      reports.clear();
+      logger.warning(sb);
+    }
+
     if (!reasons.isEmpty()) {
-      final StringBuilder sb = new StringBuilder("Heap dump triggered because:");
-      for (final String reason : reasons) {
+      // Rendered here, as the reasons are reused by the next check
+      final StringBuilder sb = new StringBuilder();
+      for (final CharSequence reason : reasons) {
         sb.append("\n* ");
         sb.append(reason);
       }
+      reasons.clear();
 
-      boolean printCause = true;
-      try {
-        printCause = triggerHeapDump();
-        if (!printCause) {
-          logger.warning("Cannot create heap dump due to maximum frequency restrictions");
-        }
-      } catch (final Exception ex) {
-        logger.error("Error while triggering heap dump", ex);
-      } finally {
-        if (printCause) {
-          logger.info(sb);
-        }
+      final HeapDumpWorker heapDumpWorker = this.heapDumpWorker;
+      if (heapDumpWorker == null) {
+        logger.warning("Heap dump not triggered, as the agent is stopped; it was requested "
+            + "because:%s", sb);
+        return;
       }
+
+      heapDumpWorker.submit(sb.toString());
+    }
+  }
+
+  /*
+   * Logs the outcome of the heap dumps, which are created while the checks keep running
+   */
+  private class HeapDumpListener implements HeapDumpWorker.Listener {
+
+    @Override
+    public void onCoalesced(final HeapDumpWorker.Request request, final CharSequence causes) {
+      logger.info("Heap dump requested while another one is in progress or waiting; coalesced "
+          + "with %d earlier request(s) into the waiting heap dump because:%s",
+          request.getCount() - 1, causes);
+    }
+
+    @Override
+    public void onRejected(final HeapDumpWorker.Request request) {
+      logger.warning("Heap dump not triggered, as the agent is stopped; it was requested "
+          + "because:%s", request.getCauses());
+    }
+
+    @Override
+    public void onStarted(final HeapDumpWorker.Request request) {
+      logger.debug("Starting heap dump requested %d millisecond(s) ago by %d check(s); checks "
+              + "go on meanwhile", getClock().getMillis() - request.getRequestedAtMillis(),
+          request.getCount());
+    }
+
+    @Override
+    public void onCompleted(final HeapDumpWorker.Request request, final long durationInMillis) {
+      logger.info("Heap dump triggered because:%s", request.getCauses());
+      logger.debug("Heap dump done in %d millisecond(s)", durationInMillis);
+    }
+
+    @Override
+    public void onSkipped(final HeapDumpWorker.Request request) {
+      logger.warning("Cannot create heap dump due to maximum frequency restrictions");
+    }
+
+    @Override
+    public void onFailed(final HeapDumpWorker.Request request, final Exception ex) {
+      logger.error("Error while triggering heap dump", ex);
+      logger.info("Heap dump triggered because:%s", request.getCauses());
     }
+
   }
 
   private class HeapDumpCheck implements Runnable {
 
+    private final List<UsageThresholdCondition<?>> conditions;
+
+    private final Map<String, MemoryUsage> memoryUsages;
+
+    private HeapDumpCheck(final List<UsageThresholdCondition<?>> conditions,
+                          final Map<String, MemoryUsage> memoryUsages) {
+      this.conditions = conditions;
+      this.memoryUsages = memoryUsages;
+    }
+
     @Override
     public void run() {
       try {
-        logger.debug("Starting check of thresholds for configured memory pools");
+        logger.debug("Starting check of thresholds for configured memory pools", NO_ARGUMENTS);
 
-        runChecks();
+        runChecks(conditions, memoryUsages);
 
-        logger.debug("Check of thresholds for configured memory pools done");
+        logger.debug("Check of thresholds for configured memory pools done", NO_ARGUMENTS);
       } catch (final Throwable th) {
         logger.error("An error occurred while running memory pools usage checks", th);
 
@@ -175,4 +739,241 @@ class MBeanMonitor extends Monitor {
 
   }
 
+  /*
+   * The conditions that are checked at the same interval: either the conditions without an
+   * interval of their own, at the adaptive check interval of the agent, or the ones with the
+   * same interval of their own
+   */
+  private static final class CheckGroup {
+
+    private final List<UsageThresholdCondition<?>> conditions = new ArrayList<>();
+
+    private final AdaptiveCheckInterval checkInterval;
+
+    private final TimerWheel.Timeout<CheckGroup> timeout;
+
+    private CheckGroup(final AdaptiveCheckInterval checkInterval,
+                       final TimerWheel<CheckGroup> wheel) {
+      this.checkInterval = checkInterval;
+      this.timeout = wheel.newTimeout(this);
+    }
+
+    private double getProximity() {
+      double proximity = 0d;
+      for (int i = 0; i < conditions.size(); ++i) {
+        proximity = Math.max(proximity, conditions.get(i).getProximity());
+      }
+      return proximity;
+    }
+
+  }
+
+  /*
+   * Drives the check groups on a timer wheel: wakes up at the earliest deadline of the wheel,
+   * checks the conditions of all the groups that are due against one snapshot, and reschedules
+   * them, each with its own delay; the default group's delay is based on how close its conditions
+   * have been to being violated. Expensive conditions with a long interval of their own are thus
+   * not evaluated at the checks of the cheap ones. Checks finding nothing allocate nothing but
+   * the wake-up task of the executor.
+   */
+  private class PeriodicHeapDumpCheck implements Runnable {
+
+    private final TimerWheel<CheckGroup> wheel;
+
+    private final List<CheckGroup> dueGroups = new ArrayList<>();
+
+    private final List<UsageThresholdCondition<?>> dueConditions = new ArrayList<>();
+
+    private final HeapDumpCheck heapDumpCheck =
+        new HeapDumpCheck(dueConditions, Collections.<String, MemoryUsage>emptyMap());
+
+    private PeriodicHeapDumpCheck(final TimerWheel<CheckGroup> wheel) {
+      this.wheel = wheel;
+    }
+
+    @Override
+    public void run() {
+      dueGroups.clear();
+      dueConditions.clear();
+      /*
+       * The executor wakes up at the earliest deadline, but the clock may lag behind the clock of
+       * the executor
+       */
+      wheel.expire(Math.max(getClock().getMillis(), wheel.getNextDeadline()), dueGroups);
+      for (int i = 0; i < dueGroups.size(); ++i) {
+        final List<UsageThresholdCondition<?>> conditions = dueGroups.get(i).conditions;
+        for (int j = 0; j < conditions.size(); ++j) {
+          dueConditions.add(conditions.get(j));
+        }
+      }
+
+      if (!dueConditions.isEmpty()) {
+        heapDumpCheck.run();
+      }
+
+      final ScheduledExecutorService executorService = MBeanMonitor.this.executorService;
+      if (executorService == null || dueGroups.isEmpty()) {
+        return;
+      }
+
+      final long now = getClock().getMillis();
+      for (int i = 0; i < dueGroups.size(); ++i) {
+        final CheckGroup checkGroup = dueGroups.get(i);
+        final long delayInMillis = checkGroup.checkInterval.next(checkGroup.getProximity(), now);
+        if (checkGroup.checkInterval.isAdaptive() && logger.isDebugEnabled()) {
+          logger.debug("Next check in %d milliseconds", delayInMillis);
+        }
+        wheel.schedule(checkGroup.timeout, now + delayInMillis);
+      }
+
+      // Wakes up only at the earliest deadline, so idle groups do not keep the thread busy
+      try {
+        executorService.schedule(this, Math.max(0L, wheel.getNextDeadline() - now),
+            TimeUnit.MILLISECONDS);
+      } catch (final RejectedExecutionException ex) {
+        // Shutting down
+      }
+    }
+  }
+
+  /*
+   * Hands the memory usage after each garbage collection over to the check thread, so that
+   * the thread delivering the notifications is never blocked by checks or heap dumps
+   */
+  private class GarbageCollectionListener implements NotificationListener {
+
+    @Override
+    public void handleNotification(final Notification notification, final Object handback) {
+      final ScheduledExecutorService executorService = MBeanMonitor.this.executorService;
+      if (executorService == null) {
+        return;
+      }
+
+      final GarbageCollectionNotificationInfo info =
+          GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+      final GcInfo gcInfo = info.getGcInfo();
+
+      logger.debug("Garbage collection '%s' (%s, cause: %s) completed in %d milliseconds",
+          info.getGcName(), info.getGcAction(), info.getGcCause(), gcInfo.getDuration());
+
+      checkAfterGarbageCollection(gcInfo.getMemoryUsageAfterGc());
+    }
+
+  }
+
+  /*
+   * At most one check after garbage collections is pending on the check thread: the usages
+   * reported by the garbage collections that occur meanwhile, e.g., a burst of young
+   * collections, are merged into it, the latest usage of each memory pool winning
+   */
+  private class GarbageCollectionCheck implements Runnable {
+
+    private final AtomicBoolean isPending = new AtomicBoolean();
+
+    private final ConcurrentMap<String, MemoryUsage> reportedMemoryUsages =
+        new ConcurrentHashMap<>();
+
+    // Accessed on the check thread only
+    private final Map<String, MemoryUsage> memoryUsages = new HashMap<>();
+
+    private final HeapDumpCheck heapDumpCheck =
+        new HeapDumpCheck(garbageCollectionConditions, memoryUsages);
+
+    private void submit(final Map<String, MemoryUsage> memoryUsagesAfterGc) {
+      final ScheduledExecutorService executorService = MBeanMonitor.this.executorService;
+      if (executorService == null) {
+        return;
+      }
+
+      reportedMemoryUsages.putAll(memoryUsagesAfterGc);
+
+      if (!isPending.compareAndSet(false, true)) {
+        return;
+      }
+
+      try {
+        executorService.execute(this);
+      } catch (final RejectedExecutionException ex) {
+        // Shutting down
+        isPending.set(false);
+      }
+    }
+
+    @Override
+    public void run() {
+      // Cleared first, so that the usages reported from now on trigger one more check
+      isPending.set(false);
+
+      memoryUsages.clear();
+      for (final Map.Entry<String, MemoryUsage> entry : reportedMemoryUsages.entrySet()) {
+        memoryUsages.put(entry.getKey(), entry.getValue());
+        // A usage reported meanwhile is left for the next check
+        reportedMemoryUsages.remove(entry.getKey(), entry.getValue());
+      }
+
+      heapDumpCheck.run();
+    }
+
+  }
+
+  private static class GarbageCollectionNotificationFilter implements NotificationFilter {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public boolean isNotificationEnabled(final Notification notification) {
+      return GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION
+          .equals(notification.getType());
+    }
+
+  }
+
+  /*
+   * The usage reported in the notification is used to confirm the violation of the conditions,
+   * which may be stricter than the usage thresholds they have been translated into
+   */
+  private class UsageThresholdListener implements NotificationListener {
+
+    @Override
+    public void handleNotification(final Notification notification, final Object handback) {
+      final ScheduledExecutorService executorService = MBeanMonitor.this.executorService;
+      if (executorService == null) {
+        return;
+      }
+
+      final MemoryNotificationInfo info =
+          MemoryNotificationInfo.from((CompositeData) notification.getUserData());
+
+      if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED
+          .equals(notification.getType())) {
+        logger.debug("Collection usage threshold of memory pool '%s' exceeded (%d times so far)",
+            info.getPoolName(), info.getCount());
+      } else {
+        logger.debug("Usage threshold of memory pool '%s' exceeded (%d times so far)",
+            info.getPoolName(), info.getCount());
+      }
+
+      try {
+        executorService.execute(new HeapDumpCheck(usageThresholdConditions,
+            Collections.singletonMap(info.getPoolName(), info.getUsage())));
+      } catch (final RejectedExecutionException ex) {
+        // Shutting down
+      }
+    }
+
+  }
+
+  private static class UsageThresholdNotificationFilter implements NotificationFilter {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public boolean isNotificationEnabled(final Notification notification) {
+      final String type = notification.getType();
+      return MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(type)
+          || MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type);
+    }
+
+  }
+
 }
@@ -11,6 +11,7 @@ import com.sap.jma.configuration.Comparison;
 import com.sap.jma.configuration.MemorySizeUnit;
 import com.sap.jma.logging.Logger;
 import com.sap.jma.vms.MemoryPool;
+import java.lang.management.MemoryUsage;
 
 public class AbsoluteUsageThresholdCondition extends
     AbstractUsageThresholdCondition<AbsoluteUsageThresholdConfiguration> {
@@ -29,19 +30,36 @@ public class AbsoluteUsageThresholdCondition extends
     super(configuration, memoryPool, logger);
   }
 
-  public final void evaluate() throws UsageThresholdConditionViolatedException {
+  @Override
+  protected final void evaluate(final MemoryUsage memoryUsage) {
     final AbsoluteUsageThresholdConfiguration usageThreshold = getUsageThresholdConfiguration();
-    final double currentUsageInBytes = memoryPool.getMemoryUsage().getUsed();
+    final double currentUsageInBytes = memoryUsage.getUsed();
     final double targetUsageInBytes = usageThreshold.getTargetValueInBytes();
     final MemorySizeUnit memorySizeUnit = usageThreshold.getMemorySizeUnit();
     final Comparison comparison = usageThreshold.getComparison();
 
+    setProximity(getProximity(currentUsageInBytes, targetUsageInBytes, comparison));
+
     if (comparison.compare(currentUsageInBytes, targetUsageInBytes)) {
-      throw new UsageThresholdConditionViolatedException(
+      violated(
           getDescription(currentUsageInBytes, targetUsageInBytes, memorySizeUnit, comparison));
     }
   }
 
+  private static double getProximity(final double actualUsage,
+                                     final double targetUsage,
+                                     final Comparison comparison) {
+    switch (comparison) {
+      case SMALLER_THAN:
+      case SMALLER_THAN_OR_EQUAL_TO:
+        return actualUsage == 0d ? 1d : targetUsage / actualUsage;
+      case EQUAL_TO:
+        return Math.min(targetUsage / actualUsage, actualUsage / targetUsage);
+      default:
+        return targetUsage == 0d ? 1d : actualUsage / targetUsage;
+    }
+  }
+
   private String getDescription(final double actualUsage,
                                 final double targetUsage,
                                 final MemorySizeUnit memorySize,
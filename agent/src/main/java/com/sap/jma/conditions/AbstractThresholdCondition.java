@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import com.sap.jma.configuration.Debouncing;
+import com.sap.jma.configuration.ThresholdConfiguration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import java.lang.management.MemoryUsage;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+ * Base class of all conditions, including the ones that are not about the usage of a particular
+ * memory pool (e.g., the allocation rate of the JVM).
+ *
+ * Subclasses report a violation by invoking violated from doEvaluate; this class debounces it
+ * according to the configuration: the violation is passed on only once the threshold has been
+ * violated at enough consecutive checks, or for long enough, and, if the configuration re-arms the
+ * condition (or the condition is reported once), no further violation is passed on until the
+ * proximity has dropped below the re-arm ratio.
+ */
+abstract class AbstractThresholdCondition<C extends ThresholdConfiguration>
+    implements UsageThresholdCondition<C> {
+
+  static final DecimalFormat DECIMAL_FORMAT =
+      new DecimalFormat("#.##", DecimalFormatSymbols.getInstance(Locale.US));
+
+  /*
+   * Passed explicitly to the varargs of the logger, which would otherwise allocate an empty array
+   * at each invocation
+   */
+  static final Object[] NO_ARGUMENTS = new Object[0];
+
+  private final C configuration;
+  protected final Logger logger;
+
+  private final Debouncing debouncing;
+
+  private final Evaluation evaluation = new Evaluation();
+
+  private volatile double proximity;
+
+  private int consecutiveViolations;
+
+  private long violatedSince = -1L;
+
+  private boolean armed = true;
+
+  protected AbstractThresholdCondition(final C configuration, final Logger logger) {
+    this.configuration = configuration;
+    this.logger = logger;
+    this.debouncing = configuration == null || configuration.getDebouncing() == null
+        ? Debouncing.NONE : configuration.getDebouncing();
+  }
+
+  protected abstract String describe();
+
+  protected abstract void doEvaluate();
+
+  protected abstract void doEvaluate(Map<String, MemoryUsage> memoryUsages);
+
+  // VisibleForTesting
+  protected Clock getClock() {
+    return Clock.SYSTEM;
+  }
+
+  /*
+   * To be invoked by subclasses from doEvaluate when the threshold is violated; the reason may
+   * be rendered lazily, as it is read only if the violation is reported or logged
+   */
+  protected final void violated(final CharSequence reason) {
+    evaluation.violate(reason);
+  }
+
+  @Override
+  public final Evaluation check(final Map<String, MemoryUsage> memoryUsages) {
+    evaluation.clear();
+
+    if (memoryUsages.isEmpty()) {
+      doEvaluate();
+    } else {
+      doEvaluate(memoryUsages);
+    }
+
+    if (evaluation.isViolated()) {
+      debounce();
+    } else {
+      reset();
+    }
+
+    return evaluation;
+  }
+
+  /*
+   * Whether a violation is reported only once, until the threshold is no longer exceeded, even
+   * if the configuration does not re-arm the condition
+   */
+  protected boolean isReportedOnce() {
+    return false;
+  }
+
+  /*
+   * Whether the next violation will be reported; subclasses can use it to skip collecting
+   * expensive details about violations that are not
+   */
+  protected final boolean isArmed() {
+    return armed;
+  }
+
+  /*
+   * Withdraws the violation from the evaluation unless it is to be reported
+   */
+  private void debounce() {
+    if (consecutiveViolations < Integer.MAX_VALUE) {
+      ++consecutiveViolations;
+    }
+
+    // The clock is read only when needed, as tests count on the readings of the subclasses
+    long violatedForMillis = 0L;
+    if (debouncing.getRequiredDurationInMillis() > 0) {
+      final long now = getClock().getMillis();
+      if (violatedSince < 0) {
+        violatedSince = now;
+      }
+      violatedForMillis = now - violatedSince;
+    }
+
+    final CharSequence reason = evaluation.getReason();
+
+    if (!armed) {
+      evaluation.clear();
+      logger.debug("%s; already reported", reason);
+      return;
+    }
+
+    if (consecutiveViolations < debouncing.getRequiredSamples()
+        || violatedForMillis < debouncing.getRequiredDurationInMillis()) {
+      evaluation.clear();
+      logger.debug("%s; violated at %d consecutive check(s) over %d milliseconds, not reported "
+          + "before violated %s", reason, consecutiveViolations, violatedForMillis, debouncing);
+      return;
+    }
+
+    if (debouncing.isRearming() || isReportedOnce()) {
+      armed = false;
+    }
+  }
+
+  private void reset() {
+    consecutiveViolations = 0;
+    violatedSince = -1L;
+
+    final double rearmRatio = debouncing.isRearming() ? debouncing.getRearmRatio() : 1d;
+    if (!armed && proximity < rearmRatio) {
+      armed = true;
+      logger.debug("%s re-armed", describe());
+    }
+  }
+
+  @Override
+  public final double getProximity() {
+    return proximity;
+  }
+
+  /*
+   * To be invoked by subclasses while evaluating; values outside [0, 1] are capped
+   */
+  protected final void setProximity(final double proximity) {
+    if (Double.isNaN(proximity) || proximity < 0d) {
+      this.proximity = 0d;
+    } else {
+      this.proximity = Math.min(proximity, 1d);
+    }
+  }
+
+  public final C getUsageThresholdConfiguration() {
+    return configuration;
+  }
+
+  public final String toString() {
+    return describe();
+  }
+
+}
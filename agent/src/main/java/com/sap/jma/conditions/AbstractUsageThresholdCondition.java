@@ -9,40 +9,45 @@ package com.sap.jma.conditions;
 import com.sap.jma.configuration.UsageThresholdConfiguration;
 import com.sap.jma.logging.Logger;
 import com.sap.jma.vms.MemoryPool;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.util.Locale;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
 
 abstract class AbstractUsageThresholdCondition<C extends UsageThresholdConfiguration>
-    implements UsageThresholdCondition<C> {
+    extends AbstractThresholdCondition<C> {
 
-  static final DecimalFormat DECIMAL_FORMAT =
-      new DecimalFormat("#.##", DecimalFormatSymbols.getInstance(Locale.US));
-
-  private final C configuration;
   protected final MemoryPool memoryPool;
-  protected final Logger logger;
 
   protected AbstractUsageThresholdCondition(final C configuration,
                                             final MemoryPool memoryPool,
                                             final Logger logger) {
-    this.configuration = configuration;
+    super(configuration, logger);
     this.memoryPool = memoryPool;
-    this.logger = logger;
   }
 
-  protected abstract String describe();
+  protected abstract void evaluate(MemoryUsage memoryUsage);
 
-  protected final String getMemoryPoolName() {
-    return memoryPool.getName();
+  @Override
+  protected final void doEvaluate() {
+    evaluate(memoryPool.getMemoryUsage());
   }
 
-  public final C getUsageThresholdConfiguration() {
-    return configuration;
+  @Override
+  protected final void doEvaluate(final Map<String, MemoryUsage> memoryUsages) {
+    evaluate(memoryPool.getMemoryUsage(memoryUsages));
+  }
+
+  protected final String getMemoryPoolName() {
+    return memoryPool.getName();
   }
 
-  public final String toString() {
-    return describe();
+  /*
+   * The maximum of the memory pool, or its committed memory if the maximum is undefined, like
+   * for the eden and survivor spaces of G1 or the heap of some collectors, so that relative
+   * thresholds are about how much of the committed memory is used; less than 1 if neither is
+   * known, in which case relative thresholds cannot be evaluated
+   */
+  protected static long getDefinedMax(final MemoryUsage memoryUsage) {
+    return memoryUsage.getMax() >= 0 ? memoryUsage.getMax() : memoryUsage.getCommitted();
   }
 
 }
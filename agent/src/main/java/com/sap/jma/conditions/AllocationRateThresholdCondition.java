@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import com.sap.jma.configuration.AllocationRateThresholdConfiguration;
+import com.sap.jma.configuration.MemorySizeUnit;
+import com.sap.jma.logging.Logger;
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
+import java.util.Map;
+
+/*
+ * The allocation rate is computed from the bytes allocated by each live thread since the previous
+ * evaluation; the allocations of threads that terminated in between are lost, so the rate is
+ * slightly underestimated when threads come and go quickly
+ */
+public class AllocationRateThresholdCondition
+    extends AbstractThresholdCondition<AllocationRateThresholdConfiguration> {
+
+  private final ThreadMXBean threadBean;
+
+  private final long timeFrameInMillis = getUsageThresholdConfiguration().getTimeUnit()
+      .toMilliSeconds(getUsageThresholdConfiguration().getTimeFrame());
+
+  // Sorted by thread id
+  private long[] lastThreadIds;
+
+  private long[] lastAllocatedBytes;
+
+  private long lastTimestamp;
+
+  private long exceededSince = -1L;
+
+  private final Description description = new Description();
+
+  public AllocationRateThresholdCondition(
+      final AllocationRateThresholdConfiguration configuration) {
+    this(configuration, getThreadBean(),
+        Logger.Factory.get(AllocationRateThresholdCondition.class));
+  }
+
+  // VisibleForTesting
+  AllocationRateThresholdCondition(final AllocationRateThresholdConfiguration configuration,
+                                   final ThreadMXBean threadBean,
+                                   final Logger logger) {
+    super(configuration, logger);
+    this.threadBean = threadBean;
+  }
+
+  private static ThreadMXBean getThreadBean() throws IllegalArgumentException {
+    final java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    if (!(threadBean instanceof ThreadMXBean)
+        || !((ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+      throw new IllegalArgumentException("The JVM does not measure the memory allocated by "
+          + "threads, which is needed to compute the allocation rate");
+    }
+
+    final ThreadMXBean allocationBean = (ThreadMXBean) threadBean;
+    if (!allocationBean.isThreadAllocatedMemoryEnabled()) {
+      allocationBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    return allocationBean;
+  }
+
+  @Override
+  protected void doEvaluate() {
+    final long now = getClock().getMillis();
+    final long[] threadIds = threadBean.getAllThreadIds();
+    Arrays.sort(threadIds);
+    final long[] allocatedBytes = threadBean.getThreadAllocatedBytes(threadIds);
+
+    final long[] previousThreadIds = lastThreadIds;
+    final long[] previousAllocatedBytes = lastAllocatedBytes;
+    final long previousTimestamp = lastTimestamp;
+
+    lastThreadIds = threadIds;
+    lastAllocatedBytes = allocatedBytes;
+    lastTimestamp = now;
+
+    if (previousThreadIds == null) {
+      logger.debug("First measurement of the allocation rate");
+      return;
+    }
+
+    final long elapsedMillis = now - previousTimestamp;
+    if (elapsedMillis < 1) {
+      return;
+    }
+
+    final AllocationRateThresholdConfiguration configuration = getUsageThresholdConfiguration();
+    final double rateInBytesPerSecond = getAllocatedBytes(previousThreadIds,
+        previousAllocatedBytes, threadIds, allocatedBytes) * 1000d / elapsedMillis;
+
+    setProximity(rateInBytesPerSecond / configuration.getRateInBytesPerSecond());
+
+    description.rateInBytesPerSecond = rateInBytesPerSecond;
+    if (rateInBytesPerSecond <= configuration.getRateInBytesPerSecond()) {
+      exceededSince = -1L;
+      description.exceededForMillis = -1L;
+      if (logger.isDebugEnabled()) {
+        logger.debug(description, NO_ARGUMENTS);
+      }
+      return;
+    }
+
+    if (exceededSince < 0) {
+      // The rate has been measured since the previous evaluation
+      exceededSince = previousTimestamp;
+    }
+
+    final long exceededForMillis = now - exceededSince;
+    description.exceededForMillis = exceededForMillis;
+    if (exceededForMillis >= timeFrameInMillis) {
+      violated(description);
+      return;
+    }
+
+    if (logger.isDebugEnabled()) {
+      logger.debug(description, NO_ARGUMENTS);
+    }
+  }
+
+  /*
+   * The allocation rate is JVM-wide, so the memory usages are irrelevant
+   */
+  @Override
+  protected void doEvaluate(final Map<String, MemoryUsage> memoryUsages) {
+    doEvaluate();
+  }
+
+  /*
+   * Merges the two sorted lists of thread ids: threads found in both contribute the difference
+   * of their allocated bytes, new threads all of their allocated bytes; the JVM reports -1 for
+   * threads that terminated in the meantime
+   */
+  // VisibleForTesting
+  static long getAllocatedBytes(final long[] previousThreadIds,
+                                final long[] previousAllocatedBytes,
+                                final long[] threadIds,
+                                final long[] allocatedBytes) {
+    long result = 0L;
+    int previous = 0;
+    for (int current = 0; current < threadIds.length; ++current) {
+      if (allocatedBytes[current] < 0) {
+        continue;
+      }
+
+      while (previous < previousThreadIds.length
+          && previousThreadIds[previous] < threadIds[current]) {
+        ++previous;
+      }
+
+      if (previous < previousThreadIds.length
+          && previousThreadIds[previous] == threadIds[current]
+          && previousAllocatedBytes[previous] >= 0) {
+        result += Math.max(0L, allocatedBytes[current] - previousAllocatedBytes[previous]);
+      } else {
+        result += allocatedBytes[current];
+      }
+    }
+
+    return result;
+  }
+
+  private String format(final double rateInBytesPerSecond) {
+    final MemorySizeUnit memorySizeUnit = getUsageThresholdConfiguration().getMemorySizeUnit();
+    return DECIMAL_FORMAT.format(rateInBytesPerSecond / memorySizeUnit.toBytes(1d))
+        + memorySizeUnit.getLiteral() + "/s";
+  }
+
+  @Override
+  protected String describe() {
+    final AllocationRateThresholdConfiguration configuration = getUsageThresholdConfiguration();
+    return String.format("JVM allocation rate above %s for %s%s",
+        format(configuration.getRateInBytesPerSecond()),
+        DECIMAL_FORMAT.format(configuration.getTimeFrame()),
+        configuration.getTimeUnit().getLiteral());
+  }
+
+  /*
+   * Either the rate below the threshold, or the rate above it since the given time, if any
+   */
+  private final class Description extends LazyDescription {
+
+    private double rateInBytesPerSecond;
+
+    private long exceededForMillis = -1L;
+
+    @Override
+    public String toString() {
+      final AllocationRateThresholdConfiguration configuration =
+          getUsageThresholdConfiguration();
+      if (exceededForMillis < 0) {
+        return String.format("JVM allocation rate at %s, configured threshold is %s",
+            format(rateInBytesPerSecond), format(configuration.getRateInBytesPerSecond()));
+      }
+
+      return String.format("JVM allocation rate at %s, above the configured threshold of %s "
+              + "for the last %s%s", format(rateInBytesPerSecond),
+          format(configuration.getRateInBytesPerSecond()),
+          DECIMAL_FORMAT.format(configuration.getTimeUnit().fromMilliseconds(exceededForMillis)),
+          configuration.getTimeUnit().getLiteral());
+    }
+
+  }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import com.sap.jma.configuration.ClassHistogramThresholdConfiguration;
+import com.sap.jma.configuration.MemorySizeUnit;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.vms.ClassHistogram;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+
+/*
+ * Known leak suspects, e.g., sessions or cache entries, are watched through the class histogram,
+ * which counts the live instances of each class in a fraction of the time and none of the disk
+ * space of a heap dump; the histogram is shared by all the conditions on classes.
+ */
+public class ClassHistogramThresholdCondition
+    extends AbstractThresholdCondition<ClassHistogramThresholdConfiguration> {
+
+  private final ClassHistogram classHistogram;
+
+  private final int patternIndex;
+
+  private long previousInstances = -1L;
+
+  private final Description description = new Description();
+
+  public ClassHistogramThresholdCondition(
+      final ClassHistogramThresholdConfiguration configuration,
+      final ClassHistogram classHistogram) {
+    this(configuration, classHistogram,
+        Logger.Factory.get(ClassHistogramThresholdCondition.class));
+  }
+
+  // VisibleForTesting
+  ClassHistogramThresholdCondition(final ClassHistogramThresholdConfiguration configuration,
+                                   final ClassHistogram classHistogram,
+                                   final Logger logger) {
+    super(configuration, logger);
+    this.classHistogram = classHistogram;
+    this.patternIndex = classHistogram.register(configuration.getClassPattern());
+  }
+
+  @Override
+  protected void doEvaluate() {
+    final ClassHistogramThresholdConfiguration configuration = getUsageThresholdConfiguration();
+
+    final long instances = classHistogram.getInstances(patternIndex);
+    final long bytes = classHistogram.getBytes(patternIndex);
+    if (instances < 0) {
+      // The class histogram has already logged why
+      return;
+    }
+
+    description.instances = instances;
+    description.bytes = bytes;
+
+    final boolean exceeded;
+    switch (configuration.getKind()) {
+      case INSTANCES:
+        exceeded = instances > configuration.getValue();
+        setProximity(instances / configuration.getValue());
+        break;
+      case BYTES:
+        exceeded = bytes > configuration.getValue();
+        setProximity(bytes / configuration.getValue());
+        break;
+      default:
+        final long previous = previousInstances;
+        previousInstances = instances;
+        if (previous < 0) {
+          if (logger.isDebugEnabled()) {
+            logger.debug("First sample of the live instances of %s", getSubject());
+          }
+          return;
+        }
+
+        final double growth = previous == 0L
+            ? (instances > 0L ? Double.POSITIVE_INFINITY : 0d)
+            : (instances - previous) * 100d / previous;
+        exceeded = growth > configuration.getValue();
+        setProximity(growth / configuration.getValue());
+        description.previousInstances = previous;
+        description.growth = growth;
+    }
+
+    if (exceeded) {
+      violated(description);
+      return;
+    }
+
+    logger.debug(description, NO_ARGUMENTS);
+  }
+
+  /*
+   * The class histogram is about the heap as a whole, so the memory usages are irrelevant
+   */
+  @Override
+  protected void doEvaluate(final Map<String, MemoryUsage> memoryUsages) {
+    doEvaluate();
+  }
+
+  private String getSubject() {
+    final String classPattern = getUsageThresholdConfiguration().getClassPattern();
+    return classPattern.endsWith(ClassHistogram.PACKAGE_WILDCARD)
+        ? "the classes '" + classPattern + "'" : "the class '" + classPattern + "'";
+  }
+
+  private static String formatBytes(final double bytes, final MemorySizeUnit memorySizeUnit) {
+    return DECIMAL_FORMAT.format(memorySizeUnit.fromBytes(bytes)) + memorySizeUnit.getLiteral();
+  }
+
+  @Override
+  protected String describe() {
+    final ClassHistogramThresholdConfiguration configuration = getUsageThresholdConfiguration();
+    switch (configuration.getKind()) {
+      case INSTANCES:
+        return String.format("Live instances of %s above %d", getSubject(),
+            (long) configuration.getValue());
+      case BYTES:
+        return String.format("Live instances of %s above %s", getSubject(),
+            formatBytes(configuration.getValue(), configuration.getMemorySizeUnit()));
+      default:
+        return String.format("Live instances of %s growing by more than %s%% between class "
+            + "histograms", getSubject(), DECIMAL_FORMAT.format(configuration.getValue()));
+    }
+  }
+
+  private final class Description extends LazyDescription {
+
+    private long instances;
+
+    private long bytes;
+
+    private long previousInstances;
+
+    private double growth;
+
+    @Override
+    public String toString() {
+      final ClassHistogramThresholdConfiguration configuration =
+          getUsageThresholdConfiguration();
+      switch (configuration.getKind()) {
+        case INSTANCES:
+          return String.format("Live instances of %s at %d (%s), configured threshold is %d",
+              getSubject(), instances, formatBytes(bytes, MemorySizeUnit.MEGABYTE),
+              (long) configuration.getValue());
+        case BYTES:
+          final MemorySizeUnit memorySizeUnit = configuration.getMemorySizeUnit();
+          return String.format("Live instances of %s at %s (%d instances), configured "
+                  + "threshold is %s", getSubject(), formatBytes(bytes, memorySizeUnit),
+              instances, formatBytes(configuration.getValue(), memorySizeUnit));
+        default:
+          return String.format("Live instances of %s grew by %s%% since the previous class "
+                  + "histogram (from %d to %d), configured threshold is +%s%%", getSubject(),
+              DECIMAL_FORMAT.format(growth), previousInstances, instances,
+              DECIMAL_FORMAT.format(configuration.getValue()));
+      }
+    }
+
+  }
+
+}
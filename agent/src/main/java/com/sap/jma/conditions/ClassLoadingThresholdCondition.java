@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import com.sap.jma.configuration.ClassLoadingThresholdConfiguration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.utils.SlidingTimeSeries;
+import com.sap.jma.vms.ClassLoaderStatistics;
+import com.sap.jma.vms.ClassLoaderStatistics.ClassLoaderType;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * The rate is computed from the counters of ClassLoadingMXBean over a sliding time-frame. A heap
+ * dump does not tell which class loaders fill the metaspace, so the violation is reported in the
+ * log together with the class loaders ranked by metaspace usage, which are only collected when
+ * the threshold is exceeded. The violation is reported once, until the threshold is no longer
+ * exceeded.
+ */
+public class ClassLoadingThresholdCondition
+    extends AbstractThresholdCondition<ClassLoadingThresholdConfiguration>
+    implements ReportOnlyCondition {
+
+  // VisibleForTesting
+  static final int MAX_REPORTED_CLASS_LOADER_TYPES = 5;
+
+  // VisibleForTesting
+  final SlidingTimeSeries measurements = new SlidingTimeSeries(getUsageThresholdConfiguration()
+      .getTimeUnit().toMilliSeconds(getUsageThresholdConfiguration().getTimeFrame()));
+
+  private final ClassLoadingMXBean classLoadingBean;
+
+  private final ClassLoaderStatistics classLoaderStatistics;
+
+  public ClassLoadingThresholdCondition(final ClassLoadingThresholdConfiguration configuration) {
+    this(configuration, ManagementFactory.getClassLoadingMXBean(),
+        ClassLoaderStatistics.create(),
+        Logger.Factory.get(ClassLoadingThresholdCondition.class));
+  }
+
+  // VisibleForTesting
+  ClassLoadingThresholdCondition(final ClassLoadingThresholdConfiguration configuration,
+                                 final ClassLoadingMXBean classLoadingBean,
+                                 final ClassLoaderStatistics classLoaderStatistics,
+                                 final Logger logger) {
+    super(configuration, logger);
+    this.classLoadingBean = classLoadingBean;
+    this.classLoaderStatistics = classLoaderStatistics;
+  }
+
+  private long getClassCount() {
+    switch (getUsageThresholdConfiguration().getKind()) {
+      case LOADED:
+        return classLoadingBean.getTotalLoadedClassCount();
+      case UNLOADED:
+        return classLoadingBean.getUnloadedClassCount();
+      default:
+        return classLoadingBean.getTotalLoadedClassCount()
+            - classLoadingBean.getUnloadedClassCount();
+    }
+  }
+
+  @Override
+  protected void doEvaluate() {
+    final long now = getClock().getMillis();
+    final long classCount = getClassCount();
+
+    if (measurements.isEmpty()) {
+      measurements.add(now, classCount);
+      logger.debug("First measurement of the class loading rate");
+      return;
+    }
+
+    measurements.slide(now, classCount);
+
+    final long elapsedMillis = now - measurements.getFirstTimestamp();
+    if (elapsedMillis < 1) {
+      return;
+    }
+
+    final ClassLoadingThresholdConfiguration configuration = getUsageThresholdConfiguration();
+    final double classesPerSecond =
+        (classCount - measurements.getFirstValue()) * 1000d / elapsedMillis;
+
+    setProximity(classesPerSecond / configuration.getClassesPerSecond());
+
+    final String description = String.format("Classes %s at %s/s over the last %s%s, "
+            + "configured threshold is %s/s", configuration.getKind().getLiteral(),
+        DECIMAL_FORMAT.format(classesPerSecond),
+        DECIMAL_FORMAT.format(configuration.getTimeUnit().fromMilliseconds(elapsedMillis)),
+        configuration.getTimeUnit().getLiteral(),
+        DECIMAL_FORMAT.format(configuration.getClassesPerSecond()));
+
+    if (classesPerSecond <= configuration.getClassesPerSecond()
+        || elapsedMillis < measurements.getTimeFrameInMillis()) {
+      logger.debug(description);
+      return;
+    }
+
+    // Collecting the details is expensive, and pointless for a violation that is not reported
+    if (!isArmed()) {
+      logger.debug("%s; already reported", description);
+      return;
+    }
+
+    violated(description + describeClassLoaders());
+  }
+
+  /*
+   * Class loading is JVM-wide, so the memory usages are irrelevant
+   */
+  @Override
+  protected void doEvaluate(final Map<String, MemoryUsage> memoryUsages) {
+    doEvaluate();
+  }
+
+  private String describeClassLoaders() {
+    final List<ClassLoaderType> classLoaderTypes;
+    try {
+      classLoaderTypes = classLoaderStatistics.getClassLoaderTypes();
+    } catch (final RuntimeException ex) {
+      logger.error("Cannot collect the class loader statistics", ex);
+      return "; class loader statistics not available";
+    }
+
+    final StringBuilder sb = new StringBuilder();
+    sb.append("; class loaders by metaspace usage:");
+    for (final ClassLoaderType classLoaderType : classLoaderTypes.subList(0,
+        Math.min(MAX_REPORTED_CLASS_LOADER_TYPES, classLoaderTypes.size()))) {
+      sb.append(String.format("%n    '%s': %d instance(s), %d classes, %sKB",
+          classLoaderType.getName(), classLoaderType.getClassLoaderCount(),
+          classLoaderType.getClassCount(),
+          DECIMAL_FORMAT.format(classLoaderType.getChunkSizeInBytes() / 1024d)));
+    }
+    if (classLoaderTypes.size() > MAX_REPORTED_CLASS_LOADER_TYPES) {
+      sb.append(String.format("%n    ... and %d more",
+          classLoaderTypes.size() - MAX_REPORTED_CLASS_LOADER_TYPES));
+    }
+    return sb.toString();
+  }
+
+  @Override
+  protected boolean isReportedOnce() {
+    return true;
+  }
+
+  @Override
+  protected String describe() {
+    final ClassLoadingThresholdConfiguration configuration = getUsageThresholdConfiguration();
+    return String.format("Classes %s above %s/s over %s%s",
+        configuration.getKind().getLiteral(),
+        DECIMAL_FORMAT.format(configuration.getClassesPerSecond()),
+        DECIMAL_FORMAT.format(configuration.getTimeFrame()),
+        configuration.getTimeUnit().getLiteral());
+  }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import com.sap.jma.configuration.CollectionUsageThresholdConfiguration;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+
+/**
+ * Evaluates the condition of the wrapped configuration, which has been created against the usage
+ * of the memory pool after the most recent garbage collection.
+ */
+public class CollectionUsageThresholdCondition
+    implements UsageThresholdCondition<CollectionUsageThresholdConfiguration> {
+
+  private final CollectionUsageThresholdConfiguration configuration;
+
+  private final UsageThresholdCondition<?> delegate;
+
+  public CollectionUsageThresholdCondition(
+      final CollectionUsageThresholdConfiguration configuration,
+      final UsageThresholdCondition<?> delegate) {
+    this.configuration = configuration;
+    this.delegate = delegate;
+  }
+
+  @Override
+  public CollectionUsageThresholdConfiguration getUsageThresholdConfiguration() {
+    return configuration;
+  }
+
+  @Override
+  public Evaluation check(final Map<String, MemoryUsage> memoryUsages) {
+    return delegate.check(memoryUsages);
+  }
+
+  @Override
+  public double getProximity() {
+    return delegate.getProximity();
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import com.sap.jma.configuration.CompositeConditionConfiguration;
+import com.sap.jma.logging.Logger;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates a boolean combination of conditions, compiled from a
+ * {@link CompositeConditionConfiguration} into a tree of {@link Node}s. Operands are evaluated
+ * left to right and only as long as the outcome is not decided, so the conditions on the right
+ * of an <code>AND</code> are not sampled while the ones on its left are not violated, and the
+ * ones on the right of an <code>OR</code> are not sampled while the ones on its left are.
+ */
+public class CompositeCondition
+    extends AbstractThresholdCondition<CompositeConditionConfiguration> {
+
+  private final Node root;
+
+  // Reused across evaluations, which run on one thread only
+  private final List<CharSequence> reasons = new ArrayList<>();
+
+  public CompositeCondition(final CompositeConditionConfiguration configuration,
+                            final Node root) {
+    this(configuration, root, Logger.Factory.get(CompositeCondition.class));
+  }
+
+  // VisibleForTesting
+  CompositeCondition(final CompositeConditionConfiguration configuration, final Node root,
+                     final Logger logger) {
+    super(configuration, logger);
+    this.root = root;
+  }
+
+  // VisibleForTesting
+  Node getRoot() {
+    return root;
+  }
+
+  @Override
+  protected void doEvaluate() {
+    doEvaluate(Collections.<String, MemoryUsage>emptyMap());
+  }
+
+  @Override
+  protected void doEvaluate(final Map<String, MemoryUsage> memoryUsages) {
+    reasons.clear();
+    final boolean violated = root.evaluate(memoryUsages, getClock().getMillis(), reasons);
+
+    setProximity(root.getProximity());
+
+    if (!violated) {
+      logger.debug("Condition '%s' not violated", getUsageThresholdConfiguration().getName());
+      return;
+    }
+
+    final StringBuilder sb = new StringBuilder();
+    sb.append(describe());
+    sb.append(" violated");
+    for (final CharSequence reason : reasons) {
+      sb.append(String.format("%n    "));
+      sb.append(reason);
+    }
+    reasons.clear();
+    violated(sb.toString());
+  }
+
+  @Override
+  protected String describe() {
+    return String.format("Condition '%s' (%s)", getUsageThresholdConfiguration().getName(),
+        root);
+  }
+
+  public static Node leaf(final UsageThresholdCondition<?> condition,
+                          final String description) {
+    return new Leaf(condition, description);
+  }
+
+  public static Node and(final List<Node> operands) {
+    return new And(operands);
+  }
+
+  public static Node or(final List<Node> operands) {
+    return new Or(operands);
+  }
+
+  public static Node not(final Node operand) {
+    return new Not(operand);
+  }
+
+  public static Node forAtLeast(final Node operand, final long durationInMillis,
+                                final String duration) {
+    return new For(operand, durationInMillis, duration);
+  }
+
+  /**
+   * A node of the evaluation tree.
+   */
+  public abstract static class Node {
+
+    /*
+     * Returns whether the node holds; the nodes that hold append the reasons why to the given
+     * list, and remove them again if the node they are part of does not hold
+     */
+    abstract boolean evaluate(Map<String, MemoryUsage> memoryUsages, long now,
+                              List<CharSequence> reasons);
+
+    /*
+     * How close the node was to holding when last evaluated, from 0 to 1
+     */
+    abstract double getProximity();
+
+  }
+
+  private static final class Leaf extends Node {
+
+    private final UsageThresholdCondition<?> condition;
+
+    private final String description;
+
+    private Leaf(final UsageThresholdCondition<?> condition, final String description) {
+      this.condition = condition;
+      this.description = description;
+    }
+
+    @Override
+    boolean evaluate(final Map<String, MemoryUsage> memoryUsages, final long now,
+                     final List<CharSequence> reasons) {
+      final Evaluation evaluation = condition.check(memoryUsages);
+      if (evaluation.isViolated()) {
+        reasons.add(evaluation.getReason());
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    double getProximity() {
+      return condition.getProximity();
+    }
+
+    @Override
+    public String toString() {
+      return description;
+    }
+
+  }
+
+  private abstract static class Junction extends Node {
+
+    final List<Node> operands;
+
+    private final String operator;
+
+    Junction(final List<Node> operands, final String operator) {
+      this.operands = operands;
+      this.operator = operator;
+    }
+
+    @Override
+    public String toString() {
+      final StringBuilder sb = new StringBuilder();
+      for (final Node operand : operands) {
+        if (sb.length() > 0) {
+          sb.append(' ').append(operator).append(' ');
+        }
+        if (operand instanceof Junction || operand instanceof For) {
+          sb.append('(').append(operand).append(')');
+        } else {
+          sb.append(operand);
+        }
+      }
+      return sb.toString();
+    }
+
+  }
+
+  private static final class And extends Junction {
+
+    private double proximity;
+
+    private And(final List<Node> operands) {
+      super(operands, "AND");
+    }
+
+    @Override
+    boolean evaluate(final Map<String, MemoryUsage> memoryUsages, final long now,
+                     final List<CharSequence> reasons) {
+      final int reasonCount = reasons.size();
+      // The operand that keeps this node from holding is the one that tells how close it is
+      proximity = 1d;
+      for (final Node operand : operands) {
+        final boolean holds = operand.evaluate(memoryUsages, now, reasons);
+        proximity = Math.min(proximity, operand.getProximity());
+        if (!holds) {
+          reasons.subList(reasonCount, reasons.size()).clear();
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    double getProximity() {
+      return proximity;
+    }
+
+  }
+
+  private static final class Or extends Junction {
+
+    private double proximity;
+
+    private Or(final List<Node> operands) {
+      super(operands, "OR");
+    }
+
+    @Override
+    boolean evaluate(final Map<String, MemoryUsage> memoryUsages, final long now,
+                     final List<CharSequence> reasons) {
+      proximity = 0d;
+      for (final Node operand : operands) {
+        final boolean holds = operand.evaluate(memoryUsages, now, reasons);
+        proximity = Math.max(proximity, operand.getProximity());
+        if (holds) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    double getProximity() {
+      return proximity;
+    }
+
+  }
+
+  /*
+   * The proximity of a negated condition is not meaningful, so it never speeds up the checks
+   */
+  private static final class Not extends Node {
+
+    private final Node operand;
+
+    private Not(final Node operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    boolean evaluate(final Map<String, MemoryUsage> memoryUsages, final long now,
+                     final List<CharSequence> reasons) {
+      final int reasonCount = reasons.size();
+      if (operand.evaluate(memoryUsages, now, reasons)) {
+        reasons.subList(reasonCount, reasons.size()).clear();
+        return false;
+      }
+
+      reasons.add("Not violated: " + operand);
+      return true;
+    }
+
+    @Override
+    double getProximity() {
+      return 0d;
+    }
+
+    @Override
+    public String toString() {
+      return operand instanceof Leaf ? "NOT " + operand : "NOT (" + operand + ")";
+    }
+
+  }
+
+  /*
+   * Holds once the operand has held at every evaluation for at least the given duration; the
+   * evaluations skipped by short-circuiting do not interrupt the streak
+   */
+  private static final class For extends Node {
+
+    private final Node operand;
+
+    private final long durationInMillis;
+
+    private final String duration;
+
+    private long holdingSince = -1L;
+
+    private double proximity;
+
+    private For(final Node operand, final long durationInMillis, final String duration) {
+      this.operand = operand;
+      this.durationInMillis = durationInMillis;
+      this.duration = duration;
+    }
+
+    @Override
+    boolean evaluate(final Map<String, MemoryUsage> memoryUsages, final long now,
+                     final List<CharSequence> reasons) {
+      final int reasonCount = reasons.size();
+      if (!operand.evaluate(memoryUsages, now, reasons)) {
+        holdingSince = -1L;
+        proximity = operand.getProximity();
+        return false;
+      }
+
+      if (holdingSince < 0) {
+        holdingSince = now;
+      }
+
+      final long holdingForMillis = now - holdingSince;
+      if (holdingForMillis < durationInMillis) {
+        reasons.subList(reasonCount, reasons.size()).clear();
+        proximity = 1d;
+        return false;
+      }
+
+      proximity = 1d;
+      reasons.add(String.format("Held for %d milliseconds, at least %s required",
+          holdingForMillis, duration));
+      return true;
+    }
+
+    @Override
+    double getProximity() {
+      return proximity;
+    }
+
+    @Override
+    public String toString() {
+      return (operand instanceof Junction ? "(" + operand + ")" : operand.toString()) + " FOR "
+          + duration;
+    }
+
+  }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import com.sap.jma.configuration.ThresholdConfiguration;
+import com.sap.jma.vms.ControlGroupMemory;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+
+/**
+ * Evaluates the condition of the wrapped configuration against the memory of the control group,
+ * and is also violated right away whenever the kernel reports that the control group has reached
+ * its <code>memory.high</code> boundary or its <code>memory.max</code> limit since the previous
+ * evaluation, as that means the kernel is already reclaiming memory or is about to invoke the
+ * OOM killer.
+ */
+public class ControlGroupMemoryEventsCondition
+    implements UsageThresholdCondition<ThresholdConfiguration> {
+
+  private final UsageThresholdCondition<?> delegate;
+
+  private final ControlGroupMemory controlGroupMemory;
+
+  private final String memoryPoolName;
+
+  private final Evaluation evaluation = new Evaluation();
+
+  private long lastHighEvents;
+
+  private long lastMaxEvents;
+
+  private volatile boolean eventsReported;
+
+  public ControlGroupMemoryEventsCondition(final UsageThresholdCondition<?> delegate,
+                                           final ControlGroupMemory controlGroupMemory,
+                                           final String memoryPoolName) {
+    this.delegate = delegate;
+    this.controlGroupMemory = controlGroupMemory;
+    this.memoryPoolName = memoryPoolName;
+    // Only the events from now on count
+    this.lastHighEvents = controlGroupMemory.getHighEvents();
+    this.lastMaxEvents = controlGroupMemory.getMaxEvents();
+  }
+
+  @Override
+  public ThresholdConfiguration getUsageThresholdConfiguration() {
+    return delegate.getUsageThresholdConfiguration();
+  }
+
+  /*
+   * The wrapped condition is checked even if events have been reported, as missing a check would
+   * distort its debouncing and its measurements over time
+   */
+  @Override
+  public Evaluation check(final Map<String, MemoryUsage> memoryUsages) {
+    final Evaluation delegateEvaluation = delegate.check(memoryUsages);
+
+    evaluation.clear();
+    evaluateEvents();
+    if (!evaluation.isViolated()) {
+      return delegateEvaluation;
+    }
+
+    if (delegateEvaluation.isViolated()) {
+      evaluation.violate(evaluation.getReason() + "; " + delegateEvaluation.getReason());
+    }
+    return evaluation;
+  }
+
+  private void evaluateEvents() {
+    final long highEvents = controlGroupMemory.getHighEvents();
+    final long maxEvents = controlGroupMemory.getMaxEvents();
+
+    final long newHighEvents = lastHighEvents < 0 ? 0L : Math.max(0L, highEvents - lastHighEvents);
+    final long newMaxEvents = lastMaxEvents < 0 ? 0L : Math.max(0L, maxEvents - lastMaxEvents);
+
+    lastHighEvents = highEvents;
+    lastMaxEvents = maxEvents;
+
+    eventsReported = newHighEvents > 0 || newMaxEvents > 0;
+
+    if (newMaxEvents > 0) {
+      evaluation.violate(String.format("Memory pool '%s' "
+          + "reached its limit %s time(s) since the previous check", memoryPoolName,
+          newMaxEvents));
+      return;
+    }
+
+    if (newHighEvents > 0) {
+      evaluation.violate(String.format("Memory pool '%s' "
+          + "reached its 'memory.high' boundary %s time(s) since the previous check",
+          memoryPoolName, newHighEvents));
+    }
+  }
+
+  @Override
+  public double getProximity() {
+    return eventsReported ? 1d : delegate.getProximity();
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString() + ", or it reaches its memory limit";
+  }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+/**
+ * The outcome of the evaluation of a {@link UsageThresholdCondition}. Each condition owns one
+ * evaluation and overwrites it at every evaluation, so that evaluating a condition allocates
+ * nothing; callers must read the outcome before evaluating the same condition again.
+ *
+ * <p>The reason of a violation is a {@link CharSequence} that conditions may render only when
+ * it is read, e.g., by its <code>toString</code> method.
+ */
+public final class Evaluation {
+
+  private boolean violated;
+
+  private CharSequence reason;
+
+  /**
+   * Creates an evaluation of a condition that is not violated.
+   */
+  public Evaluation() {
+  }
+
+  public boolean isViolated() {
+    return violated;
+  }
+
+  /**
+   * Returns why the condition is violated, or <code>null</code> if it is not.
+   */
+  public CharSequence getReason() {
+    return reason;
+  }
+
+  void violate(final CharSequence reason) {
+    this.violated = true;
+    this.reason = reason;
+  }
+
+  void clear() {
+    this.violated = false;
+    this.reason = null;
+  }
+
+  @Override
+  public String toString() {
+    return violated ? "Violated: " + reason : "Not violated";
+  }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import com.sap.jma.configuration.ForecastUsageThresholdConfiguration;
+import com.sap.jma.configuration.IntervalTimeUnit;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.vms.MemoryPool;
+import java.lang.management.MemoryUsage;
+
+/*
+ * Projects when the memory pool will be full by extrapolating the trend of its usage after
+ * garbage collections, and triggers when that is closer than the configured horizon, so that
+ * the heap dump can be taken while the JVM still has headroom to write it.
+ */
+public class ForecastUsageThresholdCondition
+    extends AbstractUsageThresholdCondition<ForecastUsageThresholdConfiguration> {
+
+  // VisibleForTesting
+  final PostCollectionUsageTrend trend =
+      new PostCollectionUsageTrend(getUsageThresholdConfiguration().getWindowInMillis());
+
+  /*
+   * This condition is evaluated at every check, so its description is rendered only if it is
+   * logged or reported
+   */
+  private final Description description = new Description();
+
+  public ForecastUsageThresholdCondition(final ForecastUsageThresholdConfiguration configuration,
+                                         final MemoryPool memoryPool) {
+    this(configuration, memoryPool, Logger.Factory.get(ForecastUsageThresholdCondition.class));
+  }
+
+  // VisibleForTesting
+  ForecastUsageThresholdCondition(final ForecastUsageThresholdConfiguration configuration,
+                                  final MemoryPool memoryPool,
+                                  final Logger logger) {
+    super(configuration, memoryPool, logger);
+  }
+
+  @Override
+  protected void evaluate(final MemoryUsage memoryUsage) {
+    final long max = memoryUsage.getMax();
+    if (max < 1) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Memory pool '%s' has no maximum size, skipping the forecast",
+            getMemoryPoolName());
+      }
+      return;
+    }
+
+    final long now = getClock().getMillis();
+    final double usage = memoryUsage.getUsed() * 100d / max;
+
+    trend.add(now, usage);
+
+    if (!trend.isAvailable()) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Not enough post-GC minima yet to forecast the exhaustion of memory pool "
+            + "'%s'", getMemoryPoolName());
+      }
+      return;
+    }
+
+    final ForecastUsageThresholdConfiguration configuration = getUsageThresholdConfiguration();
+
+    if (trend.getSlope() <= 0d) {
+      setProximity(0d);
+      if (logger.isDebugEnabled()) {
+        logger.debug("Memory pool '%s' at %s%% usage, post-GC usage not growing",
+            getMemoryPoolName(), DECIMAL_FORMAT.format(usage));
+      }
+      return;
+    }
+
+    final double headroom = Math.max(0d, 100d - trend.getValueAt(now));
+    final long timeToExhaustionInMillis = (long) (headroom / trend.getSlope());
+
+    setProximity(timeToExhaustionInMillis < 1 ? 1d
+        : (double) configuration.getHorizonInMillis() / timeToExhaustionInMillis);
+
+    description.usage = usage;
+    description.timeToExhaustionInMillis = timeToExhaustionInMillis;
+    description.rSquared = trend.getRSquared();
+
+    if (timeToExhaustionInMillis < configuration.getHorizonInMillis()
+        && trend.getRSquared() >= configuration.getMinimumRSquared()
+        && trend.isCoveringWindow()) {
+      violated(description);
+      return;
+    }
+
+    logger.debug(description, NO_ARGUMENTS);
+  }
+
+  @Override
+  protected String describe() {
+    final ForecastUsageThresholdConfiguration configuration = getUsageThresholdConfiguration();
+    final IntervalTimeUnit horizonUnit = configuration.getHorizonUnit();
+    return String.format("Memory pool '%s' forecast to be exhausted in less than %s%s",
+        getMemoryPoolName(),
+        DECIMAL_FORMAT.format(horizonUnit.fromMilliseconds(configuration.getHorizonInMillis())),
+        horizonUnit.getLiteral());
+  }
+
+  private final class Description extends LazyDescription {
+
+    private double usage;
+
+    private long timeToExhaustionInMillis;
+
+    private double rSquared;
+
+    @Override
+    public String toString() {
+      final ForecastUsageThresholdConfiguration configuration = getUsageThresholdConfiguration();
+      final IntervalTimeUnit horizonUnit = configuration.getHorizonUnit();
+      return String.format("Memory pool '%s' at %s%% usage, forecast to be exhausted in %s%s "
+              + "(R^2: %s), configured horizon is %s%s with R^2 of at least %s",
+          getMemoryPoolName(), DECIMAL_FORMAT.format(usage),
+          DECIMAL_FORMAT.format(horizonUnit.fromMilliseconds(timeToExhaustionInMillis)),
+          horizonUnit.getLiteral(), DECIMAL_FORMAT.format(rSquared),
+          DECIMAL_FORMAT.format(horizonUnit.fromMilliseconds(configuration.getHorizonInMillis())),
+          horizonUnit.getLiteral(), DECIMAL_FORMAT.format(configuration.getMinimumRSquared()));
+    }
+
+  }
+
+}
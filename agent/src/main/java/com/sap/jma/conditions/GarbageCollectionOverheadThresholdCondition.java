@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import com.sap.jma.configuration.GarbageCollectionOverheadThresholdConfiguration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.utils.SlidingTimeSeries;
+import com.sap.jma.vms.Snapshot;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * The overhead is the time spent in garbage collection, as accumulated by the garbage collectors,
+ * divided by the wall-clock time elapsed over the time-frame. Collectors that run concurrently
+ * to the application may account for time the application was not actually stopped.
+ */
+public class GarbageCollectionOverheadThresholdCondition
+    extends AbstractThresholdCondition<GarbageCollectionOverheadThresholdConfiguration> {
+
+  // VisibleForTesting
+  final SlidingTimeSeries measurements = new SlidingTimeSeries(getUsageThresholdConfiguration()
+      .getTimeUnit().toMilliSeconds(getUsageThresholdConfiguration().getTimeFrame()));
+
+  private final List<GarbageCollectorMXBean> garbageCollectorBeans;
+
+  private final Description description = new Description();
+
+  public GarbageCollectionOverheadThresholdCondition(
+      final GarbageCollectionOverheadThresholdConfiguration configuration) {
+    this(configuration, ManagementFactory.getGarbageCollectorMXBeans(),
+        Logger.Factory.get(GarbageCollectionOverheadThresholdCondition.class));
+  }
+
+  // VisibleForTesting
+  GarbageCollectionOverheadThresholdCondition(
+      final GarbageCollectionOverheadThresholdConfiguration configuration,
+      final List<GarbageCollectorMXBean> garbageCollectorBeans,
+      final Logger logger) {
+    super(configuration, logger);
+    this.garbageCollectorBeans = garbageCollectorBeans;
+
+    if (getCollectionTimeInMillis() < 0) {
+      throw new IllegalArgumentException(
+          "No garbage collector of the JVM reports its collection time");
+    }
+  }
+
+  /*
+   * Returns -1 if no garbage collector reports its collection time
+   */
+  private long getCollectionTimeInMillis() {
+    long result = -1L;
+    for (final GarbageCollectorMXBean garbageCollectorBean : garbageCollectorBeans) {
+      final long collectionTime = garbageCollectorBean.getCollectionTime();
+      if (collectionTime >= 0) {
+        result = Math.max(result, 0L) + collectionTime;
+      }
+    }
+    return result;
+  }
+
+  @Override
+  protected void doEvaluate() {
+    evaluate(getCollectionTimeInMillis());
+  }
+
+  /*
+   * The garbage collection overhead is JVM-wide, so the memory usages are irrelevant, but the
+   * snapshot of the check has the collection time of the garbage collectors
+   */
+  @Override
+  protected void doEvaluate(final Map<String, MemoryUsage> memoryUsages) {
+    if (memoryUsages instanceof Snapshot) {
+      final long collectionTimeInMillis = ((Snapshot) memoryUsages).getCollectionTimeInMillis();
+      if (collectionTimeInMillis >= 0) {
+        evaluate(collectionTimeInMillis);
+        return;
+      }
+    }
+
+    doEvaluate();
+  }
+
+  private void evaluate(final long collectionTimeInMillis) {
+    final long now = getClock().getMillis();
+
+    if (measurements.isEmpty()) {
+      measurements.add(now, collectionTimeInMillis);
+      logger.debug("First measurement of the garbage collection overhead");
+      return;
+    }
+
+    measurements.slide(now, collectionTimeInMillis);
+
+    final long elapsedMillis = now - measurements.getFirstTimestamp();
+    if (elapsedMillis < 1) {
+      return;
+    }
+
+    final GarbageCollectionOverheadThresholdConfiguration configuration =
+        getUsageThresholdConfiguration();
+    final double overhead = (collectionTimeInMillis - measurements.getFirstValue()) * 100d
+        / elapsedMillis;
+
+    setProximity(overhead / configuration.getPercentage());
+
+    description.overhead = overhead;
+    description.elapsedMillis = elapsedMillis;
+    if (overhead > configuration.getPercentage()
+        && elapsedMillis >= measurements.getTimeFrameInMillis()) {
+      violated(description);
+      return;
+    }
+
+    logger.debug(description, NO_ARGUMENTS);
+  }
+
+  @Override
+  protected String describe() {
+    final GarbageCollectionOverheadThresholdConfiguration configuration =
+        getUsageThresholdConfiguration();
+    return String.format("Garbage collection overhead above %s%% over %s%s",
+        DECIMAL_FORMAT.format(configuration.getPercentage()),
+        DECIMAL_FORMAT.format(configuration.getTimeFrame()),
+        configuration.getTimeUnit().getLiteral());
+  }
+
+  private final class Description extends LazyDescription {
+
+    private double overhead;
+
+    private long elapsedMillis;
+
+    @Override
+    public String toString() {
+      final GarbageCollectionOverheadThresholdConfiguration configuration =
+          getUsageThresholdConfiguration();
+      return String.format("Garbage collection overhead at %s%% over the last %s%s, configured "
+              + "threshold is %s%%", DECIMAL_FORMAT.format(overhead),
+          DECIMAL_FORMAT.format(configuration.getTimeUnit().fromMilliseconds(elapsedMillis)),
+          configuration.getTimeUnit().getLiteral(),
+          DECIMAL_FORMAT.format(configuration.getPercentage()));
+    }
+
+  }
+
+}
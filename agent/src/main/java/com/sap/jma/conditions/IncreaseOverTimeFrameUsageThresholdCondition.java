@@ -8,27 +8,46 @@ package com.sap.jma.conditions;
 
 import com.sap.jma.configuration.IncreaseOverTimeFrameUsageThresholdConfiguration;
 import com.sap.jma.logging.Logger;
-import com.sap.jma.time.Clock;
+import com.sap.jma.utils.TimeSeries;
 import com.sap.jma.vms.MemoryPool;
 import java.lang.management.MemoryUsage;
-import java.util.Deque;
-import java.util.Iterator;
-import java.util.LinkedList;
 
 /*
- * TODO How to take into account the Garbage collection?
- * The more GC, the WORSE violating this condition means
+ * In the default mode, the usage is compared with the one measured about one time-frame earlier,
+ * which is sensitive to where in the garbage-collection sawtooth the two measurements fall. In
+ * trend mode (prefix 'trend:'), the condition fits a regression line through the post-GC usage
+ * minima instead, and triggers only if the fit is good enough.
  */
 public class IncreaseOverTimeFrameUsageThresholdCondition
     extends AbstractUsageThresholdCondition<IncreaseOverTimeFrameUsageThresholdConfiguration> {
 
+  /*
+   * Measurements are at least half a time-frame apart and retained for two and a half, so at
+   * most four are needed
+   */
+  private static final int MEASUREMENTS_CAPACITY = 8;
+
   // VisibleForTesting
-  final Deque<Measurement> measurements = new LinkedList<>();
+  final TimeSeries measurements = new TimeSeries(MEASUREMENTS_CAPACITY);
 
   // VisibleForTesting
   final long measurementPeriod = getUsageThresholdConfiguration().getTimeUnit()
       .toMilliSeconds(getUsageThresholdConfiguration().getTimeFrame()) / 2;
 
+  private final long timeFrameInMillis = getUsageThresholdConfiguration().getTimeUnit()
+      .toMilliSeconds(getUsageThresholdConfiguration().getTimeFrame());
+
+  // VisibleForTesting
+  final PostCollectionUsageTrend trend = new PostCollectionUsageTrend(timeFrameInMillis);
+
+  /*
+   * This condition is evaluated at every check, so its descriptions are rendered only if they
+   * are logged or reported
+   */
+  private final IncreaseDescription increaseDescription = new IncreaseDescription();
+
+  private final TrendDescription trendDescription = new TrendDescription();
+
   public IncreaseOverTimeFrameUsageThresholdCondition(
       final IncreaseOverTimeFrameUsageThresholdConfiguration configuration,
       final MemoryPool memoryPool) {
@@ -44,18 +63,21 @@ public class IncreaseOverTimeFrameUsageThresholdCondition
     super(configuration, memoryPool, logger);
   }
 
-  // VisibleForTesting
-  protected Clock getClock() {
-    return Clock.SYSTEM;
-  }
-
-  private double getCurrentUsageRatio() {
-    final MemoryUsage memoryUsage = memoryPool.getMemoryUsage();
-    return memoryUsage.getUsed() * 100d / memoryUsage.getMax();
+  private double getCurrentUsageRatio(final MemoryUsage memoryUsage) {
+    return memoryUsage.getUsed() * 100d / getDefinedMax(memoryUsage);
   }
 
   @Override
   public String describe() {
+    if (getUsageThresholdConfiguration().isTrend()) {
+      return String.format("Memory pool '%s' post-GC usage trends up by more than %s%% over "
+              + "%s %s (R^2 of at least %s)", getMemoryPoolName(),
+          DECIMAL_FORMAT.format(getUsageThresholdConfiguration().getDelta()),
+          getUsageThresholdConfiguration().getTimeFrame(),
+          getUsageThresholdConfiguration().getTimeUnit().getLiteral(),
+          DECIMAL_FORMAT.format(getUsageThresholdConfiguration().getMinimumRSquared()));
+    }
+
     return String.format("Memory pool '%s' usage increases by more than %s%% over %s %s",
             getMemoryPoolName(),
                 DECIMAL_FORMAT.format(getUsageThresholdConfiguration().getDelta()),
@@ -64,11 +86,24 @@ public class IncreaseOverTimeFrameUsageThresholdCondition
   }
 
   @Override
-  public void evaluate() throws UsageThresholdConditionViolatedException {
+  protected void evaluate(final MemoryUsage memoryUsage) {
+    if (getDefinedMax(memoryUsage) < 1) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Memory pool '%s' has neither a maximum size nor committed memory, "
+            + "skipping the check", getMemoryPoolName());
+      }
+      return;
+    }
+
+    if (getUsageThresholdConfiguration().isTrend()) {
+      evaluateTrend(memoryUsage);
+      return;
+    }
+
     final long now = getClock().getMillis();
 
     if (!measurements.isEmpty()) {
-      if (measurements.getLast().getTimestamp() + measurementPeriod > now) {
+      if (measurements.getLastTimestamp() + measurementPeriod > now) {
         /*
          * Skip this measurement, not enough time has elapsed for us to
          * need another measurement point
@@ -81,23 +116,12 @@ public class IncreaseOverTimeFrameUsageThresholdCondition
        * of the JVM is not precise, we give a certain margin of error
        */
       final long minimumTimestamp = now - (long) (measurementPeriod * 2.5d);
-      final Iterator<Measurement> i = measurements.iterator();
-      while (i.hasNext()) {
-        final Measurement measurement = i.next();
-
-        if (minimumTimestamp <= measurement.getTimestamp()) {
-          break;
-        }
-
-        if (i.hasNext()) {
-          // Leave at least one measurement point
-          i.remove();
-        }
-      }
+      // Leave at least one measurement point
+      measurements.removeOlderThan(minimumTimestamp, 1);
     }
 
-    final Measurement last = new Measurement(now, getCurrentUsageRatio());
-    measurements.add(last);
+    final double lastUsage = getCurrentUsageRatio(memoryUsage);
+    measurements.add(now, lastUsage);
     if (measurements.size() < 2) {
       logger.debug("First measurement for memory pool '%s'", getMemoryPoolName());
       return;
@@ -105,53 +129,108 @@ public class IncreaseOverTimeFrameUsageThresholdCondition
 
     final IncreaseOverTimeFrameUsageThresholdConfiguration usageThreshold =
         getUsageThresholdConfiguration();
-    final Measurement first = measurements.getFirst();
-    final double actualIncrease = last.getUsage() - first.getUsage();
-    final long actualTimeFrameInMillis = last.getTimestamp() - first.getTimestamp();
-    if (actualIncrease >= usageThreshold.getDelta() && actualTimeFrameInMillis
-        >= usageThreshold.getTimeUnit().toMilliSeconds(usageThreshold.getTimeFrame())) {
-      throw new UsageThresholdConditionViolatedException(
-          String.format("Memory pool '%s' at %s%% usage, increased from %s%% by more "
-                  + "than maximum %s%% increase (actual increase: %s%%) over the last %s%s",
-              getMemoryPoolName(), //
-              DECIMAL_FORMAT.format(last.getUsage()), //
-              DECIMAL_FORMAT.format(first.getUsage()), //
-              DECIMAL_FORMAT.format(usageThreshold.getDelta()), //
-              DECIMAL_FORMAT.format(actualIncrease), //
-              usageThreshold.getTimeUnit().fromMilliseconds(actualTimeFrameInMillis), //
-              usageThreshold.getTimeUnit().getLiteral()));
+    final double firstUsage = measurements.getFirstValue();
+    final double actualIncrease = lastUsage - firstUsage;
+    final long actualTimeFrameInMillis = now - measurements.getFirstTimestamp();
+    setProximity(actualIncrease / usageThreshold.getDelta());
+
+    increaseDescription.lastUsage = lastUsage;
+    increaseDescription.firstUsage = firstUsage;
+    increaseDescription.timeFrameInMillis = actualTimeFrameInMillis;
+    increaseDescription.exceeded = actualIncrease >= usageThreshold.getDelta()
+        && actualTimeFrameInMillis
+        >= usageThreshold.getTimeUnit().toMilliSeconds(usageThreshold.getTimeFrame());
+    if (increaseDescription.exceeded) {
+      violated(increaseDescription);
     } else {
-      logger.debug("Memory pool '%s' at %s%% usage, changed from %s%% by less "
-              + "than maximum %s%% increase (actual increase: %s%%) over the last %s%s",
-          getMemoryPoolName(), //
-          DECIMAL_FORMAT.format(last.getUsage()), //
-          DECIMAL_FORMAT.format(first.getUsage()), //
-          DECIMAL_FORMAT.format(usageThreshold.getDelta()), //
-          DECIMAL_FORMAT.format(actualIncrease), //
-          usageThreshold.getTimeUnit().fromMilliseconds(actualTimeFrameInMillis), //
-          usageThreshold.getTimeUnit().getLiteral());
+      logger.debug(increaseDescription, NO_ARGUMENTS);
     }
   }
 
-  // VisibleForTesting
-  static class Measurement {
+  private void evaluateTrend(final MemoryUsage memoryUsage) {
+    final long now = getClock().getMillis();
+    final double usage = getCurrentUsageRatio(memoryUsage);
+
+    trend.add(now, usage);
 
-    private final long timestamp;
+    if (!trend.isAvailable()) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Not enough post-GC minima yet to compute the usage trend of memory pool "
+            + "'%s'", getMemoryPoolName());
+      }
+      return;
+    }
+
+    final IncreaseOverTimeFrameUsageThresholdConfiguration usageThreshold =
+        getUsageThresholdConfiguration();
+    final double increase = trend.getSlope() * timeFrameInMillis;
 
-    private final double usage;
+    setProximity(increase / usageThreshold.getDelta());
 
-    private Measurement(final long timestamp, final double usage) {
-      this.timestamp = timestamp;
-      this.usage = usage;
+    trendDescription.usage = usage;
+    trendDescription.increase = increase;
+    trendDescription.rSquared = trend.getRSquared();
+
+    if (increase >= usageThreshold.getDelta()
+        && trend.getRSquared() >= usageThreshold.getMinimumRSquared()
+        && trend.isCoveringWindow()) {
+      violated(trendDescription);
+      return;
     }
 
-    long getTimestamp() {
-      return timestamp;
+    logger.debug(trendDescription, NO_ARGUMENTS);
+  }
+
+  private final class IncreaseDescription extends LazyDescription {
+
+    private double lastUsage;
+
+    private double firstUsage;
+
+    private long timeFrameInMillis;
+
+    private boolean exceeded;
+
+    @Override
+    public String toString() {
+      final IncreaseOverTimeFrameUsageThresholdConfiguration usageThreshold =
+          getUsageThresholdConfiguration();
+      return String.format(exceeded
+              ? "Memory pool '%s' at %s%% usage, increased from %s%% by more than maximum %s%% "
+              + "increase (actual increase: %s%%) over the last %s%s"
+              : "Memory pool '%s' at %s%% usage, changed from %s%% by less than maximum %s%% "
+              + "increase (actual increase: %s%%) over the last %s%s",
+          getMemoryPoolName(),
+          DECIMAL_FORMAT.format(lastUsage),
+          DECIMAL_FORMAT.format(firstUsage),
+          DECIMAL_FORMAT.format(usageThreshold.getDelta()),
+          DECIMAL_FORMAT.format(lastUsage - firstUsage),
+          usageThreshold.getTimeUnit().fromMilliseconds(timeFrameInMillis),
+          usageThreshold.getTimeUnit().getLiteral());
     }
 
-    public double getUsage() {
-      return usage;
+  }
+
+  private final class TrendDescription extends LazyDescription {
+
+    private double usage;
+
+    private double increase;
+
+    private double rSquared;
+
+    @Override
+    public String toString() {
+      final IncreaseOverTimeFrameUsageThresholdConfiguration usageThreshold =
+          getUsageThresholdConfiguration();
+      return String.format("Memory pool '%s' at %s%% usage, post-GC usage trending by %s%% over "
+              + "%s%s (R^2: %s), configured threshold is %s%% with R^2 of at least %s",
+          getMemoryPoolName(), DECIMAL_FORMAT.format(usage), DECIMAL_FORMAT.format(increase),
+          usageThreshold.getTimeFrame(), usageThreshold.getTimeUnit().getLiteral(),
+          DECIMAL_FORMAT.format(rSquared), DECIMAL_FORMAT.format(usageThreshold.getDelta()),
+          DECIMAL_FORMAT.format(usageThreshold.getMinimumRSquared()));
     }
+
   }
 
-}
\ No newline at end of file
+}
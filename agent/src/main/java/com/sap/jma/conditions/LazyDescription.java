@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+/*
+ * The description of the last evaluation of a condition, rendered only if it is logged or
+ * reported; conditions evaluated at every check keep one instance and update its fields, so that
+ * the evaluations that are neither violated nor logged format nothing
+ */
+abstract class LazyDescription implements CharSequence {
+
+  @Override
+  public int length() {
+    return toString().length();
+  }
+
+  @Override
+  public char charAt(final int index) {
+    return toString().charAt(index);
+  }
+
+  @Override
+  public CharSequence subSequence(final int start, final int end) {
+    return toString().subSequence(start, end);
+  }
+
+  @Override
+  public abstract String toString();
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import com.sap.jma.configuration.MemoryPressureThresholdConfiguration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.vms.MemoryPressure;
+import java.io.IOException;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+
+/*
+ * Under memory pressure, the threads of the JVM stall in page reclaim long before any memory pool
+ * of the JVM looks full; the kernel already averages the stalls over its windows, so each
+ * evaluation reads a single, small file.
+ */
+public class MemoryPressureThresholdCondition
+    extends AbstractThresholdCondition<MemoryPressureThresholdConfiguration> {
+
+  private final MemoryPressure memoryPressure;
+
+  private final Description description = new Description();
+
+  public MemoryPressureThresholdCondition(
+      final MemoryPressureThresholdConfiguration configuration) {
+    this(configuration, MemoryPressure.create(
+        Logger.Factory.get(MemoryPressureThresholdCondition.class)),
+        Logger.Factory.get(MemoryPressureThresholdCondition.class));
+  }
+
+  // VisibleForTesting
+  MemoryPressureThresholdCondition(final MemoryPressureThresholdConfiguration configuration,
+                                   final MemoryPressure memoryPressure,
+                                   final Logger logger) {
+    super(configuration, logger);
+
+    if (memoryPressure == null) {
+      throw new IllegalArgumentException("The kernel does not report memory pressure (it "
+          + "requires Linux 4.20 or later, with pressure stall information enabled)");
+    }
+
+    this.memoryPressure = memoryPressure;
+  }
+
+  @Override
+  protected void doEvaluate() {
+    final MemoryPressureThresholdConfiguration configuration = getUsageThresholdConfiguration();
+
+    try {
+      memoryPressure.sample();
+    } catch (final IOException ex) {
+      logger.error("Cannot read the memory pressure from '" + memoryPressure.getFile() + "'", ex);
+      return;
+    }
+
+    final double stallPercentage =
+        memoryPressure.getStallPercentage(configuration.getStall(), configuration.getWindow());
+    if (stallPercentage < 0) {
+      logger.debug("The kernel does not report the '%s' memory pressure over '%s'",
+          configuration.getStall().getLiteral(), configuration.getWindow().getLiteral());
+      return;
+    }
+
+    setProximity(stallPercentage / configuration.getPercentage());
+
+    description.stallPercentage = stallPercentage;
+    if (stallPercentage > configuration.getPercentage()) {
+      violated(description);
+      return;
+    }
+
+    logger.debug(description, NO_ARGUMENTS);
+  }
+
+  /*
+   * The memory pressure is process- or container-wide, so the memory usages are irrelevant
+   */
+  @Override
+  protected void doEvaluate(final Map<String, MemoryUsage> memoryUsages) {
+    doEvaluate();
+  }
+
+  @Override
+  protected String describe() {
+    final MemoryPressureThresholdConfiguration configuration = getUsageThresholdConfiguration();
+    return String.format("Memory pressure ('%s') above %s%% over %ss",
+        configuration.getStall().getLiteral(),
+        DECIMAL_FORMAT.format(configuration.getPercentage()),
+        configuration.getWindow().getSeconds());
+  }
+
+  private final class Description extends LazyDescription {
+
+    private double stallPercentage;
+
+    @Override
+    public String toString() {
+      final MemoryPressureThresholdConfiguration configuration =
+          getUsageThresholdConfiguration();
+      return String.format("Memory pressure ('%s') at %s%% over the last %ss, configured "
+              + "threshold is %s%%", configuration.getStall().getLiteral(),
+          DECIMAL_FORMAT.format(stallPercentage), configuration.getWindow().getSeconds(),
+          DECIMAL_FORMAT.format(configuration.getPercentage()));
+    }
+
+  }
+
+}
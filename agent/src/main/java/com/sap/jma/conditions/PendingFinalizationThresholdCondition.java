@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import com.sap.jma.configuration.PendingFinalizationThresholdConfiguration;
+import com.sap.jma.configuration.PendingFinalizationThresholdConfiguration.Kind;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.utils.SlidingTimeSeries;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+
+/*
+ * Objects with finalizers survive the garbage collection that finds them unreachable, and are
+ * retained, with everything they reference, until the single finalizer thread has run their
+ * 'finalize' method; when the finalizer thread falls behind, e.g., on the streams of old JDBC
+ * drivers or on zip streams, the backlog fills the heap like a leak. The violation says so, as
+ * the heap dump would otherwise be analyzed for a leak that is not there.
+ */
+public class PendingFinalizationThresholdCondition
+    extends AbstractThresholdCondition<PendingFinalizationThresholdConfiguration> {
+
+  private static final String FINALIZER_QUEUE_HINT = "; the heap is retained by the finalizer "
+      + "queue, i.e., by objects waiting for the finalizer thread to run their 'finalize' method, "
+      + "rather than leaked: look for the classes of the referents of the "
+      + "'java.lang.ref.Finalizer' instances in the heap dump";
+
+  private final MemoryMXBean memoryBean;
+
+  // Measured only for increases
+  private final SlidingTimeSeries measurements;
+
+  public PendingFinalizationThresholdCondition(
+      final PendingFinalizationThresholdConfiguration configuration) {
+    this(configuration, ManagementFactory.getMemoryMXBean(),
+        Logger.Factory.get(PendingFinalizationThresholdCondition.class));
+  }
+
+  // VisibleForTesting
+  PendingFinalizationThresholdCondition(
+      final PendingFinalizationThresholdConfiguration configuration,
+      final MemoryMXBean memoryBean, final Logger logger) {
+    super(configuration, logger);
+    this.memoryBean = memoryBean;
+
+    if (configuration.getKind() == Kind.INCREASE) {
+      measurements = new SlidingTimeSeries(
+          configuration.getTimeUnit().toMilliSeconds(configuration.getTimeFrame()));
+    } else {
+      measurements = null;
+    }
+  }
+
+  @Override
+  protected void doEvaluate() {
+    final PendingFinalizationThresholdConfiguration configuration =
+        getUsageThresholdConfiguration();
+    final int pendingCount = memoryBean.getObjectPendingFinalizationCount();
+
+    final boolean exceeded;
+    final String description;
+    if (configuration.getKind() == Kind.COUNT) {
+      exceeded = pendingCount > configuration.getObjectCount();
+      setProximity((double) pendingCount / configuration.getObjectCount());
+      description = String.format("Objects pending finalization at %d, configured threshold is "
+          + "%d", pendingCount, configuration.getObjectCount());
+    } else {
+      final long now = getClock().getMillis();
+      if (measurements.isEmpty()) {
+        measurements.add(now, pendingCount);
+        logger.debug("First measurement of the objects pending finalization");
+        return;
+      }
+
+      measurements.slide(now, pendingCount);
+
+      final long elapsedMillis = now - measurements.getFirstTimestamp();
+      final int increase = pendingCount - (int) measurements.getFirstValue();
+      exceeded = increase > configuration.getObjectCount()
+          && elapsedMillis >= measurements.getTimeFrameInMillis();
+      setProximity((double) increase / configuration.getObjectCount());
+      description = String.format("Objects pending finalization increased by %d over the last "
+              + "%s%s (to %d), configured threshold is +%d", increase,
+          DECIMAL_FORMAT.format(configuration.getTimeUnit().fromMilliseconds(elapsedMillis)),
+          configuration.getTimeUnit().getLiteral(), pendingCount,
+          configuration.getObjectCount());
+    }
+
+    if (exceeded) {
+      violated(description + FINALIZER_QUEUE_HINT);
+      return;
+    }
+
+    logger.debug(description);
+  }
+
+  /*
+   * The finalizer queue is JVM-wide, so the memory usages are irrelevant
+   */
+  @Override
+  protected void doEvaluate(final Map<String, MemoryUsage> memoryUsages) {
+    doEvaluate();
+  }
+
+  @Override
+  protected String describe() {
+    final PendingFinalizationThresholdConfiguration configuration =
+        getUsageThresholdConfiguration();
+    if (configuration.getKind() == Kind.COUNT) {
+      return String.format("Objects pending finalization above %d",
+          configuration.getObjectCount());
+    }
+
+    return String.format("Objects pending finalization increase above %d over %s%s",
+        configuration.getObjectCount(), DECIMAL_FORMAT.format(configuration.getTimeFrame()),
+        configuration.getTimeUnit().getLiteral());
+  }
+
+}
@@ -17,6 +17,12 @@ public class PercentageUsageThresholdCondition
   private static final Logger LOGGER =
       Logger.Factory.get(UsageThresholdCondition.class);
 
+  /*
+   * This condition is evaluated at every check of every memory pool it is configured for, so its
+   * description is rendered only if it is logged or reported
+   */
+  private final Description description = new Description();
+
   public PercentageUsageThresholdCondition(
       final PercentageUsageThresholdConfiguration configuration,
       final MemoryPool memoryPool) {
@@ -31,19 +37,26 @@ public class PercentageUsageThresholdCondition
     super(configuration, memoryPool, logger);
   }
 
-  private double getCurrentUsageRatio() {
-    final MemoryUsage memoryUsage = memoryPool.getMemoryUsage();
-    return memoryUsage.getUsed() * 100d / memoryUsage.getMax();
-  }
+  @Override
+  protected final void evaluate(final MemoryUsage memoryUsage) {
+    final long max = getDefinedMax(memoryUsage);
+    if (max < 1) {
+      setProximity(0d);
+      if (logger.isDebugEnabled()) {
+        logger.debug("Memory pool '%s' has neither a maximum size nor committed memory, "
+            + "skipping the check", getMemoryPoolName());
+      }
+      return;
+    }
 
-  public final void evaluate() throws UsageThresholdConditionViolatedException {
-    final double usageRatio = getCurrentUsageRatio();
+    final double usageRatio = memoryUsage.getUsed() * 100d / max;
+    setProximity(usageRatio / getUsageThresholdConfiguration().getValue());
 
+    description.usageRatio = usageRatio;
     if (getUsageThresholdConfiguration().getValue() < usageRatio) {
-      throw new UsageThresholdConditionViolatedException(
-          getDescription(usageRatio));
+      violated(description);
     } else {
-      LOGGER.debug(getDescription(usageRatio));
+      LOGGER.debug(description, NO_ARGUMENTS);
     }
   }
 
@@ -59,4 +72,15 @@ public class PercentageUsageThresholdCondition
         DECIMAL_FORMAT.format(getUsageThresholdConfiguration().getValue()));
   }
 
-}
\ No newline at end of file
+  private final class Description extends LazyDescription {
+
+    private double usageRatio;
+
+    @Override
+    public String toString() {
+      return getDescription(usageRatio);
+    }
+
+  }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import com.sap.jma.utils.TimeSeries;
+
+/*
+ * Least-squares trend of the memory usage right after garbage collections over a sliding window.
+ * The window is split in buckets, and the minimum usage measured in each bucket approximates the
+ * usage right after a garbage collection, so that the sawtooth of the garbage collections does
+ * not matter. Not thread-safe, and allocation-free once created.
+ */
+final class PostCollectionUsageTrend {
+
+  // VisibleForTesting
+  static final int BUCKETS = 10;
+
+  private static final int MINIMUM_POINTS = 3;
+
+  private final long windowInMillis;
+
+  private final long bucketPeriod;
+
+  // VisibleForTesting
+  final TimeSeries minima = new TimeSeries(BUCKETS * 2);
+
+  private long bucketStart;
+
+  private long bucketMinimumTimestamp;
+
+  private double bucketMinimumValue = Double.NaN;
+
+  private long origin;
+
+  private double meanX;
+
+  private double meanY;
+
+  private double slope;
+
+  private double determination;
+
+  PostCollectionUsageTrend(final long windowInMillis) {
+    this.windowInMillis = windowInMillis;
+    this.bucketPeriod = windowInMillis / BUCKETS;
+  }
+
+  long getBucketPeriod() {
+    return bucketPeriod;
+  }
+
+  /*
+   * Records a measurement and updates the trend
+   */
+  void add(final long timestamp, final double value) {
+    if (Double.isNaN(bucketMinimumValue) || timestamp >= bucketStart + bucketPeriod) {
+      if (!Double.isNaN(bucketMinimumValue)) {
+        minima.add(bucketMinimumTimestamp, bucketMinimumValue);
+      }
+
+      bucketStart = timestamp;
+      bucketMinimumTimestamp = timestamp;
+      bucketMinimumValue = value;
+    } else if (value < bucketMinimumValue) {
+      bucketMinimumTimestamp = timestamp;
+      bucketMinimumValue = value;
+    }
+
+    minima.removeOlderThan(timestamp - windowInMillis, 0);
+
+    fit();
+  }
+
+  /*
+   * Whether there are enough post-GC minima for the trend to mean anything
+   */
+  boolean isAvailable() {
+    return minima.size() >= MINIMUM_POINTS;
+  }
+
+  /*
+   * Whether the post-GC minima span at least half of the window
+   */
+  boolean isCoveringWindow() {
+    return isAvailable()
+        && minima.getLastTimestamp() - minima.getFirstTimestamp() >= windowInMillis / 2;
+  }
+
+  /*
+   * Value change per millisecond
+   */
+  double getSlope() {
+    return slope;
+  }
+
+  /*
+   * Coefficient of determination of the fit
+   */
+  double getRSquared() {
+    return determination;
+  }
+
+  /*
+   * Value of the trend line at the given time
+   */
+  double getValueAt(final long timestamp) {
+    return meanY + slope * (timestamp - origin - meanX);
+  }
+
+  private void fit() {
+    slope = 0d;
+    determination = 0d;
+
+    final int count = minima.size();
+    if (count < 2) {
+      return;
+    }
+
+    // Timestamps relative to the first one, for the sake of precision
+    origin = minima.getFirstTimestamp();
+    double sumX = 0d;
+    double sumY = 0d;
+    for (int i = 0; i < count; ++i) {
+      sumX += minima.getTimestamp(i) - origin;
+      sumY += minima.getValue(i);
+    }
+
+    meanX = sumX / count;
+    meanY = sumY / count;
+    double sumXx = 0d;
+    double sumXy = 0d;
+    double sumYy = 0d;
+    for (int i = 0; i < count; ++i) {
+      final double dx = minima.getTimestamp(i) - origin - meanX;
+      final double dy = minima.getValue(i) - meanY;
+      sumXx += dx * dx;
+      sumXy += dx * dy;
+      sumYy += dy * dy;
+    }
+
+    if (sumXx == 0d) {
+      return;
+    }
+
+    slope = sumXy / sumXx;
+    // A flat usage is perfectly explained by a flat line
+    determination = sumYy == 0d ? 1d : (sumXy * sumXy) / (sumXx * sumYy);
+  }
+
+}
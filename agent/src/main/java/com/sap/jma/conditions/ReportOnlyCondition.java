@@ -0,0 +1,15 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+/**
+ * Marks the conditions whose violation is reported in the log, rather than triggering a heap
+ * dump, because a heap dump would not tell what went wrong (e.g., the footprint of the thread
+ * stacks is not on the heap).
+ */
+public interface ReportOnlyCondition {
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import com.sap.jma.configuration.ThreadThresholdConfiguration;
+import com.sap.jma.configuration.ThreadThresholdConfiguration.Kind;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.utils.SlidingTimeSeries;
+import com.sap.jma.vms.JavaVirtualMachine;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Thread stacks live outside of the heap, so a heap dump does not show what spawns threads;
+ * instead, the violation lists the live threads grouped by name, with digits masked (thread pools
+ * name their threads like 'pool-3-thread-17'), sorted by how much each group grew since the
+ * previous report, together with the code the newest thread of each group runs. The violation is
+ * reported once, until the threshold is no longer exceeded.
+ */
+public class ThreadThresholdCondition
+    extends AbstractThresholdCondition<ThreadThresholdConfiguration>
+    implements ReportOnlyCondition {
+
+  // VisibleForTesting
+  static final int MAX_REPORTED_GROUPS = 5;
+
+  private static final String[] JDK_PACKAGES =
+      {"java.", "javax.", "sun.", "com.sun.", "jdk."};
+
+  private final ThreadMXBean threadBean;
+
+  private final long threadStackSize;
+
+  // Measured only for increases
+  private final SlidingTimeSeries measurements;
+
+  private Map<String, Integer> previousThreadCounts;
+
+  public ThreadThresholdCondition(final ThreadThresholdConfiguration configuration) {
+    this(configuration, ManagementFactory.getThreadMXBean(),
+        JavaVirtualMachine.Factory.getThreadStackSize(
+            ManagementFactory.getRuntimeMXBean().getInputArguments()),
+        Logger.Factory.get(ThreadThresholdCondition.class));
+  }
+
+  // VisibleForTesting
+  ThreadThresholdCondition(final ThreadThresholdConfiguration configuration,
+                           final ThreadMXBean threadBean, final long threadStackSize,
+                           final Logger logger) {
+    super(configuration, logger);
+    this.threadBean = threadBean;
+    this.threadStackSize = threadStackSize;
+
+    if (configuration.getKind() == Kind.INCREASE) {
+      measurements = new SlidingTimeSeries(
+          configuration.getTimeUnit().toMilliSeconds(configuration.getTimeFrame()));
+    } else {
+      measurements = null;
+    }
+  }
+
+  @Override
+  protected void doEvaluate() {
+    if (previousThreadCounts == null) {
+      previousThreadCounts = countThreadsByGroup(threadBean.getThreadInfo(
+          threadBean.getAllThreadIds(), 0));
+    }
+
+    final ThreadThresholdConfiguration configuration = getUsageThresholdConfiguration();
+    final int threadCount = threadBean.getThreadCount();
+    final int peakThreadCount = threadBean.getPeakThreadCount();
+
+    final boolean exceeded;
+    final String description;
+    switch (configuration.getKind()) {
+      case COUNT:
+        exceeded = threadCount > configuration.getThreadCount();
+        setProximity((double) threadCount / configuration.getThreadCount());
+        description = String.format("Live threads at %d (peak %d), configured threshold is %d",
+            threadCount, peakThreadCount, configuration.getThreadCount());
+        break;
+      case STACK_FOOTPRINT:
+        final double stackFootprint = (double) threadCount * threadStackSize;
+        exceeded = stackFootprint > configuration.getStackFootprintInBytes();
+        setProximity(stackFootprint / configuration.getStackFootprintInBytes());
+        description = String.format("Estimated thread stack footprint at %s%s (%d live threads, "
+                + "%s%s stack size), configured threshold is %s%s",
+            formatSize(stackFootprint), configuration.getMemorySizeUnit().getLiteral(),
+            threadCount, formatSize(threadStackSize),
+            configuration.getMemorySizeUnit().getLiteral(),
+            formatSize(configuration.getStackFootprintInBytes()),
+            configuration.getMemorySizeUnit().getLiteral());
+        break;
+      default:
+        final long now = getClock().getMillis();
+        if (measurements.isEmpty()) {
+          measurements.add(now, threadCount);
+          logger.debug("First measurement of the live threads");
+          return;
+        }
+
+        measurements.slide(now, threadCount);
+
+        final long elapsedMillis = now - measurements.getFirstTimestamp();
+        final int increase = threadCount - (int) measurements.getFirstValue();
+        exceeded = increase > configuration.getThreadCount()
+            && elapsedMillis >= measurements.getTimeFrameInMillis();
+        setProximity((double) increase / configuration.getThreadCount());
+        description = String.format("Live threads increased by %d over the last %s%s (to %d, "
+                + "peak %d), configured threshold is +%d", increase,
+            DECIMAL_FORMAT.format(configuration.getTimeUnit().fromMilliseconds(elapsedMillis)),
+            configuration.getTimeUnit().getLiteral(), threadCount, peakThreadCount,
+            configuration.getThreadCount());
+    }
+
+    if (!exceeded) {
+      logger.debug(description);
+      return;
+    }
+
+    // Collecting the details is expensive, and pointless for a violation that is not reported
+    if (!isArmed()) {
+      logger.debug("%s; already reported", description);
+      return;
+    }
+
+    violated(description + describeThreads());
+  }
+
+  /*
+   * The threads are JVM-wide, so the memory usages are irrelevant
+   */
+  @Override
+  protected void doEvaluate(final Map<String, MemoryUsage> memoryUsages) {
+    doEvaluate();
+  }
+
+  @Override
+  protected boolean isReportedOnce() {
+    return true;
+  }
+
+  @Override
+  protected String describe() {
+    final ThreadThresholdConfiguration configuration = getUsageThresholdConfiguration();
+    switch (configuration.getKind()) {
+      case COUNT:
+        return String.format("Live threads above %d", configuration.getThreadCount());
+      case STACK_FOOTPRINT:
+        return String.format("Estimated thread stack footprint above %s%s",
+            formatSize(configuration.getStackFootprintInBytes()),
+            configuration.getMemorySizeUnit().getLiteral());
+      default:
+        return String.format("Live threads increase above %d over %s%s",
+            configuration.getThreadCount(), DECIMAL_FORMAT.format(configuration.getTimeFrame()),
+            configuration.getTimeUnit().getLiteral());
+    }
+  }
+
+  private String formatSize(final double sizeInBytes) {
+    return DECIMAL_FORMAT.format(
+        getUsageThresholdConfiguration().getMemorySizeUnit().fromBytes(sizeInBytes));
+  }
+
+  /*
+   * Stack traces of all threads are only taken when the condition is violated
+   */
+  private String describeThreads() {
+    final ThreadInfo[] threadInfos =
+        threadBean.getThreadInfo(threadBean.getAllThreadIds(), Integer.MAX_VALUE);
+
+    final Map<String, Integer> threadCounts = countThreadsByGroup(threadInfos);
+    final Map<String, ThreadInfo> newestThreads = new HashMap<>();
+    for (final ThreadInfo threadInfo : threadInfos) {
+      if (threadInfo == null) {
+        // Terminated in the meantime
+        continue;
+      }
+
+      final String group = toGroup(threadInfo.getThreadName());
+      final ThreadInfo newestThread = newestThreads.get(group);
+      if (newestThread == null || newestThread.getThreadId() < threadInfo.getThreadId()) {
+        newestThreads.put(group, threadInfo);
+      }
+    }
+
+    final Map<String, Integer> increases = new HashMap<>();
+    for (final Map.Entry<String, Integer> entry : threadCounts.entrySet()) {
+      final Integer previousThreadCount = previousThreadCounts.get(entry.getKey());
+      increases.put(entry.getKey(),
+          entry.getValue() - (previousThreadCount == null ? 0 : previousThreadCount));
+    }
+    previousThreadCounts = threadCounts;
+
+    final List<String> groups = new ArrayList<>(threadCounts.keySet());
+    Collections.sort(groups, new Comparator<String>() {
+      @Override
+      public int compare(final String group1, final String group2) {
+        final int byIncrease = increases.get(group2).compareTo(increases.get(group1));
+        if (byIncrease != 0) {
+          return byIncrease;
+        }
+        final int byCount = threadCounts.get(group2).compareTo(threadCounts.get(group1));
+        return byCount != 0 ? byCount : group1.compareTo(group2);
+      }
+    });
+
+    final StringBuilder sb = new StringBuilder();
+    sb.append("; live threads by name (change since the previous report):");
+    for (final String group : groups.subList(0, Math.min(MAX_REPORTED_GROUPS, groups.size()))) {
+      final ThreadInfo newestThread = newestThreads.get(group);
+      final int increase = increases.get(group);
+      sb.append(String.format("%n    '%s': %d (%s%d), newest '%s' runs %s", group,
+          threadCounts.get(group), increase < 0 ? "" : "+", increase,
+          newestThread.getThreadName(), describeEntryPoint(newestThread.getStackTrace())));
+    }
+    if (groups.size() > MAX_REPORTED_GROUPS) {
+      sb.append(String.format("%n    ... and %d more", groups.size() - MAX_REPORTED_GROUPS));
+    }
+    return sb.toString();
+  }
+
+  private static Map<String, Integer> countThreadsByGroup(final ThreadInfo[] threadInfos) {
+    final Map<String, Integer> threadCounts = new HashMap<>();
+    for (final ThreadInfo threadInfo : threadInfos) {
+      if (threadInfo == null) {
+        continue;
+      }
+
+      final String group = toGroup(threadInfo.getThreadName());
+      final Integer threadCount = threadCounts.get(group);
+      threadCounts.put(group, threadCount == null ? 1 : threadCount + 1);
+    }
+    return threadCounts;
+  }
+
+  /*
+   * Masks the digits of the thread name, so that 'pool-3-thread-17' becomes 'pool-#-thread-#'
+   */
+  // VisibleForTesting
+  static String toGroup(final String threadName) {
+    return threadName.replaceAll("\\d+", "#");
+  }
+
+  /*
+   * The entry point is the outermost frame that is not in the JDK, e.g., the 'run' method of the
+   * task of a thread pool, or else the outermost frame
+   */
+  // VisibleForTesting
+  static String describeEntryPoint(final StackTraceElement[] stackTrace) {
+    if (stackTrace == null || stackTrace.length == 0) {
+      return "no Java code";
+    }
+
+    for (int i = stackTrace.length - 1; i >= 0; --i) {
+      if (!isJdkClass(stackTrace[i].getClassName())) {
+        return stackTrace[i].toString();
+      }
+    }
+    return stackTrace[stackTrace.length - 1].toString();
+  }
+
+  private static boolean isJdkClass(final String className) {
+    for (final String jdkPackage : JDK_PACKAGES) {
+      if (className.startsWith(jdkPackage)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
@@ -6,18 +6,30 @@
 
 package com.sap.jma.conditions;
 
-import com.sap.jma.configuration.UsageThresholdConfiguration;
+import com.sap.jma.configuration.ThresholdConfiguration;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
 
-public interface UsageThresholdCondition<C extends UsageThresholdConfiguration> {
+public interface UsageThresholdCondition<C extends ThresholdConfiguration> {
 
   C getUsageThresholdConfiguration();
 
-  void evaluate() throws UsageThresholdConditionViolatedException;
+  /**
+   * Evaluates the condition against the given memory usages, keyed by memory pool name, like
+   * the ones reported by garbage collection notifications; memory pools not covered by the
+   * usages are queried for their current usage, and an empty map evaluates the condition
+   * against the current usages only.
+   *
+   * <p>A violation is reported in the returned {@link Evaluation}, which belongs to the
+   * condition and is overwritten by its next evaluation; conditions that are not violated
+   * allocate no description of their state unless it is logged.
+   */
+  Evaluation check(Map<String, MemoryUsage> memoryUsages);
 
-  final class UsageThresholdConditionViolatedException extends Exception {
-    UsageThresholdConditionViolatedException(String message) {
-      super(message);
-    }
-  }
+  /**
+   * Returns how close the memory usage was to violating this condition when last evaluated,
+   * from 0 (far from it, or never evaluated) to 1 (violated).
+   */
+  double getProximity();
 
-}
\ No newline at end of file
+}
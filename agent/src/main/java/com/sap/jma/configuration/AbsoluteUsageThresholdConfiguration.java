@@ -13,7 +13,7 @@ import com.sap.jma.vms.MemoryPool.Type;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-public class AbsoluteUsageThresholdConfiguration implements UsageThresholdConfiguration {
+public class AbsoluteUsageThresholdConfiguration extends AbstractUsageThresholdConfiguration {
 
   private static final Pattern ABSOLUTE_PATTERN =
       Pattern.compile("([<=>]+)(\\d*\\.?\\d*\\d)([KMG]?B)");
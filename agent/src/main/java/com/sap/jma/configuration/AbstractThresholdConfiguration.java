@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.configuration;
+
+/*
+ * Base class of all threshold configurations, holding the debouncing and check interval clauses
+ * that follow the value of the threshold
+ */
+abstract class AbstractThresholdConfiguration implements ThresholdConfiguration {
+
+  private Debouncing debouncing = Debouncing.NONE;
+
+  private CheckInterval checkInterval = CheckInterval.NONE;
+
+  @Override
+  public Debouncing getDebouncing() {
+    return debouncing;
+  }
+
+  /*
+   * Set by the configuration while parsing the value of the threshold
+   */
+  final void setDebouncing(final Debouncing debouncing) {
+    this.debouncing = debouncing;
+  }
+
+  @Override
+  public CheckInterval getCheckInterval() {
+    return checkInterval;
+  }
+
+  /*
+   * Set by the configuration while parsing the value of the threshold
+   */
+  final void setCheckInterval(final CheckInterval checkInterval) {
+    this.checkInterval = checkInterval;
+  }
+
+}
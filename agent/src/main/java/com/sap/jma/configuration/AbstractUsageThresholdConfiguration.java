@@ -0,0 +1,15 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.configuration;
+
+/*
+ * Base class of the threshold configurations whose conditions are created for a memory pool
+ */
+abstract class AbstractUsageThresholdConfiguration extends AbstractThresholdConfiguration
+    implements UsageThresholdConfiguration {
+
+}
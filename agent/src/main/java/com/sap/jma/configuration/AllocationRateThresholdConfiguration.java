@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.configuration;
+
+import com.sap.jma.conditions.AllocationRateThresholdCondition;
+import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.vms.MemoryPool;
+import com.sap.jma.vms.MemoryPool.Type;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Threshold on the rate at which all the threads of the JVM allocate heap memory, e.g.,
+ * <code>&gt;800MB/s/30s</code> for more than 800 MB per second for at least 30 seconds.
+ */
+public class AllocationRateThresholdConfiguration extends AbstractUsageThresholdConfiguration {
+
+  private static final Pattern ALLOCATION_RATE_PATTERN =
+      Pattern.compile(">(\\d*\\.?\\d*\\d)([KMG]?B)/s/(\\d*\\.?\\d*\\d)(ms|s|m|h)");
+
+  public static AllocationRateThresholdConfiguration parse(final String value)
+      throws InvalidPropertyValueException {
+    final Matcher matcher = ALLOCATION_RATE_PATTERN.matcher(value.trim());
+
+    if (!matcher.matches()) {
+      throw new InvalidPropertyValueException(
+          String.format("it must follow the Java pattern '%s'",
+              ALLOCATION_RATE_PATTERN.pattern()));
+    }
+
+    try {
+      final double rateInUnitSize = Double.parseDouble(matcher.group(1));
+      final MemorySizeUnit memorySizeUnit = MemorySizeUnit.from(matcher.group(2));
+      final double timeFrame = Double.parseDouble(matcher.group(3));
+      final IntervalTimeUnit timeUnit = IntervalTimeUnit.from(matcher.group(4));
+
+      if (rateInUnitSize <= 0d || timeFrame <= 0d) {
+        throw new NumberFormatException();
+      }
+
+      return new AllocationRateThresholdConfiguration(
+          memorySizeUnit.toBytes(rateInUnitSize), memorySizeUnit, timeFrame, timeUnit);
+    } catch (final Exception ex) {
+      throw new InvalidPropertyValueException("cannot be parsed", ex);
+    }
+  }
+
+  private final double rateInBytesPerSecond;
+  private final MemorySizeUnit memorySizeUnit;
+  private final double timeFrame;
+  private final IntervalTimeUnit timeUnit;
+
+  private AllocationRateThresholdConfiguration(final double rateInBytesPerSecond,
+                                               final MemorySizeUnit memorySizeUnit,
+                                               final double timeFrame,
+                                               final IntervalTimeUnit timeUnit) {
+    this.rateInBytesPerSecond = rateInBytesPerSecond;
+    this.memorySizeUnit = memorySizeUnit;
+    this.timeFrame = timeFrame;
+    this.timeUnit = timeUnit;
+  }
+
+  public double getRateInBytesPerSecond() {
+    return rateInBytesPerSecond;
+  }
+
+  public MemorySizeUnit getMemorySizeUnit() {
+    return memorySizeUnit;
+  }
+
+  public double getTimeFrame() {
+    return timeFrame;
+  }
+
+  public IntervalTimeUnit getTimeUnit() {
+    return timeUnit;
+  }
+
+  /*
+   * Allocations happen in the heap as a whole
+   */
+  @Override
+  public Type getMemoryPoolType() {
+    return Type.HEAP;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the JVM does not measure the memory allocated by threads
+   */
+  @Override
+  public UsageThresholdCondition<AllocationRateThresholdConfiguration> toCondition(
+      final MemoryPool memoryPool) {
+    return new AllocationRateThresholdCondition(this);
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.configuration;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * How often the condition of a threshold is checked, if at an interval of its own rather than at
+ * the check interval of the agent.
+ *
+ * <p>The clause comes last after the value of the threshold and its {@link Debouncing} clauses,
+ * e.g., <code>jma.thresholds.class.com.acme.Session=&gt;100000 every 10m</code> or
+ * <code>jma.thresholds.heap=90% for 3 samples every 250ms</code>.
+ */
+public final class CheckInterval {
+
+  public static final CheckInterval NONE = new CheckInterval(0L, null);
+
+  private static final Pattern CLAUSE_START_PATTERN =
+      Pattern.compile("\\s+every\\s", Pattern.CASE_INSENSITIVE);
+
+  private static final Pattern CLAUSE_PATTERN =
+      Pattern.compile("every\\s+(\\S+)", Pattern.CASE_INSENSITIVE);
+
+  /**
+   * Returns the index in the given value of the <code>every</code> clause, or the length of the
+   * value if it has none.
+   */
+  static int indexOfClause(final String value) {
+    final Matcher matcher = CLAUSE_START_PATTERN.matcher(value);
+    return matcher.find() ? matcher.start() : value.length();
+  }
+
+  /**
+   * Parses the <code>every</code> clause, as returned from the index given by
+   * {@link #indexOfClause(String)}.
+   */
+  public static CheckInterval parse(final String clause) throws InvalidPropertyValueException {
+    if (clause.trim().isEmpty()) {
+      return NONE;
+    }
+
+    final Matcher matcher = CLAUSE_PATTERN.matcher(clause.trim());
+    if (!matcher.matches()) {
+      throw new InvalidPropertyValueException(String.format("the clause '%s' must be "
+          + "'every <interval>', and come last", clause.trim()));
+    }
+
+    final String interval = matcher.group(1).toLowerCase(Locale.ROOT);
+    final Matcher intervalMatcher = IntervalTimeUnit.INTERVAL_PATTERN.matcher(interval);
+    if (!intervalMatcher.matches()) {
+      throw new InvalidPropertyValueException(String.format("the interval '%s' after 'every' "
+          + "must follow the Java pattern '%s'", matcher.group(1),
+          IntervalTimeUnit.INTERVAL_PATTERN.pattern()));
+    }
+
+    final long intervalInMillis = IntervalTimeUnit.from(intervalMatcher.group(2))
+        .toMilliSeconds(Double.parseDouble(intervalMatcher.group(1)));
+    if (intervalInMillis < 1) {
+      throw new InvalidPropertyValueException(
+          "the interval after 'every' must be at least 1 millisecond");
+    }
+
+    return new CheckInterval(intervalInMillis, interval);
+  }
+
+  private final long intervalInMillis;
+
+  private final String interval;
+
+  private CheckInterval(final long intervalInMillis, final String interval) {
+    this.intervalInMillis = intervalInMillis;
+    this.interval = interval;
+  }
+
+  /**
+   * Returns every how many milliseconds the condition is checked, or 0 if it is checked at the
+   * check interval of the agent.
+   */
+  public long getIntervalInMillis() {
+    return intervalInMillis;
+  }
+
+  @Override
+  public String toString() {
+    return intervalInMillis > 0 ? "every " + interval : "";
+  }
+
+}
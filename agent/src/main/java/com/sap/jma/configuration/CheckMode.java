@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.configuration;
+
+import java.util.NoSuchElementException;
+
+/**
+ * What makes the agent evaluate the configured memory conditions.
+ */
+public enum CheckMode {
+
+  /**
+   * Conditions are evaluated every {@code jma.check_interval}.
+   */
+  INTERVAL("interval"),
+
+  /**
+   * Conditions are evaluated right after each garbage collection, using the memory usage
+   * reported by the collector; if {@code jma.check_interval} is set as well, polling is kept as
+   * a fallback.
+   */
+  GARBAGE_COLLECTION("gc"),
+
+  /**
+   * Conditions that can be expressed as an upper bound of the usage of a memory pool are
+   * translated into usage thresholds of the JVM, and evaluated only when the JVM notifies that
+   * one is exceeded; the other conditions are evaluated every {@code jma.check_interval}.
+   */
+  USAGE_THRESHOLD("usage_threshold");
+
+  private final String literal;
+
+  CheckMode(final String literal) {
+    this.literal = literal;
+  }
+
+  public static CheckMode from(final String literal) throws NoSuchElementException {
+    for (final CheckMode mode : CheckMode.values()) {
+      if (mode.literal.equals(literal)) {
+        return mode;
+      }
+    }
+
+    throw new NoSuchElementException(String.format("The check mode '%s' is unknown", literal));
+  }
+
+  public String getLiteral() {
+    return literal;
+  }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.configuration;
+
+import com.sap.jma.conditions.ClassHistogramThresholdCondition;
+import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.vms.ClassHistogram;
+import com.sap.jma.vms.JavaVirtualMachine;
+import com.sap.jma.vms.MemoryPool.Type;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Threshold on the live instances of a class, e.g., <code>com.acme.Session</code>, or of the
+ * classes of a package, e.g., <code>com.acme.*</code>, as reported by the class histogram of the
+ * JVM: on their count, e.g., <code>&gt;500000</code>, on their size, e.g.,
+ * <code>&gt;512MB</code>, or on the growth of their count between two consecutive histograms,
+ * e.g., <code>+20%</code>.
+ */
+public class ClassHistogramThresholdConfiguration extends AbstractThresholdConfiguration
+    implements JvmThresholdConfiguration {
+
+  /**
+   * The interval at which the conditions on the class histogram are checked, unless configured
+   * otherwise with <code>every &lt;interval&gt;</code>: each class histogram forces a full
+   * garbage collection, so they are never checked at the check interval of the agent.
+   */
+  public static final long DEFAULT_CHECK_INTERVAL_IN_MILLIS = 60000L;
+
+  public enum Kind {
+    INSTANCES,
+    BYTES,
+    GROWTH
+  }
+
+  private static final Pattern CLASS_PATTERN =
+      Pattern.compile("[\\p{L}_$][\\p{L}\\p{N}_$]*(?:\\.[\\p{L}_$][\\p{L}\\p{N}_$]*)*(?:\\.\\*)?");
+
+  private static final Pattern INSTANCES_PATTERN = Pattern.compile(">(\\d+)");
+
+  private static final Pattern BYTES_PATTERN = Pattern.compile(">(\\d*\\.?\\d*\\d)([KMG]B)");
+
+  private static final Pattern GROWTH_PATTERN = Pattern.compile("\\+(\\d*\\.?\\d*\\d)%");
+
+  public static ClassHistogramThresholdConfiguration parse(final String classPattern,
+                                                           final String value)
+      throws InvalidPropertyValueException {
+    if (!CLASS_PATTERN.matcher(classPattern).matches()) {
+      throw new InvalidPropertyValueException(String.format("'%s' is neither the "
+          + "fully-qualified name of a class nor a package followed by '%s'", classPattern,
+          ClassHistogram.PACKAGE_WILDCARD));
+    }
+
+    final String trimmed = value.trim();
+
+    Matcher matcher = INSTANCES_PATTERN.matcher(trimmed);
+    if (matcher.matches()) {
+      final long instances;
+      try {
+        instances = Long.parseLong(matcher.group(1));
+      } catch (final NumberFormatException ex) {
+        throw new InvalidPropertyValueException(String.format("the amount of instances must be "
+            + "a positive Java long (0 < n <= %d)", Long.MAX_VALUE));
+      }
+
+      if (instances < 1) {
+        throw new InvalidPropertyValueException(String.format("the amount of instances must be "
+            + "a positive Java long (0 < n <= %d)", Long.MAX_VALUE));
+      }
+
+      return new ClassHistogramThresholdConfiguration(classPattern, Kind.INSTANCES, instances,
+          null);
+    }
+
+    matcher = BYTES_PATTERN.matcher(trimmed);
+    if (matcher.matches()) {
+      final MemorySizeUnit memorySizeUnit = MemorySizeUnit.from(matcher.group(2));
+      final double sizeInBytes = memorySizeUnit.toBytes(Double.parseDouble(matcher.group(1)));
+      if (sizeInBytes <= 0d) {
+        throw new InvalidPropertyValueException("the size must be positive");
+      }
+
+      return new ClassHistogramThresholdConfiguration(classPattern, Kind.BYTES, sizeInBytes,
+          memorySizeUnit);
+    }
+
+    matcher = GROWTH_PATTERN.matcher(trimmed);
+    if (matcher.matches()) {
+      final double percentage = Double.parseDouble(matcher.group(1));
+      if (percentage <= 0d) {
+        throw new InvalidPropertyValueException("the growth must be positive");
+      }
+
+      return new ClassHistogramThresholdConfiguration(classPattern, Kind.GROWTH, percentage,
+          null);
+    }
+
+    throw new InvalidPropertyValueException(String.format(
+        "it must follow one of the Java patterns '%s', '%s' or '%s'",
+        INSTANCES_PATTERN.pattern(), BYTES_PATTERN.pattern(), GROWTH_PATTERN.pattern()));
+  }
+
+  private final String classPattern;
+  private final Kind kind;
+  private final double value;
+  private final MemorySizeUnit memorySizeUnit;
+
+  private ClassHistogramThresholdConfiguration(final String classPattern, final Kind kind,
+                                               final double value,
+                                               final MemorySizeUnit memorySizeUnit) {
+    this.classPattern = classPattern;
+    this.kind = kind;
+    this.value = value;
+    this.memorySizeUnit = memorySizeUnit;
+  }
+
+  /**
+   * The fully-qualified name of a class, or a package followed by
+   * {@link ClassHistogram#PACKAGE_WILDCARD}.
+   */
+  public String getClassPattern() {
+    return classPattern;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * The maximum amount of instances with {@link Kind#INSTANCES}, their maximum size in bytes
+   * with {@link Kind#BYTES}, or the maximum growth of their amount in percent with
+   * {@link Kind#GROWTH}.
+   */
+  public double getValue() {
+    return value;
+  }
+
+  /**
+   * The memory size unit with {@link Kind#BYTES}, <code>null</code> otherwise.
+   */
+  public MemorySizeUnit getMemorySizeUnit() {
+    return memorySizeUnit;
+  }
+
+  /*
+   * The class histogram is about the heap as a whole
+   */
+  @Override
+  public Type getMemoryPoolType() {
+    return Type.HEAP;
+  }
+
+  @Override
+  public UsageThresholdCondition<ClassHistogramThresholdConfiguration> toCondition(
+      final JavaVirtualMachine jvm) {
+    return new ClassHistogramThresholdCondition(this, jvm.getClassHistogram());
+  }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.configuration;
+
+import com.sap.jma.conditions.ClassLoadingThresholdCondition;
+import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.vms.MemoryPool;
+import com.sap.jma.vms.MemoryPool.Type;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Threshold on the rate of class loading over a sliding time-frame, e.g.,
+ * <code>&gt;50/s/5m</code> for more than 50 classes loaded per second on average over five
+ * minutes; the rate can be measured on the loaded classes (the default), on the unloaded ones,
+ * or on their difference, e.g., <code>net&gt;5/s</code>. The time-frame defaults to one minute.
+ */
+public class ClassLoadingThresholdConfiguration extends AbstractUsageThresholdConfiguration {
+
+  public enum Kind {
+    LOADED("loaded"),
+    UNLOADED("unloaded"),
+    NET("net");
+
+    private final String literal;
+
+    Kind(final String literal) {
+      this.literal = literal;
+    }
+
+    public String getLiteral() {
+      return literal;
+    }
+
+    static Kind from(final String literal) {
+      for (final Kind kind : values()) {
+        if (kind.literal.equals(literal)) {
+          return kind;
+        }
+      }
+      throw new IllegalArgumentException("Unknown class loading kind '" + literal + "'");
+    }
+  }
+
+  private static final Pattern CLASS_LOADING_PATTERN = Pattern.compile(
+      "(loaded|unloaded|net)?>(\\d*\\.?\\d*\\d)/s(?:/(\\d*\\.?\\d*\\d)(ms|s|m|h))?");
+
+  private static final double DEFAULT_TIME_FRAME = 1d;
+
+  private static final IntervalTimeUnit DEFAULT_TIME_UNIT = IntervalTimeUnit.MINUTES;
+
+  public static ClassLoadingThresholdConfiguration parse(final String value)
+      throws InvalidPropertyValueException {
+    final Matcher matcher = CLASS_LOADING_PATTERN.matcher(value.trim());
+
+    if (!matcher.matches()) {
+      throw new InvalidPropertyValueException(String.format(
+          "it must follow the Java pattern '%s'", CLASS_LOADING_PATTERN.pattern()));
+    }
+
+    final Kind kind = matcher.group(1) == null ? Kind.LOADED : Kind.from(matcher.group(1));
+
+    final double classesPerSecond = Double.parseDouble(matcher.group(2));
+    if (classesPerSecond <= 0d) {
+      throw new InvalidPropertyValueException("the class loading rate must be positive");
+    }
+
+    if (matcher.group(3) == null) {
+      return new ClassLoadingThresholdConfiguration(kind, classesPerSecond, DEFAULT_TIME_FRAME,
+          DEFAULT_TIME_UNIT);
+    }
+
+    final double timeFrame = Double.parseDouble(matcher.group(3));
+    if (timeFrame <= 0d) {
+      throw new InvalidPropertyValueException("the time-frame must be positive");
+    }
+
+    return new ClassLoadingThresholdConfiguration(kind, classesPerSecond, timeFrame,
+        IntervalTimeUnit.from(matcher.group(4)));
+  }
+
+  private final Kind kind;
+  private final double classesPerSecond;
+  private final double timeFrame;
+  private final IntervalTimeUnit timeUnit;
+
+  private ClassLoadingThresholdConfiguration(final Kind kind, final double classesPerSecond,
+                                             final double timeFrame,
+                                             final IntervalTimeUnit timeUnit) {
+    this.kind = kind;
+    this.classesPerSecond = classesPerSecond;
+    this.timeFrame = timeFrame;
+    this.timeUnit = timeUnit;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  public double getClassesPerSecond() {
+    return classesPerSecond;
+  }
+
+  public double getTimeFrame() {
+    return timeFrame;
+  }
+
+  public IntervalTimeUnit getTimeUnit() {
+    return timeUnit;
+  }
+
+  /*
+   * Classes are about the JVM as a whole
+   */
+  @Override
+  public Type getMemoryPoolType() {
+    return Type.HEAP;
+  }
+
+  @Override
+  public UsageThresholdCondition<ClassLoadingThresholdConfiguration> toCondition(
+      final MemoryPool memoryPool) {
+    return new ClassLoadingThresholdCondition(this);
+  }
+
+}
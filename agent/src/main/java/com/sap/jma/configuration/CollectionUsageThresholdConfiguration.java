@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.configuration;
+
+import com.sap.jma.conditions.CollectionUsageThresholdCondition;
+import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.vms.CollectionUsageMemoryPool;
+import com.sap.jma.vms.MemoryPool;
+import com.sap.jma.vms.MemoryPool.Type;
+
+/**
+ * Applies the wrapped configuration to the usage of the memory pool after the most recent
+ * garbage collection, rather than to its current usage.
+ */
+public class CollectionUsageThresholdConfiguration extends AbstractUsageThresholdConfiguration {
+
+  static final String PREFIX = "collection:";
+
+  private final UsageThresholdConfiguration delegate;
+
+  public CollectionUsageThresholdConfiguration(final UsageThresholdConfiguration delegate) {
+    this.delegate = delegate;
+  }
+
+  public UsageThresholdConfiguration getDelegate() {
+    return delegate;
+  }
+
+  /**
+   * Returns the debouncing of the wrapped configuration, which the condition is created from.
+   */
+  @Override
+  public Debouncing getDebouncing() {
+    return delegate.getDebouncing();
+  }
+
+  /**
+   * Returns the check interval of the wrapped configuration, which the condition is created from.
+   */
+  @Override
+  public CheckInterval getCheckInterval() {
+    return delegate.getCheckInterval();
+  }
+
+  @Override
+  public Type getMemoryPoolType() {
+    return delegate.getMemoryPoolType();
+  }
+
+  /**
+   * @throws IllegalArgumentException if the memory pool does not report its usage after garbage
+   *     collections
+   */
+  @Override
+  public UsageThresholdCondition<CollectionUsageThresholdConfiguration> toCondition(
+      final MemoryPool memoryPool) {
+    if (memoryPool.getCollectionUsage() == null) {
+      throw new IllegalArgumentException(String.format("The memory pool '%s' does not report "
+          + "its usage after garbage collections", memoryPool.getName()));
+    }
+
+    return new CollectionUsageThresholdCondition(this,
+        delegate.toCondition(new CollectionUsageMemoryPool(memoryPool)));
+  }
+
+}
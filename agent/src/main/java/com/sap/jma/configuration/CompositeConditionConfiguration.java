@@ -0,0 +1,443 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.configuration;
+
+import com.sap.jma.conditions.CompositeCondition;
+import com.sap.jma.conditions.CompositeCondition.Node;
+import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.vms.JavaVirtualMachine;
+import com.sap.jma.vms.MemoryPool;
+import com.sap.jma.vms.MemoryPool.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.regex.Matcher;
+
+/**
+ * A boolean combination of thresholds, e.g.,
+ * <code>old_gen &gt;85% AND gc_overhead &gt;20% FOR 2m</code>. The operands are thresholds
+ * written as the name of their property without the <code>jma.thresholds.</code> prefix,
+ * followed by a value that property accepts, e.g., <code>heap +10%/5m</code> or
+ * <code>direct_buffers &gt;1GB</code>. Operands are combined with <code>NOT</code>,
+ * <code>AND</code> and <code>OR</code>, in decreasing order of precedence, and grouped with
+ * parentheses; <code>FOR</code> followed by a time-frame requires the expression before it, up to
+ * the enclosing parenthesis, to hold for at least that long. Keywords are case-insensitive.
+ *
+ * <p>The expression is parsed, and its thresholds validated, when the configuration is read; it
+ * is compiled into a {@link CompositeCondition} when the monitoring starts.
+ */
+public class CompositeConditionConfiguration extends AbstractThresholdConfiguration
+    implements JvmThresholdConfiguration {
+
+  private static final String AND = "AND";
+
+  private static final String OR = "OR";
+
+  private static final String NOT = "NOT";
+
+  private static final String FOR = "FOR";
+
+  private static final String THRESHOLD_OPTION_PREFIX = "jma.thresholds.";
+
+  public static CompositeConditionConfiguration parse(final String name, final String value)
+      throws InvalidPropertyValueException {
+    final Parser parser = new Parser(tokenize(value));
+    final Expression expression = parser.parseExpression();
+    if (parser.hasNext()) {
+      throw new InvalidPropertyValueException(
+          String.format("unexpected '%s' at token %d", parser.peek(), parser.position + 1));
+    }
+
+    return new CompositeConditionConfiguration(name, expression);
+  }
+
+  private static List<String> tokenize(final String value) {
+    final List<String> tokens = new ArrayList<>();
+    final StringBuilder token = new StringBuilder();
+    for (int i = 0; i < value.length(); ++i) {
+      final char c = value.charAt(i);
+      if (Character.isWhitespace(c) || c == '(' || c == ')') {
+        if (token.length() > 0) {
+          tokens.add(token.toString());
+          token.setLength(0);
+        }
+        if (!Character.isWhitespace(c)) {
+          tokens.add(String.valueOf(c));
+        }
+      } else {
+        token.append(c);
+      }
+    }
+    if (token.length() > 0) {
+      tokens.add(token.toString());
+    }
+    return tokens;
+  }
+
+  private static boolean isKeyword(final String token) {
+    final String upperCase = token.toUpperCase(Locale.ROOT);
+    return AND.equals(upperCase) || OR.equals(upperCase) || NOT.equals(upperCase)
+        || FOR.equals(upperCase) || "(".equals(token) || ")".equals(token);
+  }
+
+  /*
+   * Recursive-descent parser of:
+   *
+   *   expression := disjunction [FOR interval]
+   *   disjunction := conjunction {OR conjunction}
+   *   conjunction := negation {AND negation}
+   *   negation := NOT negation | '(' expression ')' | threshold
+   *   threshold := name value-token {value-token}
+   */
+  private static final class Parser {
+
+    private final List<String> tokens;
+
+    private int position;
+
+    private Parser(final List<String> tokens) {
+      this.tokens = tokens;
+    }
+
+    private boolean hasNext() {
+      return position < tokens.size();
+    }
+
+    private String peek() {
+      return tokens.get(position);
+    }
+
+    private boolean accept(final String keyword) {
+      if (hasNext() && keyword.equalsIgnoreCase(peek())) {
+        ++position;
+        return true;
+      }
+      return false;
+    }
+
+    private String next(final String expected) throws InvalidPropertyValueException {
+      if (!hasNext()) {
+        throw new InvalidPropertyValueException(
+            String.format("expected %s, but the expression ended", expected));
+      }
+      return tokens.get(position++);
+    }
+
+    private Expression parseExpression() throws InvalidPropertyValueException {
+      final Expression disjunction = parseDisjunction();
+      if (!accept(FOR)) {
+        return disjunction;
+      }
+
+      final String duration = next("a time-frame after '" + FOR + "'");
+      final Matcher matcher = IntervalTimeUnit.INTERVAL_PATTERN.matcher(duration);
+      if (!matcher.matches()) {
+        throw new InvalidPropertyValueException(String.format("the time-frame '%s' after '%s' "
+            + "must follow the Java pattern '%s'", duration, FOR,
+            IntervalTimeUnit.INTERVAL_PATTERN.pattern()));
+      }
+
+      final IntervalTimeUnit timeUnit = IntervalTimeUnit.from(matcher.group(2));
+      return new For(disjunction,
+          timeUnit.toMilliSeconds(Double.parseDouble(matcher.group(1))), duration);
+    }
+
+    private Expression parseDisjunction() throws InvalidPropertyValueException {
+      final List<Expression> operands = new ArrayList<>();
+      operands.add(parseConjunction());
+      while (accept(OR)) {
+        operands.add(parseConjunction());
+      }
+      return operands.size() == 1 ? operands.get(0) : new Junction(operands, OR);
+    }
+
+    private Expression parseConjunction() throws InvalidPropertyValueException {
+      final List<Expression> operands = new ArrayList<>();
+      operands.add(parseNegation());
+      while (accept(AND)) {
+        operands.add(parseNegation());
+      }
+      return operands.size() == 1 ? operands.get(0) : new Junction(operands, AND);
+    }
+
+    private Expression parseNegation() throws InvalidPropertyValueException {
+      if (accept(NOT)) {
+        return new Not(parseNegation());
+      }
+
+      if (accept("(")) {
+        final Expression expression = parseExpression();
+        if (!accept(")")) {
+          throw new InvalidPropertyValueException(hasNext()
+              ? String.format("expected ')', but found '%s'", peek())
+              : "expected ')', but the expression ended");
+        }
+        return expression;
+      }
+
+      final String name = next("a threshold");
+      if (isKeyword(name)) {
+        throw new InvalidPropertyValueException(
+            String.format("expected a threshold, but found '%s'", name));
+      }
+
+      final StringBuilder value = new StringBuilder();
+      while (hasNext() && !isKeyword(peek())) {
+        value.append(tokens.get(position++));
+      }
+
+      return Threshold.parse(name, value.toString());
+    }
+
+  }
+
+  private abstract static class Expression {
+
+    abstract Node compile(JavaVirtualMachine jvm) throws IllegalArgumentException;
+
+    abstract boolean isOnClassHistogram();
+
+  }
+
+  private static final class Threshold extends Expression {
+
+    private final String name;
+
+    private final String value;
+
+    private final Configuration configuration;
+
+    private Threshold(final String name, final String value,
+                      final Configuration configuration) {
+      this.name = name;
+      this.value = value;
+      this.configuration = configuration;
+    }
+
+    /*
+     * The threshold is applied to a configuration of its own, so that the very same parsing and
+     * validation of the corresponding property are used
+     */
+    private static Threshold parse(final String name, final String value)
+        throws InvalidPropertyValueException {
+      // Members of families of properties, like class names, may be case-sensitive
+      final String option = THRESHOLD_OPTION_PREFIX + name;
+
+      final Configuration.Property property;
+      try {
+        property = Configuration.Property.from(
+            THRESHOLD_OPTION_PREFIX + name.toLowerCase(Locale.ROOT));
+      } catch (final NoSuchElementException ex) {
+        throw new InvalidPropertyValueException(
+            String.format("'%s' is not a known threshold", name));
+      }
+
+      if (property == Configuration.Property.THREAD_THRESHOLD
+          || property == Configuration.Property.CLASS_LOADING_THRESHOLD) {
+        throw new InvalidPropertyValueException(String.format("the '%s' threshold is only "
+            + "reported, so it cannot be combined with other thresholds", name));
+      }
+
+      if (value.isEmpty()) {
+        throw new InvalidPropertyValueException(
+            String.format("the threshold '%s' has no value", name));
+      }
+
+      final Configuration configuration = new Configuration();
+      try {
+        property.apply(configuration, option, value);
+      } catch (final InvalidPropertyValueException ex) {
+        throw new InvalidPropertyValueException(
+            String.format("invalid threshold '%s %s': %s", name, value, ex.getMessage()));
+      }
+
+      return new Threshold(name, value, configuration);
+    }
+
+    @Override
+    Node compile(final JavaVirtualMachine jvm) throws IllegalArgumentException {
+      return CompositeCondition.leaf(toCondition(jvm), toString());
+    }
+
+    @Override
+    boolean isOnClassHistogram() {
+      return !configuration.getClassHistogramThresholds().isEmpty();
+    }
+
+    private UsageThresholdCondition<?> toCondition(final JavaVirtualMachine jvm) {
+      final List<UsageThresholdConfiguration> jvmThresholds = configuration.getJvmThresholds();
+      if (!jvmThresholds.isEmpty()) {
+        return jvmThresholds.get(0).toCondition(jvm.getHeapMemoryPool());
+      }
+
+      final Map<String, ClassHistogramThresholdConfiguration> classHistogramThresholds =
+          configuration.getClassHistogramThresholds();
+      if (!classHistogramThresholds.isEmpty()) {
+        return classHistogramThresholds.values().iterator().next().toCondition(jvm);
+      }
+
+      final UsageThresholdCondition<?> heapCondition =
+          jvm.getHeapMemoryPool().toCondition(configuration);
+      if (heapCondition != null) {
+        return heapCondition;
+      }
+
+      for (final MemoryPool memoryPool : jvm.getMemoryPools()) {
+        final UsageThresholdCondition<?> condition = memoryPool.toCondition(configuration);
+        if (condition != null) {
+          return condition;
+        }
+      }
+
+      final Map<String, UsageThresholdConfiguration> nativeMemoryThresholds =
+          configuration.getNativeMemoryThresholds();
+      if (!nativeMemoryThresholds.isEmpty()) {
+        final String category = nativeMemoryThresholds.keySet().iterator().next();
+        final MemoryPool nativeMemoryPool = jvm.getNativeMemoryPool(category);
+        if (nativeMemoryPool == null) {
+          throw new IllegalArgumentException(String.format("The native memory category '%s' "
+              + "is not tracked (is the JVM running with -XX:NativeMemoryTracking=summary?)",
+              category));
+        }
+        return nativeMemoryPool.toCondition(configuration);
+      }
+
+      throw new IllegalArgumentException(
+          String.format("The memory pool of the threshold '%s' is not supported by this JVM",
+              name));
+    }
+
+    @Override
+    public String toString() {
+      return name + ' ' + value;
+    }
+
+  }
+
+  private static final class Junction extends Expression {
+
+    private final List<Expression> operands;
+
+    private final String operator;
+
+    private Junction(final List<Expression> operands, final String operator) {
+      this.operands = operands;
+      this.operator = operator;
+    }
+
+    @Override
+    Node compile(final JavaVirtualMachine jvm) throws IllegalArgumentException {
+      final List<Node> nodes = new ArrayList<>(operands.size());
+      for (final Expression operand : operands) {
+        nodes.add(operand.compile(jvm));
+      }
+      return AND.equals(operator) ? CompositeCondition.and(nodes) : CompositeCondition.or(nodes);
+    }
+
+    @Override
+    boolean isOnClassHistogram() {
+      for (final Expression operand : operands) {
+        if (operand.isOnClassHistogram()) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+  }
+
+  private static final class Not extends Expression {
+
+    private final Expression operand;
+
+    private Not(final Expression operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    Node compile(final JavaVirtualMachine jvm) throws IllegalArgumentException {
+      return CompositeCondition.not(operand.compile(jvm));
+    }
+
+    @Override
+    boolean isOnClassHistogram() {
+      return operand.isOnClassHistogram();
+    }
+
+  }
+
+  private static final class For extends Expression {
+
+    private final Expression operand;
+
+    private final long durationInMillis;
+
+    private final String duration;
+
+    private For(final Expression operand, final long durationInMillis, final String duration) {
+      this.operand = operand;
+      this.durationInMillis = durationInMillis;
+      this.duration = duration;
+    }
+
+    @Override
+    Node compile(final JavaVirtualMachine jvm) throws IllegalArgumentException {
+      return CompositeCondition.forAtLeast(operand.compile(jvm), durationInMillis, duration);
+    }
+
+    @Override
+    boolean isOnClassHistogram() {
+      return operand.isOnClassHistogram();
+    }
+
+  }
+
+  private final String name;
+
+  private final Expression expression;
+
+  private CompositeConditionConfiguration(final String name, final Expression expression) {
+    this.name = name;
+    this.expression = expression;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Whether one of the thresholds is on the class histogram, so that the condition is checked at
+   * {@link ClassHistogramThresholdConfiguration#DEFAULT_CHECK_INTERVAL_IN_MILLIS} unless
+   * configured otherwise.
+   */
+  public boolean isOnClassHistogram() {
+    return expression.isOnClassHistogram();
+  }
+
+  /*
+   * Composite conditions may span several memory pools
+   */
+  @Override
+  public Type getMemoryPoolType() {
+    return Type.HEAP;
+  }
+
+  /**
+   * Compiles the expression into its evaluation tree, resolving the memory pools of its
+   * thresholds.
+   *
+   * @throws IllegalArgumentException if the JVM does not support one of the thresholds
+   */
+  @Override
+  public UsageThresholdCondition<CompositeConditionConfiguration> toCondition(
+      final JavaVirtualMachine jvm) {
+    return new CompositeCondition(this, expression.compile(jvm));
+  }
+
+}
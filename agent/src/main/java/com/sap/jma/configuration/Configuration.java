@@ -22,6 +22,8 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.Set;
@@ -29,6 +31,8 @@ import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.UUID;
 import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 public class Configuration {
 
@@ -70,6 +74,9 @@ public class Configuration {
   private File heapDumpFolder = new File(System.getProperty("user.dir"));
   private Logger.Severity logLevel = DEFAULT_LOG_LEVEL;
   private IntervalSpecification checkInterval = new IntervalSpecification(-1d, MILLISECONDS);
+  private IntervalSpecification minCheckInterval;
+  private IntervalSpecification maxCheckInterval;
+  private CheckMode checkMode = CheckMode.INTERVAL;
   private UsageThresholdConfiguration heapMemoryUsageThreshold;
   private UsageThresholdConfiguration codeCacheMemoryUsageThreshold;
   private UsageThresholdConfiguration permGenMemoryUsageThreshold;
@@ -82,6 +89,25 @@ public class Configuration {
   private UsageThresholdConfiguration survivorSpaceMemoryUsageThreshold;
   private UsageThresholdConfiguration oldGenSpaceMemoryUsageThreshold;
   private UsageThresholdConfiguration tenuredGenSpaceMemoryUsageThreshold;
+  private UsageThresholdConfiguration directBuffersMemoryUsageThreshold;
+  private UsageThresholdConfiguration mappedBuffersMemoryUsageThreshold;
+  private UsageThresholdConfiguration residentSetMemoryUsageThreshold;
+  private UsageThresholdConfiguration anonymousResidentSetMemoryUsageThreshold;
+  private UsageThresholdConfiguration swapMemoryUsageThreshold;
+  private UsageThresholdConfiguration containerMemoryUsageThreshold;
+  private final Map<String, UsageThresholdConfiguration> nativeMemoryThresholds = new TreeMap<>();
+  private final Map<String, UsageThresholdConfiguration> memoryPoolPatternThresholds =
+      new TreeMap<>();
+  private final Map<String, ClassHistogramThresholdConfiguration> classHistogramThresholds =
+      new TreeMap<>();
+  private final Map<String, CompositeConditionConfiguration> compositeConditions =
+      new TreeMap<>();
+  private AllocationRateThresholdConfiguration allocationRateThreshold;
+  private GarbageCollectionOverheadThresholdConfiguration garbageCollectionOverheadThreshold;
+  private MemoryPressureThresholdConfiguration memoryPressureThreshold;
+  private ThreadThresholdConfiguration threadThreshold;
+  private ClassLoadingThresholdConfiguration classLoadingThreshold;
+  private PendingFinalizationThresholdConfiguration pendingFinalizationThreshold;
   private String executeBefore;
   private String executeAfter;
   private String executeOnShutDown;
@@ -120,6 +146,28 @@ public class Configuration {
     return checkInterval == null ? DISABLED_INTERVAL : checkInterval.toMilliSeconds();
   }
 
+  /**
+   * Returns the shortest interval between two checks, used when the memory usage gets close to
+   * violating a memory condition; defaults to the check interval.
+   */
+  public long getMinCheckIntervalInMillis() {
+    return minCheckInterval == null ? getCheckIntervalInMillis()
+        : minCheckInterval.toMilliSeconds();
+  }
+
+  /**
+   * Returns the longest interval between two checks, used when the memory usage is far from
+   * violating any memory condition; defaults to the check interval.
+   */
+  public long getMaxCheckIntervalInMillis() {
+    return maxCheckInterval == null ? getCheckIntervalInMillis()
+        : maxCheckInterval.toMilliSeconds();
+  }
+
+  public CheckMode getCheckMode() {
+    return checkMode;
+  }
+
   public UsageThresholdConfiguration getHeapMemoryUsageThreshold() {
     return heapMemoryUsageThreshold;
   }
@@ -168,6 +216,131 @@ public class Configuration {
     return tenuredGenSpaceMemoryUsageThreshold;
   }
 
+  public UsageThresholdConfiguration getDirectBuffersMemoryUsageThreshold() {
+    return directBuffersMemoryUsageThreshold;
+  }
+
+  public UsageThresholdConfiguration getMappedBuffersMemoryUsageThreshold() {
+    return mappedBuffersMemoryUsageThreshold;
+  }
+
+  public UsageThresholdConfiguration getResidentSetMemoryUsageThreshold() {
+    return residentSetMemoryUsageThreshold;
+  }
+
+  public UsageThresholdConfiguration getAnonymousResidentSetMemoryUsageThreshold() {
+    return anonymousResidentSetMemoryUsageThreshold;
+  }
+
+  public UsageThresholdConfiguration getSwapMemoryUsageThreshold() {
+    return swapMemoryUsageThreshold;
+  }
+
+  public UsageThresholdConfiguration getContainerMemoryUsageThreshold() {
+    return containerMemoryUsageThreshold;
+  }
+
+  /**
+   * Returns the thresholds on the categories of the Native Memory Tracking, keyed by the
+   * configuration name of the category, e.g., <code>thread</code> or <code>java_heap</code>.
+   */
+  public Map<String, UsageThresholdConfiguration> getNativeMemoryThresholds() {
+    return Collections.unmodifiableMap(nativeMemoryThresholds);
+  }
+
+  public UsageThresholdConfiguration getNativeMemoryThreshold(final String category) {
+    return nativeMemoryThresholds.get(category.toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Returns the thresholds on the memory pools whose names match a pattern, keyed by the
+   * pattern, e.g., <code>ZHeap</code> or <code>Shenandoah.*</code>.
+   */
+  public Map<String, UsageThresholdConfiguration> getMemoryPoolPatternThresholds() {
+    return Collections.unmodifiableMap(memoryPoolPatternThresholds);
+  }
+
+  /**
+   * Returns the threshold of the first pattern, in lexicographic order, that matches the whole
+   * given name of a memory pool, or <code>null</code> if none does.
+   */
+  public UsageThresholdConfiguration getMemoryPoolPatternThreshold(final String memoryPoolName) {
+    for (final Entry<String, UsageThresholdConfiguration> entry
+        : memoryPoolPatternThresholds.entrySet()) {
+      if (memoryPoolName.matches(entry.getKey())) {
+        return entry.getValue();
+      }
+    }
+
+    return null;
+  }
+
+  public AllocationRateThresholdConfiguration getAllocationRateThreshold() {
+    return allocationRateThreshold;
+  }
+
+  public GarbageCollectionOverheadThresholdConfiguration getGarbageCollectionOverheadThreshold() {
+    return garbageCollectionOverheadThreshold;
+  }
+
+  public MemoryPressureThresholdConfiguration getMemoryPressureThreshold() {
+    return memoryPressureThreshold;
+  }
+
+  public ThreadThresholdConfiguration getThreadThreshold() {
+    return threadThreshold;
+  }
+
+  public ClassLoadingThresholdConfiguration getClassLoadingThreshold() {
+    return classLoadingThreshold;
+  }
+
+  public PendingFinalizationThresholdConfiguration getPendingFinalizationThreshold() {
+    return pendingFinalizationThreshold;
+  }
+
+  /**
+   * Returns the thresholds on the instances of classes, keyed by the class pattern, e.g.,
+   * <code>com.acme.Session</code> or <code>com.acme.*</code>.
+   */
+  public Map<String, ClassHistogramThresholdConfiguration> getClassHistogramThresholds() {
+    return Collections.unmodifiableMap(classHistogramThresholds);
+  }
+
+  /**
+   * Returns the composite conditions, keyed by their name.
+   */
+  public Map<String, CompositeConditionConfiguration> getCompositeConditions() {
+    return Collections.unmodifiableMap(compositeConditions);
+  }
+
+  /**
+   * Returns the specified thresholds that are not about a particular memory pool, but about the
+   * JVM as a whole.
+   */
+  public List<UsageThresholdConfiguration> getJvmThresholds() {
+    final List<UsageThresholdConfiguration> jvmThresholds = new ArrayList<>();
+    if (allocationRateThreshold != null) {
+      jvmThresholds.add(allocationRateThreshold);
+    }
+    if (garbageCollectionOverheadThreshold != null) {
+      jvmThresholds.add(garbageCollectionOverheadThreshold);
+    }
+    if (memoryPressureThreshold != null) {
+      jvmThresholds.add(memoryPressureThreshold);
+    }
+    if (threadThreshold != null) {
+      jvmThresholds.add(threadThreshold);
+    }
+    if (classLoadingThreshold != null) {
+      jvmThresholds.add(classLoadingThreshold);
+    }
+    if (pendingFinalizationThreshold != null) {
+      jvmThresholds.add(pendingFinalizationThreshold);
+    }
+    return jvmThresholds;
+  }
+
   public String getExecuteBefore() {
     return executeBefore;
   }
@@ -244,30 +417,43 @@ public class Configuration {
       @Override
       void doApply(final Configuration config, final String value)
           throws InvalidPropertyValueException {
-        final Matcher matcher = IntervalTimeUnit.INTERVAL_PATTERN.matcher(value);
+        config.checkInterval = parseCheckInterval(value);
+      }
+    },
 
-        if (!matcher.matches()) {
-          throw new InvalidPropertyValueException(
-              String.format("it must follow the Java pattern '%s'",
-                  IntervalTimeUnit.INTERVAL_PATTERN.pattern()));
-        }
+    MIN_CHECK_INTERVAL("check_interval.min") {
+      @Override
+      void doApply(final Configuration config, final String value)
+          throws InvalidPropertyValueException {
+        config.minCheckInterval = parseCheckInterval(value);
+      }
+    },
 
-        final String numberValue = matcher.group(1);
-        final double number;
-        try {
-          number = Double.parseDouble(numberValue);
+    MAX_CHECK_INTERVAL("check_interval.max") {
+      @Override
+      void doApply(final Configuration config, final String value)
+          throws InvalidPropertyValueException {
+        config.maxCheckInterval = parseCheckInterval(value);
+      }
+    },
 
-          if (number < 1) {
-            throw new NumberFormatException();
+    CHECK_MODE("check_mode") {
+      @Override
+      void doApply(final Configuration config, final String value)
+          throws InvalidPropertyValueException {
+        try {
+          config.checkMode = CheckMode.from(value.toLowerCase());
+        } catch (final NoSuchElementException ex) {
+          final StringBuilder sb = new StringBuilder();
+          for (final CheckMode mode : CheckMode.values()) {
+            sb.append(mode.getLiteral());
+            sb.append(", ");
           }
-        } catch (final NumberFormatException ex) {
-          throw new InvalidPropertyValueException(
-              "it must be a positive Java integer (0 < n <= 2147483647)");
-        }
-
-        final IntervalTimeUnit timeUnit = IntervalTimeUnit.from(matcher.group(2));
+          // Remove last ", "
+          sb.setLength(sb.length() - 2);
 
-        config.checkInterval = new IntervalSpecification(number, timeUnit);
+          throw new InvalidPropertyValueException(String.format("allowed values are: %s", sb));
+        }
       }
     },
 
@@ -380,6 +566,276 @@ public class Configuration {
       }
     },
 
+    DIRECT_BUFFERS_MEMORY_USAGE_THRESHOLD("thresholds.direct_buffers") {
+      @Override
+      void doApply(final Configuration config, final String value)
+          throws InvalidPropertyValueException {
+        config.directBuffersMemoryUsageThreshold = parseThreshold(Type.DIRECT_BUFFERS, value);
+      }
+    },
+
+    MAPPED_BUFFERS_MEMORY_USAGE_THRESHOLD("thresholds.mapped_buffers") {
+      @Override
+      void doApply(final Configuration config, final String value)
+          throws InvalidPropertyValueException {
+        config.mappedBuffersMemoryUsageThreshold = parseThreshold(Type.MAPPED_BUFFERS, value);
+      }
+    },
+
+    RESIDENT_SET_MEMORY_USAGE_THRESHOLD("thresholds.rss") {
+      @Override
+      void doApply(final Configuration config, final String value)
+          throws InvalidPropertyValueException {
+        config.residentSetMemoryUsageThreshold = parseThreshold(Type.RESIDENT_SET, value);
+      }
+    },
+
+    ANONYMOUS_RESIDENT_SET_MEMORY_USAGE_THRESHOLD("thresholds.rss_anon") {
+      @Override
+      void doApply(final Configuration config, final String value)
+          throws InvalidPropertyValueException {
+        config.anonymousResidentSetMemoryUsageThreshold =
+            parseThreshold(Type.ANONYMOUS_RESIDENT_SET, value);
+      }
+    },
+
+    SWAP_MEMORY_USAGE_THRESHOLD("thresholds.swap") {
+      @Override
+      void doApply(final Configuration config, final String value)
+          throws InvalidPropertyValueException {
+        config.swapMemoryUsageThreshold = parseThreshold(Type.SWAP, value);
+      }
+    },
+
+    CONTAINER_MEMORY_USAGE_THRESHOLD("thresholds.container") {
+      @Override
+      void doApply(final Configuration config, final String value)
+          throws InvalidPropertyValueException {
+        config.containerMemoryUsageThreshold = parseThreshold(Type.CONTAINER, value);
+      }
+    },
+
+    /*
+     * Family of properties, one per category of the Native Memory Tracking, e.g.,
+     * 'jma.thresholds.nmt.thread'
+     */
+    NATIVE_MEMORY_USAGE_THRESHOLD("thresholds.nmt.") {
+      @Override
+      void doApply(final Configuration config, final String member, final String value)
+          throws InvalidPropertyValueException {
+        final String category = member.toLowerCase(Locale.ROOT);
+        if (value.trim().isEmpty()) {
+          // Disabled
+          config.nativeMemoryThresholds.remove(category);
+          return;
+        }
+
+        config.nativeMemoryThresholds.put(category, parseThreshold(Type.NATIVE_MEMORY, value));
+      }
+    },
+
+    /*
+     * Family of properties, one per regular expression on the names of memory pools, e.g.,
+     * 'jma.thresholds.pool[ZHeap]'; the expression must match the whole name, which is
+     * case-sensitive
+     */
+    MEMORY_POOL_PATTERN_THRESHOLD("thresholds.pool[") {
+      @Override
+      void doApply(final Configuration config, final String member, final String value)
+          throws InvalidPropertyValueException {
+        if (!member.endsWith("]")) {
+          throw new InvalidPropertyValueException("the pattern of the memory pool names must be "
+              + "enclosed in square brackets, e.g., '" + getQualifiedName() + "ZHeap]'");
+        }
+
+        final String pattern = member.substring(0, member.length() - 1);
+        try {
+          Pattern.compile(pattern);
+        } catch (final PatternSyntaxException ex) {
+          throw new InvalidPropertyValueException("'" + pattern + "' is not a valid Java "
+              + "regular expression: " + ex.getDescription());
+        }
+
+        if (value.trim().isEmpty()) {
+          // Disabled
+          config.memoryPoolPatternThresholds.remove(pattern);
+          return;
+        }
+
+        config.memoryPoolPatternThresholds.put(pattern, parseThreshold(Type.OTHER, value));
+      }
+    },
+
+    ALLOCATION_RATE_THRESHOLD("thresholds.allocation_rate") {
+      @Override
+      void doApply(final Configuration config, final String value)
+          throws InvalidPropertyValueException {
+        if (value.trim().isEmpty()) {
+          // Disabled
+          config.allocationRateThreshold = null;
+          return;
+        }
+
+        try {
+          config.allocationRateThreshold = debounce(
+              AllocationRateThresholdConfiguration.parse(removeDebouncing(value)), value);
+        } catch (final InvalidPropertyValueException ex) {
+          throw new InvalidPropertyValueException("cannot parse the value '" + value + "' as "
+              + "allocation-rate threshold: " + ex.getMessage());
+        }
+      }
+    },
+
+    GARBAGE_COLLECTION_OVERHEAD_THRESHOLD("thresholds.gc_overhead") {
+      @Override
+      void doApply(final Configuration config, final String value)
+          throws InvalidPropertyValueException {
+        if (value.trim().isEmpty()) {
+          // Disabled
+          config.garbageCollectionOverheadThreshold = null;
+          return;
+        }
+
+        try {
+          config.garbageCollectionOverheadThreshold = debounce(
+              GarbageCollectionOverheadThresholdConfiguration.parse(removeDebouncing(value)),
+              value);
+        } catch (final InvalidPropertyValueException ex) {
+          throw new InvalidPropertyValueException("cannot parse the value '" + value + "' as "
+              + "garbage-collection-overhead threshold: " + ex.getMessage());
+        }
+      }
+    },
+
+    MEMORY_PRESSURE_THRESHOLD("thresholds.memory_pressure") {
+      @Override
+      void doApply(final Configuration config, final String value)
+          throws InvalidPropertyValueException {
+        if (value.trim().isEmpty()) {
+          // Disabled
+          config.memoryPressureThreshold = null;
+          return;
+        }
+
+        try {
+          config.memoryPressureThreshold = debounce(
+              MemoryPressureThresholdConfiguration.parse(removeDebouncing(value)), value);
+        } catch (final InvalidPropertyValueException ex) {
+          throw new InvalidPropertyValueException("cannot parse the value '" + value + "' as "
+              + "memory-pressure threshold: " + ex.getMessage());
+        }
+      }
+    },
+
+    THREAD_THRESHOLD("thresholds.threads") {
+      @Override
+      void doApply(final Configuration config, final String value)
+          throws InvalidPropertyValueException {
+        if (value.trim().isEmpty()) {
+          // Disabled
+          config.threadThreshold = null;
+          return;
+        }
+
+        try {
+          config.threadThreshold = debounce(
+              ThreadThresholdConfiguration.parse(removeDebouncing(value)), value);
+        } catch (final InvalidPropertyValueException ex) {
+          throw new InvalidPropertyValueException("cannot parse the value '" + value + "' as "
+              + "thread threshold: " + ex.getMessage());
+        }
+      }
+    },
+
+    CLASS_LOADING_THRESHOLD("thresholds.class_loading") {
+      @Override
+      void doApply(final Configuration config, final String value)
+          throws InvalidPropertyValueException {
+        if (value.trim().isEmpty()) {
+          // Disabled
+          config.classLoadingThreshold = null;
+          return;
+        }
+
+        try {
+          config.classLoadingThreshold = debounce(
+              ClassLoadingThresholdConfiguration.parse(removeDebouncing(value)), value);
+        } catch (final InvalidPropertyValueException ex) {
+          throw new InvalidPropertyValueException("cannot parse the value '" + value + "' as "
+              + "class-loading threshold: " + ex.getMessage());
+        }
+      }
+    },
+
+    PENDING_FINALIZATION_THRESHOLD("thresholds.pending_finalization") {
+      @Override
+      void doApply(final Configuration config, final String value)
+          throws InvalidPropertyValueException {
+        if (value.trim().isEmpty()) {
+          // Disabled
+          config.pendingFinalizationThreshold = null;
+          return;
+        }
+
+        try {
+          config.pendingFinalizationThreshold = debounce(
+              PendingFinalizationThresholdConfiguration.parse(removeDebouncing(value)), value);
+        } catch (final InvalidPropertyValueException ex) {
+          throw new InvalidPropertyValueException("cannot parse the value '" + value + "' as "
+              + "pending-finalization threshold: " + ex.getMessage());
+        }
+      }
+    },
+
+    /*
+     * Family of properties, one per class or package, e.g.,
+     * 'jma.thresholds.class.com.acme.Session'; class names are case-sensitive
+     */
+    CLASS_HISTOGRAM_THRESHOLD("thresholds.class.") {
+      @Override
+      void doApply(final Configuration config, final String member, final String value)
+          throws InvalidPropertyValueException {
+        if (value.trim().isEmpty()) {
+          // Disabled
+          config.classHistogramThresholds.remove(member);
+          return;
+        }
+
+        try {
+          config.classHistogramThresholds.put(member, debounce(
+              ClassHistogramThresholdConfiguration.parse(member, removeDebouncing(value)),
+              value));
+        } catch (final InvalidPropertyValueException ex) {
+          throw new InvalidPropertyValueException("cannot parse the value '" + value + "' as "
+              + "class histogram threshold: " + ex.getMessage());
+        }
+      }
+    },
+
+    /*
+     * Family of properties, one per composite condition, e.g., 'jma.conditions.leak'
+     */
+    COMPOSITE_CONDITION("conditions.") {
+      @Override
+      void doApply(final Configuration config, final String member, final String value)
+          throws InvalidPropertyValueException {
+        final String name = member.toLowerCase(Locale.ROOT);
+        if (value.trim().isEmpty()) {
+          // Disabled
+          config.compositeConditions.remove(name);
+          return;
+        }
+
+        try {
+          config.compositeConditions.put(name,
+              CompositeConditionConfiguration.parse(name, value));
+        } catch (final InvalidPropertyValueException ex) {
+          throw new InvalidPropertyValueException("cannot parse the value '" + value + "' as "
+              + "composite condition: " + ex.getMessage());
+        }
+      }
+    },
+
     COMMAND_INTERPRETER("command.interpreter") {
       @Override
       void doApply(Configuration config, String value) {
@@ -472,6 +928,34 @@ public class Configuration {
       }
     }
 
+    private static IntervalSpecification parseCheckInterval(final String value)
+        throws InvalidPropertyValueException {
+      final Matcher matcher = IntervalTimeUnit.INTERVAL_PATTERN.matcher(value);
+
+      if (!matcher.matches()) {
+        throw new InvalidPropertyValueException(
+            String.format("it must follow the Java pattern '%s'",
+                IntervalTimeUnit.INTERVAL_PATTERN.pattern()));
+      }
+
+      final String numberValue = matcher.group(1);
+      final double number;
+      try {
+        number = Double.parseDouble(numberValue);
+
+        if (number < 1) {
+          throw new NumberFormatException();
+        }
+      } catch (final NumberFormatException ex) {
+        throw new InvalidPropertyValueException(
+            "it must be a positive Java integer (0 < n <= 2147483647)");
+      }
+
+      final IntervalTimeUnit timeUnit = IntervalTimeUnit.from(matcher.group(2));
+
+      return new IntervalSpecification(number, timeUnit);
+    }
+
     private static UsageThresholdConfiguration parseThreshold(final Type memoryPool,
                                                               final String value)
         throws InvalidPropertyValueException {
@@ -481,12 +965,52 @@ public class Configuration {
         return null;
       }
 
+      if (trimmedValue.startsWith(CollectionUsageThresholdConfiguration.PREFIX)) {
+        final String collectionValue =
+            trimmedValue.substring(CollectionUsageThresholdConfiguration.PREFIX.length());
+        if (collectionValue.trim().isEmpty()) {
+          throw new InvalidPropertyValueException("cannot parse the value '" + value + "' as "
+              + "collection threshold: a threshold must follow the '"
+              + CollectionUsageThresholdConfiguration.PREFIX + "' prefix");
+        }
+
+        return new CollectionUsageThresholdConfiguration(
+            parseThreshold(memoryPool, collectionValue));
+      }
+
+      // After the collection prefix, so that the wrapped threshold is the one debounced
+      final String threshold = removeDebouncing(trimmedValue);
+      if (threshold.length() < trimmedValue.length()) {
+        final AbstractUsageThresholdConfiguration configuration =
+            (AbstractUsageThresholdConfiguration) parseThreshold(memoryPool, threshold);
+        try {
+          return debounce(configuration, trimmedValue);
+        } catch (final InvalidPropertyValueException ex) {
+          throw new InvalidPropertyValueException("cannot parse the value '" + value + "' as "
+              + "debounced threshold: " + ex.getMessage());
+        }
+      }
+
       String type = null;
       try {
         final char initialCharacter = trimmedValue.charAt(0);
-        if (initialCharacter >= '0' && initialCharacter <= '9') {
+        final String trendPrefix = IncreaseOverTimeFrameUsageThresholdConfiguration.TREND_PREFIX;
+        if (trimmedValue.startsWith(ForecastUsageThresholdConfiguration.PREFIX)) {
+          type = "forecast";
+          return ForecastUsageThresholdConfiguration.parse(memoryPool,
+              trimmedValue.substring(ForecastUsageThresholdConfiguration.PREFIX.length()));
+        } else if (trimmedValue.startsWith(trendPrefix)) {
+          type = "trend";
+          return IncreaseOverTimeFrameUsageThresholdConfiguration.parseTrend(memoryPool,
+              trimmedValue.substring(trendPrefix.length()));
+        } else if (initialCharacter >= '0' && initialCharacter <= '9') {
           type = "percentage";
           return PercentageUsageThresholdConfiguration.parse(memoryPool, value);
+        } else if (initialCharacter == '>' && trimmedValue.endsWith("%")) {
+          // '>85%' is a more explicit way of writing '85%'
+          type = "percentage";
+          return PercentageUsageThresholdConfiguration.parse(memoryPool,
+              trimmedValue.substring(1));
         } else if (initialCharacter == '<' || initialCharacter == '=' || initialCharacter == '>') {
           type = "absolute";
           return AbsoluteUsageThresholdConfiguration.parse(memoryPool, value);
@@ -500,11 +1024,36 @@ public class Configuration {
       }
     }
 
+    /*
+     * Returns the value of a threshold without the debouncing and check interval clauses that
+     * may follow it
+     */
+    private static String removeDebouncing(final String value) {
+      return value.substring(0,
+          Math.min(Debouncing.indexOfClauses(value), CheckInterval.indexOfClause(value))).trim();
+    }
+
+    /*
+     * Applies the debouncing clauses, and then the check interval clause, that follow the value
+     * of the threshold, if any
+     */
+    private static <T extends AbstractThresholdConfiguration> T debounce(
+        final T configuration, final String value) throws InvalidPropertyValueException {
+      final int checkIntervalIndex = CheckInterval.indexOfClause(value);
+      final String debouncingClauses = value.substring(0, checkIntervalIndex);
+      configuration.setDebouncing(Debouncing.parse(
+          debouncingClauses.substring(Debouncing.indexOfClauses(debouncingClauses))));
+      configuration.setCheckInterval(CheckInterval.parse(value.substring(checkIntervalIndex)));
+      return configuration;
+    }
+
     public static Property from(final String option) {
       if (isAgentConfiguration(option)) {
         final String name = removeConfigurationNamespace(option);
         for (final Property property : Property.values()) {
-          if (property.literal.equals(name)) {
+          if (property.literal.equals(name)
+              || (property.isFamily() && name.length() > property.literal.length()
+                  && name.startsWith(property.literal))) {
             return property;
           }
         }
@@ -513,6 +1062,15 @@ public class Configuration {
       throw new NoSuchElementException("The option '" + option + "' is unknown");
     }
 
+    /**
+     * Whether this property stands for a family of options that share its prefix, like
+     * <code>jma.thresholds.nmt.thread</code> and <code>jma.thresholds.nmt.code</code>, or
+     * <code>jma.thresholds.pool[ZHeap]</code>.
+     */
+    public boolean isFamily() {
+      return literal.endsWith(".") || literal.endsWith("[");
+    }
+
     public void apply(final Configuration config, final String value)
         throws InvalidPropertyValueException {
       doApply(config, value);
@@ -526,13 +1084,53 @@ public class Configuration {
           OFFICIAL_JAVA_MEMORY_ASSISTANT_CONFIGURATIONS_PREFIX + this.literal, value));
     }
 
+    /**
+     * Applies the value of the given option, which for families of properties also names the
+     * member of the family to set.
+     */
+    public void apply(final Configuration config, final String option, final String value)
+        throws InvalidPropertyValueException {
+      if (!isFamily()) {
+        apply(config, value);
+        return;
+      }
+
+      final String member = removeConfigurationNamespace(option).substring(literal.length());
+      doApply(config, member, value);
+
+      config.overrides.add(
+          String.format("Configuration option '%s' specified with value: '%s'",
+          getQualifiedName(option), value));
+    }
+
     // VisibleForTesting
-    abstract void doApply(Configuration config, String value) throws InvalidPropertyValueException;
+    void doApply(Configuration config, String value) throws InvalidPropertyValueException {
+      throw new InvalidPropertyValueException("the option must name a member of the '"
+          + getQualifiedName() + "' family, e.g., '" + getQualifiedName() + "thread'");
+    }
+
+    // VisibleForTesting
+    void doApply(Configuration config, String member, String value)
+        throws InvalidPropertyValueException {
+      throw new UnsupportedOperationException(
+          "The property '" + getQualifiedName() + "' is not a family of properties");
+    }
 
     public String getQualifiedName() {
       return OFFICIAL_JAVA_MEMORY_ASSISTANT_CONFIGURATIONS_PREFIX + literal;
     }
 
+    /**
+     * Returns the qualified name of the given option, which for families of properties includes
+     * the member of the family.
+     */
+    public String getQualifiedName(final String option) {
+      return isFamily()
+          ? OFFICIAL_JAVA_MEMORY_ASSISTANT_CONFIGURATIONS_PREFIX
+              + removeConfigurationNamespace(option)
+          : getQualifiedName();
+    }
+
     @Override
     public String toString() {
       return getQualifiedName();
@@ -593,11 +1191,11 @@ public class Configuration {
 
         final Property property = Property.from(key);
         try {
-          builder.with(property, value);
+          property.apply(builder.config, key, value);
         } catch (InvalidPropertyValueException ex) {
           errors.add(new IllegalArgumentException(
               String.format("The value '%s' is invalid for the '%s' property: %s", value,
-                  property, ex.getMessage())));
+                  property.getQualifiedName(key), ex.getMessage())));
         }
       }
 
@@ -645,21 +1243,36 @@ public class Configuration {
             final Property property = Property.from(option);
             final String value = entry.getValue().toString();
 
-            property.apply(config, value);
+            property.apply(config, option, value);
 
-            logger.debug(String.format("Property '%s' set via environment to: '%s'", property,
-                value));
+            logger.debug(String.format("Property '%s' set via environment to: '%s'",
+                property.getQualifiedName(option), value));
           } catch (final Exception ex) {
             errors.add(ex.getMessage());
           }
         }
       }
 
+      if (config.minCheckInterval != null || config.maxCheckInterval != null) {
+        final long checkIntervalInMillis = config.getCheckIntervalInMillis();
+        if (checkIntervalInMillis < 1) {
+          errors.add(String.format("The '%s' and '%s' properties require the '%s' property to be "
+              + "specified", Property.MIN_CHECK_INTERVAL, Property.MAX_CHECK_INTERVAL,
+              Property.CHECK_INTERVAL));
+        } else if (config.getMinCheckIntervalInMillis() > checkIntervalInMillis) {
+          errors.add(String.format("The value of the '%s' property cannot be greater than the "
+              + "one of the '%s' property", Property.MIN_CHECK_INTERVAL, Property.CHECK_INTERVAL));
+        } else if (config.getMaxCheckIntervalInMillis() < checkIntervalInMillis) {
+          errors.add(String.format("The value of the '%s' property cannot be smaller than the "
+              + "one of the '%s' property", Property.MAX_CHECK_INTERVAL, Property.CHECK_INTERVAL));
+        }
+      }
+
       final List<String> warnings = new LinkedList<>();
 
       /*
        * Issue warning if the 'check_interval' is more then half the 'increase-over-time-frame'
-       * check period for any threshold.
+       * check period for any threshold; with adaptive check intervals, the longest one counts.
        */
       if (config.checkInterval.toMilliSeconds() > 0) {
         for (final Field configField : config.getClass().getDeclaredFields()) {
@@ -667,30 +1280,38 @@ public class Configuration {
             try {
               configField.setAccessible(true);
 
-              final IncreaseOverTimeFrameUsageThresholdConfiguration configValue;
-
-              {
-                final UsageThresholdConfiguration usageThresholdConfiguration =
-                    (UsageThresholdConfiguration) configField.get(config);
-                if (!(usageThresholdConfiguration
-                    instanceof IncreaseOverTimeFrameUsageThresholdConfiguration)) {
-                  continue;
-                }
-
-                configValue = IncreaseOverTimeFrameUsageThresholdConfiguration.class
-                    .cast(usageThresholdConfiguration);
+              final UsageThresholdConfiguration usageThresholdConfiguration =
+                  (UsageThresholdConfiguration) configField.get(config);
+              final UsageThresholdConfiguration actualConfiguration =
+                  usageThresholdConfiguration instanceof CollectionUsageThresholdConfiguration
+                      ? ((CollectionUsageThresholdConfiguration) usageThresholdConfiguration)
+                          .getDelegate()
+                      : usageThresholdConfiguration;
+
+              final String timeFrame;
+              final long timeFrameInMillis;
+              if (actualConfiguration instanceof IncreaseOverTimeFrameUsageThresholdConfiguration) {
+                final IncreaseOverTimeFrameUsageThresholdConfiguration configValue =
+                    (IncreaseOverTimeFrameUsageThresholdConfiguration) actualConfiguration;
+                timeFrame = configValue.getTimeFrame() + configValue.getTimeUnit().getLiteral();
+                timeFrameInMillis =
+                    configValue.getTimeUnit().toMilliSeconds(configValue.getTimeFrame());
+              } else if (actualConfiguration instanceof ForecastUsageThresholdConfiguration) {
+                // The forecast needs several post-GC minima within its window
+                final ForecastUsageThresholdConfiguration configValue =
+                    (ForecastUsageThresholdConfiguration) actualConfiguration;
+                timeFrame = configValue.getWindowInMillis() + "ms";
+                timeFrameInMillis = configValue.getWindowInMillis();
+              } else {
+                continue;
               }
 
-              final double timeFrame = configValue.getTimeFrame();
-              final IntervalTimeUnit timeUnit = configValue.getTimeUnit();
-              final long timeFrameInMillis = timeUnit.toMilliSeconds(timeFrame);
-
-              final long checkIntervalInMillis = config.getCheckIntervalInMillis();
+              final long checkIntervalInMillis = config.getMaxCheckIntervalInMillis();
 
               if (checkIntervalInMillis > timeFrameInMillis / 2) {
                 warnings.add("the time-frame for the threshold for memory pool '"
-                    + configValue.getMemoryPoolType().getDefaultName() + "' of " + timeFrame
-                    + timeUnit.getLiteral()
+                    + actualConfiguration.getMemoryPoolType().getDefaultName() + "' of "
+                    + timeFrame
                     + " is too short compared to the overall check-interval of "
                     + checkIntervalInMillis
                     + "ms: to ensure a good precision, the ratio between check-interval and "
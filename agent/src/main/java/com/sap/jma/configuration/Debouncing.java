@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.configuration;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * How many consecutive violations, or for how long, a threshold must be violated before its
+ * condition is reported as violated, how far below the threshold the condition must get
+ * before a further violation is reported again.
+ *
+ * <p>The clauses follow the value of the threshold, e.g.,
+ * <code>jma.thresholds.old_gen=85% for 3 samples rearm 0.9</code> or
+ * <code>jma.thresholds.gc_overhead=&gt;20%/1m for 30s</code>:
+ * <ul>
+ * <li><code>for &lt;n&gt; samples</code> requires <code>n</code> consecutive violating
+ * checks;</li>
+ * <li><code>for &lt;time-frame&gt;</code> requires the threshold to be violated at every check
+ * for at least the time-frame;</li>
+ * <li><code>rearm &lt;ratio&gt;</code> reports the violation once, and then not again until the
+ * measured value is below the given fraction (0 &lt; ratio &lt;= 1) of the threshold.</li>
+ * </ul>
+ *
+ * <p>The interval at which the condition is checked is not about debouncing, see
+ * {@link CheckInterval}.
+ */
+public final class Debouncing {
+
+  public static final Debouncing NONE = new Debouncing(1, 0L, null, 0d);
+
+  private static final Pattern CLAUSES_START_PATTERN =
+      Pattern.compile("\\s+(?:for|rearm)\\s", Pattern.CASE_INSENSITIVE);
+
+  private static final Pattern CLAUSES_PATTERN = Pattern.compile(
+      "(?:\\s*for\\s+(?:(\\d+)\\s+samples?|(\\S+)))?(?:\\s*rearm\\s+(\\d*\\.?\\d*\\d))?\\s*",
+      Pattern.CASE_INSENSITIVE);
+
+  /**
+   * Returns the index in the given value of the first debouncing clause, or the length of the
+   * value if it has none.
+   */
+  static int indexOfClauses(final String value) {
+    final Matcher matcher = CLAUSES_START_PATTERN.matcher(value);
+    return matcher.find() ? matcher.start() : value.length();
+  }
+
+  /**
+   * Parses the debouncing clauses, as returned from the index given by
+   * {@link #indexOfClauses(String)}.
+   */
+  public static Debouncing parse(final String clauses) throws InvalidPropertyValueException {
+    if (clauses.trim().isEmpty()) {
+      return NONE;
+    }
+
+    final Matcher matcher = CLAUSES_PATTERN.matcher(clauses.trim());
+    if (!matcher.matches()) {
+      throw new InvalidPropertyValueException(String.format("the clauses '%s' must be "
+          + "'for <n> samples' or 'for <time-frame>', optionally followed by 'rearm <ratio>'",
+          clauses.trim()));
+    }
+
+    int requiredSamples = 1;
+    long requiredDurationInMillis = 0L;
+    String requiredDuration = null;
+    if (matcher.group(1) != null) {
+      try {
+        requiredSamples = Integer.parseInt(matcher.group(1));
+      } catch (final NumberFormatException ex) {
+        requiredSamples = 0;
+      }
+
+      if (requiredSamples < 1) {
+        throw new InvalidPropertyValueException(
+            "the amount of samples must be a positive Java integer (0 < n <= 2147483647)");
+      }
+    } else if (matcher.group(2) != null) {
+      requiredDuration = matcher.group(2).toLowerCase(Locale.ROOT);
+      final Matcher durationMatcher = IntervalTimeUnit.INTERVAL_PATTERN.matcher(requiredDuration);
+      if (!durationMatcher.matches()) {
+        throw new InvalidPropertyValueException(String.format("the time-frame '%s' after 'for' "
+            + "must follow the Java pattern '%s'", matcher.group(2),
+            IntervalTimeUnit.INTERVAL_PATTERN.pattern()));
+      }
+
+      requiredDurationInMillis = IntervalTimeUnit.from(durationMatcher.group(2))
+          .toMilliSeconds(Double.parseDouble(durationMatcher.group(1)));
+    }
+
+    double rearmRatio = 0d;
+    if (matcher.group(3) != null) {
+      rearmRatio = Double.parseDouble(matcher.group(3));
+      if (rearmRatio <= 0d || rearmRatio > 1d) {
+        throw new InvalidPropertyValueException(
+            "the rearm ratio must be greater than 0 and at most 1");
+      }
+    }
+
+    return new Debouncing(requiredSamples, requiredDurationInMillis, requiredDuration,
+        rearmRatio);
+  }
+
+  private final int requiredSamples;
+
+  private final long requiredDurationInMillis;
+
+  private final String requiredDuration;
+
+  private final double rearmRatio;
+
+  private Debouncing(final int requiredSamples, final long requiredDurationInMillis,
+                     final String requiredDuration, final double rearmRatio) {
+    this.requiredSamples = requiredSamples;
+    this.requiredDurationInMillis = requiredDurationInMillis;
+    this.requiredDuration = requiredDuration;
+    this.rearmRatio = rearmRatio;
+  }
+
+  /**
+   * Returns how many consecutive checks must violate the threshold; 1 unless specified.
+   */
+  public int getRequiredSamples() {
+    return requiredSamples;
+  }
+
+  /**
+   * Returns for how long the threshold must be violated at every check; 0 unless specified.
+   */
+  public long getRequiredDurationInMillis() {
+    return requiredDurationInMillis;
+  }
+
+  /**
+   * Returns the fraction of the threshold below which the condition reports violations again,
+   * or 0 if the condition reports every violation.
+   */
+  public double getRearmRatio() {
+    return rearmRatio;
+  }
+
+  /**
+   * Whether the first violation is reported, rather than only the ones after several checks.
+   */
+  public boolean isImmediate() {
+    return requiredSamples == 1 && requiredDurationInMillis == 0L;
+  }
+
+  public boolean isRearming() {
+    return rearmRatio > 0d;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    if (requiredDuration != null) {
+      sb.append("for ").append(requiredDuration);
+    } else if (requiredSamples > 1) {
+      sb.append("for ").append(requiredSamples).append(" samples");
+    }
+    if (isRearming()) {
+      if (sb.length() > 0) {
+        sb.append(' ');
+      }
+      sb.append("rearm ").append(rearmRatio);
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.configuration;
+
+import com.sap.jma.conditions.ForecastUsageThresholdCondition;
+import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.vms.MemoryPool;
+import com.sap.jma.vms.MemoryPool.Type;
+import java.lang.management.MemoryUsage;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Threshold on the time left before a memory pool is exhausted, as projected from the trend of
+ * its usage after garbage collections, e.g., <code>forecast:&lt;15m</code>. The trend is computed
+ * over a window that defaults to twice the horizon, and can be set explicitly, e.g.,
+ * <code>forecast:&lt;15m/1h</code>; the minimum coefficient of determination (R^2) of the trend
+ * can be appended too, e.g., <code>forecast:&lt;15m/1h@0.9</code>.
+ */
+public class ForecastUsageThresholdConfiguration extends AbstractUsageThresholdConfiguration {
+
+  public static final String PREFIX = "forecast:";
+
+  private static final Pattern FORECAST_PATTERN = Pattern.compile(
+      "<(\\d*\\.?\\d*\\d)(ms|s|m|h)(?:/(\\d*\\.?\\d*\\d)(ms|s|m|h))?(?:@(\\d*\\.?\\d*\\d))?");
+
+  private static final double DEFAULT_WINDOW_TO_HORIZON_RATIO = 2d;
+
+  public static ForecastUsageThresholdConfiguration parse(final Type memoryPool,
+                                                          final String value)
+      throws InvalidPropertyValueException {
+    final Matcher matcher = FORECAST_PATTERN.matcher(value.trim());
+
+    if (!matcher.matches()) {
+      throw new InvalidPropertyValueException(
+          String.format("it must follow the Java pattern '%s'", FORECAST_PATTERN.pattern()));
+    }
+
+    final IntervalTimeUnit horizonUnit = IntervalTimeUnit.from(matcher.group(2));
+    final long horizonInMillis =
+        horizonUnit.toMilliSeconds(Double.parseDouble(matcher.group(1)));
+    if (horizonInMillis < 1) {
+      throw new InvalidPropertyValueException("the horizon must be positive");
+    }
+
+    final long windowInMillis;
+    if (matcher.group(3) == null) {
+      windowInMillis = (long) (horizonInMillis * DEFAULT_WINDOW_TO_HORIZON_RATIO);
+    } else {
+      windowInMillis = IntervalTimeUnit.from(matcher.group(4))
+          .toMilliSeconds(Double.parseDouble(matcher.group(3)));
+      if (windowInMillis < 1) {
+        throw new InvalidPropertyValueException("the window of the trend must be positive");
+      }
+    }
+
+    final double minimumRSquared;
+    if (matcher.group(5) == null) {
+      minimumRSquared = IncreaseOverTimeFrameUsageThresholdConfiguration.DEFAULT_MINIMUM_R_SQUARED;
+    } else {
+      minimumRSquared = Double.parseDouble(matcher.group(5));
+      if (minimumRSquared > 1d) {
+        throw new InvalidPropertyValueException(
+            String.format("The value '%s' is not valid for the minimum coefficient of "
+                + "determination of the trend: must be between 0 and 1", matcher.group(5)));
+      }
+    }
+
+    return new ForecastUsageThresholdConfiguration(memoryPool, horizonInMillis, horizonUnit,
+        windowInMillis, minimumRSquared);
+  }
+
+  private final Type memoryPool;
+  private final long horizonInMillis;
+  private final IntervalTimeUnit horizonUnit;
+  private final long windowInMillis;
+  private final double minimumRSquared;
+
+  private ForecastUsageThresholdConfiguration(final Type memoryPool,
+                                              final long horizonInMillis,
+                                              final IntervalTimeUnit horizonUnit,
+                                              final long windowInMillis,
+                                              final double minimumRSquared) {
+    this.memoryPool = memoryPool;
+    this.horizonInMillis = horizonInMillis;
+    this.horizonUnit = horizonUnit;
+    this.windowInMillis = windowInMillis;
+    this.minimumRSquared = minimumRSquared;
+  }
+
+  @Override
+  public Type getMemoryPoolType() {
+    return memoryPool;
+  }
+
+  public long getHorizonInMillis() {
+    return horizonInMillis;
+  }
+
+  /**
+   * The time unit the horizon was specified with, used to report times to exhaustion.
+   */
+  public IntervalTimeUnit getHorizonUnit() {
+    return horizonUnit;
+  }
+
+  public long getWindowInMillis() {
+    return windowInMillis;
+  }
+
+  public double getMinimumRSquared() {
+    return minimumRSquared;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the memory pool has no maximum size
+   */
+  @Override
+  public UsageThresholdCondition<ForecastUsageThresholdConfiguration> toCondition(
+      final MemoryPool memoryPool) {
+    final MemoryUsage memoryUsage = memoryPool.getMemoryUsage();
+    if (memoryUsage == null || memoryUsage.getMax() < 0) {
+      throw new IllegalArgumentException(String.format("The memory pool '%s' has no maximum "
+          + "size, so its exhaustion cannot be forecast", memoryPool.getName()));
+    }
+
+    return new ForecastUsageThresholdCondition(this, memoryPool);
+  }
+
+}
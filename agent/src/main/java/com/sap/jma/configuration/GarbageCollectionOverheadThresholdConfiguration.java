@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.configuration;
+
+import com.sap.jma.conditions.GarbageCollectionOverheadThresholdCondition;
+import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.vms.MemoryPool;
+import com.sap.jma.vms.MemoryPool.Type;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Threshold on the share of wall-clock time spent in garbage collection over a sliding
+ * time-frame, e.g., <code>&gt;20%/1m</code>; the time-frame defaults to one minute.
+ */
+public class GarbageCollectionOverheadThresholdConfiguration
+    extends AbstractUsageThresholdConfiguration {
+
+  private static final Pattern GC_OVERHEAD_PATTERN =
+      Pattern.compile(">?(\\d*\\.?\\d*\\d)%(?:/(\\d*\\.?\\d*\\d)(ms|s|m|h))?");
+
+  private static final double DEFAULT_TIME_FRAME = 1d;
+
+  private static final IntervalTimeUnit DEFAULT_TIME_UNIT = IntervalTimeUnit.MINUTES;
+
+  public static GarbageCollectionOverheadThresholdConfiguration parse(final String value)
+      throws InvalidPropertyValueException {
+    final Matcher matcher = GC_OVERHEAD_PATTERN.matcher(value.trim());
+
+    if (!matcher.matches()) {
+      throw new InvalidPropertyValueException(
+          String.format("it must follow the Java pattern '%s'", GC_OVERHEAD_PATTERN.pattern()));
+    }
+
+    final double percentage;
+    try {
+      percentage = Double.parseDouble(matcher.group(1));
+
+      if (percentage <= 0d || percentage >= 100d) {
+        throw new NumberFormatException();
+      }
+    } catch (final NumberFormatException ex) {
+      throw new InvalidPropertyValueException(
+          "the garbage collection overhead must be between 0% and 100% (extremes excluded)");
+    }
+
+    if (matcher.group(2) == null) {
+      return new GarbageCollectionOverheadThresholdConfiguration(percentage, DEFAULT_TIME_FRAME,
+          DEFAULT_TIME_UNIT);
+    }
+
+    final double timeFrame = Double.parseDouble(matcher.group(2));
+    if (timeFrame <= 0d) {
+      throw new InvalidPropertyValueException("the time-frame must be positive");
+    }
+
+    return new GarbageCollectionOverheadThresholdConfiguration(percentage, timeFrame,
+        IntervalTimeUnit.from(matcher.group(3)));
+  }
+
+  private final double percentage;
+  private final double timeFrame;
+  private final IntervalTimeUnit timeUnit;
+
+  private GarbageCollectionOverheadThresholdConfiguration(final double percentage,
+                                                          final double timeFrame,
+                                                          final IntervalTimeUnit timeUnit) {
+    this.percentage = percentage;
+    this.timeFrame = timeFrame;
+    this.timeUnit = timeUnit;
+  }
+
+  public double getPercentage() {
+    return percentage;
+  }
+
+  public double getTimeFrame() {
+    return timeFrame;
+  }
+
+  public IntervalTimeUnit getTimeUnit() {
+    return timeUnit;
+  }
+
+  /*
+   * Garbage collections reclaim the heap as a whole
+   */
+  @Override
+  public Type getMemoryPoolType() {
+    return Type.HEAP;
+  }
+
+  /**
+   * @throws IllegalArgumentException if no garbage collector reports its collection time
+   */
+  @Override
+  public UsageThresholdCondition<GarbageCollectionOverheadThresholdConfiguration> toCondition(
+      final MemoryPool memoryPool) {
+    return new GarbageCollectionOverheadThresholdCondition(this);
+  }
+
+}
@@ -18,21 +18,52 @@ import java.util.regex.Pattern;
  * TODO Refactor to unify with ExecutionFrequency?
  */
 public class IncreaseOverTimeFrameUsageThresholdConfiguration
-    implements UsageThresholdConfiguration {
+    extends AbstractUsageThresholdConfiguration {
 
   private static final Pattern INCREASE_OVER_TIME_FRAME_PATTERN =
       Pattern.compile("\\+(\\d*\\.?\\d*\\d)%/(\\d*\\.?\\d*\\d)(ms|s|m|h)");
 
+  private static final Pattern TREND_PATTERN =
+      Pattern.compile("\\+(\\d*\\.?\\d*\\d)%/(\\d*\\.?\\d*\\d)(ms|s|m|h)(?:@(\\d*\\.?\\d*\\d))?");
+
+  static final String TREND_PREFIX = "trend:";
+
+  /*
+   * Below this coefficient of determination, the memory usage is considered too noisy for its
+   * trend to be trusted
+   */
+  static final double DEFAULT_MINIMUM_R_SQUARED = 0.8d;
+
   public static IncreaseOverTimeFrameUsageThresholdConfiguration parse(
       final Type memoryPool,
       final String value)
       throws InvalidPropertyValueException {
-    final Matcher matcher = INCREASE_OVER_TIME_FRAME_PATTERN.matcher(value);
+    return parseWithPattern(memoryPool, value, INCREASE_OVER_TIME_FRAME_PATTERN);
+  }
+
+  /**
+   * Parses a trend specification like <code>+5%/1h@0.9</code>, i.e., the increase of the memory
+   * usage over the time-frame according to the least-squares regression of the post-GC minimum
+   * usage, optionally followed by the minimum coefficient of determination (R^2) the regression
+   * must have.
+   */
+  public static IncreaseOverTimeFrameUsageThresholdConfiguration parseTrend(
+      final Type memoryPool,
+      final String value)
+      throws InvalidPropertyValueException {
+    return parseWithPattern(memoryPool, value, TREND_PATTERN);
+  }
+
+  private static IncreaseOverTimeFrameUsageThresholdConfiguration parseWithPattern(
+      final Type memoryPool,
+      final String value,
+      final Pattern pattern)
+      throws InvalidPropertyValueException {
+    final Matcher matcher = pattern.matcher(value);
 
     if (!matcher.matches()) {
       throw new InvalidPropertyValueException(
-          String.format("it must follow the Java pattern '%s'",
-              INCREASE_OVER_TIME_FRAME_PATTERN.pattern()));
+          String.format("it must follow the Java pattern '%s'", pattern.pattern()));
     }
 
     final String deltaString = matcher.group(1);
@@ -40,7 +71,7 @@ public class IncreaseOverTimeFrameUsageThresholdConfiguration
       throw new InvalidPropertyValueException(
           String.format("it must follow the Java pattern '%s' and have at "
                   + "least a digit before the '%%' sign",
-              INCREASE_OVER_TIME_FRAME_PATTERN.pattern()));
+              pattern.pattern()));
     }
 
     final double delta;
@@ -95,23 +126,47 @@ public class IncreaseOverTimeFrameUsageThresholdConfiguration
               + values, timeFrameValue));
     }
 
+    if (pattern != TREND_PATTERN) {
+      return new IncreaseOverTimeFrameUsageThresholdConfiguration(memoryPool, delta,
+          timeFrameInt, timeFrameUnit, false, Double.NaN);
+    }
+
+    final String minimumRSquaredValue = matcher.group(4);
+    final double minimumRSquared;
+    if (minimumRSquaredValue == null) {
+      minimumRSquared = DEFAULT_MINIMUM_R_SQUARED;
+    } else {
+      minimumRSquared = Double.parseDouble(minimumRSquaredValue);
+      if (minimumRSquared > 1d) {
+        throw new InvalidPropertyValueException(
+            String.format("The value '%s' is not valid for the minimum coefficient of "
+                + "determination of the trend: must be between 0 and 1", minimumRSquaredValue));
+      }
+    }
+
     return new IncreaseOverTimeFrameUsageThresholdConfiguration(memoryPool, delta, timeFrameInt,
-        timeFrameUnit);
+        timeFrameUnit, true, minimumRSquared);
   }
 
   private final Type memoryPool;
   private final double delta;
   private final double timeFrame;
   private final IntervalTimeUnit timeUnit;
+  private final boolean trend;
+  private final double minimumRSquared;
 
   private IncreaseOverTimeFrameUsageThresholdConfiguration(final Type memoryPool,
                                                            final double delta,
                                                            final double timeFrame,
-                                                           final IntervalTimeUnit timeUnit) {
+                                                           final IntervalTimeUnit timeUnit,
+                                                           final boolean trend,
+                                                           final double minimumRSquared) {
     this.memoryPool = memoryPool;
     this.delta = delta;
     this.timeFrame = timeFrame;
     this.timeUnit = timeUnit;
+    this.trend = trend;
+    this.minimumRSquared = minimumRSquared;
   }
 
   @Override
@@ -131,6 +186,22 @@ public class IncreaseOverTimeFrameUsageThresholdConfiguration
     return timeUnit;
   }
 
+  /**
+   * Whether the increase is the one of the least-squares regression of the post-GC minimum
+   * memory usage, rather than the difference between the first and last measurement.
+   */
+  public boolean isTrend() {
+    return trend;
+  }
+
+  /**
+   * The minimum coefficient of determination (R^2) of the regression for a trend to trigger;
+   * {@link Double#NaN} if this is not a trend.
+   */
+  public double getMinimumRSquared() {
+    return minimumRSquared;
+  }
+
   @Override
   public UsageThresholdCondition<IncreaseOverTimeFrameUsageThresholdConfiguration> toCondition(
       final MemoryPool memoryPool) {
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.configuration;
+
+import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.vms.JavaVirtualMachine;
+
+/**
+ * Threshold whose condition needs more of the JVM than one of its memory pools, e.g., its class
+ * histogram, or the memory pools of several thresholds combined.
+ */
+public interface JvmThresholdConfiguration extends ThresholdConfiguration {
+
+  /**
+   * @throws IllegalArgumentException if the JVM does not support the condition
+   */
+  UsageThresholdCondition<?> toCondition(final JavaVirtualMachine jvm);
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.configuration;
+
+import com.sap.jma.conditions.MemoryPressureThresholdCondition;
+import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.vms.MemoryPool;
+import com.sap.jma.vms.MemoryPool.Type;
+import com.sap.jma.vms.MemoryPressure.Stall;
+import com.sap.jma.vms.MemoryPressure.Window;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Threshold on the share of time the tasks of the JVM (or its control group) are stalled waiting
+ * for memory, as reported by the Linux pressure stall information, e.g., <code>some&gt;10%</code>
+ * or <code>full&gt;5%/avg60</code>; the window defaults to <code>avg10</code>.
+ */
+public class MemoryPressureThresholdConfiguration extends AbstractUsageThresholdConfiguration {
+
+  private static final Pattern MEMORY_PRESSURE_PATTERN =
+      Pattern.compile("(some|full)>(\\d*\\.?\\d*\\d)%(?:/(avg10|avg60|avg300))?");
+
+  public static MemoryPressureThresholdConfiguration parse(final String value)
+      throws InvalidPropertyValueException {
+    final Matcher matcher = MEMORY_PRESSURE_PATTERN.matcher(value.trim());
+
+    if (!matcher.matches()) {
+      throw new InvalidPropertyValueException(String.format(
+          "it must follow the Java pattern '%s'", MEMORY_PRESSURE_PATTERN.pattern()));
+    }
+
+    final double percentage;
+    try {
+      percentage = Double.parseDouble(matcher.group(2));
+
+      if (percentage <= 0d || percentage >= 100d) {
+        throw new NumberFormatException();
+      }
+    } catch (final NumberFormatException ex) {
+      throw new InvalidPropertyValueException(
+          "the memory pressure must be between 0% and 100% (extremes excluded)");
+    }
+
+    final Stall stall = Stall.valueOf(matcher.group(1).toUpperCase(Locale.ROOT));
+    final Window window = matcher.group(3) == null ? Window.AVG10
+        : Window.valueOf(matcher.group(3).toUpperCase(Locale.ROOT));
+
+    return new MemoryPressureThresholdConfiguration(stall, percentage, window);
+  }
+
+  private final Stall stall;
+  private final double percentage;
+  private final Window window;
+
+  private MemoryPressureThresholdConfiguration(final Stall stall, final double percentage,
+                                               final Window window) {
+    this.stall = stall;
+    this.percentage = percentage;
+    this.window = window;
+  }
+
+  public Stall getStall() {
+    return stall;
+  }
+
+  public double getPercentage() {
+    return percentage;
+  }
+
+  public Window getWindow() {
+    return window;
+  }
+
+  /*
+   * Memory pressure is about the JVM as a whole
+   */
+  @Override
+  public Type getMemoryPoolType() {
+    return Type.HEAP;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the kernel does not report memory pressure
+   */
+  @Override
+  public UsageThresholdCondition<MemoryPressureThresholdConfiguration> toCondition(
+      final MemoryPool memoryPool) {
+    return new MemoryPressureThresholdCondition(this);
+  }
+
+}
@@ -42,6 +42,10 @@ public enum MemorySizeUnit {
     return valueInUnitSize * multiplierToBytes;
   }
 
+  public double fromBytes(double valueInBytes) {
+    return valueInBytes / multiplierToBytes;
+  }
+
   public String getLiteral() {
     return literal;
   }
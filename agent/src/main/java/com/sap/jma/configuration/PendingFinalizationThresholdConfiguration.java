@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.configuration;
+
+import com.sap.jma.conditions.PendingFinalizationThresholdCondition;
+import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.vms.MemoryPool;
+import com.sap.jma.vms.MemoryPool.Type;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Threshold on the objects pending finalization, i.e., the objects that are waiting in the
+ * finalizer queue: on their count, e.g., <code>&gt;10000</code>, or on the growth of their count
+ * over a time-frame, e.g., <code>+5000/10m</code>.
+ */
+public class PendingFinalizationThresholdConfiguration
+    extends AbstractUsageThresholdConfiguration {
+
+  public enum Kind {
+    COUNT,
+    INCREASE
+  }
+
+  private static final Pattern COUNT_PATTERN = Pattern.compile(">(\\d+)");
+
+  private static final Pattern INCREASE_PATTERN =
+      Pattern.compile("\\+(\\d+)/(\\d*\\.?\\d*\\d)(ms|s|m|h)");
+
+  public static PendingFinalizationThresholdConfiguration parse(final String value)
+      throws InvalidPropertyValueException {
+    final String trimmed = value.trim();
+
+    Matcher matcher = COUNT_PATTERN.matcher(trimmed);
+    if (matcher.matches()) {
+      return new PendingFinalizationThresholdConfiguration(Kind.COUNT,
+          parseObjectCount(matcher.group(1)), -1d, null);
+    }
+
+    matcher = INCREASE_PATTERN.matcher(trimmed);
+    if (matcher.matches()) {
+      final double timeFrame = Double.parseDouble(matcher.group(2));
+      if (timeFrame <= 0d) {
+        throw new InvalidPropertyValueException("the time-frame must be positive");
+      }
+
+      return new PendingFinalizationThresholdConfiguration(Kind.INCREASE,
+          parseObjectCount(matcher.group(1)), timeFrame, IntervalTimeUnit.from(matcher.group(3)));
+    }
+
+    throw new InvalidPropertyValueException(String.format(
+        "it must follow one of the Java patterns '%s' or '%s'", COUNT_PATTERN.pattern(),
+        INCREASE_PATTERN.pattern()));
+  }
+
+  private static int parseObjectCount(final String value) throws InvalidPropertyValueException {
+    try {
+      final int objectCount = Integer.parseInt(value);
+
+      if (objectCount < 1) {
+        throw new NumberFormatException();
+      }
+
+      return objectCount;
+    } catch (final NumberFormatException ex) {
+      throw new InvalidPropertyValueException(String.format("the amount of objects must be a "
+          + "positive Java integer (0 < n <= %d)", Integer.MAX_VALUE));
+    }
+  }
+
+  private final Kind kind;
+  private final int objectCount;
+  private final double timeFrame;
+  private final IntervalTimeUnit timeUnit;
+
+  private PendingFinalizationThresholdConfiguration(final Kind kind, final int objectCount,
+                                                    final double timeFrame,
+                                                    final IntervalTimeUnit timeUnit) {
+    this.kind = kind;
+    this.objectCount = objectCount;
+    this.timeFrame = timeFrame;
+    this.timeUnit = timeUnit;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * The maximum amount of objects pending finalization with {@link Kind#COUNT}, and their
+   * maximum increase over the time-frame with {@link Kind#INCREASE}.
+   */
+  public int getObjectCount() {
+    return objectCount;
+  }
+
+  /**
+   * The time-frame with {@link Kind#INCREASE}, -1 otherwise.
+   */
+  public double getTimeFrame() {
+    return timeFrame;
+  }
+
+  public IntervalTimeUnit getTimeUnit() {
+    return timeUnit;
+  }
+
+  /*
+   * The objects pending finalization may be in any generation of the heap
+   */
+  @Override
+  public Type getMemoryPoolType() {
+    return Type.HEAP;
+  }
+
+  @Override
+  public UsageThresholdCondition<PendingFinalizationThresholdConfiguration> toCondition(
+      final MemoryPool memoryPool) {
+    return new PendingFinalizationThresholdCondition(this);
+  }
+
+}
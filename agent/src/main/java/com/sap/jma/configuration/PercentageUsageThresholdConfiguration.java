@@ -14,7 +14,7 @@ import java.math.BigDecimal;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-public class PercentageUsageThresholdConfiguration implements UsageThresholdConfiguration {
+public class PercentageUsageThresholdConfiguration extends AbstractUsageThresholdConfiguration {
 
   private static final Pattern PERCENTAGE_PATTERN = Pattern.compile("(\\d*\\.?\\d*\\d)%");
 
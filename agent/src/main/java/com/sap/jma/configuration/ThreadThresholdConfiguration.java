@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.configuration;
+
+import com.sap.jma.conditions.ThreadThresholdCondition;
+import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.vms.MemoryPool;
+import com.sap.jma.vms.MemoryPool.Type;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Threshold on the live threads of the JVM: on their count, e.g., <code>&gt;500</code>, on the
+ * estimated footprint of their stacks, i.e., their count times the thread stack size, e.g.,
+ * <code>&gt;512MB</code>, or on the growth of their count over a time-frame, e.g.,
+ * <code>+100/10m</code>.
+ */
+public class ThreadThresholdConfiguration extends AbstractUsageThresholdConfiguration {
+
+  public enum Kind {
+    COUNT,
+    STACK_FOOTPRINT,
+    INCREASE
+  }
+
+  private static final Pattern COUNT_PATTERN = Pattern.compile(">(\\d+)");
+
+  private static final Pattern STACK_FOOTPRINT_PATTERN =
+      Pattern.compile(">(\\d*\\.?\\d*\\d)([KMG]B)");
+
+  private static final Pattern INCREASE_PATTERN =
+      Pattern.compile("\\+(\\d+)/(\\d*\\.?\\d*\\d)(ms|s|m|h)");
+
+  public static ThreadThresholdConfiguration parse(final String value)
+      throws InvalidPropertyValueException {
+    final String trimmed = value.trim();
+
+    Matcher matcher = COUNT_PATTERN.matcher(trimmed);
+    if (matcher.matches()) {
+      return new ThreadThresholdConfiguration(Kind.COUNT, parseThreadCount(matcher.group(1)),
+          -1d, null, -1d, null);
+    }
+
+    matcher = STACK_FOOTPRINT_PATTERN.matcher(trimmed);
+    if (matcher.matches()) {
+      final MemorySizeUnit memorySizeUnit = MemorySizeUnit.from(matcher.group(2));
+      final double stackFootprintInBytes =
+          memorySizeUnit.toBytes(Double.parseDouble(matcher.group(1)));
+      if (stackFootprintInBytes <= 0d) {
+        throw new InvalidPropertyValueException("the stack footprint must be positive");
+      }
+
+      return new ThreadThresholdConfiguration(Kind.STACK_FOOTPRINT, -1, stackFootprintInBytes,
+          memorySizeUnit, -1d, null);
+    }
+
+    matcher = INCREASE_PATTERN.matcher(trimmed);
+    if (matcher.matches()) {
+      final double timeFrame = Double.parseDouble(matcher.group(2));
+      if (timeFrame <= 0d) {
+        throw new InvalidPropertyValueException("the time-frame must be positive");
+      }
+
+      return new ThreadThresholdConfiguration(Kind.INCREASE, parseThreadCount(matcher.group(1)),
+          -1d, null, timeFrame, IntervalTimeUnit.from(matcher.group(3)));
+    }
+
+    throw new InvalidPropertyValueException(String.format(
+        "it must follow one of the Java patterns '%s', '%s' or '%s'", COUNT_PATTERN.pattern(),
+        STACK_FOOTPRINT_PATTERN.pattern(), INCREASE_PATTERN.pattern()));
+  }
+
+  private static int parseThreadCount(final String value) throws InvalidPropertyValueException {
+    try {
+      final int threadCount = Integer.parseInt(value);
+
+      if (threadCount < 1) {
+        throw new NumberFormatException();
+      }
+
+      return threadCount;
+    } catch (final NumberFormatException ex) {
+      throw new InvalidPropertyValueException(String.format("the amount of threads must be a "
+          + "positive Java integer (0 < n <= %d)", Integer.MAX_VALUE));
+    }
+  }
+
+  private final Kind kind;
+  private final int threadCount;
+  private final double stackFootprintInBytes;
+  private final MemorySizeUnit memorySizeUnit;
+  private final double timeFrame;
+  private final IntervalTimeUnit timeUnit;
+
+  private ThreadThresholdConfiguration(final Kind kind, final int threadCount,
+                                       final double stackFootprintInBytes,
+                                       final MemorySizeUnit memorySizeUnit,
+                                       final double timeFrame, final IntervalTimeUnit timeUnit) {
+    this.kind = kind;
+    this.threadCount = threadCount;
+    this.stackFootprintInBytes = stackFootprintInBytes;
+    this.memorySizeUnit = memorySizeUnit;
+    this.timeFrame = timeFrame;
+    this.timeUnit = timeUnit;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * The maximum amount of live threads with {@link Kind#COUNT}, and their maximum increase over
+   * the time-frame with {@link Kind#INCREASE}; -1 with {@link Kind#STACK_FOOTPRINT}.
+   */
+  public int getThreadCount() {
+    return threadCount;
+  }
+
+  /**
+   * The maximum stack footprint with {@link Kind#STACK_FOOTPRINT}, -1 otherwise.
+   */
+  public double getStackFootprintInBytes() {
+    return stackFootprintInBytes;
+  }
+
+  public MemorySizeUnit getMemorySizeUnit() {
+    return memorySizeUnit;
+  }
+
+  /**
+   * The time-frame with {@link Kind#INCREASE}, -1 otherwise.
+   */
+  public double getTimeFrame() {
+    return timeFrame;
+  }
+
+  public IntervalTimeUnit getTimeUnit() {
+    return timeUnit;
+  }
+
+  /*
+   * The threads are about the JVM as a whole
+   */
+  @Override
+  public Type getMemoryPoolType() {
+    return Type.HEAP;
+  }
+
+  @Override
+  public UsageThresholdCondition<ThreadThresholdConfiguration> toCondition(
+      final MemoryPool memoryPool) {
+    return new ThreadThresholdCondition(this);
+  }
+
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.configuration;
+
+import com.sap.jma.vms.MemoryPool;
+
+/**
+ * What all the threshold configurations have in common, whether their conditions are created
+ * for a memory pool, see {@link UsageThresholdConfiguration}, or for the whole JVM, see
+ * {@link JvmThresholdConfiguration}.
+ */
+public interface ThresholdConfiguration {
+
+  MemoryPool.Type getMemoryPoolType();
+
+  /**
+   * Returns how the violations of the conditions created from this configuration are debounced.
+   */
+  Debouncing getDebouncing();
+
+  /**
+   * Returns at which interval the conditions created from this configuration are checked, if at
+   * an interval of their own.
+   */
+  CheckInterval getCheckInterval();
+
+}
@@ -9,9 +9,7 @@ package com.sap.jma.configuration;
 import com.sap.jma.conditions.UsageThresholdCondition;
 import com.sap.jma.vms.MemoryPool;
 
-public interface UsageThresholdConfiguration {
-
-  MemoryPool.Type getMemoryPoolType();
+public interface UsageThresholdConfiguration extends ThresholdConfiguration {
 
   UsageThresholdCondition<?> toCondition(final MemoryPool memoryPool);
 
@@ -36,6 +36,12 @@ public interface Logger {
 
   void debug(CharSequence message, Object ... args);
 
+  /**
+   * Whether debug messages are logged; for callers that would allocate the arguments of
+   * {@link #debug(CharSequence, Object...)} on a hot path.
+   */
+  boolean isDebugEnabled();
+
   enum Severity {
     OFF, ERROR, INFO, WARNING, DEBUG
   }
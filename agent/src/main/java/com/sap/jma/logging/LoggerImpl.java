@@ -169,4 +169,9 @@ class LoggerImpl implements Logger {
     log(clazz, Severity.DEBUG, message, null, args);
   }
 
+  @Override
+  public boolean isDebugEnabled() {
+    return isSeverityEnabled(Severity.DEBUG);
+  }
+
 }
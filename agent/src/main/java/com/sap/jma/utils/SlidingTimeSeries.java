@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.utils;
+
+/**
+ * Time series of the measurements over a sliding time-frame, e.g., for rates and increases.
+ * Samples are retained at most once every time-frame / {@link #RESOLUTION} milliseconds, so that
+ * frequent checks, e.g., after each garbage collection, do not overflow the series; the samples
+ * that fall out of the time-frame are evicted, but the most recent of them, so that the
+ * time-frame is always covered once enough time has passed. Not thread-safe.
+ */
+public class SlidingTimeSeries extends TimeSeries {
+
+  public static final int RESOLUTION = 60;
+
+  private final long timeFrameInMillis;
+
+  private final long samplingPeriodInMillis;
+
+  public SlidingTimeSeries(final long timeFrameInMillis) {
+    // Room for the sample before the time-frame, and for checks coming in late
+    super(RESOLUTION + 4);
+    this.timeFrameInMillis = timeFrameInMillis;
+    this.samplingPeriodInMillis = timeFrameInMillis / RESOLUTION;
+  }
+
+  public long getTimeFrameInMillis() {
+    return timeFrameInMillis;
+  }
+
+  /**
+   * Slides the time-frame to end at the given timestamp, and appends the sample unless the most
+   * recent one is more recent than the sampling period.
+   */
+  public void slide(final long timestamp, final double value) {
+    final long minimumTimestamp = timestamp - timeFrameInMillis;
+    while (size() > 1 && getTimestamp(1) <= minimumTimestamp) {
+      removeFirst();
+    }
+
+    if (isEmpty() || timestamp - getLastTimestamp() >= samplingPeriodInMillis) {
+      add(timestamp, value);
+    }
+  }
+
+}
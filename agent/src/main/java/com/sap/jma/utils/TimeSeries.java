@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.utils;
+
+/**
+ * Fixed-capacity ring buffer of timestamped values, stored in parallel primitive arrays so that
+ * appending and evicting samples allocates nothing. Timestamps are expected to be appended in
+ * non-decreasing order; when the buffer is full, appending a sample evicts the oldest one.
+ * Indices are relative to the oldest sample, i.e., <code>0</code> is the oldest sample and
+ * <code>size() - 1</code> the most recent. Not thread-safe.
+ */
+public class TimeSeries {
+
+  private final long[] timestamps;
+
+  private final double[] values;
+
+  private int head;
+
+  private int size;
+
+  public TimeSeries(final int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException(
+          String.format("The capacity must be at least 1, found %d", capacity));
+    }
+
+    this.timestamps = new long[capacity];
+    this.values = new double[capacity];
+  }
+
+  public int capacity() {
+    return timestamps.length;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean isFull() {
+    return size == timestamps.length;
+  }
+
+  /**
+   * Appends a sample, evicting the oldest one if the buffer is full.
+   */
+  public void add(final long timestamp, final double value) {
+    final int tail;
+    if (isFull()) {
+      tail = head;
+      head = next(head);
+    } else {
+      tail = physicalIndex(size);
+      ++size;
+    }
+
+    timestamps[tail] = timestamp;
+    values[tail] = value;
+  }
+
+  public void removeFirst() {
+    checkNotEmpty();
+    head = next(head);
+    --size;
+  }
+
+  /**
+   * Evicts the samples older than the given timestamp, but never the most recent
+   * <code>minimumSize</code> ones.
+   *
+   * @return the amount of evicted samples
+   */
+  public int removeOlderThan(final long timestamp, final int minimumSize) {
+    int removed = 0;
+    while (size > minimumSize && timestamps[head] < timestamp) {
+      removeFirst();
+      ++removed;
+    }
+    return removed;
+  }
+
+  public void clear() {
+    head = 0;
+    size = 0;
+  }
+
+  public long getTimestamp(final int index) {
+    return timestamps[physicalIndex(checkIndex(index))];
+  }
+
+  public double getValue(final int index) {
+    return values[physicalIndex(checkIndex(index))];
+  }
+
+  public long getFirstTimestamp() {
+    return getTimestamp(0);
+  }
+
+  public double getFirstValue() {
+    return getValue(0);
+  }
+
+  public long getLastTimestamp() {
+    return getTimestamp(size - 1);
+  }
+
+  public double getLastValue() {
+    return getValue(size - 1);
+  }
+
+  /**
+   * Returns the index of the oldest sample whose timestamp is not before the given one, or
+   * <code>size()</code> if there is none.
+   */
+  public int indexOfFirstSince(final long timestamp) {
+    // Timestamps are sorted, so binary search
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if (timestamps[physicalIndex(middle)] < timestamp) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the minimum value among the samples whose timestamp is not before the given one, or
+   * {@link Double#NaN} if there is none.
+   */
+  public double getMinimumSince(final long timestamp) {
+    double result = Double.NaN;
+    for (int i = indexOfFirstSince(timestamp); i < size; ++i) {
+      final double value = values[physicalIndex(i)];
+      if (Double.isNaN(result) || value < result) {
+        result = value;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the maximum value among the samples whose timestamp is not before the given one, or
+   * {@link Double#NaN} if there is none.
+   */
+  public double getMaximumSince(final long timestamp) {
+    double result = Double.NaN;
+    for (int i = indexOfFirstSince(timestamp); i < size; ++i) {
+      final double value = values[physicalIndex(i)];
+      if (Double.isNaN(result) || value > result) {
+        result = value;
+      }
+    }
+    return result;
+  }
+
+  private int next(final int physicalIndex) {
+    return physicalIndex + 1 == timestamps.length ? 0 : physicalIndex + 1;
+  }
+
+  private int physicalIndex(final int index) {
+    final int result = head + index;
+    return result < timestamps.length ? result : result - timestamps.length;
+  }
+
+  private int checkIndex(final int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(
+          String.format("Index %d out of bounds for a time series of size %d", index, size));
+    }
+    return index;
+  }
+
+  private void checkNotEmpty() {
+    if (size == 0) {
+      throw new IllegalStateException("The time series is empty");
+    }
+  }
+
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.utils;
+
+import java.util.List;
+
+/**
+ * Hashed timer wheel: timeouts are hashed by the tick of their deadline into a fixed amount of
+ * buckets, so that scheduling a timeout and expiring the due ones cost a constant amount of
+ * work per timeout, however far apart their deadlines are. Deadlines further away than one
+ * rotation of the wheel share buckets with nearer ones, and are skipped until their tick comes.
+ *
+ * <p>The wheel does not run on its own: the owner expires the due timeouts, e.g., whenever it
+ * wakes up at {@link #getNextDeadline()}. Timeouts are created once per task and linked into
+ * the buckets, so that rescheduling allocates nothing. Not thread-safe.
+ */
+public class TimerWheel<T> {
+
+  private final long tickInMillis;
+
+  private final Timeout<T>[] buckets;
+
+  private final int mask;
+
+  // The tick up to which the timeouts have been expired
+  private long currentTick;
+
+  private int size;
+
+  /**
+   * @param tickInMillis the resolution of the wheel
+   * @param bucketCount  the amount of buckets, rounded up to a power of two; deadlines more than
+   *                     <code>tickInMillis * bucketCount</code> ahead share buckets with nearer
+   *                     ones
+   * @param startMillis  the current time
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public TimerWheel(final long tickInMillis, final int bucketCount, final long startMillis) {
+    if (tickInMillis < 1) {
+      throw new IllegalArgumentException(
+          String.format("The tick must be at least 1 millisecond, found %d", tickInMillis));
+    }
+
+    if (bucketCount < 1 || bucketCount > 1 << 30) {
+      throw new IllegalArgumentException(
+          String.format("The amount of buckets must be between 1 and 2^30, found %d",
+              bucketCount));
+    }
+
+    int capacity = 1;
+    while (capacity < bucketCount) {
+      capacity <<= 1;
+    }
+
+    this.tickInMillis = tickInMillis;
+    this.buckets = new Timeout[capacity];
+    this.mask = capacity - 1;
+    this.currentTick = startMillis / tickInMillis;
+  }
+
+  public long getTickInMillis() {
+    return tickInMillis;
+  }
+
+  /**
+   * Returns the amount of scheduled timeouts.
+   */
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Creates a timeout for the given task, to be scheduled, possibly repeatedly, with
+   * {@link #schedule(Timeout, long)}.
+   */
+  public Timeout<T> newTimeout(final T task) {
+    return new Timeout<>(task);
+  }
+
+  /**
+   * Schedules the timeout to expire at the given deadline, rescheduling it if it is already
+   * scheduled. Deadlines in the past expire at the next invocation of
+   * {@link #expire(long, List)}.
+   */
+  public void schedule(final Timeout<T> timeout, final long deadlineInMillis) {
+    if (timeout.isScheduled()) {
+      unlink(timeout);
+    }
+
+    timeout.deadlineInMillis = deadlineInMillis;
+    timeout.tick = Math.max(currentTick, deadlineInMillis / tickInMillis);
+    timeout.bucket = (int) (timeout.tick & mask);
+
+    timeout.next = buckets[timeout.bucket];
+    if (timeout.next != null) {
+      timeout.next.previous = timeout;
+    }
+    buckets[timeout.bucket] = timeout;
+    ++size;
+  }
+
+  public void cancel(final Timeout<T> timeout) {
+    if (timeout.isScheduled()) {
+      unlink(timeout);
+    }
+  }
+
+  /**
+   * Removes the timeouts whose deadline is not after the given time, and appends their tasks to
+   * the given list.
+   */
+  public void expire(final long nowInMillis, final List<T> expired) {
+    final long nowTick = nowInMillis / tickInMillis;
+
+    // One rotation visits all the buckets, however many ticks have elapsed
+    final long lastTick = Math.min(nowTick, currentTick + mask);
+    for (long tick = currentTick; tick <= lastTick; ++tick) {
+      Timeout<T> timeout = buckets[(int) (tick & mask)];
+      while (timeout != null) {
+        final Timeout<T> next = timeout.next;
+        if (timeout.tick <= nowTick && timeout.deadlineInMillis <= nowInMillis) {
+          unlink(timeout);
+          expired.add(timeout.task);
+        }
+        timeout = next;
+      }
+    }
+
+    // The bucket of the current tick is visited again, as it may hold later deadlines
+    currentTick = Math.max(currentTick, nowTick);
+  }
+
+  /**
+   * Returns the earliest deadline of the scheduled timeouts, or {@link Long#MAX_VALUE} if there
+   * are none.
+   */
+  public long getNextDeadline() {
+    if (size == 0) {
+      return Long.MAX_VALUE;
+    }
+
+    // The first bucket holding a timeout of the current rotation holds the earliest deadline
+    for (long tick = currentTick; tick <= currentTick + mask; ++tick) {
+      long nextDeadline = Long.MAX_VALUE;
+      for (Timeout<T> timeout = buckets[(int) (tick & mask)]; timeout != null;
+           timeout = timeout.next) {
+        if (timeout.tick <= tick) {
+          nextDeadline = Math.min(nextDeadline, timeout.deadlineInMillis);
+        }
+      }
+
+      if (nextDeadline < Long.MAX_VALUE) {
+        return nextDeadline;
+      }
+    }
+
+    // All the timeouts are more than one rotation ahead
+    long nextDeadline = Long.MAX_VALUE;
+    for (final Timeout<T> bucket : buckets) {
+      for (Timeout<T> timeout = bucket; timeout != null; timeout = timeout.next) {
+        nextDeadline = Math.min(nextDeadline, timeout.deadlineInMillis);
+      }
+    }
+    return nextDeadline;
+  }
+
+  private void unlink(final Timeout<T> timeout) {
+    if (timeout.previous != null) {
+      timeout.previous.next = timeout.next;
+    } else {
+      buckets[timeout.bucket] = timeout.next;
+    }
+
+    if (timeout.next != null) {
+      timeout.next.previous = timeout.previous;
+    }
+
+    timeout.next = null;
+    timeout.previous = null;
+    timeout.bucket = -1;
+    --size;
+  }
+
+  /**
+   * A task in the wheel, linked into the bucket of the tick of its deadline.
+   */
+  public static final class Timeout<T> {
+
+    private final T task;
+
+    private long deadlineInMillis;
+
+    private long tick;
+
+    private int bucket = -1;
+
+    private Timeout<T> previous;
+
+    private Timeout<T> next;
+
+    private Timeout(final T task) {
+      this.task = task;
+    }
+
+    public T getTask() {
+      return task;
+    }
+
+    /**
+     * Returns the deadline the timeout has last been scheduled for.
+     */
+    public long getDeadlineInMillis() {
+      return deadlineInMillis;
+    }
+
+    public boolean isScheduled() {
+      return bucket >= 0;
+    }
+
+  }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.configuration.AbsoluteUsageThresholdConfiguration;
+import com.sap.jma.configuration.Configuration;
+import com.sap.jma.configuration.ThresholdConfiguration;
+import com.sap.jma.configuration.UsageThresholdConfiguration;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+
+/**
+ * Off-heap buffer pool, e.g., the one of the direct byte buffers, exposed as a memory pool so
+ * that all kinds of conditions can be evaluated against it. The used memory is the one reported
+ * by the {@link BufferPoolMXBean}, the committed memory is the total capacity of the buffers, and
+ * the maximum is the limit of the buffer pool, if any (e.g., <code>-XX:MaxDirectMemorySize</code>
+ * for the direct buffers).
+ */
+public class BufferPoolMemoryPool implements MemoryPool {
+
+  private final Type type;
+  private final BufferPoolMXBean bufferPoolBean;
+  private final long maxInBytes;
+
+  /*
+   * A negative maxInBytes means that the buffer pool has no limit
+   */
+  BufferPoolMemoryPool(final Type type,
+                       final BufferPoolMXBean bufferPoolBean,
+                       final long maxInBytes) {
+    this.type = type;
+    this.bufferPoolBean = bufferPoolBean;
+    this.maxInBytes = maxInBytes;
+  }
+
+  @Override
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the buffer pool has no maximum size and the configured
+   *     threshold is not absolute
+   */
+  @Override
+  public UsageThresholdCondition<?> toCondition(final Configuration configuration) {
+    final UsageThresholdConfiguration usageThresholdConfiguration =
+        type.getThreshold(configuration);
+
+    if (usageThresholdConfiguration == null) {
+      return null;
+    }
+
+    // All other thresholds are relative to the maximum
+    if (maxInBytes < 0
+        && !(usageThresholdConfiguration instanceof AbsoluteUsageThresholdConfiguration)) {
+      throw new IllegalArgumentException(String.format("The buffer pool '%s' has no maximum "
+          + "size, so only absolute thresholds can be applied to it", getName()));
+    }
+
+    return usageThresholdConfiguration.toCondition(this);
+  }
+
+  @Override
+  public boolean matches(final MemoryPoolMXBean memoryPoolBean) {
+    return false;
+  }
+
+  @Override
+  public String getName() {
+    return type.getDefaultName();
+  }
+
+  /**
+   * The amount of buffers in the pool.
+   */
+  public long getCount() {
+    return bufferPoolBean.getCount();
+  }
+
+  @Override
+  public MemoryUsage getMemoryUsage() {
+    final long used = Math.max(0L, bufferPoolBean.getMemoryUsed());
+    // The memory used may be larger than the capacity, e.g., due to page alignment
+    final long committed = Math.max(used, bufferPoolBean.getTotalCapacity());
+    final long max = maxInBytes < 0 ? -1L : Math.max(maxInBytes, committed);
+    return new MemoryUsage(0L, used, committed, max);
+  }
+
+  /*
+   * Buffer pools are not covered by the usages reported by the garbage collectors, but by the
+   * snapshots of the checks, under the name of the buffer pool
+   */
+  @Override
+  public MemoryUsage getMemoryUsage(final Map<String, MemoryUsage> memoryUsages) {
+    final MemoryUsage memoryUsage = memoryUsages.get(getName());
+    return memoryUsage == null ? getMemoryUsage() : memoryUsage;
+  }
+
+  /*
+   * Buffers are released by the cleaners of their owners, not by a collection of the pool
+   */
+  @Override
+  public MemoryUsage getCollectionUsage() {
+    return null;
+  }
+
+  @Override
+  public boolean setUsageThreshold(final ThresholdConfiguration configuration) {
+    return false;
+  }
+
+}
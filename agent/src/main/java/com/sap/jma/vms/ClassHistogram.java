@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import com.sap.jma.utils.Supplier;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Samples the instances and bytes of the live objects of given classes via the
+ * <code>GC.class_histogram</code> diagnostic command. The diagnostic command triggers a full
+ * garbage collection, so that only live objects are counted; it is much cheaper than a heap
+ * dump, but not cheap.
+ *
+ * <p>Class patterns are registered upfront, and the histogram is parsed in a single pass over
+ * the output of the diagnostic command, without creating intermediate strings: each entry of
+ * the histogram is matched in place against all the patterns, and the totals of the patterns
+ * are stored in primitive arrays. Samples are cached for a short time, so that the conditions
+ * on different classes that are evaluated in the same check share one invocation of the
+ * diagnostic command. Not thread-safe.
+ */
+public class ClassHistogram {
+
+  // VisibleForTesting
+  static final long MAX_SAMPLE_AGE_IN_MILLIS = 1000L;
+
+  /**
+   * Suffix of the patterns that match all the classes of a package and of its sub-packages,
+   * e.g., <code>com.acme.*</code>.
+   */
+  public static final String PACKAGE_WILDCARD = ".*";
+
+  private static final String DIAGNOSTIC_COMMAND_MBEAN =
+      "com.sun.management:type=DiagnosticCommand";
+
+  private final Supplier<String> histogramSupplier;
+
+  private final Clock clock;
+
+  private final Logger logger;
+
+  private String[] patterns = new String[0];
+
+  private long[] instances = new long[0];
+
+  private long[] bytes = new long[0];
+
+  private long lastSampleTimestamp = Long.MIN_VALUE;
+
+  // VisibleForTesting
+  ClassHistogram(final Supplier<String> histogramSupplier,
+                 final Clock clock,
+                 final Logger logger) {
+    this.histogramSupplier = histogramSupplier;
+    this.clock = clock;
+    this.logger = logger;
+  }
+
+  static ClassHistogram create(final Logger logger) {
+    final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    return new ClassHistogram(new Supplier<String>() {
+      @Override
+      public String get() {
+        try {
+          return (String) mbeanServer.invoke(new ObjectName(DIAGNOSTIC_COMMAND_MBEAN),
+              "gcClassHistogram", new Object[] {new String[0]},
+              new String[] {String[].class.getName()});
+        } catch (final Exception ex) {
+          throw new IllegalStateException(
+              "Cannot invoke the 'GC.class_histogram' diagnostic command", ex);
+        }
+      }
+    }, Clock.SYSTEM, logger);
+  }
+
+  /**
+   * Registers a pattern, either the fully-qualified name of a class, e.g.,
+   * <code>com.acme.Session</code>, or a package followed by {@link #PACKAGE_WILDCARD}, e.g.,
+   * <code>com.acme.*</code>; returns the index of the pattern in the samples.
+   */
+  public int register(final String pattern) {
+    for (int i = 0; i < patterns.length; ++i) {
+      if (patterns[i].equals(pattern)) {
+        return i;
+      }
+    }
+
+    final int index = patterns.length;
+    patterns = Arrays.copyOf(patterns, index + 1);
+    patterns[index] = pattern;
+    instances = Arrays.copyOf(instances, index + 1);
+    instances[index] = -1L;
+    bytes = Arrays.copyOf(bytes, index + 1);
+    bytes[index] = -1L;
+    // The cached sample does not cover the new pattern
+    lastSampleTimestamp = Long.MIN_VALUE;
+    return index;
+  }
+
+  /**
+   * Returns the live instances of the classes matching the pattern with the given index, or -1
+   * if the histogram cannot be sampled.
+   */
+  public long getInstances(final int index) {
+    sample();
+    return instances[index];
+  }
+
+  /**
+   * Returns the bytes of the live instances of the classes matching the pattern with the given
+   * index, or -1 if the histogram cannot be sampled.
+   */
+  public long getBytes(final int index) {
+    sample();
+    return bytes[index];
+  }
+
+  private void sample() {
+    final long now = clock.getMillis();
+    if (lastSampleTimestamp != Long.MIN_VALUE
+        && now - lastSampleTimestamp < MAX_SAMPLE_AGE_IN_MILLIS) {
+      return;
+    }
+
+    final String histogram;
+    try {
+      histogram = histogramSupplier.get();
+    } catch (final RuntimeException ex) {
+      logger.error("Cannot sample the class histogram", ex);
+      Arrays.fill(instances, -1L);
+      Arrays.fill(bytes, -1L);
+      return;
+    } finally {
+      /*
+       * Stamped once the diagnostic command returns, as it forces a full garbage collection
+       * that may take longer than the maximum age of the sample
+       */
+      lastSampleTimestamp = clock.getMillis();
+    }
+
+    parse(histogram);
+  }
+
+  private void parse(final String histogram) {
+    if (histogram == null) {
+      Arrays.fill(instances, -1L);
+      Arrays.fill(bytes, -1L);
+      return;
+    }
+
+    // Classes without live instances are not in the histogram at all
+    Arrays.fill(instances, 0L);
+    Arrays.fill(bytes, 0L);
+
+    final int length = histogram.length();
+    int lineStart = 0;
+    while (lineStart < length) {
+      int lineEnd = histogram.indexOf('\n', lineStart);
+      if (lineEnd < 0) {
+        lineEnd = length;
+      }
+
+      parseLine(histogram, lineStart, lineEnd);
+
+      lineStart = lineEnd + 1;
+    }
+  }
+
+  /*
+   * Entries look like '   1:        123456        9876544  com.acme.Session', with the module
+   * of the class appended on JDK 9+, e.g., '  2:  ...  java.lang.String (java.base@11.0.2)';
+   * the header and the 'Total' line do not start with a number followed by a colon
+   */
+  private void parseLine(final String histogram, final int lineStart, final int lineEnd) {
+    int position = skipWhitespaces(histogram, lineStart, lineEnd);
+
+    final int rankEnd = skipDigits(histogram, position, lineEnd);
+    if (rankEnd == position || rankEnd >= lineEnd || histogram.charAt(rankEnd) != ':') {
+      return;
+    }
+
+    position = skipWhitespaces(histogram, rankEnd + 1, lineEnd);
+    final int instancesEnd = skipDigits(histogram, position, lineEnd);
+    if (instancesEnd == position) {
+      return;
+    }
+    final long entryInstances = parseLong(histogram, position, instancesEnd);
+
+    position = skipWhitespaces(histogram, instancesEnd, lineEnd);
+    final int bytesEnd = skipDigits(histogram, position, lineEnd);
+    if (bytesEnd == position) {
+      return;
+    }
+    final long entryBytes = parseLong(histogram, position, bytesEnd);
+
+    final int nameStart = skipWhitespaces(histogram, bytesEnd, lineEnd);
+    int nameEnd = nameStart;
+    while (nameEnd < lineEnd && !Character.isWhitespace(histogram.charAt(nameEnd))) {
+      ++nameEnd;
+    }
+
+    for (int i = 0; i < patterns.length; ++i) {
+      if (matches(patterns[i], histogram, nameStart, nameEnd)) {
+        instances[i] += entryInstances;
+        bytes[i] += entryBytes;
+      }
+    }
+  }
+
+  private static boolean matches(final String pattern, final String histogram,
+                                 final int nameStart, final int nameEnd) {
+    final int nameLength = nameEnd - nameStart;
+    if (pattern.endsWith(PACKAGE_WILDCARD)) {
+      // 'com.acme.*' matches the classes of 'com.acme' and of its sub-packages
+      final int prefixLength = pattern.length() - 1;
+      return nameLength > prefixLength
+          && histogram.regionMatches(nameStart, pattern, 0, prefixLength);
+    }
+
+    return nameLength == pattern.length()
+        && histogram.regionMatches(nameStart, pattern, 0, nameLength);
+  }
+
+  private static long parseLong(final String histogram, final int from, final int to) {
+    long value = 0L;
+    for (int i = from; i < to; ++i) {
+      value = value * 10L + (histogram.charAt(i) - '0');
+    }
+    return value;
+  }
+
+  private static int skipDigits(final String histogram, final int from, final int to) {
+    int position = from;
+    while (position < to && Character.isDigit(histogram.charAt(position))) {
+      ++position;
+    }
+    return position;
+  }
+
+  private static int skipWhitespaces(final String histogram, final int from, final int to) {
+    int position = from;
+    while (position < to && Character.isWhitespace(histogram.charAt(position))) {
+      ++position;
+    }
+    return position;
+  }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import com.sap.jma.utils.Supplier;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Breaks down the metaspace used by the class loaders of the JVM via the
+ * <code>VM.classloader_stats</code> diagnostic command, aggregated by the type of the class
+ * loaders: many instances of the same type, e.g., of the class loader of a web application or
+ * of <code>jdk.internal.reflect.DelegatingClassLoader</code>, hint at redeployment or
+ * proxy-generation leaks. The diagnostic command walks all class loaders at a safepoint, so it
+ * is meant to be invoked when a condition is violated, not at every check.
+ */
+public class ClassLoaderStatistics {
+
+  private static final String DIAGNOSTIC_COMMAND_MBEAN =
+      "com.sun.management:type=DiagnosticCommand";
+
+  private static final String ADDRESS_PREFIX = "0x";
+
+  private static final String ANONYMOUS_CLASSES_PREFIX = "+";
+
+  /**
+   * The class loaders of one type, e.g., <code>&lt;boot class loader&gt;</code>.
+   */
+  public static class ClassLoaderType {
+
+    private final String name;
+    private int classLoaderCount;
+    private long classCount;
+    private long chunkSizeInBytes;
+
+    private ClassLoaderType(final String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public int getClassLoaderCount() {
+      return classLoaderCount;
+    }
+
+    /**
+     * The classes defined by the class loaders of this type, including anonymous and hidden
+     * ones.
+     */
+    public long getClassCount() {
+      return classCount;
+    }
+
+    /**
+     * The metaspace chunks allocated by the class loaders of this type.
+     */
+    public long getChunkSizeInBytes() {
+      return chunkSizeInBytes;
+    }
+
+  }
+
+  private final Supplier<String> statisticsSupplier;
+
+  // VisibleForTesting
+  ClassLoaderStatistics(final Supplier<String> statisticsSupplier) {
+    this.statisticsSupplier = statisticsSupplier;
+  }
+
+  public static ClassLoaderStatistics create() {
+    final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    return new ClassLoaderStatistics(new Supplier<String>() {
+      @Override
+      public String get() {
+        try {
+          return (String) mbeanServer.invoke(new ObjectName(DIAGNOSTIC_COMMAND_MBEAN),
+              "vmClassloaderStats", new Object[] {new String[0]},
+              new String[] {String[].class.getName()});
+        } catch (final Exception ex) {
+          throw new IllegalStateException(
+              "Cannot invoke the 'VM.classloader_stats' diagnostic command", ex);
+        }
+      }
+    });
+  }
+
+  /**
+   * Returns the types of the class loaders sorted by the metaspace they use, largest first.
+   *
+   * @throws IllegalStateException if the diagnostic command cannot be invoked
+   */
+  public List<ClassLoaderType> getClassLoaderTypes() {
+    final String statistics = statisticsSupplier.get();
+
+    final Map<String, ClassLoaderType> classLoaderTypes = new LinkedHashMap<>();
+    if (statistics != null) {
+      ClassLoaderType current = null;
+      for (final String line : statistics.split("\n")) {
+        final String trimmed = line.trim();
+        if (trimmed.startsWith(ADDRESS_PREFIX)) {
+          current = parseClassLoader(trimmed, classLoaderTypes);
+        } else if (current != null && trimmed.endsWith(" classes")
+            && trimmed.contains(ANONYMOUS_CLASSES_PREFIX)) {
+          // Anonymous (JDK 8) or hidden (JDK 15+) classes of the class loader on the line above
+          final String[] columns = trimmed.split("\\s+", 4);
+          current.classCount += parseLong(columns[0]);
+          current.chunkSizeInBytes += parseLong(columns[1]);
+        } else {
+          current = null;
+        }
+      }
+    }
+
+    final List<ClassLoaderType> result = new ArrayList<>(classLoaderTypes.values());
+    Collections.sort(result, new Comparator<ClassLoaderType>() {
+      @Override
+      public int compare(final ClassLoaderType type1, final ClassLoaderType type2) {
+        return Long.compare(type2.chunkSizeInBytes, type1.chunkSizeInBytes);
+      }
+    });
+    return result;
+  }
+
+  /*
+   * Class loader lines look like '0x00007fbe0c0798a8  0x00007fbe0c07bb88  0x00007fbe6408fc30
+   * 1321    932480    929732  jdk.internal.loader.ClassLoaders$AppClassLoader'
+   */
+  private static ClassLoaderType parseClassLoader(final String line,
+                                                  final Map<String, ClassLoaderType> types) {
+    final String[] columns = line.split("\\s+", 7);
+    if (columns.length < 7) {
+      return null;
+    }
+
+    final String name = columns[6];
+    ClassLoaderType classLoaderType = types.get(name);
+    if (classLoaderType == null) {
+      classLoaderType = new ClassLoaderType(name);
+      types.put(name, classLoaderType);
+    }
+
+    classLoaderType.classLoaderCount += 1;
+    classLoaderType.classCount += parseLong(columns[3]);
+    classLoaderType.chunkSizeInBytes += parseLong(columns[4]);
+    return classLoaderType;
+  }
+
+  private static long parseLong(final String value) {
+    try {
+      return Long.parseLong(value);
+    } catch (final NumberFormatException ex) {
+      return 0L;
+    }
+  }
+
+}
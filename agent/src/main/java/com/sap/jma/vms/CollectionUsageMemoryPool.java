@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.configuration.Configuration;
+import com.sap.jma.configuration.ThresholdConfiguration;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+
+/**
+ * View of a memory pool whose usage is the one after the most recent garbage collection, so
+ * that any kind of condition can be evaluated against the live set rather than against a usage
+ * that includes garbage not yet collected.
+ */
+public class CollectionUsageMemoryPool implements MemoryPool {
+
+  private final MemoryPool memoryPool;
+
+  public CollectionUsageMemoryPool(final MemoryPool memoryPool) {
+    this.memoryPool = memoryPool;
+  }
+
+  @Override
+  public Type getType() {
+    return memoryPool.getType();
+  }
+
+  @Override
+  public UsageThresholdCondition<?> toCondition(final Configuration configuration) {
+    return memoryPool.toCondition(configuration);
+  }
+
+  @Override
+  public boolean matches(final MemoryPoolMXBean memoryPoolBean) {
+    return memoryPool.matches(memoryPoolBean);
+  }
+
+  @Override
+  public String getName() {
+    return memoryPool.getName() + " (after GC)";
+  }
+
+  @Override
+  public MemoryUsage getMemoryUsage() {
+    return memoryPool.getCollectionUsage();
+  }
+
+  /*
+   * The collection usage is updated by the JVM before garbage collection and usage threshold
+   * notifications are emitted, so there is no need to look it up in the given usages
+   */
+  @Override
+  public MemoryUsage getMemoryUsage(final Map<String, MemoryUsage> memoryUsages) {
+    return getMemoryUsage();
+  }
+
+  @Override
+  public MemoryUsage getCollectionUsage() {
+    return memoryPool.getCollectionUsage();
+  }
+
+  @Override
+  public boolean setUsageThreshold(final ThresholdConfiguration configuration) {
+    return false;
+  }
+
+}
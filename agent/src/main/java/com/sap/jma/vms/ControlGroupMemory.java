@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Samples the memory accounting of the control group (cgroup) of the JVM, i.e., the memory
+ * usage and limit of the container it runs in. Both cgroup v2 (<code>memory.current</code>,
+ * <code>memory.max</code>, <code>memory.stat</code> and <code>memory.events</code>) and, as a
+ * fallback, cgroup v1 (<code>memory.usage_in_bytes</code>, <code>memory.limit_in_bytes</code>,
+ * <code>memory.stat</code> and <code>memory.failcnt</code>) are supported.
+ *
+ * <p>The files are read as {@link PseudoFile}, so that sampling does not create garbage. Samples
+ * are cached for a short time, so that the conditions evaluated in the same check share one read.
+ * Not thread-safe.
+ */
+public class ControlGroupMemory {
+
+  // VisibleForTesting
+  static final long MAX_SAMPLE_AGE_IN_MILLIS = 100L;
+
+  /*
+   * cgroup v1 reports "no limit" as the largest multiple of the page size
+   */
+  private static final long V1_UNLIMITED_THRESHOLD = Long.MAX_VALUE / 2;
+
+  private static final File CGROUP_ROOT = new File("/sys/fs/cgroup");
+
+  private static final File PROC_SELF_CGROUP = new File("/proc/self/cgroup");
+
+  private static final byte[] V2_INACTIVE_FILE_KEY = PseudoFile.toKey("inactive_file");
+
+  private static final byte[] V1_INACTIVE_FILE_KEY = PseudoFile.toKey("total_inactive_file");
+
+  private static final byte[] HIGH_EVENTS_KEY = PseudoFile.toKey("high");
+
+  private static final byte[] MAX_EVENTS_KEY = PseudoFile.toKey("max");
+
+  private final File directory;
+
+  private final boolean isVersion2;
+
+  private final PseudoFile usage;
+
+  private final PseudoFile limit;
+
+  private final PseudoFile stat;
+
+  private final PseudoFile events;
+
+  private final Clock clock;
+
+  private final Logger logger;
+
+  private long usageInBytes = -1L;
+
+  private long limitInBytes = -1L;
+
+  private long inactiveFileInBytes = -1L;
+
+  private long highEvents = -1L;
+
+  private long maxEvents = -1L;
+
+  private long lastSampleTimestamp = Long.MIN_VALUE;
+
+  // VisibleForTesting
+  ControlGroupMemory(final File directory, final boolean isVersion2, final Clock clock,
+                     final Logger logger) {
+    this.directory = directory;
+    this.isVersion2 = isVersion2;
+    if (isVersion2) {
+      usage = new PseudoFile(new File(directory, "memory.current"), 64);
+      limit = new PseudoFile(new File(directory, "memory.max"), 64);
+      events = new PseudoFile(new File(directory, "memory.events"), 256);
+    } else {
+      usage = new PseudoFile(new File(directory, "memory.usage_in_bytes"), 64);
+      limit = new PseudoFile(new File(directory, "memory.limit_in_bytes"), 64);
+      events = new PseudoFile(new File(directory, "memory.failcnt"), 64);
+    }
+    stat = new PseudoFile(new File(directory, "memory.stat"), 4096);
+    this.clock = clock;
+    this.logger = logger;
+  }
+
+  /**
+   * Returns the memory accounting of the control group of the running JVM, or <code>null</code>
+   * if it is not available (e.g., not on Linux).
+   */
+  static ControlGroupMemory create(final Logger logger) {
+    return create(CGROUP_ROOT, PROC_SELF_CGROUP, Clock.SYSTEM, logger);
+  }
+
+  /*
+   * The control group of the process is listed in /proc/self/cgroup as '0::<path>' for cgroup v2,
+   * and as '<id>:memory:<path>' (among others) for cgroup v1. Within a container with its own
+   * cgroup namespace, the path is '/' and the files of the control group are directly under the
+   * mount point.
+   */
+  // VisibleForTesting
+  static ControlGroupMemory create(final File root, final File procSelfCgroup,
+                                   final Clock clock, final Logger logger) {
+    String version2Path = null;
+    String version1Path = null;
+    if (procSelfCgroup.canRead()) {
+      try (final BufferedReader reader =
+               Files.newBufferedReader(procSelfCgroup.toPath(), StandardCharsets.US_ASCII)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (line.startsWith("0::")) {
+            version2Path = line.substring("0::".length());
+          } else {
+            final int controllersStart = line.indexOf(':') + 1;
+            final int pathStart = line.indexOf(':', controllersStart) + 1;
+            if (controllersStart > 0 && pathStart > 0 && isMemoryController(
+                line.substring(controllersStart, pathStart - 1))) {
+              version1Path = line.substring(pathStart);
+            }
+          }
+        }
+      } catch (final IOException ex) {
+        logger.debug("Cannot read the control groups of the process from '%s': %s",
+            procSelfCgroup, ex.getMessage());
+      }
+    }
+
+    if (version1Path == null) {
+      final File directory = findDirectory(root, version2Path, "memory.current");
+      if (directory != null) {
+        return new ControlGroupMemory(directory, true, clock, logger);
+      }
+    }
+
+    final File directory =
+        findDirectory(new File(root, "memory"), version1Path, "memory.usage_in_bytes");
+    if (directory != null) {
+      return new ControlGroupMemory(directory, false, clock, logger);
+    }
+
+    return null;
+  }
+
+  private static boolean isMemoryController(final String controllers) {
+    for (final String controller : controllers.split(",")) {
+      if ("memory".equals(controller)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static File findDirectory(final File mountPoint, final String path,
+                                    final String usageFileName) {
+    if (path != null) {
+      final File directory = new File(mountPoint, path);
+      if (new File(directory, usageFileName).canRead()) {
+        return directory;
+      }
+    }
+
+    // Own cgroup namespace, or the path is not visible from within the container
+    if (new File(mountPoint, usageFileName).canRead()) {
+      return mountPoint;
+    }
+
+    return null;
+  }
+
+  /**
+   * The directory of the control group in the cgroup filesystem.
+   */
+  public File getDirectory() {
+    return directory;
+  }
+
+  public boolean isVersion2() {
+    return isVersion2;
+  }
+
+  /**
+   * Returns the memory charged to the control group in bytes, including the page cache, or -1 if
+   * it cannot be read.
+   */
+  public long getUsageInBytes() {
+    sample();
+    return usageInBytes;
+  }
+
+  /**
+   * Returns the memory the kernel cannot easily reclaim when the control group reaches its limit,
+   * i.e., the usage minus the inactive page cache (the "working set"), or -1 if it cannot be read.
+   */
+  public long getWorkingSetInBytes() {
+    sample();
+    if (usageInBytes < 0) {
+      return -1L;
+    }
+    return inactiveFileInBytes < 0 ? usageInBytes
+        : Math.max(0L, usageInBytes - inactiveFileInBytes);
+  }
+
+  /**
+   * Returns the memory limit of the control group in bytes, or -1 if there is none or it cannot
+   * be read.
+   */
+  public long getLimitInBytes() {
+    sample();
+    return limitInBytes;
+  }
+
+  /**
+   * Returns how many times the usage of the control group has been throttled for exceeding its
+   * <code>memory.high</code> boundary, or -1 if not known (e.g., with cgroup v1).
+   */
+  public long getHighEvents() {
+    sample();
+    return highEvents;
+  }
+
+  /**
+   * Returns how many times the usage of the control group was about to exceed its limit, i.e.,
+   * the <code>max</code> count of <code>memory.events</code> with cgroup v2, and
+   * <code>memory.failcnt</code> with cgroup v1; -1 if not known.
+   */
+  public long getMaxEvents() {
+    sample();
+    return maxEvents;
+  }
+
+  private void sample() {
+    final long now = clock.getMillis();
+    if (lastSampleTimestamp != Long.MIN_VALUE
+        && now - lastSampleTimestamp < MAX_SAMPLE_AGE_IN_MILLIS) {
+      return;
+    }
+
+    lastSampleTimestamp = now;
+
+    usageInBytes = -1L;
+    limitInBytes = -1L;
+    inactiveFileInBytes = -1L;
+    highEvents = -1L;
+    maxEvents = -1L;
+
+    try {
+      usage.read();
+      usageInBytes = usage.getValue();
+
+      limit.read();
+      final long limitValue = limit.getValue();
+      limitInBytes = limitValue == PseudoFile.UNLIMITED
+          || (!isVersion2 && limitValue > V1_UNLIMITED_THRESHOLD) ? -1L : limitValue;
+
+      stat.read();
+      inactiveFileInBytes =
+          stat.getValue(isVersion2 ? V2_INACTIVE_FILE_KEY : V1_INACTIVE_FILE_KEY);
+
+      events.read();
+      if (isVersion2) {
+        highEvents = events.getValue(HIGH_EVENTS_KEY);
+        maxEvents = events.getValue(MAX_EVENTS_KEY);
+      } else {
+        maxEvents = events.getValue();
+      }
+    } catch (final IOException ex) {
+      logger.error("Cannot read the memory accounting of the control group", ex);
+    }
+  }
+
+}
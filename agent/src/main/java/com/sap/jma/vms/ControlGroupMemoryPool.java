@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import com.sap.jma.conditions.ControlGroupMemoryEventsCondition;
+import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.configuration.AbsoluteUsageThresholdConfiguration;
+import com.sap.jma.configuration.Configuration;
+import com.sap.jma.configuration.ThresholdConfiguration;
+import com.sap.jma.configuration.UsageThresholdConfiguration;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+
+/**
+ * Memory of the control group of the JVM, i.e., of its container, exposed as a memory pool so
+ * that conditions can be evaluated against it. The used memory is the working set, i.e., the
+ * usage minus the inactive page cache that the kernel can reclaim, the committed memory is the
+ * usage including the page cache, and the maximum is the memory limit of the control group.
+ */
+public class ControlGroupMemoryPool implements MemoryPool {
+
+  private final ControlGroupMemory controlGroupMemory;
+
+  ControlGroupMemoryPool(final ControlGroupMemory controlGroupMemory) {
+    this.controlGroupMemory = controlGroupMemory;
+  }
+
+  @Override
+  public Type getType() {
+    return Type.CONTAINER;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the control group has no memory limit and the configured
+   *     threshold is not absolute
+   */
+  @Override
+  public UsageThresholdCondition<?> toCondition(final Configuration configuration) {
+    final UsageThresholdConfiguration usageThresholdConfiguration =
+        getType().getThreshold(configuration);
+
+    if (usageThresholdConfiguration == null) {
+      return null;
+    }
+
+    // All other thresholds are relative to the maximum
+    if (controlGroupMemory.getLimitInBytes() < 0
+        && !(usageThresholdConfiguration instanceof AbsoluteUsageThresholdConfiguration)) {
+      throw new IllegalArgumentException(String.format("The control group of the JVM has no "
+          + "memory limit, so only absolute thresholds can be applied to '%s'", getName()));
+    }
+
+    return new ControlGroupMemoryEventsCondition(usageThresholdConfiguration.toCondition(this),
+        controlGroupMemory, getName());
+  }
+
+  @Override
+  public boolean matches(final MemoryPoolMXBean memoryPoolBean) {
+    return false;
+  }
+
+  @Override
+  public String getName() {
+    return getType().getDefaultName();
+  }
+
+  @Override
+  public MemoryUsage getMemoryUsage() {
+    // Values that cannot be read are reported as empty
+    final long committed = Math.max(0L, controlGroupMemory.getUsageInBytes());
+    final long used = Math.min(committed, Math.max(0L, controlGroupMemory.getWorkingSetInBytes()));
+    final long limit = controlGroupMemory.getLimitInBytes();
+    return new MemoryUsage(0L, used, committed, limit < 0 ? -1L : Math.max(limit, committed));
+  }
+
+  /*
+   * The memory of the control group is not covered by the usages reported by the garbage
+   * collectors, but by the snapshots of the checks, under the name of the memory pool
+   */
+  @Override
+  public MemoryUsage getMemoryUsage(final Map<String, MemoryUsage> memoryUsages) {
+    final MemoryUsage memoryUsage = memoryUsages.get(getName());
+    return memoryUsage == null ? getMemoryUsage() : memoryUsage;
+  }
+
+  @Override
+  public MemoryUsage getCollectionUsage() {
+    return null;
+  }
+
+  @Override
+  public boolean setUsageThreshold(final ThresholdConfiguration configuration) {
+    return false;
+  }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+
+/**
+ * Memory pool of a garbage collector the Java Memory Assistant does not know, e.g.,
+ * <code>ZHeap</code> of ZGC or <code>Shenandoah</code>, monitored under the name of its
+ * {@link MemoryPoolMXBean}. Its thresholds are configured by patterns on that name. Some of these
+ * memory pools have no defined maximum, in which case the committed memory stands for it, so
+ * relative thresholds are about how much of the committed memory is used.
+ */
+public class GenericMemoryPool extends MemoryPoolImpl {
+
+  private final String name;
+
+  GenericMemoryPool(final MemoryPoolMXBean memoryPoolBean) {
+    super(Type.OTHER, memoryPoolBean);
+    this.name = memoryPoolBean.getName();
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public MemoryUsage getMemoryUsage() {
+    return withDefinedMax(super.getMemoryUsage());
+  }
+
+  @Override
+  public MemoryUsage getMemoryUsage(final Map<String, MemoryUsage> memoryUsages) {
+    return withDefinedMax(super.getMemoryUsage(memoryUsages));
+  }
+
+  @Override
+  public MemoryUsage getCollectionUsage() {
+    return withDefinedMax(super.getCollectionUsage());
+  }
+
+  @Override
+  public boolean matches(final MemoryPoolMXBean memoryPoolBean) {
+    return name.equals(memoryPoolBean.getName());
+  }
+
+  // VisibleForTesting
+  static MemoryUsage withDefinedMax(final MemoryUsage memoryUsage) {
+    if (memoryUsage == null || memoryUsage.getMax() >= 0) {
+      return memoryUsage;
+    }
+
+    return new MemoryUsage(memoryUsage.getInit(), memoryUsage.getUsed(),
+        memoryUsage.getCommitted(), memoryUsage.getCommitted());
+  }
+
+}
@@ -9,14 +9,18 @@ package com.sap.jma.vms;
 import com.sap.jma.logging.Logger;
 import com.sap.jma.utils.Supplier;
 
+import java.lang.management.BufferPoolMXBean;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
 import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
 import java.lang.management.RuntimeMXBean;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 
 public interface JavaVirtualMachine {
 
@@ -24,6 +28,8 @@ public interface JavaVirtualMachine {
 
     public static final Factory INSTANCE = new Factory();
 
+    private static final long DEFAULT_THREAD_STACK_SIZE = 1024L * 1024L;
+
     public JavaVirtualMachine get(final Logger logger) {
       final RuntimeMXBean runtimeBean = ManagementFactory.getRuntimeMXBean();
       final String specVendor = runtimeBean.getSpecVendor();
@@ -31,33 +37,76 @@ public interface JavaVirtualMachine {
       final String vmVendor = runtimeBean.getVmVendor();
       final String vmVersion = runtimeBean.getVmVersion();
 
+      final List<MemoryPoolMXBean> memoryPoolBeans = ManagementFactory.getMemoryPoolMXBeans();
+
+      final List<String> heapMemoryPoolNames = new ArrayList<>();
+      final List<MemoryPoolMXBean> heapMemoryPoolBeans = new ArrayList<>();
+      for (final MemoryPoolMXBean memoryPoolBean : memoryPoolBeans) {
+        if (memoryPoolBean.getType() == MemoryType.HEAP) {
+          heapMemoryPoolNames.add(memoryPoolBean.getName());
+          heapMemoryPoolBeans.add(memoryPoolBean);
+        }
+      }
+
       final MemoryMXBean memoryMxBean = ManagementFactory.getMemoryMXBean();
       final MemoryPool heapMemoryPool = new MemoryPoolImpl(MemoryPool.Type.HEAP,
-          new Supplier<MemoryUsage>() {
+          heapMemoryPoolNames, new Supplier<MemoryUsage>() {
             @Override
             public MemoryUsage get() {
               return memoryMxBean.getHeapMemoryUsage();
             }
+          }, new Supplier<MemoryUsage>() {
+            @Override
+            public MemoryUsage get() {
+              return getHeapCollectionUsage(memoryMxBean, heapMemoryPoolBeans);
+            }
           });
 
-      final List<MemoryPoolMXBean> memoryPoolBeans = ManagementFactory.getMemoryPoolMXBeans();
       final List<MemoryPool> supportedMemoryPools = new ArrayList<>();
       for (final MemoryPoolMXBean memoryPoolBean : memoryPoolBeans) {
         try {
           final MemoryPool.Type type = MemoryPool.Type.from(memoryPoolBean);
-          final MemoryPool memoryPool = new MemoryPoolImpl(type, new Supplier<MemoryUsage>() {
-            @Override
-            public MemoryUsage get() {
-              return memoryPoolBean.getUsage();
-            }
-          });
+          final MemoryPool memoryPool = new MemoryPoolImpl(type, memoryPoolBean);
           supportedMemoryPools.add(memoryPool);
         } catch (final IllegalArgumentException ex) {
-          logger.warning("The memory pool '%s' is not supported; "
-                  + "the Java Memory Assistant will not monitor it", memoryPoolBean.getName());
+          // E.g., the memory pools of ZGC and Shenandoah
+          logger.debug("The memory pool '%s' is not known; the Java Memory Assistant will "
+              + "monitor it with the thresholds on patterns matching its name",
+              memoryPoolBean.getName());
+          supportedMemoryPools.add(new GenericMemoryPool(memoryPoolBean));
+        }
+      }
+
+      final long maxDirectMemorySize = getMaxDirectMemorySize(runtimeBean.getInputArguments(),
+          Runtime.getRuntime().maxMemory());
+      for (final BufferPoolMXBean bufferPoolBean
+          : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+        try {
+          final MemoryPool.Type type = MemoryPool.Type.from(bufferPoolBean);
+          supportedMemoryPools.add(new BufferPoolMemoryPool(type, bufferPoolBean,
+              type == MemoryPool.Type.DIRECT_BUFFERS ? maxDirectMemorySize : -1L));
+        } catch (final IllegalArgumentException ex) {
+          logger.warning("The buffer pool '%s' is not supported; "
+              + "the Java Memory Assistant will not monitor it", bufferPoolBean.getName());
         }
       }
 
+      final ProcessMemory processMemory = ProcessMemory.create(logger);
+      if (processMemory != null) {
+        final long physicalMemorySize = getPhysicalMemorySize();
+        supportedMemoryPools.add(new ProcessMemoryPool(MemoryPool.Type.RESIDENT_SET,
+            processMemory, physicalMemorySize));
+        supportedMemoryPools.add(new ProcessMemoryPool(MemoryPool.Type.ANONYMOUS_RESIDENT_SET,
+            processMemory, physicalMemorySize));
+        supportedMemoryPools.add(new ProcessMemoryPool(MemoryPool.Type.SWAP,
+            processMemory, getSwapSpaceSize()));
+      }
+
+      final ControlGroupMemory controlGroupMemory = ControlGroupMemory.create(logger);
+      if (controlGroupMemory != null) {
+        supportedMemoryPools.add(new ControlGroupMemoryPool(controlGroupMemory));
+      }
+
       final StringBuilder sb = new StringBuilder();
       for (final MemoryPool memoryPool : supportedMemoryPools) {
         sb.append('\n');
@@ -84,13 +133,196 @@ public interface JavaVirtualMachine {
           return heapMemoryPool;
         }
 
+        private NativeMemoryTracking nativeMemoryTracking;
+
+        @Override
+        public MemoryPool getNativeMemoryPool(final String configurationName) {
+          if (nativeMemoryTracking == null) {
+            nativeMemoryTracking = NativeMemoryTracking.create(logger);
+          }
+
+          final String category = nativeMemoryTracking.getCategory(configurationName);
+          return category == null ? null : new NativeMemoryPool(nativeMemoryTracking, category);
+        }
+
+        private ClassHistogram classHistogram;
+
+        @Override
+        public ClassHistogram getClassHistogram() {
+          if (classHistogram == null) {
+            classHistogram = ClassHistogram.create(logger);
+          }
+
+          return classHistogram;
+        }
+
       };
     }
 
+    /*
+     * The limit of the direct buffers is set with -XX:MaxDirectMemorySize; when it is not set, or
+     * set to zero, the JVM uses the maximum heap size instead
+     */
+    // VisibleForTesting
+    static long getMaxDirectMemorySize(final List<String> inputArguments,
+                                       final long maxHeapSize) {
+      final String option = "-XX:MaxDirectMemorySize=";
+
+      long result = 0L;
+      for (final String inputArgument : inputArguments) {
+        if (!inputArgument.startsWith(option)) {
+          continue;
+        }
+
+        // The last occurrence wins, as for the JVM
+        final long size = parseSize(inputArgument.substring(option.length()), 1L);
+        if (size >= 0) {
+          result = size;
+        }
+      }
+
+      return result > 0 ? result : maxHeapSize;
+    }
+
+    /*
+     * The stack size of the threads is set with -Xss, or its alias -XX:ThreadStackSize (in
+     * kilobytes unless a unit is given); when it is not set, or set to zero, the JVM uses the
+     * default of the platform, which is 1MB on 64-bit Linux, macOS and Windows
+     */
+    public static long getThreadStackSize(final List<String> inputArguments) {
+      final String shortOption = "-Xss";
+      final String longOption = "-XX:ThreadStackSize=";
+
+      long result = 0L;
+      for (final String inputArgument : inputArguments) {
+        final long size;
+        if (inputArgument.startsWith(shortOption)) {
+          size = parseSize(inputArgument.substring(shortOption.length()), 1L);
+        } else if (inputArgument.startsWith(longOption)) {
+          size = parseSize(inputArgument.substring(longOption.length()), 1024L);
+        } else {
+          continue;
+        }
+
+        // The last occurrence wins, as for the JVM
+        if (size >= 0) {
+          result = size;
+        }
+      }
+
+      return result > 0 ? result : DEFAULT_THREAD_STACK_SIZE;
+    }
+
+    /*
+     * Parses sizes like '512k' or '1G' as the JVM does for its options; returns -1 if the value
+     * cannot be parsed
+     */
+    private static long parseSize(final String size, final long defaultMultiplier) {
+      final String value = size.toLowerCase(Locale.ROOT);
+      if (value.isEmpty()) {
+        return -1L;
+      }
+
+      final int unitsIndex = value.length() - 1;
+      final long multiplier;
+      switch (value.charAt(unitsIndex)) {
+        case 'k':
+          multiplier = 1024L;
+          break;
+        case 'm':
+          multiplier = 1024L * 1024L;
+          break;
+        case 'g':
+          multiplier = 1024L * 1024L * 1024L;
+          break;
+        case 't':
+          multiplier = 1024L * 1024L * 1024L * 1024L;
+          break;
+        default:
+          multiplier = 0L;
+      }
+
+      try {
+        return multiplier == 0L ? Long.parseLong(value) * defaultMultiplier
+            : Long.parseLong(value.substring(0, unitsIndex)) * multiplier;
+      } catch (final NumberFormatException ex) {
+        // The JVM would not have started
+        return -1L;
+      }
+    }
+
+    /*
+     * Returns -1 if the JVM does not report the physical memory of the machine
+     */
+    private static long getPhysicalMemorySize() {
+      final OperatingSystemMXBean operatingSystemBean =
+          ManagementFactory.getOperatingSystemMXBean();
+      if (operatingSystemBean instanceof com.sun.management.OperatingSystemMXBean) {
+        final long size = ((com.sun.management.OperatingSystemMXBean) operatingSystemBean)
+            .getTotalPhysicalMemorySize();
+        return size > 0 ? size : -1L;
+      }
+      return -1L;
+    }
+
+    /*
+     * Returns -1 if the JVM does not report the swap space, or there is none
+     */
+    private static long getSwapSpaceSize() {
+      final OperatingSystemMXBean operatingSystemBean =
+          ManagementFactory.getOperatingSystemMXBean();
+      if (operatingSystemBean instanceof com.sun.management.OperatingSystemMXBean) {
+        final long size = ((com.sun.management.OperatingSystemMXBean) operatingSystemBean)
+            .getTotalSwapSpaceSize();
+        return size > 0 ? size : -1L;
+      }
+      return -1L;
+    }
+
+    /*
+     * The heap as a whole is never collected at once, so we sum up the usage of each heap memory
+     * pool after its own most recent collection; returns null if no heap memory pool reports it
+     */
+    private static MemoryUsage getHeapCollectionUsage(
+        final MemoryMXBean memoryMxBean, final List<MemoryPoolMXBean> heapMemoryPoolBeans) {
+      boolean isSupported = false;
+      long used = 0L;
+      long committed = 0L;
+      for (final MemoryPoolMXBean heapMemoryPoolBean : heapMemoryPoolBeans) {
+        final MemoryUsage collectionUsage = heapMemoryPoolBean.getCollectionUsage();
+        if (collectionUsage != null) {
+          isSupported = true;
+          used += collectionUsage.getUsed();
+          committed += collectionUsage.getCommitted();
+        }
+      }
+
+      if (!isSupported) {
+        return null;
+      }
+
+      final MemoryUsage current = memoryMxBean.getHeapMemoryUsage();
+      final long max = current.getMax() < 0 ? current.getMax() : Math.max(current.getMax(),
+          committed);
+      return new MemoryUsage(current.getInit(), used, committed, max);
+    }
+
   }
 
   List<MemoryPool> getMemoryPools();
 
   MemoryPool getHeapMemoryPool();
 
+  /**
+   * Returns the category of the Native Memory Tracking with the given configuration name, e.g.,
+   * <code>thread</code>, as memory pool, or <code>null</code> if the Native Memory Tracking is
+   * not enabled or does not track such a category.
+   */
+  MemoryPool getNativeMemoryPool(String configurationName);
+
+  /**
+   * Returns the class histogram of the JVM, shared by all the conditions on classes.
+   */
+  ClassHistogram getClassHistogram();
+
 }
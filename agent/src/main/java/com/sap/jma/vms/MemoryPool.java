@@ -8,9 +8,12 @@ package com.sap.jma.vms;
 
 import com.sap.jma.conditions.UsageThresholdCondition;
 import com.sap.jma.configuration.Configuration;
+import com.sap.jma.configuration.ThresholdConfiguration;
 import com.sap.jma.configuration.UsageThresholdConfiguration;
+import java.lang.management.BufferPoolMXBean;
 import java.lang.management.MemoryPoolMXBean;
 import java.lang.management.MemoryUsage;
+import java.util.Map;
 
 public interface MemoryPool {
 
@@ -24,6 +27,31 @@ public interface MemoryPool {
 
   MemoryUsage getMemoryUsage();
 
+  /**
+   * Looks up the usage of this memory pool in the given usages, which are keyed by the name of
+   * the {@link MemoryPoolMXBean} they belong to, like the ones reported by the garbage collectors.
+   * If the usages do not cover this memory pool, its current usage is returned.
+   */
+  MemoryUsage getMemoryUsage(Map<String, MemoryUsage> memoryUsages);
+
+  /**
+   * Returns the usage of this memory pool right after the most recent garbage collection that
+   * collected it, i.e., its live set at that time, or {@code null} if this memory pool does not
+   * report it (e.g., the non-heap memory pools).
+   */
+  MemoryUsage getCollectionUsage();
+
+  /**
+   * Translates the given configuration into the usage threshold of the underlying
+   * {@link MemoryPoolMXBean}, so that the JVM itself notifies when it is exceeded. Configurations
+   * about the usage after garbage collections are translated into collection usage thresholds.
+   *
+   * @return whether the usage threshold has been set; it is not for configurations that cannot
+   *     be expressed as an upper bound of the memory usage, and for memory pools that do not
+   *     support usage thresholds (e.g., the heap as a whole)
+   */
+  boolean setUsageThreshold(ThresholdConfiguration configuration);
+
   enum NameMatcher {
     EQUALS {
       boolean match(final String defaultName, final String actualName) {
@@ -116,6 +144,69 @@ public interface MemoryPool {
       public UsageThresholdConfiguration getThreshold(final Configuration configuration) {
         return configuration.getPermGenMemoryUsageThreshold();
       }
+    },
+
+    /*
+     * Buffer pools are not memory pools as far as the JVM is concerned, but they are monitored
+     * the same way; their default names are the ones of the BufferPoolMXBeans
+     */
+    DIRECT_BUFFERS("direct") {
+      public UsageThresholdConfiguration getThreshold(final Configuration configuration) {
+        return configuration.getDirectBuffersMemoryUsageThreshold();
+      }
+    },
+
+    MAPPED_BUFFERS("mapped") {
+      public UsageThresholdConfiguration getThreshold(final Configuration configuration) {
+        return configuration.getMappedBuffersMemoryUsageThreshold();
+      }
+    },
+
+    /*
+     * The categories of the Native Memory Tracking; their thresholds are configured per category,
+     * see NativeMemoryPool
+     */
+    NATIVE_MEMORY("Native Memory") {
+      public UsageThresholdConfiguration getThreshold(final Configuration configuration) {
+        return null;
+      }
+    },
+
+    /*
+     * The memory the kernel charges to the JVM process, see ProcessMemoryPool
+     */
+    RESIDENT_SET("Process RSS") {
+      public UsageThresholdConfiguration getThreshold(final Configuration configuration) {
+        return configuration.getResidentSetMemoryUsageThreshold();
+      }
+    },
+
+    ANONYMOUS_RESIDENT_SET("Process anonymous RSS") {
+      public UsageThresholdConfiguration getThreshold(final Configuration configuration) {
+        return configuration.getAnonymousResidentSetMemoryUsageThreshold();
+      }
+    },
+
+    SWAP("Process swap") {
+      public UsageThresholdConfiguration getThreshold(final Configuration configuration) {
+        return configuration.getSwapMemoryUsageThreshold();
+      }
+    },
+
+    CONTAINER("Container") {
+      public UsageThresholdConfiguration getThreshold(final Configuration configuration) {
+        return configuration.getContainerMemoryUsageThreshold();
+      }
+    },
+
+    /*
+     * Memory pools not listed above, e.g., the ones of ZGC and Shenandoah; their thresholds are
+     * configured by patterns on their names, see GenericMemoryPool
+     */
+    OTHER("Other") {
+      public UsageThresholdConfiguration getThreshold(final Configuration configuration) {
+        return null;
+      }
     };
 
     private final String defaultName;
@@ -136,9 +227,34 @@ public interface MemoryPool {
 
     public abstract UsageThresholdConfiguration getThreshold(Configuration configuration);
 
+    public boolean isBufferPool() {
+      return this == DIRECT_BUFFERS || this == MAPPED_BUFFERS;
+    }
+
+    /*
+     * Whether the memory is accounted by the kernel rather than by the JVM
+     */
+    public boolean isProcessMemory() {
+      return this == RESIDENT_SET || this == ANONYMOUS_RESIDENT_SET || this == SWAP
+          || this == CONTAINER;
+    }
+
     static Type from(final MemoryPoolMXBean memoryPoolBean) {
       for (final Type type : values()) {
-        if (type.nameMatcher.match(type.getDefaultName(), memoryPoolBean.getName())) {
+        if (!type.isBufferPool() && !type.isProcessMemory() && type != NATIVE_MEMORY
+            && type != OTHER
+            && type.nameMatcher.match(type.getDefaultName(), memoryPoolBean.getName())) {
+          return type;
+        }
+      }
+
+      throw new IllegalArgumentException();
+    }
+
+    static Type from(final BufferPoolMXBean bufferPoolBean) {
+      for (final Type type : values()) {
+        if (type.isBufferPool()
+            && type.nameMatcher.match(type.getDefaultName(), bufferPoolBean.getName())) {
           return type;
         }
       }
@@ -7,21 +7,71 @@
 package com.sap.jma.vms;
 
 import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.configuration.AbsoluteUsageThresholdConfiguration;
+import com.sap.jma.configuration.CollectionUsageThresholdConfiguration;
 import com.sap.jma.configuration.Configuration;
+import com.sap.jma.configuration.PercentageUsageThresholdConfiguration;
+import com.sap.jma.configuration.ThresholdConfiguration;
 import com.sap.jma.configuration.UsageThresholdConfiguration;
 import com.sap.jma.utils.Supplier;
 import java.lang.management.MemoryPoolMXBean;
 import java.lang.management.MemoryUsage;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 public class MemoryPoolImpl implements MemoryPool {
 
   private final Type type;
+  private final MemoryPoolMXBean memoryPoolBean;
+  private final List<String> memoryPoolBeanNames;
   private final Supplier<MemoryUsage> memoryUsageSupplier;
+  private final Supplier<MemoryUsage> collectionUsageSupplier;
 
+  /*
+   * For memory pools made of several memory pool beans, the first reading of the aggregate,
+   * whose init and max are fixed when the JVM starts, and the latest usage summed from the
+   * usages of the memory pool beans, reused while they do not change
+   */
+  private volatile MemoryUsage aggregateReading;
+  private volatile MemoryUsage aggregateMemoryUsage;
+
+  MemoryPoolImpl(final Type type, final MemoryPoolMXBean memoryPoolBean) {
+    this(type, memoryPoolBean, Collections.singletonList(memoryPoolBean.getName()),
+        new Supplier<MemoryUsage>() {
+          @Override
+          public MemoryUsage get() {
+            return memoryPoolBean.getUsage();
+          }
+        }, new Supplier<MemoryUsage>() {
+          @Override
+          public MemoryUsage get() {
+            return memoryPoolBean.getCollectionUsage();
+          }
+        });
+  }
+
+  /*
+   * The memoryPoolBeanNames are the names of the MemoryPoolMXBeans this memory pool is made
+   * of: one for actual memory pools, all heap memory pools for the heap
+   */
   MemoryPoolImpl(final Type type,
-                 final Supplier<MemoryUsage> memoryUsageSupplier) {
+                 final List<String> memoryPoolBeanNames,
+                 final Supplier<MemoryUsage> memoryUsageSupplier,
+                 final Supplier<MemoryUsage> collectionUsageSupplier) {
+    this(type, null, memoryPoolBeanNames, memoryUsageSupplier, collectionUsageSupplier);
+  }
+
+  private MemoryPoolImpl(final Type type,
+                         final MemoryPoolMXBean memoryPoolBean,
+                         final List<String> memoryPoolBeanNames,
+                         final Supplier<MemoryUsage> memoryUsageSupplier,
+                         final Supplier<MemoryUsage> collectionUsageSupplier) {
     this.type = type;
+    this.memoryPoolBean = memoryPoolBean;
+    this.memoryPoolBeanNames = memoryPoolBeanNames;
     this.memoryUsageSupplier = memoryUsageSupplier;
+    this.collectionUsageSupplier = collectionUsageSupplier;
   }
 
   @Override
@@ -36,8 +86,13 @@ public class MemoryPoolImpl implements MemoryPool {
 
   @Override
   public UsageThresholdCondition<?> toCondition(final Configuration configuration) {
-    final UsageThresholdConfiguration usageThresholdConfiguration =
-        type.getThreshold(configuration);
+    UsageThresholdConfiguration usageThresholdConfiguration = type.getThreshold(configuration);
+
+    // Thresholds on patterns apply to the memory pools without a threshold of their own
+    if (usageThresholdConfiguration == null && memoryPoolBean != null) {
+      usageThresholdConfiguration =
+          configuration.getMemoryPoolPatternThreshold(memoryPoolBean.getName());
+    }
 
     if (usageThresholdConfiguration == null) {
       return null;
@@ -51,8 +106,125 @@ public class MemoryPoolImpl implements MemoryPool {
     return memoryUsageSupplier.get();
   }
 
+  @Override
+  public MemoryUsage getMemoryUsage(final Map<String, MemoryUsage> memoryUsages) {
+    if (memoryPoolBeanNames.size() == 1) {
+      final MemoryUsage memoryUsage = memoryUsages.get(memoryPoolBeanNames.get(0));
+      return memoryUsage == null ? getMemoryUsage() : memoryUsage;
+    }
+
+    long used = 0L;
+    long committed = 0L;
+    for (final String memoryPoolBeanName : memoryPoolBeanNames) {
+      final MemoryUsage memoryUsage = memoryUsages.get(memoryPoolBeanName);
+      if (memoryUsage == null) {
+        return getMemoryUsage();
+      }
+
+      used += memoryUsage.getUsed();
+      committed += memoryUsage.getCommitted();
+    }
+
+    /*
+     * The maximum of the single memory pools may be undefined (e.g., the eden space of G1),
+     * so we take the one of the aggregate instead; it is read once, as it does not change,
+     * rather than at each check along with the usages
+     */
+    MemoryUsage aggregateReading = this.aggregateReading;
+    if (aggregateReading == null) {
+      aggregateReading = getMemoryUsage();
+      this.aggregateReading = aggregateReading;
+    }
+
+    final long max = aggregateReading.getMax() < 0 ? aggregateReading.getMax()
+        : Math.max(aggregateReading.getMax(), committed);
+
+    final MemoryUsage aggregateMemoryUsage = this.aggregateMemoryUsage;
+    if (aggregateMemoryUsage != null && aggregateMemoryUsage.getUsed() == used
+        && aggregateMemoryUsage.getCommitted() == committed
+        && aggregateMemoryUsage.getMax() == max) {
+      return aggregateMemoryUsage;
+    }
+
+    this.aggregateMemoryUsage =
+        new MemoryUsage(aggregateReading.getInit(), used, committed, max);
+    return this.aggregateMemoryUsage;
+  }
+
+  @Override
+  public MemoryUsage getCollectionUsage() {
+    return collectionUsageSupplier.get();
+  }
+
+  @Override
+  public boolean setUsageThreshold(final ThresholdConfiguration configuration) {
+    if (memoryPoolBean == null) {
+      return false;
+    }
+
+    if (configuration instanceof CollectionUsageThresholdConfiguration) {
+      if (!memoryPoolBean.isCollectionUsageThresholdSupported()) {
+        return false;
+      }
+
+      final long collectionUsageThresholdInBytes = toUsageThresholdInBytes(
+          ((CollectionUsageThresholdConfiguration) configuration).getDelegate());
+      if (collectionUsageThresholdInBytes < 1) {
+        return false;
+      }
+
+      memoryPoolBean.setCollectionUsageThreshold(collectionUsageThresholdInBytes);
+      return true;
+    }
+
+    if (!memoryPoolBean.isUsageThresholdSupported()) {
+      return false;
+    }
+
+    final long usageThresholdInBytes = toUsageThresholdInBytes(configuration);
+    if (usageThresholdInBytes < 1) {
+      return false;
+    }
+
+    memoryPoolBean.setUsageThreshold(usageThresholdInBytes);
+    return true;
+  }
+
+  /*
+   * The JVM notifies when the usage becomes greater than or equal to the usage threshold; returns
+   * -1 if the configuration cannot be expressed this way
+   */
+  private long toUsageThresholdInBytes(final ThresholdConfiguration configuration) {
+    if (configuration instanceof PercentageUsageThresholdConfiguration) {
+      final long max = memoryPoolBean.getUsage().getMax();
+      if (max < 0) {
+        return -1L;
+      }
+
+      final double value = ((PercentageUsageThresholdConfiguration) configuration).getValue();
+      return (long) Math.floor(max * value / 100d) + 1L;
+    }
+
+    if (configuration instanceof AbsoluteUsageThresholdConfiguration) {
+      final AbsoluteUsageThresholdConfiguration absoluteConfiguration =
+          (AbsoluteUsageThresholdConfiguration) configuration;
+      final double targetValueInBytes = absoluteConfiguration.getTargetValueInBytes();
+
+      switch (absoluteConfiguration.getComparison()) {
+        case LARGER_THAN:
+          return (long) Math.floor(targetValueInBytes) + 1L;
+        case LARGER_THAN_OR_EQUAL_TO:
+          return Math.max(1L, (long) Math.ceil(targetValueInBytes));
+        default:
+          return -1L;
+      }
+    }
+
+    return -1L;
+  }
+
   public boolean matches(final MemoryPoolMXBean memoryPoolBean) {
     return type.getDefaultName().equals(memoryPoolBean.getName());
   }
 
-}
\ No newline at end of file
+}
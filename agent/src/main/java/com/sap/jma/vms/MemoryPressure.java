@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import com.sap.jma.logging.Logger;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Samples the memory pressure stall information (PSI) of the Linux kernel, i.e., the share of
+ * wall-clock time in which some (<code>some</code>) or all (<code>full</code>) non-idle tasks
+ * were stalled waiting for memory, e.g., due to page reclaim, averaged over the last 10, 60 and
+ * 300 seconds. When the JVM runs in a cgroup v2 control group, its <code>memory.pressure</code> is
+ * used, otherwise the system-wide <code>/proc/pressure/memory</code>.
+ *
+ * <p>The file is read as {@link PseudoFile}, so that sampling does not create garbage. Not
+ * thread-safe.
+ */
+public class MemoryPressure {
+
+  public enum Stall {
+    SOME("some"),
+    FULL("full");
+
+    private final String literal;
+
+    private final byte[] key;
+
+    Stall(final String literal) {
+      this.literal = literal;
+      this.key = PseudoFile.toKey(literal);
+    }
+
+    public String getLiteral() {
+      return literal;
+    }
+  }
+
+  public enum Window {
+    AVG10("avg10", 10),
+    AVG60("avg60", 60),
+    AVG300("avg300", 300);
+
+    private final String literal;
+
+    private final byte[] key;
+
+    private final int seconds;
+
+    Window(final String literal, final int seconds) {
+      this.literal = literal;
+      this.key = PseudoFile.toKey(literal);
+      this.seconds = seconds;
+    }
+
+    public String getLiteral() {
+      return literal;
+    }
+
+    public int getSeconds() {
+      return seconds;
+    }
+  }
+
+  private static final File PROC_PRESSURE_MEMORY = new File("/proc/pressure/memory");
+
+  private final PseudoFile pressure;
+
+  // VisibleForTesting
+  MemoryPressure(final File pressureFile) {
+    this.pressure = new PseudoFile(pressureFile, 256);
+  }
+
+  /**
+   * Returns the memory pressure of the running JVM, or <code>null</code> if the kernel does not
+   * report it (it requires Linux 4.20 or later, with PSI enabled).
+   */
+  public static MemoryPressure create(final Logger logger) {
+    final ControlGroupMemory controlGroupMemory = ControlGroupMemory.create(logger);
+    if (controlGroupMemory != null && controlGroupMemory.isVersion2()) {
+      final File pressureFile = new File(controlGroupMemory.getDirectory(), "memory.pressure");
+      if (pressureFile.canRead()) {
+        return new MemoryPressure(pressureFile);
+      }
+    }
+
+    if (PROC_PRESSURE_MEMORY.canRead()) {
+      return new MemoryPressure(PROC_PRESSURE_MEMORY);
+    }
+
+    return null;
+  }
+
+  public File getFile() {
+    return pressure.getFile();
+  }
+
+  /**
+   * Reads the current memory pressure, to be queried with {@link #getStallPercentage}.
+   */
+  public void sample() throws IOException {
+    pressure.read();
+  }
+
+  /**
+   * Returns the percentage of time stalled on memory over the given window as of the latest
+   * sample, or -1 if it is not reported (e.g., <code>full</code> on Linux 4.x system-wide).
+   */
+  public double getStallPercentage(final Stall stall, final Window window) {
+    return pressure.getDecimalValue(stall.key, window.key);
+  }
+
+}
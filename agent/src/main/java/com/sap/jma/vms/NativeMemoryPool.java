@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.configuration.Configuration;
+import com.sap.jma.configuration.ThresholdConfiguration;
+import com.sap.jma.configuration.UsageThresholdConfiguration;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+
+/**
+ * Category of the Native Memory Tracking, e.g., <code>Thread</code> or <code>Class</code>,
+ * exposed as a memory pool so that conditions can be evaluated against it. Both the used and
+ * the committed memory are the committed memory of the category, and the maximum is its reserved
+ * memory, so relative thresholds are about how much of the reserved memory is committed.
+ */
+public class NativeMemoryPool implements MemoryPool {
+
+  private final NativeMemoryTracking nativeMemoryTracking;
+  private final String category;
+  private final String configurationName;
+
+  NativeMemoryPool(final NativeMemoryTracking nativeMemoryTracking,
+                   final String category) {
+    this.nativeMemoryTracking = nativeMemoryTracking;
+    this.category = category;
+    this.configurationName = NativeMemoryTracking.toConfigurationName(category);
+  }
+
+  @Override
+  public Type getType() {
+    return Type.NATIVE_MEMORY;
+  }
+
+  @Override
+  public UsageThresholdCondition<?> toCondition(final Configuration configuration) {
+    final UsageThresholdConfiguration usageThresholdConfiguration =
+        configuration.getNativeMemoryThreshold(configurationName);
+
+    if (usageThresholdConfiguration == null) {
+      return null;
+    }
+
+    return usageThresholdConfiguration.toCondition(this);
+  }
+
+  @Override
+  public boolean matches(final MemoryPoolMXBean memoryPoolBean) {
+    return false;
+  }
+
+  @Override
+  public String getName() {
+    return category + " (native memory)";
+  }
+
+  /**
+   * The category as reported by the Native Memory Tracking.
+   */
+  public String getCategory() {
+    return category;
+  }
+
+  @Override
+  public MemoryUsage getMemoryUsage() {
+    // Categories missing in the latest sample are reported as empty
+    final long committed = Math.max(0L, nativeMemoryTracking.getCommittedInBytes(category));
+    final long reserved = Math.max(committed, nativeMemoryTracking.getReservedInBytes(category));
+    return new MemoryUsage(0L, committed, committed, reserved);
+  }
+
+  /*
+   * Native memory is not covered by the usages reported by the garbage collectors, but by the
+   * snapshots of the checks, under the name of the memory pool
+   */
+  @Override
+  public MemoryUsage getMemoryUsage(final Map<String, MemoryUsage> memoryUsages) {
+    final MemoryUsage memoryUsage = memoryUsages.get(getName());
+    return memoryUsage == null ? getMemoryUsage() : memoryUsage;
+  }
+
+  @Override
+  public MemoryUsage getCollectionUsage() {
+    return null;
+  }
+
+  @Override
+  public boolean setUsageThreshold(final ThresholdConfiguration configuration) {
+    return false;
+  }
+
+}
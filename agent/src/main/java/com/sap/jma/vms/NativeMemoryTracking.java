@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import com.sap.jma.utils.Supplier;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Samples the Native Memory Tracking (NMT) summary of the JVM via the
+ * <code>VM.native_memory summary</code> diagnostic command, which requires the JVM to run with
+ * <code>-XX:NativeMemoryTracking=summary</code> (or <code>detail</code>).
+ *
+ * <p>The summary is parsed in a single pass over the output of the diagnostic command, without
+ * creating intermediate strings: the per-category sizes are stored in primitive arrays, and the
+ * names of the categories are allocated only the first time they are encountered. Samples are
+ * cached for a short time, so that the conditions on different categories that are evaluated
+ * in the same check share one invocation of the diagnostic command. Not thread-safe.
+ */
+public class NativeMemoryTracking {
+
+  // VisibleForTesting
+  static final long MAX_SAMPLE_AGE_IN_MILLIS = 1000L;
+
+  private static final String DIAGNOSTIC_COMMAND_MBEAN =
+      "com.sun.management:type=DiagnosticCommand";
+
+  private static final String TOTAL = "Total";
+
+  private static final String TOTAL_PREFIX = TOTAL + ':';
+
+  private static final String CATEGORY_ATTRIBUTES_PREFIX = "(reserved=";
+
+  private static final String RESERVED = "reserved=";
+
+  private static final String COMMITTED = "committed=";
+
+  private final Supplier<String> summarySupplier;
+
+  private final Clock clock;
+
+  private final Logger logger;
+
+  private String[] categories = new String[0];
+
+  private long[] reservedInBytes = new long[0];
+
+  private long[] committedInBytes = new long[0];
+
+  private long lastSampleTimestamp = Long.MIN_VALUE;
+
+  // VisibleForTesting
+  NativeMemoryTracking(final Supplier<String> summarySupplier,
+                       final Clock clock,
+                       final Logger logger) {
+    this.summarySupplier = summarySupplier;
+    this.clock = clock;
+    this.logger = logger;
+  }
+
+  static NativeMemoryTracking create(final Logger logger) {
+    final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    return new NativeMemoryTracking(new Supplier<String>() {
+      @Override
+      public String get() {
+        try {
+          return (String) mbeanServer.invoke(new ObjectName(DIAGNOSTIC_COMMAND_MBEAN),
+              "vmNativeMemory", new Object[] {new String[] {"summary"}},
+              new String[] {String[].class.getName()});
+        } catch (final Exception ex) {
+          throw new IllegalStateException(
+              "Cannot invoke the 'VM.native_memory summary' diagnostic command", ex);
+        }
+      }
+    }, Clock.SYSTEM, logger);
+  }
+
+  /**
+   * Turns the name of a category as reported by NMT, e.g., <code>Java Heap</code>, into the one
+   * used in the configuration, e.g., <code>java_heap</code>.
+   */
+  public static String toConfigurationName(final String category) {
+    final StringBuilder sb = new StringBuilder(category.length());
+    for (int i = 0; i < category.length(); ++i) {
+      final char c = category.charAt(i);
+      sb.append(Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : '_');
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns the category as reported by NMT with the given configuration name, or
+   * <code>null</code> if NMT does not track such a category or it is not enabled.
+   */
+  public String getCategory(final String configurationName) {
+    sample();
+
+    for (final String category : categories) {
+      if (toConfigurationName(category).equals(configurationName.toLowerCase(Locale.ROOT))) {
+        return category;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the committed bytes of the given category, or -1 if the category was not reported
+   * in the latest sample.
+   */
+  public long getCommittedInBytes(final String category) {
+    sample();
+
+    final int index = indexOfCategory(category);
+    return index < 0 ? -1L : committedInBytes[index];
+  }
+
+  /**
+   * Returns the reserved bytes of the given category, or -1 if the category was not reported
+   * in the latest sample.
+   */
+  public long getReservedInBytes(final String category) {
+    sample();
+
+    final int index = indexOfCategory(category);
+    return index < 0 ? -1L : reservedInBytes[index];
+  }
+
+  private int indexOfCategory(final String category) {
+    for (int i = 0; i < categories.length; ++i) {
+      if (categories[i].equals(category)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void sample() {
+    final long now = clock.getMillis();
+    if (lastSampleTimestamp != Long.MIN_VALUE
+        && now - lastSampleTimestamp < MAX_SAMPLE_AGE_IN_MILLIS) {
+      return;
+    }
+
+    lastSampleTimestamp = now;
+
+    final String summary;
+    try {
+      summary = summarySupplier.get();
+    } catch (final RuntimeException ex) {
+      logger.error("Cannot sample the native memory tracking summary", ex);
+      Arrays.fill(reservedInBytes, -1L);
+      Arrays.fill(committedInBytes, -1L);
+      return;
+    }
+
+    parse(summary);
+  }
+
+  private void parse(final String summary) {
+    // Categories not in this summary are reported as missing
+    Arrays.fill(reservedInBytes, -1L);
+    Arrays.fill(committedInBytes, -1L);
+
+    if (summary == null) {
+      return;
+    }
+
+    final int length = summary.length();
+    int lineStart = 0;
+    while (lineStart < length) {
+      int lineEnd = summary.indexOf('\n', lineStart);
+      if (lineEnd < 0) {
+        lineEnd = length;
+      }
+
+      parseLine(summary, lineStart, lineEnd);
+
+      lineStart = lineEnd + 1;
+    }
+  }
+
+  /*
+   * Category lines look like '-   Java Heap (reserved=65536KB, committed=40960KB)', and the
+   * total like 'Total: reserved=1457645KB, committed=160689KB'
+   */
+  private void parseLine(final String summary, final int lineStart, final int lineEnd) {
+    final int start = skipWhitespaces(summary, lineStart, lineEnd);
+
+    final int nameStart;
+    final int nameEnd;
+    if (summary.startsWith(TOTAL_PREFIX, start)) {
+      nameStart = start;
+      nameEnd = start + TOTAL.length();
+    } else if (start < lineEnd && summary.charAt(start) == '-') {
+      nameStart = skipWhitespaces(summary, start + 1, lineEnd);
+      final int attributesStart =
+          find(summary, CATEGORY_ATTRIBUTES_PREFIX, nameStart, lineEnd);
+      if (attributesStart < 0) {
+        return;
+      }
+
+      int end = attributesStart;
+      while (end > nameStart && Character.isWhitespace(summary.charAt(end - 1))) {
+        --end;
+      }
+      nameEnd = end;
+    } else {
+      return;
+    }
+
+    if (nameEnd <= nameStart) {
+      return;
+    }
+
+    final long reserved = parseSize(summary, RESERVED, nameEnd, lineEnd);
+    final long committed = parseSize(summary, COMMITTED, nameEnd, lineEnd);
+    if (reserved < 0 || committed < 0) {
+      return;
+    }
+
+    final int index = getOrAddCategoryIndex(summary, nameStart, nameEnd);
+    reservedInBytes[index] = reserved;
+    committedInBytes[index] = committed;
+  }
+
+  private int getOrAddCategoryIndex(final String summary, final int nameStart,
+                                    final int nameEnd) {
+    final int nameLength = nameEnd - nameStart;
+    for (int i = 0; i < categories.length; ++i) {
+      final String category = categories[i];
+      if (category.length() == nameLength
+          && summary.regionMatches(nameStart, category, 0, nameLength)) {
+        return i;
+      }
+    }
+
+    // First time this category is seen
+    final int index = categories.length;
+    categories = Arrays.copyOf(categories, index + 1);
+    categories[index] = summary.substring(nameStart, nameEnd);
+    reservedInBytes = Arrays.copyOf(reservedInBytes, index + 1);
+    committedInBytes = Arrays.copyOf(committedInBytes, index + 1);
+    return index;
+  }
+
+  /*
+   * Parses sizes like 'committed=40960KB'; returns -1 if the key is not found in the line
+   */
+  private static long parseSize(final String summary, final String key, final int from,
+                                final int lineEnd) {
+    final int keyStart = find(summary, key, from, lineEnd);
+    if (keyStart < 0) {
+      return -1L;
+    }
+
+    int position = keyStart + key.length();
+    long value = 0L;
+    boolean hasDigits = false;
+    while (position < lineEnd && Character.isDigit(summary.charAt(position))) {
+      value = value * 10L + (summary.charAt(position) - '0');
+      hasDigits = true;
+      ++position;
+    }
+
+    if (!hasDigits) {
+      return -1L;
+    }
+
+    // The default scale of the summary is KB
+    final char unit =
+        position < lineEnd ? Character.toUpperCase(summary.charAt(position)) : 'K';
+    switch (unit) {
+      case 'B':
+        return value;
+      case 'M':
+        return value * 1024L * 1024L;
+      case 'G':
+        return value * 1024L * 1024L * 1024L;
+      default:
+        return value * 1024L;
+    }
+  }
+
+  /*
+   * Like String.indexOf, but without looking past the end of the line
+   */
+  private static int find(final String summary, final String key, final int from,
+                          final int to) {
+    for (int i = from, last = to - key.length(); i <= last; ++i) {
+      if (summary.regionMatches(i, key, 0, key.length())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int skipWhitespaces(final String summary, final int from, final int to) {
+    int position = from;
+    while (position < to && Character.isWhitespace(summary.charAt(position))) {
+      ++position;
+    }
+    return position;
+  }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Samples the memory the kernel charges to the JVM process, i.e., its resident set size (RSS),
+ * the anonymous part of the RSS (which, unlike file-backed pages, the kernel cannot just drop)
+ * and the swapped-out memory, from <code>/proc/self/status</code>.
+ *
+ * <p>The file is read as {@link PseudoFile}, so that sampling does not create garbage. Samples
+ * are cached for a short time, so that the conditions on the different values evaluated in the
+ * same check share one read. Not thread-safe.
+ */
+public class ProcessMemory {
+
+  // VisibleForTesting
+  static final long MAX_SAMPLE_AGE_IN_MILLIS = 100L;
+
+  private static final File PROC_SELF_STATUS = new File("/proc/self/status");
+
+  private static final byte[] RESIDENT_SET_KEY = PseudoFile.toKey("VmRSS:");
+
+  private static final byte[] ANONYMOUS_RESIDENT_SET_KEY = PseudoFile.toKey("RssAnon:");
+
+  private static final byte[] SWAP_KEY = PseudoFile.toKey("VmSwap:");
+
+  private final PseudoFile status;
+
+  private final Clock clock;
+
+  private final Logger logger;
+
+  private long residentSetInBytes = -1L;
+
+  private long anonymousResidentSetInBytes = -1L;
+
+  private long swapInBytes = -1L;
+
+  private long lastSampleTimestamp = Long.MIN_VALUE;
+
+  /*
+   * Whether the previous read failed, so that a failure that persists is logged as error once,
+   * rather than at every check
+   */
+  private boolean isReadFailing;
+
+  // VisibleForTesting
+  ProcessMemory(final File statusFile, final Clock clock, final Logger logger) {
+    this.status = new PseudoFile(statusFile, 8192);
+    this.clock = clock;
+    this.logger = logger;
+  }
+
+  /**
+   * Returns the process memory of the running JVM, or <code>null</code> if the operating system
+   * does not provide <code>/proc/self/status</code>.
+   */
+  static ProcessMemory create(final Logger logger) {
+    if (!PROC_SELF_STATUS.canRead()) {
+      return null;
+    }
+
+    return new ProcessMemory(PROC_SELF_STATUS, Clock.SYSTEM, logger);
+  }
+
+  /**
+   * Returns the resident set size of the process in bytes, or -1 if it cannot be read.
+   */
+  public long getResidentSetInBytes() {
+    sample();
+    return residentSetInBytes;
+  }
+
+  /**
+   * Returns the anonymous resident set size of the process in bytes, or -1 if it cannot be read
+   * (e.g., on Linux kernels older than 4.5).
+   */
+  public long getAnonymousResidentSetInBytes() {
+    sample();
+    return anonymousResidentSetInBytes;
+  }
+
+  /**
+   * Returns the swapped-out memory of the process in bytes, or -1 if it cannot be read.
+   */
+  public long getSwapInBytes() {
+    sample();
+    return swapInBytes;
+  }
+
+  private void sample() {
+    final long now = clock.getMillis();
+    if (lastSampleTimestamp != Long.MIN_VALUE
+        && now - lastSampleTimestamp < MAX_SAMPLE_AGE_IN_MILLIS) {
+      return;
+    }
+
+    lastSampleTimestamp = now;
+
+    try {
+      status.read();
+    } catch (final IOException ex) {
+      if (!isReadFailing) {
+        isReadFailing = true;
+        logger.error("Cannot read the memory usage of the process from '" + status.getFile()
+            + "'", ex);
+      } else if (logger.isDebugEnabled()) {
+        logger.debug("Still cannot read the memory usage of the process from '%s': %s",
+            status.getFile(), ex.getMessage());
+      }
+      residentSetInBytes = -1L;
+      anonymousResidentSetInBytes = -1L;
+      swapInBytes = -1L;
+      return;
+    }
+
+    if (isReadFailing) {
+      isReadFailing = false;
+      logger.info("Reading the memory usage of the process from '%s' again", status.getFile());
+    }
+
+    residentSetInBytes = toBytes(status.getValue(RESIDENT_SET_KEY));
+    anonymousResidentSetInBytes = toBytes(status.getValue(ANONYMOUS_RESIDENT_SET_KEY));
+    swapInBytes = toBytes(status.getValue(SWAP_KEY));
+  }
+
+  /*
+   * The sizes in /proc/self/status are always in kB
+   */
+  private static long toBytes(final long valueInKilobytes) {
+    return valueInKilobytes < 0 ? -1L : valueInKilobytes * 1024L;
+  }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.configuration.AbsoluteUsageThresholdConfiguration;
+import com.sap.jma.configuration.Configuration;
+import com.sap.jma.configuration.ThresholdConfiguration;
+import com.sap.jma.configuration.UsageThresholdConfiguration;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+
+/**
+ * Memory of the JVM process as accounted by the kernel, e.g., its resident set size, exposed as a
+ * memory pool so that conditions can be evaluated against it. Both the used and the committed
+ * memory are the sampled value, and the maximum is the physical memory of the machine for the
+ * resident set, and the swap space for the swapped-out memory.
+ */
+public class ProcessMemoryPool implements MemoryPool {
+
+  private final Type type;
+  private final ProcessMemory processMemory;
+  private final long maxInBytes;
+
+  /*
+   * Reused as long as the sampled value does not change, e.g., while the sample of the process
+   * memory is fresh, so that the checks do not create garbage either
+   */
+  private MemoryUsage memoryUsage;
+
+  /*
+   * A negative maxInBytes means that the maximum is not known
+   */
+  ProcessMemoryPool(final Type type,
+                    final ProcessMemory processMemory,
+                    final long maxInBytes) {
+    this.type = type;
+    this.processMemory = processMemory;
+    this.maxInBytes = maxInBytes;
+  }
+
+  @Override
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the maximum is not known and the configured threshold is
+   *     not absolute
+   */
+  @Override
+  public UsageThresholdCondition<?> toCondition(final Configuration configuration) {
+    final UsageThresholdConfiguration usageThresholdConfiguration =
+        type.getThreshold(configuration);
+
+    if (usageThresholdConfiguration == null) {
+      return null;
+    }
+
+    // All other thresholds are relative to the maximum
+    if (maxInBytes < 0
+        && !(usageThresholdConfiguration instanceof AbsoluteUsageThresholdConfiguration)) {
+      throw new IllegalArgumentException(String.format("The maximum of the process memory '%s' "
+          + "is not known, so only absolute thresholds can be applied to it", getName()));
+    }
+
+    return usageThresholdConfiguration.toCondition(this);
+  }
+
+  @Override
+  public boolean matches(final MemoryPoolMXBean memoryPoolBean) {
+    return false;
+  }
+
+  @Override
+  public String getName() {
+    return type.getDefaultName();
+  }
+
+  @Override
+  public MemoryUsage getMemoryUsage() {
+    final long value;
+    switch (type) {
+      case RESIDENT_SET:
+        value = processMemory.getResidentSetInBytes();
+        break;
+      case ANONYMOUS_RESIDENT_SET:
+        value = processMemory.getAnonymousResidentSetInBytes();
+        break;
+      case SWAP:
+        value = processMemory.getSwapInBytes();
+        break;
+      default:
+        throw new IllegalStateException("Unexpected process memory type: " + type);
+    }
+
+    // Values that cannot be read are reported as empty
+    final long used = Math.max(0L, value);
+
+    final MemoryUsage memoryUsage = this.memoryUsage;
+    if (memoryUsage != null && memoryUsage.getUsed() == used) {
+      return memoryUsage;
+    }
+
+    final long max = maxInBytes < 0 ? -1L : Math.max(maxInBytes, used);
+    this.memoryUsage = new MemoryUsage(0L, used, used, max);
+    return this.memoryUsage;
+  }
+
+  /*
+   * Process memory is not covered by the usages reported by the garbage collectors, but by the
+   * snapshots of the checks, under the name of the memory pool
+   */
+  @Override
+  public MemoryUsage getMemoryUsage(final Map<String, MemoryUsage> memoryUsages) {
+    final MemoryUsage memoryUsage = memoryUsages.get(getName());
+    return memoryUsage == null ? getMemoryUsage() : memoryUsage;
+  }
+
+  @Override
+  public MemoryUsage getCollectionUsage() {
+    return null;
+  }
+
+  @Override
+  public boolean setUsageThreshold(final ThresholdConfiguration configuration) {
+    return false;
+  }
+
+}
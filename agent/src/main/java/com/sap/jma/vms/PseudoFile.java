@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * File of a pseudo filesystem like procfs or cgroupfs, whose content the kernel generates anew
+ * every time it is read from the start. The file is kept open and read into the same buffer, and
+ * the values are parsed from the raw bytes, so that sampling it does not create garbage.
+ * Not thread-safe.
+ */
+final class PseudoFile {
+
+  /*
+   * Value of files like 'memory.max' that contain 'max' rather than a number
+   */
+  static final long UNLIMITED = Long.MAX_VALUE;
+
+  private static final byte[] UNLIMITED_LITERAL = toKey("max");
+
+  private final File file;
+
+  private final byte[] buffer;
+
+  private RandomAccessFile content;
+
+  private int length;
+
+  PseudoFile(final File file, final int bufferSize) {
+    this.file = file;
+    this.buffer = new byte[bufferSize];
+  }
+
+  static byte[] toKey(final String key) {
+    return key.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  File getFile() {
+    return file;
+  }
+
+  boolean exists() {
+    return file.canRead();
+  }
+
+  /**
+   * Reads the current content of the file; content that does not fit the buffer is ignored.
+   */
+  void read() throws IOException {
+    length = 0;
+
+    try {
+      if (content == null) {
+        content = new RandomAccessFile(file, "r");
+      }
+
+      content.seek(0L);
+
+      int read;
+      while (length < buffer.length
+          && (read = content.read(buffer, length, buffer.length - length)) > 0) {
+        length += read;
+      }
+    } catch (final IOException ex) {
+      close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Returns the value of files that contain a single number, like <code>memory.current</code>,
+   * {@link #UNLIMITED} if the file contains <code>max</code>, or -1 if there is no value.
+   */
+  long getValue() {
+    final int start = skipWhitespaces(0, length);
+    if (matches(start, length, UNLIMITED_LITERAL)) {
+      return UNLIMITED;
+    }
+    return parseNumber(start, length);
+  }
+
+  /**
+   * Returns the value of the line that starts with the given key, like <code>VmRSS:</code> in
+   * <code>/proc/self/status</code> or <code>anon</code> in <code>memory.stat</code>, or -1 if
+   * there is no such line. Keys that do not end with a colon must be followed by whitespace, so
+   * that <code>anon</code> does not match <code>anon_thp</code>.
+   */
+  long getValue(final byte[] key) {
+    int lineStart = 0;
+    while (lineStart < length) {
+      int lineEnd = lineStart;
+      while (lineEnd < length && buffer[lineEnd] != '\n') {
+        ++lineEnd;
+      }
+
+      if (matches(lineStart, lineEnd, key)) {
+        final int valueStart = lineStart + key.length;
+        if (key[key.length - 1] == ':' || (valueStart < lineEnd && isWhitespace(valueStart))) {
+          return parseNumber(skipWhitespaces(valueStart, lineEnd), lineEnd);
+        }
+      }
+
+      lineStart = lineEnd + 1;
+    }
+
+    return -1L;
+  }
+
+  /**
+   * Returns the decimal value of the given field in the line that starts with the given key, like
+   * <code>avg10</code> in the <code>some avg10=1.53 avg60=0.00 avg300=0.00 total=2036</code> line
+   * of pressure stall information, or -1 if there is no such line or field.
+   */
+  double getDecimalValue(final byte[] key, final byte[] field) {
+    int lineStart = 0;
+    while (lineStart < length) {
+      int lineEnd = lineStart;
+      while (lineEnd < length && buffer[lineEnd] != '\n') {
+        ++lineEnd;
+      }
+
+      final int valueStart = lineStart + key.length;
+      if (matches(lineStart, lineEnd, key) && valueStart < lineEnd && isWhitespace(valueStart)) {
+        for (int position = valueStart; position < lineEnd; ++position) {
+          if (isWhitespace(position - 1) && matches(position, lineEnd, field)
+              && position + field.length < lineEnd && buffer[position + field.length] == '=') {
+            return parseDecimal(position + field.length + 1, lineEnd);
+          }
+        }
+        return -1d;
+      }
+
+      lineStart = lineEnd + 1;
+    }
+
+    return -1d;
+  }
+
+  void close() {
+    if (content == null) {
+      return;
+    }
+
+    try {
+      content.close();
+    } catch (final IOException ex) {
+      // Nothing to do
+    }
+    content = null;
+  }
+
+  private boolean matches(final int from, final int to, final byte[] key) {
+    if (to - from < key.length) {
+      return false;
+    }
+
+    for (int i = 0; i < key.length; ++i) {
+      if (buffer[from + i] != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private long parseNumber(final int from, final int to) {
+    long value = 0L;
+    boolean hasDigits = false;
+    for (int position = from; position < to && buffer[position] >= '0'
+        && buffer[position] <= '9'; ++position) {
+      value = value * 10L + (buffer[position] - '0');
+      hasDigits = true;
+    }
+    return hasDigits ? value : -1L;
+  }
+
+  private double parseDecimal(final int from, final int to) {
+    long value = 0L;
+    long scale = 0L;
+    boolean hasDigits = false;
+    for (int position = from; position < to; ++position) {
+      final byte character = buffer[position];
+      if (character >= '0' && character <= '9') {
+        value = value * 10L + (character - '0');
+        scale *= 10L;
+        hasDigits = true;
+      } else if (character == '.' && scale == 0L) {
+        scale = 1L;
+      } else {
+        break;
+      }
+    }
+
+    if (!hasDigits) {
+      return -1d;
+    }
+    return scale == 0L ? value : (double) value / scale;
+  }
+
+  private int skipWhitespaces(final int from, final int to) {
+    int position = from;
+    while (position < to && isWhitespace(position)) {
+      ++position;
+    }
+    return position;
+  }
+
+  private boolean isWhitespace(final int position) {
+    return buffer[position] == ' ' || buffer[position] == '\t';
+  }
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The usages of the memory pools of the JVM, keyed by memory pool name, and the counters of its
+ * garbage collectors, read once at the beginning of each check; the conditions are evaluated
+ * against the snapshot instead of querying their sources on their own, so that all the conditions
+ * of a check, including the operands of composite conditions, see the same instant, and that each
+ * source is read once per check however many conditions are about it.
+ *
+ * <p>The memory pools that are not {@link MemoryPoolMXBean}s, i.e., the buffer pools, the process
+ * and control group memory, and the categories of the Native Memory Tracking, are keyed by
+ * {@link MemoryPool#getName()}; as reading them may be expensive, e.g., a diagnostic command, each
+ * of them is read at the first lookup of a check rather than at its beginning, and not at all by
+ * checks with no condition about it.
+ *
+ * <p>The values are kept in primitive arrays indexed by memory pool, allocated upfront and
+ * overwritten at each check, so lookups do not hash and sampling allocates nothing beyond the
+ * usages returned by the JVM, which are kept only if they differ from the previous ones. Not
+ * thread-safe: the snapshot is only used by the thread running the checks.
+ */
+public final class Snapshot extends AbstractMap<String, MemoryUsage> {
+
+  private final MemoryPoolMXBean[] memoryPoolBeans;
+
+  // Read lazily, see above
+  private final MemoryPool[] memoryPools;
+
+  private final GarbageCollectorMXBean[] garbageCollectorBeans;
+
+  // The memory pool beans first, then the memory pools
+  private final String[] names;
+
+  private final long[] init;
+
+  private final long[] used;
+
+  private final long[] committed;
+
+  private final long[] max;
+
+  private final MemoryUsage[] memoryUsages;
+
+  private final boolean[] isSampled;
+
+  private final long[] collectionCounts;
+
+  private final long[] collectionTimes;
+
+  /**
+   * The memory pools are the ones that are not {@link MemoryPoolMXBean}s; memory pools with the
+   * same name are read once.
+   */
+  public Snapshot(final List<MemoryPoolMXBean> memoryPoolBeans,
+                  final List<MemoryPool> memoryPools,
+                  final List<GarbageCollectorMXBean> garbageCollectorBeans) {
+    final Map<String, MemoryPool> memoryPoolsByName = new LinkedHashMap<>();
+    for (final MemoryPool memoryPool : memoryPools) {
+      memoryPoolsByName.put(memoryPool.getName(), memoryPool);
+    }
+
+    this.memoryPoolBeans = memoryPoolBeans.toArray(new MemoryPoolMXBean[0]);
+    this.memoryPools = memoryPoolsByName.values().toArray(new MemoryPool[0]);
+    this.garbageCollectorBeans = garbageCollectorBeans.toArray(new GarbageCollectorMXBean[0]);
+
+    final int size = this.memoryPoolBeans.length + this.memoryPools.length;
+    this.names = new String[size];
+    for (int i = 0; i < this.memoryPoolBeans.length; ++i) {
+      names[i] = this.memoryPoolBeans[i].getName();
+    }
+    for (int i = 0; i < this.memoryPools.length; ++i) {
+      names[this.memoryPoolBeans.length + i] = this.memoryPools[i].getName();
+    }
+
+    this.init = new long[size];
+    this.used = new long[size];
+    this.committed = new long[size];
+    this.max = new long[size];
+    this.memoryUsages = new MemoryUsage[size];
+    this.isSampled = new boolean[size];
+
+    this.collectionCounts = new long[this.garbageCollectorBeans.length];
+    this.collectionTimes = new long[this.garbageCollectorBeans.length];
+  }
+
+  /**
+   * Reads the usages of the memory pool beans and the counters of the garbage collectors; the
+   * given usages, e.g., the ones after a garbage collection, take precedence over the current
+   * ones. Returns the given usages as they are if there are no memory pools to read.
+   */
+  public Map<String, MemoryUsage> sample(final Map<String, MemoryUsage> memoryUsages) {
+    for (int i = 0; i < garbageCollectorBeans.length; ++i) {
+      collectionCounts[i] = garbageCollectorBeans[i].getCollectionCount();
+      collectionTimes[i] = garbageCollectorBeans[i].getCollectionTime();
+    }
+
+    if (names.length == 0) {
+      return memoryUsages;
+    }
+
+    for (int i = 0; i < memoryPoolBeans.length; ++i) {
+      final MemoryUsage memoryUsage = memoryUsages.get(names[i]);
+      // The JVM returns null for memory pools that are no longer valid
+      record(i, memoryUsage != null ? memoryUsage : memoryPoolBeans[i].getUsage());
+    }
+
+    for (int i = memoryPoolBeans.length; i < names.length; ++i) {
+      isSampled[i] = false;
+    }
+
+    return this;
+  }
+
+  private void record(final int index, final MemoryUsage memoryUsage) {
+    isSampled[index] = true;
+
+    if (memoryUsage == null) {
+      memoryUsages[index] = null;
+      return;
+    }
+
+    if (memoryUsages[index] != null
+        && init[index] == memoryUsage.getInit()
+        && used[index] == memoryUsage.getUsed()
+        && committed[index] == memoryUsage.getCommitted()
+        && max[index] == memoryUsage.getMax()) {
+      return;
+    }
+
+    init[index] = memoryUsage.getInit();
+    used[index] = memoryUsage.getUsed();
+    committed[index] = memoryUsage.getCommitted();
+    max[index] = memoryUsage.getMax();
+    memoryUsages[index] = memoryUsage;
+  }
+
+  /**
+   * The sum of the collections of the garbage collectors, or -1 if none of them reports it.
+   */
+  public long getCollectionCount() {
+    return sum(collectionCounts);
+  }
+
+  /**
+   * The sum of the accumulated collection times of the garbage collectors, or -1 if none of
+   * them reports it.
+   */
+  public long getCollectionTimeInMillis() {
+    return sum(collectionTimes);
+  }
+
+  private static long sum(final long[] counters) {
+    long result = -1L;
+    for (final long counter : counters) {
+      if (counter >= 0) {
+        result = Math.max(result, 0L) + counter;
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public MemoryUsage get(final Object name) {
+    for (int i = 0; i < names.length; ++i) {
+      if (names[i].equals(name)) {
+        if (!isSampled[i]) {
+          record(i, memoryPools[i - memoryPoolBeans.length].getMemoryUsage());
+        }
+        return memoryUsages[i];
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean containsKey(final Object name) {
+    return get(name) != null;
+  }
+
+  /*
+   * The memory pools that are read lazily count as present
+   */
+  @Override
+  public int size() {
+    int size = memoryPools.length;
+    for (int i = 0; i < memoryPoolBeans.length; ++i) {
+      if (memoryUsages[i] != null) {
+        ++size;
+      }
+    }
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /*
+   * Only for logging and debugging, so a copy will do
+   */
+  @Override
+  public Set<Entry<String, MemoryUsage>> entrySet() {
+    final Map<String, MemoryUsage> entries = new LinkedHashMap<>();
+    for (final String name : names) {
+      final MemoryUsage memoryUsage = get(name);
+      if (memoryUsage != null) {
+        entries.put(name, memoryUsage);
+      }
+    }
+    return entries.entrySet();
+  }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class AdaptiveCheckIntervalTest {
+
+  @Test
+  public void testFixedInterval() {
+    final AdaptiveCheckInterval subject = new AdaptiveCheckInterval(1000L, 1000L);
+
+    assertThat(subject.isAdaptive(), is(false));
+    assertThat(subject.next(0d, 0L), is(1000L));
+    assertThat(subject.next(1d, 1000L), is(1000L));
+  }
+
+  @Test
+  public void testIntervalShrinksWithProximity() {
+    final AdaptiveCheckInterval subject = new AdaptiveCheckInterval(1000L, 11000L);
+
+    assertThat(subject.isAdaptive(), is(true));
+    assertThat(subject.next(0d, 0L), is(11000L));
+    assertThat(subject.next(0d, 11000L), is(11000L));
+    assertThat(subject.next(1d, 11000L), is(1000L));
+  }
+
+  @Test
+  public void testIntervalShrinksWithGrowthRate() {
+    final AdaptiveCheckInterval subject = new AdaptiveCheckInterval(1000L, 11000L);
+
+    assertThat(subject.next(0.1d, 0L), is(10000L));
+    /*
+     * From 10% to 50% in 5 seconds: the remaining 50% would be reached in 6.25 seconds, so the
+     * next check must happen within half of that
+     */
+    assertThat(subject.next(0.5d, 5000L), is(3125L));
+    assertThat(subject.next(0.9d, 8125L), is(1000L));
+  }
+
+  @Test
+  public void testProximityDecreasing() {
+    final AdaptiveCheckInterval subject = new AdaptiveCheckInterval(1000L, 11000L);
+
+    assertThat(subject.next(0.9d, 0L), is(2000L));
+    assertThat(subject.next(0.5d, 2000L), is(6000L));
+  }
+
+  @Test
+  public void testMaxIntervalNeverSmallerThanMinInterval() {
+    final AdaptiveCheckInterval subject = new AdaptiveCheckInterval(1000L, 500L);
+
+    assertThat(subject.isAdaptive(), is(false));
+    assertThat(subject.next(0.5d, 0L), is(1000L));
+  }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.sap.jma.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class HeapDumpWorkerTest {
+
+  private final ManualExecutorService executorService = new ManualExecutorService();
+
+  private final HeapDumpWorker.Listener listener = mock(HeapDumpWorker.Listener.class);
+
+  private final List<String> heapDumps = new ArrayList<>();
+
+  private boolean isCreated = true;
+
+  private Exception failure;
+
+  private Runnable duringHeapDump;
+
+  private long now = 1000L;
+
+  private final HeapDumpWorker subject = new HeapDumpWorker(new Callable<Boolean>() {
+    @Override
+    public Boolean call() throws Exception {
+      heapDumps.add("heap dump " + heapDumps.size());
+      now += 5000L;
+
+      if (duringHeapDump != null) {
+        final Runnable runnable = duringHeapDump;
+        duringHeapDump = null;
+        runnable.run();
+      }
+
+      if (failure != null) {
+        throw failure;
+      }
+      return isCreated;
+    }
+  }, executorService, listener, new Clock() {
+    @Override
+    public long getMillis() {
+      return now;
+    }
+  });
+
+  @Test
+  public void testHeapDumpDoesNotBlockSubmitter() {
+    subject.submit("\n* a");
+
+    assertThat(heapDumps.isEmpty(), is(true));
+    assertThat(subject.isBusy(), is(true));
+
+    executorService.runAll();
+
+    assertThat(heapDumps.size(), is(1));
+    assertThat(subject.isBusy(), is(false));
+
+    final ArgumentCaptor<HeapDumpWorker.Request> request =
+        ArgumentCaptor.forClass(HeapDumpWorker.Request.class);
+    verify(listener).onStarted(request.capture());
+    verify(listener).onCompleted(request.getValue(), 5000L);
+    assertThat(request.getValue().getCauses(), is("\n* a"));
+    assertThat(request.getValue().getCount(), is(1));
+    assertThat(request.getValue().getRequestedAtMillis(), is(1000L));
+  }
+
+  @Test
+  public void testRequestsWaitingAreCoalesced() {
+    subject.submit("\n* a");
+    subject.submit("\n* b");
+
+    assertThat(executorService.tasks.size(), is(1));
+
+    executorService.runAll();
+
+    assertThat(heapDumps.size(), is(1));
+
+    final ArgumentCaptor<HeapDumpWorker.Request> request =
+        ArgumentCaptor.forClass(HeapDumpWorker.Request.class);
+    verify(listener).onCoalesced(request.capture(), eq("\n* b"));
+    verify(listener).onCompleted(request.getValue(), 5000L);
+    assertThat(request.getValue().getCauses(), is("\n* a\n* b"));
+    assertThat(request.getValue().getCount(), is(2));
+  }
+
+  @Test
+  public void testRequestsDuringHeapDumpYieldOneMoreHeapDump() {
+    duringHeapDump = new Runnable() {
+      @Override
+      public void run() {
+        subject.submit("\n* b");
+        subject.submit("\n* c");
+        subject.submit("\n* d");
+      }
+    };
+
+    subject.submit("\n* a");
+    executorService.runAll();
+
+    assertThat(heapDumps.size(), is(2));
+
+    final ArgumentCaptor<HeapDumpWorker.Request> request =
+        ArgumentCaptor.forClass(HeapDumpWorker.Request.class);
+    verify(listener, times(2)).onStarted(request.capture());
+    assertThat(request.getAllValues().get(0).getCauses(), is("\n* a"));
+    assertThat(request.getAllValues().get(1).getCauses(), is("\n* b\n* c\n* d"));
+    assertThat(request.getAllValues().get(1).getCount(), is(3));
+  }
+
+  @Test
+  public void testSkippedHeapDump() {
+    isCreated = false;
+
+    subject.submit("\n* a");
+    executorService.runAll();
+
+    verify(listener).onSkipped(any(HeapDumpWorker.Request.class));
+    verify(listener, never()).onCompleted(any(HeapDumpWorker.Request.class), anyLong());
+  }
+
+  @Test
+  public void testFailedHeapDump() {
+    failure = new IllegalStateException("Disk full");
+
+    subject.submit("\n* a");
+    executorService.runAll();
+
+    verify(listener).onFailed(any(HeapDumpWorker.Request.class), eq(failure));
+    assertThat(subject.isBusy(), is(false));
+
+    // The worker goes on with the next requests
+    failure = null;
+    subject.submit("\n* b");
+    executorService.runAll();
+
+    assertThat(heapDumps.size(), is(2));
+  }
+
+  @Test
+  public void testShutdownDropsWaitingRequest() {
+    subject.submit("\n* a");
+    subject.shutdown();
+    executorService.runAll();
+
+    assertThat(heapDumps.isEmpty(), is(true));
+
+    subject.submit("\n* b");
+
+    final ArgumentCaptor<HeapDumpWorker.Request> request =
+        ArgumentCaptor.forClass(HeapDumpWorker.Request.class);
+    verify(listener).onRejected(request.capture());
+    assertThat(request.getValue().getCauses(), is("\n* b"));
+    assertThat(subject.isBusy(), is(false));
+  }
+
+  /*
+   * Runs the tasks only when told to, on the thread of the test
+   */
+  private static final class ManualExecutorService extends AbstractExecutorService {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private boolean isShutdown;
+
+    private void runAll() {
+      while (!tasks.isEmpty()) {
+        tasks.remove(0).run();
+      }
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+      if (isShutdown) {
+        throw new RejectedExecutionException();
+      }
+
+      tasks.add(command);
+    }
+
+    @Override
+    public void shutdown() {
+      isShutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      isShutdown = true;
+      final List<Runnable> pendingTasks = new ArrayList<>(tasks);
+      tasks.clear();
+      return pendingTasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return isShutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return isShutdown && tasks.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) {
+      return isTerminated();
+    }
+
+  }
+
+}
@@ -7,33 +7,68 @@
 package com.sap.jma;
 
 import static com.sap.jma.configuration.ExecutionFrequency.parse;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
+import com.sap.jma.conditions.Evaluation;
+import com.sap.jma.conditions.PercentageUsageThresholdCondition;
 import com.sap.jma.conditions.UsageThresholdCondition;
 import com.sap.jma.configuration.AbsoluteUsageThresholdConfiguration;
+import com.sap.jma.configuration.CheckInterval;
+import com.sap.jma.configuration.CheckMode;
+import com.sap.jma.configuration.ClassHistogramThresholdConfiguration;
 import com.sap.jma.configuration.Configuration;
+import com.sap.jma.configuration.Debouncing;
 import com.sap.jma.configuration.InvalidPropertyValueException;
 import com.sap.jma.configuration.PercentageUsageThresholdConfiguration;
+import com.sap.jma.configuration.ThresholdConfiguration;
+import com.sap.jma.configuration.UsageThresholdConfiguration;
 import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import com.sap.jma.vms.ClassHistogram;
 import com.sap.jma.vms.JavaVirtualMachine;
 import com.sap.jma.vms.MemoryPool;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.runners.Enclosed;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 
 @RunWith(Enclosed.class)
 public class MBeanMonitorTest {
@@ -74,6 +109,8 @@ public class MBeanMonitorTest {
 
     private final JavaVirtualMachine jvm = mock(JavaVirtualMachine.class);
 
+    private final Clock clock = mock(Clock.class);
+
     private MBeanMonitor subject;
 
     @Before
@@ -87,6 +124,7 @@ public class MBeanMonitorTest {
           }, logger));
 
       doReturn(jvm).when(subject).currentJvm();
+      doReturn(Collections.emptyList()).when(subject).getMemoryPoolBeans();
     }
 
     @Test
@@ -149,6 +187,530 @@ public class MBeanMonitorTest {
           + "has been provided; the heap-dump agent will not perform checks");
     }
 
+    @Test
+    public void testGarbageCollectionModeWithoutCheckInterval() throws Exception {
+      final MemoryPool memoryPool = mock(MemoryPool.class);
+      final UsageThresholdCondition usageCondition = mock(UsageThresholdCondition.class);
+      final GarbageCollectorMXBean garbageCollector = mock(GarbageCollectorMXBean.class,
+          withSettings().extraInterfaces(NotificationEmitter.class));
+
+      doReturn(MemoryPool.Type.OLD_GEN).when(memoryPool).getType();
+      doReturn(Collections.singletonList(memoryPool)).when(jvm).getMemoryPools();
+      doReturn(usageCondition).when(memoryPool).toCondition(configuration);
+      doReturn(Collections.singletonList(garbageCollector)).when(subject)
+          .getGarbageCollectorBeans();
+
+      doReturn(CheckMode.GARBAGE_COLLECTION).when(configuration).getCheckMode();
+      doReturn(-1L).when(configuration).getCheckIntervalInMillis();
+
+      subject.start();
+
+      verify((NotificationEmitter) garbageCollector).addNotificationListener(
+          any(NotificationListener.class), any(NotificationFilter.class), isNull());
+      verify(executor, never()).schedule(any(Runnable.class), anyLong(),
+          any(TimeUnit.class));
+      verify(logger).debug(eq("%s (checks will occur after each garbage collection):%s"),
+          eq("One memory condition has been specified"), any());
+
+      subject.stop();
+
+      verify((NotificationEmitter) garbageCollector).removeNotificationListener(
+          any(NotificationListener.class));
+      verify(executor).shutdownNow();
+    }
+
+    @Test
+    public void testGarbageCollectionModeFallsBackToCheckInterval() throws Exception {
+      final MemoryPool memoryPool = mock(MemoryPool.class);
+      final UsageThresholdCondition usageCondition = mock(UsageThresholdCondition.class);
+
+      doReturn(MemoryPool.Type.OLD_GEN).when(memoryPool).getType();
+      doReturn(Collections.singletonList(memoryPool)).when(jvm).getMemoryPools();
+      doReturn(usageCondition).when(memoryPool).toCondition(configuration);
+      doReturn(Collections.emptyList()).when(subject).getGarbageCollectorBeans();
+
+      doReturn(CheckMode.GARBAGE_COLLECTION).when(configuration).getCheckMode();
+      doReturn(1000L).when(configuration).getCheckIntervalInMillis();
+
+      subject.start();
+
+      verify(logger).warning("No garbage collector emits notifications; "
+          + "memory conditions will be checked only based on the check interval");
+      verify(executor).schedule(any(Runnable.class), eq(1000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testGarbageCollectionChecksAreCoalesced() throws Exception {
+      final MemoryPool oldGenMemoryPool = mock(MemoryPool.class);
+      final UsageThresholdCondition oldGenCondition = mock(UsageThresholdCondition.class);
+      final MemoryPool residentSetMemoryPool = mock(MemoryPool.class);
+      final UsageThresholdCondition residentSetCondition = mock(UsageThresholdCondition.class);
+      final GarbageCollectorMXBean garbageCollector = mock(GarbageCollectorMXBean.class,
+          withSettings().extraInterfaces(NotificationEmitter.class));
+      final MemoryUsage edenUsage = new MemoryUsage(0L, 0L, 50L, 50L);
+      final MemoryUsage oldGenUsage = new MemoryUsage(0L, 42L, 100L, 100L);
+      final MemoryUsage laterOldGenUsage = new MemoryUsage(0L, 84L, 100L, 100L);
+
+      doReturn(MemoryPool.Type.OLD_GEN).when(oldGenMemoryPool).getType();
+      doReturn(oldGenCondition).when(oldGenMemoryPool).toCondition(configuration);
+      doReturn(new Evaluation()).when(oldGenCondition).check(any(Map.class));
+      doReturn(MemoryPool.Type.RESIDENT_SET).when(residentSetMemoryPool).getType();
+      doReturn(residentSetCondition).when(residentSetMemoryPool).toCondition(configuration);
+      doReturn(Arrays.asList(oldGenMemoryPool, residentSetMemoryPool)).when(jvm)
+          .getMemoryPools();
+      doReturn(Collections.singletonList(garbageCollector)).when(subject)
+          .getGarbageCollectorBeans();
+
+      doReturn(CheckMode.GARBAGE_COLLECTION).when(configuration).getCheckMode();
+      doReturn(-1L).when(configuration).getCheckIntervalInMillis();
+
+      subject.start();
+
+      verify(logger).warning("No check interval has been provided; the heap-dump agent will "
+          + "not check the memory conditions that are not on memory pools whose usage the "
+          + "garbage collections report:%s", "\n* " + residentSetCondition);
+
+      // A burst of garbage collections yields one check, with the latest usages
+      subject.checkAfterGarbageCollection(Collections.singletonMap("PS Old Gen", oldGenUsage));
+      subject.checkAfterGarbageCollection(Collections.singletonMap("PS Eden Space", edenUsage));
+      subject.checkAfterGarbageCollection(
+          Collections.singletonMap("PS Old Gen", laterOldGenUsage));
+
+      final ArgumentCaptor<Runnable> check = ArgumentCaptor.forClass(Runnable.class);
+      verify(executor).execute(check.capture());
+
+      check.getValue().run();
+
+      final ArgumentCaptor<Map> memoryUsages = ArgumentCaptor.forClass(Map.class);
+      verify(oldGenCondition).check(memoryUsages.capture());
+      assertThat(memoryUsages.getValue().get("PS Old Gen"), is((Object) laterOldGenUsage));
+      assertThat(memoryUsages.getValue().get("PS Eden Space"), is((Object) edenUsage));
+      verify(residentSetCondition, never()).check(any(Map.class));
+
+      // The garbage collections after the check yield one more
+      subject.checkAfterGarbageCollection(Collections.singletonMap("PS Old Gen", oldGenUsage));
+
+      verify(executor, times(2)).execute(check.getValue());
+    }
+
+    @Test
+    public void testClassHistogramIsNotSampledAfterGarbageCollections() throws Exception {
+      final MemoryPool memoryPool = mock(MemoryPool.class);
+      final UsageThresholdCondition usageCondition = mock(UsageThresholdCondition.class);
+      final ClassHistogram classHistogram = mock(ClassHistogram.class);
+      final GarbageCollectorMXBean garbageCollector = mock(GarbageCollectorMXBean.class,
+          withSettings().extraInterfaces(NotificationEmitter.class));
+
+      doReturn(MemoryPool.Type.OLD_GEN).when(memoryPool).getType();
+      doReturn(usageCondition).when(memoryPool).toCondition(configuration);
+      doReturn(new Evaluation()).when(usageCondition).check(any(Map.class));
+      doReturn(Collections.singletonList(memoryPool)).when(jvm).getMemoryPools();
+      doReturn(classHistogram).when(jvm).getClassHistogram();
+      doReturn(Collections.singletonMap("com.acme.Session",
+          ClassHistogramThresholdConfiguration.parse("com.acme.Session", ">500000")))
+          .when(configuration).getClassHistogramThresholds();
+      doReturn(Collections.singletonList(garbageCollector)).when(subject)
+          .getGarbageCollectorBeans();
+
+      doReturn(CheckMode.GARBAGE_COLLECTION).when(configuration).getCheckMode();
+      doReturn(-1L).when(configuration).getCheckIntervalInMillis();
+
+      subject.start();
+
+      // Each class histogram forces a full garbage collection, so it is sampled every minute
+      verify(executor).schedule(any(Runnable.class),
+          eq(ClassHistogramThresholdConfiguration.DEFAULT_CHECK_INTERVAL_IN_MILLIS),
+          eq(TimeUnit.MILLISECONDS));
+
+      subject.checkAfterGarbageCollection(
+          Collections.singletonMap("PS Old Gen", new MemoryUsage(0L, 42L, 100L, 100L)));
+
+      final ArgumentCaptor<Runnable> check = ArgumentCaptor.forClass(Runnable.class);
+      verify(executor).execute(check.capture());
+      check.getValue().run();
+
+      verify(usageCondition).check(any(Map.class));
+      verify(classHistogram, never()).getInstances(anyInt());
+      verify(classHistogram, never()).getBytes(anyInt());
+    }
+
+    @Test
+    public void testUsageThresholdModeWithoutCheckInterval() throws Exception {
+      final MemoryPool memoryPool = mock(MemoryPool.class);
+      final UsageThresholdCondition usageCondition = mock(UsageThresholdCondition.class);
+      final PercentageUsageThresholdConfiguration usageConfiguration =
+          percentageThresholdConfiguration(MemoryPool.Type.OLD_GEN, 42d);
+      final NotificationEmitter memoryEmitter = mock(NotificationEmitter.class);
+
+      doReturn(Collections.singletonList(memoryPool)).when(jvm).getMemoryPools();
+      doReturn(usageCondition).when(memoryPool).toCondition(configuration);
+      doReturn(usageConfiguration).when(usageCondition).getUsageThresholdConfiguration();
+      doReturn(true).when(memoryPool).setUsageThreshold(usageConfiguration);
+      doReturn(memoryEmitter).when(subject).getMemoryNotificationEmitter();
+
+      doReturn(CheckMode.USAGE_THRESHOLD).when(configuration).getCheckMode();
+      doReturn(-1L).when(configuration).getCheckIntervalInMillis();
+
+      subject.start();
+
+      verify(memoryPool).setUsageThreshold(usageConfiguration);
+      verify(memoryEmitter).addNotificationListener(any(NotificationListener.class),
+          any(NotificationFilter.class), isNull());
+      verify(executor, never()).schedule(any(Runnable.class), anyLong(),
+          any(TimeUnit.class));
+      verify(logger).debug(eq("%s (checks will occur when the JVM reports a usage threshold "
+          + "to be exceeded):%s"), eq("One memory condition has been specified"), any());
+
+      subject.stop();
+
+      verify(memoryEmitter).removeNotificationListener(any(NotificationListener.class));
+    }
+
+    @Test
+    public void testUsageThresholdModeWithUntranslatableCondition() throws Exception {
+      final MemoryPool memoryPool = mock(MemoryPool.class);
+      final UsageThresholdCondition usageCondition = mock(UsageThresholdCondition.class);
+      final NotificationEmitter memoryEmitter = mock(NotificationEmitter.class);
+
+      doReturn(Collections.singletonList(memoryPool)).when(jvm).getMemoryPools();
+      doReturn(usageCondition).when(memoryPool).toCondition(configuration);
+      doReturn(percentageThresholdConfiguration(42d)).when(usageCondition)
+          .getUsageThresholdConfiguration();
+      doReturn(false).when(memoryPool).setUsageThreshold(any(UsageThresholdConfiguration.class));
+      doReturn(memoryEmitter).when(subject).getMemoryNotificationEmitter();
+
+      doReturn(CheckMode.USAGE_THRESHOLD).when(configuration).getCheckMode();
+      doReturn(1000L).when(configuration).getCheckIntervalInMillis();
+
+      subject.start();
+
+      verifyZeroInteractions(memoryEmitter);
+      verify(executor).schedule(any(Runnable.class), eq(1000L), eq(TimeUnit.MILLISECONDS));
+      verify(logger).debug(eq("%s (checks will occur every %d milliseconds):%s"),
+          eq("One memory condition has been specified that cannot be translated into usage "
+              + "thresholds"), eq(1000L), any());
+    }
+
+    @Test
+    public void testUsageThresholdModeWithDebouncedCondition() throws Exception {
+      final MemoryPool memoryPool = mock(MemoryPool.class);
+      final UsageThresholdCondition usageCondition = mock(UsageThresholdCondition.class);
+      final UsageThresholdConfiguration usageConfiguration =
+          mock(UsageThresholdConfiguration.class);
+      final NotificationEmitter memoryEmitter = mock(NotificationEmitter.class);
+
+      doReturn(Collections.singletonList(memoryPool)).when(jvm).getMemoryPools();
+      doReturn(usageCondition).when(memoryPool).toCondition(configuration);
+      doReturn(usageConfiguration).when(usageCondition).getUsageThresholdConfiguration();
+      doReturn(Debouncing.parse("for 3 samples")).when(usageConfiguration).getDebouncing();
+      doReturn(memoryEmitter).when(subject).getMemoryNotificationEmitter();
+
+      doReturn(CheckMode.USAGE_THRESHOLD).when(configuration).getCheckMode();
+      doReturn(1000L).when(configuration).getCheckIntervalInMillis();
+
+      subject.start();
+
+      verify(memoryPool, never()).setUsageThreshold(any(UsageThresholdConfiguration.class));
+      verify(executor).schedule(any(Runnable.class), eq(1000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testAdaptiveCheckInterval() throws Exception {
+      final MemoryPool memoryPool = mock(MemoryPool.class);
+      final UsageThresholdCondition usageCondition = mock(UsageThresholdCondition.class);
+
+      doReturn(Collections.singletonList(memoryPool)).when(jvm).getMemoryPools();
+      doReturn(usageCondition).when(memoryPool).toCondition(configuration);
+      doReturn(5000L).when(configuration).getCheckIntervalInMillis();
+      doReturn(1000L).when(configuration).getMinCheckIntervalInMillis();
+      doReturn(11000L).when(configuration).getMaxCheckIntervalInMillis();
+      doReturn(new Evaluation()).when(usageCondition).check(any(Map.class));
+      doReturn(clock).when(subject).getClock();
+      when(clock.getMillis()).thenReturn(0L, 5000L, 5000L, 6000L, 6000L, 12000L, 12000L);
+
+      subject.start();
+
+      final ArgumentCaptor<Runnable> check = ArgumentCaptor.forClass(Runnable.class);
+      verify(executor).schedule(check.capture(), eq(5000L), eq(TimeUnit.MILLISECONDS));
+      verify(logger).debug("The check interval will adapt between %d and %d milliseconds "
+          + "depending on how close the memory usage gets to the memory conditions", 1000L,
+          11000L);
+
+      // Violated, so the next check is due after the minimum interval
+      doReturn(1d).when(usageCondition).getProximity();
+      check.getValue().run();
+      verify(executor).schedule(check.getValue(), 1000L, TimeUnit.MILLISECONDS);
+
+      // The lower the proximity, the longer the delay, up to the maximum interval
+      doReturn(0.5d).when(usageCondition).getProximity();
+      check.getValue().run();
+      verify(executor).schedule(check.getValue(), 6000L, TimeUnit.MILLISECONDS);
+
+      doReturn(0d).when(usageCondition).getProximity();
+      check.getValue().run();
+      verify(executor).schedule(check.getValue(), 11000L, TimeUnit.MILLISECONDS);
+      verify(usageCondition, times(3)).check(Collections.<String, MemoryUsage>emptyMap());
+    }
+
+    @Test
+    public void testConditionsWithIntervalOfTheirOwn() throws Exception {
+      final MemoryPool memoryPool = mock(MemoryPool.class);
+      final UsageThresholdCondition usageCondition = mock(UsageThresholdCondition.class);
+      final UsageThresholdConfiguration jvmConfiguration = mock(UsageThresholdConfiguration.class);
+      final UsageThresholdCondition expensiveCondition = mock(UsageThresholdCondition.class);
+
+      doReturn(Collections.singletonList(memoryPool)).when(jvm).getMemoryPools();
+      doReturn(usageCondition).when(memoryPool).toCondition(configuration);
+      doReturn(new Evaluation()).when(usageCondition).check(any(Map.class));
+      doReturn(Collections.singletonList(jvmConfiguration)).when(configuration)
+          .getJvmThresholds();
+      doReturn(expensiveCondition).when(jvmConfiguration).toCondition(any(MemoryPool.class));
+      doReturn(jvmConfiguration).when(expensiveCondition).getUsageThresholdConfiguration();
+      doReturn(CheckInterval.parse("every 1h")).when(jvmConfiguration).getCheckInterval();
+      doReturn(new Evaluation()).when(expensiveCondition).check(any(Map.class));
+      doReturn(1000L).when(configuration).getCheckIntervalInMillis();
+      doReturn(1000L).when(configuration).getMinCheckIntervalInMillis();
+      doReturn(1000L).when(configuration).getMaxCheckIntervalInMillis();
+      doReturn(clock).when(subject).getClock();
+      when(clock.getMillis()).thenReturn(0L, 1000L, 1000L, 2000L, 2000L);
+
+      subject.start();
+
+      final ArgumentCaptor<Runnable> check = ArgumentCaptor.forClass(Runnable.class);
+      verify(executor).schedule(check.capture(), eq(1000L), eq(TimeUnit.MILLISECONDS));
+      verify(logger).debug("%s (checks will occur every %d milliseconds):%s",
+          "One memory condition has been specified with a check interval", 3600000L,
+          "\n* " + expensiveCondition);
+
+      check.getValue().run();
+      check.getValue().run();
+
+      // The expensive condition is not due before one hour
+      verify(usageCondition, times(2)).check(Collections.<String, MemoryUsage>emptyMap());
+      verify(expensiveCondition, never()).check(any(Map.class));
+      verify(executor, times(3)).schedule(check.getValue(), 1000L, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testJvmConditions() throws Exception {
+      final MemoryPool heapMemoryPool = mock(MemoryPool.class);
+      final UsageThresholdConfiguration supportedConfiguration =
+          mock(UsageThresholdConfiguration.class);
+      final UsageThresholdConfiguration unsupportedConfiguration =
+          mock(UsageThresholdConfiguration.class);
+      final UsageThresholdCondition usageCondition = mock(UsageThresholdCondition.class);
+
+      doReturn(heapMemoryPool).when(jvm).getHeapMemoryPool();
+      doReturn(Collections.emptyList()).when(jvm).getMemoryPools();
+      doReturn(Arrays.asList(supportedConfiguration, unsupportedConfiguration))
+          .when(configuration).getJvmThresholds();
+      doReturn(usageCondition).when(supportedConfiguration).toCondition(heapMemoryPool);
+      doThrow(new IllegalArgumentException("Not supported")).when(unsupportedConfiguration)
+          .toCondition(heapMemoryPool);
+      doReturn(new Evaluation()).when(usageCondition).check(any(Map.class));
+      doReturn(1000L).when(configuration).getCheckIntervalInMillis();
+
+      subject.start();
+      subject.runChecks();
+
+      verify(logger).warning("%s; the agent will not check this memory condition",
+          "Not supported");
+      verify(usageCondition).check(Collections.<String, MemoryUsage>emptyMap());
+      verify(executor).schedule(any(Runnable.class), eq(1000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testChecksUseGarbageCollectionUsages() throws Exception {
+      final MemoryPool memoryPool = mock(MemoryPool.class);
+      final UsageThresholdCondition usageCondition = mock(UsageThresholdCondition.class);
+      final Map<String, MemoryUsage> memoryUsages =
+          Collections.singletonMap("PS Old Gen", new MemoryUsage(0L, 42L, 100L, 100L));
+
+      doReturn(Collections.singletonList(memoryPool)).when(jvm).getMemoryPools();
+      doReturn(usageCondition).when(memoryPool).toCondition(configuration);
+      doReturn(new Evaluation()).when(usageCondition).check(any(Map.class));
+      doReturn(1000L).when(configuration).getCheckIntervalInMillis();
+
+      subject.start();
+      subject.runChecks(memoryUsages);
+
+      verify(usageCondition).check(memoryUsages);
+      verifyZeroInteractions(heapDumpCreator);
+    }
+
+    @Test
+    public void testChecksShareSnapshotOfMemoryPools() throws Exception {
+      final MemoryPoolMXBean oldGenBean = mock(MemoryPoolMXBean.class);
+      final MemoryPoolMXBean edenBean = mock(MemoryPoolMXBean.class);
+      final MemoryUsage oldGenUsage = new MemoryUsage(0L, 42L, 100L, 100L);
+      final MemoryUsage edenUsage = new MemoryUsage(0L, 10L, 50L, 50L);
+      doReturn("PS Old Gen").when(oldGenBean).getName();
+      doReturn(oldGenUsage).when(oldGenBean).getUsage();
+      doReturn("PS Eden Space").when(edenBean).getName();
+      doReturn(edenUsage).when(edenBean).getUsage();
+      doReturn(Arrays.asList(oldGenBean, edenBean)).when(subject).getMemoryPoolBeans();
+
+      final MemoryPool memoryPool = mock(MemoryPool.class);
+      final UsageThresholdCondition usageCondition = mock(UsageThresholdCondition.class);
+      final UsageThresholdCondition otherUsageCondition = mock(UsageThresholdCondition.class);
+      final UsageThresholdConfiguration jvmConfiguration = mock(UsageThresholdConfiguration.class);
+
+      doReturn(Collections.singletonList(memoryPool)).when(jvm).getMemoryPools();
+      doReturn(usageCondition).when(memoryPool).toCondition(configuration);
+      doReturn(Collections.singletonList(jvmConfiguration)).when(configuration)
+          .getJvmThresholds();
+      doReturn(otherUsageCondition).when(jvmConfiguration).toCondition(any(MemoryPool.class));
+      doReturn(new Evaluation()).when(usageCondition).check(any(Map.class));
+      doReturn(new Evaluation()).when(otherUsageCondition).check(any(Map.class));
+      doReturn(1000L).when(configuration).getCheckIntervalInMillis();
+
+      subject.start();
+      subject.runChecks();
+
+      final ArgumentCaptor<Map> memoryUsages = ArgumentCaptor.forClass(Map.class);
+      verify(usageCondition).check(memoryUsages.capture());
+      verify(otherUsageCondition).check(memoryUsages.getValue());
+      assertThat(memoryUsages.getValue().get("PS Old Gen"), is((Object) oldGenUsage));
+      assertThat(memoryUsages.getValue().get("PS Eden Space"), is((Object) edenUsage));
+      // Each memory pool is read once per check, however many conditions there are
+      verify(oldGenBean).getUsage();
+      verify(edenBean).getUsage();
+
+      // The usages reported after a garbage collection take precedence
+      final MemoryUsage oldGenUsageAfterGc = new MemoryUsage(0L, 21L, 100L, 100L);
+      subject.runChecks(Collections.singletonMap("PS Old Gen", oldGenUsageAfterGc));
+
+      verify(usageCondition, times(2)).check(memoryUsages.capture());
+      assertThat(memoryUsages.getValue().get("PS Old Gen"), is((Object) oldGenUsageAfterGc));
+      assertThat(memoryUsages.getValue().get("PS Eden Space"), is((Object) edenUsage));
+      verify(oldGenBean).getUsage();
+    }
+
+    @Test
+    public void testViolationsRequestHeapDumpWithoutWaitingForIt() throws Exception {
+      final HeapDumpWorker heapDumpWorker = mock(HeapDumpWorker.class);
+      doReturn(heapDumpWorker).when(subject).newHeapDumpWorker();
+
+      final MemoryPool memoryPool = mock(MemoryPool.class);
+      final MemoryUsage memoryUsage = new MemoryUsage(0L, 90L, 100L, 100L);
+      doReturn("Heap").when(memoryPool).getName();
+      doReturn(memoryUsage).when(memoryPool).getMemoryUsage();
+      doReturn(memoryUsage).when(memoryPool).getMemoryUsage(any(Map.class));
+      doReturn(new PercentageUsageThresholdCondition(percentageThresholdConfiguration(80d),
+          memoryPool)).when(memoryPool).toCondition(configuration);
+
+      doReturn(Collections.singletonList(memoryPool)).when(jvm).getMemoryPools();
+      doReturn(1000L).when(configuration).getCheckIntervalInMillis();
+
+      subject.start();
+      subject.runChecks();
+
+      verify(heapDumpWorker).submit("\n* Memory pool 'Heap' at 90% usage, configured threshold "
+          + "is 80%");
+      verifyZeroInteractions(heapDumpCreator);
+
+      subject.stop();
+
+      verify(heapDumpWorker).shutdown();
+    }
+
+    @Test
+    public void testHeapDumpWaitMeasuredWithInjectedClock() throws Exception {
+      doReturn(clock).when(subject).getClock();
+      // Requested at 1000, started at 1250
+      doReturn(1000L, 1250L).when(clock).getMillis();
+
+      final HeapDumpWorker heapDumpWorker = subject.newHeapDumpWorker();
+      try {
+        heapDumpWorker.submit("\n* Memory pool 'Heap' at 90% usage, configured threshold is 80%");
+
+        verify(logger, timeout(1000)).debug("Starting heap dump requested %d millisecond(s) ago "
+            + "by %d check(s); checks go on meanwhile", 250L, 1);
+        verify(heapDumpCreator, timeout(1000)).createHeapDump(any(Date.class));
+      } finally {
+        heapDumpWorker.shutdown();
+      }
+    }
+
+    @Test
+    public void testCheckNotViolatedAllocatesNothing() throws Exception {
+      final java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+      assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+      final com.sun.management.ThreadMXBean allocationBean =
+          (com.sun.management.ThreadMXBean) threadBean;
+      assumeTrue(allocationBean.isThreadAllocatedMemorySupported()
+          && allocationBean.isThreadAllocatedMemoryEnabled());
+
+      doReturn(Collections.singletonList(
+          new HeapMemoryPool(new MemoryUsage(0L, 40L, 100L, 100L)))).when(jvm).getMemoryPools();
+      doReturn(1000L).when(configuration).getCheckIntervalInMillis();
+      doReturn(1000L).when(configuration).getMinCheckIntervalInMillis();
+      doReturn(1000L).when(configuration).getMaxCheckIntervalInMillis();
+
+      // Neither a spy nor mocks on the path of the checks, as they record their invocations
+      final ManualExecutor manualExecutor = new ManualExecutor();
+      final long[] now = {0L};
+      final Clock manualClock = new Clock() {
+        @Override
+        public long getMillis() {
+          return now[0];
+        }
+      };
+      final MBeanMonitor monitor = new MBeanMonitor(heapDumpCreator, configuration,
+          new Callable<ScheduledExecutorService>() {
+            @Override
+            public ScheduledExecutorService call() {
+              return manualExecutor;
+            }
+          }, Logger.Factory.get(MBeanMonitor.class)) {
+        @Override
+        Clock getClock() {
+          return manualClock;
+        }
+
+        @Override
+        JavaVirtualMachine currentJvm() {
+          return jvm;
+        }
+
+        @Override
+        List<MemoryPoolMXBean> getMemoryPoolBeans() {
+          return Collections.emptyList();
+        }
+
+        @Override
+        List<GarbageCollectorMXBean> getGarbageCollectorBeans() {
+          return Collections.emptyList();
+        }
+      };
+
+      monitor.start();
+      try {
+        assertThat(manualExecutor.delayInMillis, is(1000L));
+        final long threadId = Thread.currentThread().getId();
+
+        // Warm up, and measure what reading the allocated bytes allocates by itself
+        long baseline = Long.MAX_VALUE;
+        for (int i = 0; i < 10000; ++i) {
+          now[0] += manualExecutor.delayInMillis;
+          manualExecutor.task.run();
+          final long before = allocationBean.getThreadAllocatedBytes(threadId);
+          baseline = Math.min(baseline, allocationBean.getThreadAllocatedBytes(threadId) - before);
+        }
+
+        final long before = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1000; ++i) {
+          now[0] += manualExecutor.delayInMillis;
+          manualExecutor.task.run();
+        }
+        final long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(allocated - baseline, is(0L));
+      } finally {
+        monitor.stop();
+      }
+    }
+
     @Test
     public void testMaxFrequency() throws Exception {
       final Date d1 = new Date(100L);
@@ -172,4 +734,81 @@ public class MBeanMonitorTest {
 
   }
 
+  /*
+   * Records the task to run next instead of running it, without allocating the task of the
+   * executor
+   */
+  private static final class ManualExecutor extends ScheduledThreadPoolExecutor {
+
+    private Runnable task;
+
+    private long delayInMillis;
+
+    private ManualExecutor() {
+      super(1);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(final Runnable task, final long delay,
+                                       final TimeUnit unit) {
+      this.task = task;
+      this.delayInMillis = unit.toMillis(delay);
+      return null;
+    }
+
+  }
+
+  /*
+   * Hand-written rather than mocked, as mocks record their invocations
+   */
+  private static final class HeapMemoryPool implements MemoryPool {
+
+    private final MemoryUsage memoryUsage;
+
+    private HeapMemoryPool(final MemoryUsage memoryUsage) {
+      this.memoryUsage = memoryUsage;
+    }
+
+    @Override
+    public Type getType() {
+      return Type.HEAP;
+    }
+
+    @Override
+    public UsageThresholdCondition<?> toCondition(final Configuration configuration) {
+      return new PercentageUsageThresholdCondition(percentageThresholdConfiguration(80d), this);
+    }
+
+    @Override
+    public boolean matches(final MemoryPoolMXBean memoryPoolBean) {
+      return false;
+    }
+
+    @Override
+    public String getName() {
+      return "Heap";
+    }
+
+    @Override
+    public MemoryUsage getMemoryUsage() {
+      return memoryUsage;
+    }
+
+    @Override
+    public MemoryUsage getMemoryUsage(final Map<String, MemoryUsage> memoryUsages) {
+      return memoryUsage;
+    }
+
+    @Override
+    public MemoryUsage getCollectionUsage() {
+      return null;
+    }
+
+    @Override
+    public boolean setUsageThreshold(final ThresholdConfiguration configuration) {
+      return false;
+    }
+
+  }
+
 }
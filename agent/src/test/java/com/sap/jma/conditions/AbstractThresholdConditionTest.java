@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import static com.sap.jma.conditions.ConditionChecks.checkOrThrow;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.sap.jma.conditions.ConditionChecks.UsageThresholdConditionViolatedException;
+import com.sap.jma.configuration.Debouncing;
+import com.sap.jma.configuration.UsageThresholdConfiguration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import org.junit.Test;
+
+public class AbstractThresholdConditionTest {
+
+  private final Clock clock = mock(Clock.class);
+
+  private final Logger logger = mock(Logger.class);
+
+  @Test
+  public void testViolationReportedAfterConsecutiveSamples() throws Exception {
+    final TestCondition condition = createCondition("for 3 samples");
+
+    condition.evaluate(1.5d);
+    condition.evaluate(1.5d);
+    // The streak is interrupted
+    condition.evaluate(0.5d);
+    condition.evaluate(1.5d);
+    condition.evaluate(1.5d);
+    verify(logger, times(2)).debug("%s; violated at %d consecutive check(s) over %d "
+        + "milliseconds, not reported before violated %s", "Value at 1.5", 2, 0L, "for 3 samples");
+
+    assertViolated(condition, 1.5d);
+    // No re-arming, so every further violation is reported
+    assertViolated(condition, 1.5d);
+  }
+
+  @Test
+  public void testViolationReportedAfterDuration() throws Exception {
+    when(clock.getMillis()).thenReturn(0L, 20000L, 40000L);
+    final TestCondition condition = createCondition("for 30s");
+
+    condition.evaluate(1.5d);
+    condition.evaluate(1.5d);
+    verify(logger).debug("%s; violated at %d consecutive check(s) over %d milliseconds, not "
+        + "reported before violated %s", "Value at 1.5", 2, 20000L, "for 30s");
+
+    assertViolated(condition, 1.5d);
+  }
+
+  @Test
+  public void testViolationReportedAgainOnceRearmed() throws Exception {
+    final TestCondition condition = createCondition("rearm 0.8");
+
+    assertViolated(condition, 1.5d);
+    condition.evaluate(1.2d);
+    verify(logger).debug("%s; already reported", "Value at 1.2");
+
+    // Not violated, but not far enough below the threshold to re-arm
+    condition.evaluate(0.9d);
+    condition.evaluate(1.1d);
+    verify(logger).debug("%s; already reported", "Value at 1.1");
+
+    condition.evaluate(0.7d);
+    verify(logger).debug("%s re-armed", "Value above 1");
+
+    assertViolated(condition, 1.1d);
+  }
+
+  private TestCondition createCondition(final String clauses) throws Exception {
+    final UsageThresholdConfiguration configuration = mock(UsageThresholdConfiguration.class);
+    doReturn(Debouncing.parse(clauses)).when(configuration).getDebouncing();
+    return new TestCondition(configuration);
+  }
+
+  private static void assertViolated(final TestCondition condition, final double value) {
+    try {
+      condition.evaluate(value);
+      fail("The condition should have been violated");
+    } catch (final UsageThresholdConditionViolatedException ex) {
+      // Expected
+    }
+  }
+
+  /*
+   * Violated whenever the value is above 1, with the value as proximity
+   */
+  private class TestCondition extends AbstractThresholdCondition<UsageThresholdConfiguration> {
+
+    private double value;
+
+    private TestCondition(final UsageThresholdConfiguration configuration) {
+      super(configuration, logger);
+    }
+
+    private void evaluate(final double value) throws UsageThresholdConditionViolatedException {
+      this.value = value;
+      checkOrThrow(this);
+    }
+
+    @Override
+    protected void doEvaluate() {
+      setProximity(value);
+      if (value > 1d) {
+        violated("Value at " + value);
+      }
+    }
+
+    @Override
+    protected void doEvaluate(final Map<String, MemoryUsage> memoryUsages) {
+      doEvaluate();
+    }
+
+    @Override
+    protected Clock getClock() {
+      return clock;
+    }
+
+    @Override
+    protected String describe() {
+      return "Value above 1";
+    }
+
+  }
+
+}
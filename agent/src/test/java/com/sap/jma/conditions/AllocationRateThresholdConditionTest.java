@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import static com.sap.jma.conditions.ConditionChecks.checkOrThrow;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.argThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.sap.jma.conditions.ConditionChecks.UsageThresholdConditionViolatedException;
+import com.sap.jma.configuration.AllocationRateThresholdConfiguration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import com.sun.management.ThreadMXBean;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class AllocationRateThresholdConditionTest {
+
+  @Rule
+  public final ExpectedException expectedException = ExpectedException.none();
+
+  private final Clock clock = mock(Clock.class);
+
+  private final ThreadMXBean threadBean = mock(ThreadMXBean.class);
+
+  private final Logger logger = mock(Logger.class);
+
+  @Test
+  public void testAllocatedBytes() {
+    assertThat(AllocationRateThresholdCondition.getAllocatedBytes(
+        new long[] {1L, 2L, 4L}, new long[] {100L, 200L, 400L},
+        new long[] {1L, 3L, 4L, 5L}, new long[] {150L, 30L, -1L, 50L}), is(130L));
+    assertThat(AllocationRateThresholdCondition.getAllocatedBytes(
+        new long[0], new long[0], new long[] {1L}, new long[] {42L}), is(42L));
+  }
+
+  @Test
+  public void testRateBelowThreshold() throws Exception {
+    when(clock.getMillis()).thenReturn(0L, 1000L);
+    when(threadBean.getAllThreadIds()).thenReturn(new long[] {2L, 1L});
+    when(threadBean.getThreadAllocatedBytes(any(long[].class)))
+        .thenReturn(new long[] {0L, 0L}, new long[] {512L * 1024, 256L * 1024});
+
+    final AllocationRateThresholdCondition condition = createCondition(">1MB/s/2s");
+
+    checkOrThrow(condition);
+    verify(logger).debug("First measurement of the allocation rate");
+
+    checkOrThrow(condition);
+    verify(logger).debug(rendered("JVM allocation rate at 0.75MB/s, configured threshold is "
+        + "1MB/s"));
+    assertThat(condition.getProximity(), is(0.75d));
+  }
+
+  @Test
+  public void testRateAboveThresholdForTimeFrame() throws Exception {
+    when(clock.getMillis()).thenReturn(0L, 1000L, 2000L);
+    when(threadBean.getAllThreadIds()).thenReturn(new long[] {1L});
+    when(threadBean.getThreadAllocatedBytes(any(long[].class)))
+        .thenReturn(new long[] {0L}, new long[] {2L * 1024 * 1024},
+            new long[] {4L * 1024 * 1024});
+
+    final AllocationRateThresholdCondition condition = createCondition(">1MB/s/2s");
+
+    checkOrThrow(condition);
+    checkOrThrow(condition);
+    verify(logger).debug(rendered("JVM allocation rate at 2MB/s, above the configured "
+        + "threshold of 1MB/s for the last 1s"));
+    assertThat(condition.getProximity(), is(1d));
+
+    expectedException.expect(UsageThresholdConditionViolatedException.class);
+    expectedException.expectMessage("JVM allocation rate at 2MB/s, above the configured "
+        + "threshold of 1MB/s for the last 2s");
+
+    checkOrThrow(condition);
+  }
+
+  @Test
+  public void testRateDroppingBelowThresholdResetsTimeFrame() throws Exception {
+    when(clock.getMillis()).thenReturn(0L, 1000L, 2000L, 3000L);
+    when(threadBean.getAllThreadIds()).thenReturn(new long[] {1L});
+    when(threadBean.getThreadAllocatedBytes(any(long[].class)))
+        .thenReturn(new long[] {0L}, new long[] {2L * 1024 * 1024},
+            new long[] {2L * 1024 * 1024}, new long[] {4L * 1024 * 1024});
+
+    final AllocationRateThresholdCondition condition = createCondition(">1MB/s/2s");
+
+    checkOrThrow(condition);
+    checkOrThrow(condition);
+    checkOrThrow(condition);
+    checkOrThrow(condition);
+
+    verify(logger).debug(rendered("JVM allocation rate at 0MB/s, configured threshold is "
+        + "1MB/s"));
+    assertThat(condition.getProximity(), is(1d));
+  }
+
+  @Test
+  public void testDescription() throws Exception {
+    assertThat(createCondition(">800MB/s/30s").toString(),
+        is("JVM allocation rate above 800MB/s for 30s"));
+  }
+
+  private AllocationRateThresholdCondition createCondition(final String value)
+      throws Exception {
+    doReturn(true).when(logger).isDebugEnabled();
+    return new AllocationRateThresholdCondition(AllocationRateThresholdConfiguration.parse(value),
+        threadBean, logger) {
+      @Override
+      protected Clock getClock() {
+        return clock;
+      }
+    };
+  }
+
+  private static CharSequence rendered(final String description) {
+    return argThat(Matchers.<CharSequence>hasToString(description));
+  }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import static com.sap.jma.conditions.ConditionChecks.checkOrThrow;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.argThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.sap.jma.conditions.ConditionChecks.UsageThresholdConditionViolatedException;
+import com.sap.jma.configuration.ClassHistogramThresholdConfiguration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.vms.ClassHistogram;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+public class ClassHistogramThresholdConditionTest {
+
+  private final ClassHistogram classHistogram = mock(ClassHistogram.class);
+
+  private final Logger logger = mock(Logger.class);
+
+  @Test
+  public void testInstances() throws Exception {
+    final ClassHistogramThresholdCondition condition =
+        createCondition("com.acme.Session", ">500000");
+
+    doReturn(250000L).when(classHistogram).getInstances(0);
+    doReturn(12L * 1024 * 1024).when(classHistogram).getBytes(0);
+    checkOrThrow(condition);
+    assertThat(condition.getProximity(), closeTo(0.5d, 1e-9));
+    verify(logger).debug(rendered("Live instances of the class 'com.acme.Session' at 250000 "
+        + "(12MB), configured threshold is 500000"));
+
+    doReturn(600000L).when(classHistogram).getInstances(0);
+    doReturn(24L * 1024 * 1024).when(classHistogram).getBytes(0);
+    try {
+      checkOrThrow(condition);
+      fail("The condition should have been violated");
+    } catch (final UsageThresholdConditionViolatedException ex) {
+      assertThat(ex.getMessage(), is("Live instances of the class 'com.acme.Session' at 600000 "
+          + "(24MB), configured threshold is 500000"));
+    }
+  }
+
+  @Test
+  public void testBytes() throws Exception {
+    final ClassHistogramThresholdCondition condition = createCondition("com.acme.*", ">512MB");
+
+    doReturn(3000L).when(classHistogram).getInstances(0);
+    doReturn(768L * 1024 * 1024).when(classHistogram).getBytes(0);
+    try {
+      checkOrThrow(condition);
+      fail("The condition should have been violated");
+    } catch (final UsageThresholdConditionViolatedException ex) {
+      assertThat(ex.getMessage(), is("Live instances of the classes 'com.acme.*' at 768MB (3000 "
+          + "instances), configured threshold is 512MB"));
+    }
+
+    assertThat(condition.toString(), is("Live instances of the classes 'com.acme.*' above 512MB"));
+  }
+
+  @Test
+  public void testGrowth() throws Exception {
+    final ClassHistogramThresholdCondition condition =
+        createCondition("com.acme.Session", "+20%");
+
+    doReturn(1000L, 1100L, 1400L).when(classHistogram).getInstances(0);
+
+    checkOrThrow(condition);
+    verify(logger).debug("First sample of the live instances of %s",
+        "the class 'com.acme.Session'");
+
+    checkOrThrow(condition);
+    assertThat(condition.getProximity(), closeTo(0.5d, 1e-9));
+
+    // Growth is measured against the previous histogram, not the first one
+    try {
+      checkOrThrow(condition);
+      fail("The condition should have been violated");
+    } catch (final UsageThresholdConditionViolatedException ex) {
+      assertThat(ex.getMessage(), is("Live instances of the class 'com.acme.Session' grew by "
+          + "27.27% since the previous class histogram (from 1100 to 1400), configured "
+          + "threshold is +20%"));
+    }
+  }
+
+  @Test
+  public void testClassHistogramNotAvailable() throws Exception {
+    final ClassHistogramThresholdCondition condition =
+        createCondition("com.acme.Session", ">500000");
+
+    doReturn(-1L).when(classHistogram).getInstances(0);
+    doReturn(-1L).when(classHistogram).getBytes(0);
+    checkOrThrow(condition);
+
+    assertThat(condition.getProximity(), is(0d));
+  }
+
+  private ClassHistogramThresholdCondition createCondition(final String classPattern,
+                                                           final String value)
+      throws Exception {
+    doReturn(true).when(logger).isDebugEnabled();
+    doReturn(0).when(classHistogram).register(classPattern);
+    return new ClassHistogramThresholdCondition(
+        ClassHistogramThresholdConfiguration.parse(classPattern, value), classHistogram, logger);
+  }
+
+  private static CharSequence rendered(final String description) {
+    return argThat(Matchers.<CharSequence>hasToString(description));
+  }
+
+}
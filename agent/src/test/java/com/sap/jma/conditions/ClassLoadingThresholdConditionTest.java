@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import static com.sap.jma.conditions.ConditionChecks.checkOrThrow;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.sap.jma.conditions.ConditionChecks.UsageThresholdConditionViolatedException;
+import com.sap.jma.configuration.ClassLoadingThresholdConfiguration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import com.sap.jma.vms.ClassLoaderStatistics.ClassLoaderType;
+import com.sap.jma.vms.ClassLoaderStatistics;
+import java.lang.management.ClassLoadingMXBean;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ClassLoadingThresholdConditionTest {
+
+  @Rule
+  public final ExpectedException expectedException = ExpectedException.none();
+
+  private final Clock clock = mock(Clock.class);
+
+  private final ClassLoadingMXBean classLoadingBean = mock(ClassLoadingMXBean.class);
+
+  private final ClassLoaderStatistics classLoaderStatistics = mock(ClassLoaderStatistics.class);
+
+  private final Logger logger = mock(Logger.class);
+
+  @Test
+  public void testRateBelowThreshold() throws Exception {
+    when(clock.getMillis()).thenReturn(0L, 60000L);
+    when(classLoadingBean.getTotalLoadedClassCount()).thenReturn(1000L, 4000L);
+
+    final ClassLoadingThresholdCondition condition = createCondition(">100/s/1m");
+
+    checkOrThrow(condition);
+    verify(logger).debug("First measurement of the class loading rate");
+
+    checkOrThrow(condition);
+    verify(logger).debug("Classes loaded at 50/s over the last 1m, configured threshold is "
+        + "100/s");
+    assertThat(condition.getProximity(), is(0.5d));
+  }
+
+  @Test
+  public void testNetRateAboveThresholdReportsClassLoadersOnce() throws Exception {
+    when(clock.getMillis()).thenReturn(0L, 30000L, 60000L, 61000L);
+    when(classLoadingBean.getTotalLoadedClassCount()).thenReturn(1000L, 2000L, 3000L, 3000L);
+    when(classLoadingBean.getUnloadedClassCount()).thenReturn(0L, 0L, 600L, 600L);
+    final ClassLoaderType delegatingClassLoader = mock(ClassLoaderType.class);
+    doReturn("jdk.internal.reflect.DelegatingClassLoader").when(delegatingClassLoader).getName();
+    doReturn(1400).when(delegatingClassLoader).getClassLoaderCount();
+    doReturn(1400L).when(delegatingClassLoader).getClassCount();
+    doReturn(1024L * 1024L).when(delegatingClassLoader).getChunkSizeInBytes();
+    doReturn(Arrays.asList(delegatingClassLoader)).when(classLoaderStatistics)
+        .getClassLoaderTypes();
+
+    final ClassLoadingThresholdCondition condition = createCondition("net>20/s/1m");
+
+    checkOrThrow(condition);
+    checkOrThrow(condition);
+    verify(logger).debug("Classes net at 33.33/s over the last 0.5m, configured threshold is "
+        + "20/s");
+
+    try {
+      checkOrThrow(condition);
+      fail("The condition should have been violated");
+    } catch (final UsageThresholdConditionViolatedException ex) {
+      assertThat(ex.getMessage(), containsString("Classes net at 23.33/s over the last 1m, "
+          + "configured threshold is 20/s; class loaders by metaspace usage:"));
+      assertThat(ex.getMessage(), containsString("'jdk.internal.reflect.DelegatingClassLoader': "
+          + "1400 instance(s), 1400 classes, 1024KB"));
+    }
+
+    checkOrThrow(condition);
+    verify(logger).debug("%s; already reported", "Classes net at 22.95/s over the last 1.02m, "
+        + "configured threshold is 20/s");
+  }
+
+  @Test
+  public void testClassLoaderStatisticsNotAvailable() throws Exception {
+    when(clock.getMillis()).thenReturn(0L, 1000L);
+    when(classLoadingBean.getUnloadedClassCount()).thenReturn(0L, 100L);
+    final IllegalStateException cause = new IllegalStateException("Not supported");
+    doThrow(cause).when(classLoaderStatistics).getClassLoaderTypes();
+
+    final ClassLoadingThresholdCondition condition = createCondition("unloaded>10/s/1s");
+
+    checkOrThrow(condition);
+
+    expectedException.expect(UsageThresholdConditionViolatedException.class);
+    expectedException.expectMessage("Classes unloaded at 100/s over the last 1s, configured "
+        + "threshold is 10/s; class loader statistics not available");
+
+    try {
+      checkOrThrow(condition);
+    } finally {
+      verify(logger).error("Cannot collect the class loader statistics", cause);
+    }
+  }
+
+  @Test
+  public void testDescription() throws Exception {
+    assertThat(createCondition(">50/s").toString(), is("Classes loaded above 50/s over 1m"));
+    assertThat(createCondition("net>2.5/s/10m").toString(),
+        is("Classes net above 2.5/s over 10m"));
+  }
+
+  private ClassLoadingThresholdCondition createCondition(final String value) throws Exception {
+    return new ClassLoadingThresholdCondition(ClassLoadingThresholdConfiguration.parse(value),
+        classLoadingBean, classLoaderStatistics, logger) {
+      @Override
+      protected Clock getClock() {
+        return clock;
+      }
+    };
+  }
+
+}
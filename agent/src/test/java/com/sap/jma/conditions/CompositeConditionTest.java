@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import static com.sap.jma.conditions.ConditionChecks.checkOrThrow;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.sap.jma.conditions.ConditionChecks.UsageThresholdConditionViolatedException;
+import com.sap.jma.configuration.CompositeConditionConfiguration;
+import com.sap.jma.configuration.Configuration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import com.sap.jma.vms.JavaVirtualMachine;
+import com.sap.jma.vms.MemoryPool;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class CompositeConditionTest {
+
+  @Rule
+  public final ExpectedException expectedException = ExpectedException.none();
+
+  private final Clock clock = mock(Clock.class);
+
+  private final Logger logger = mock(Logger.class);
+
+  private final JavaVirtualMachine jvm = mock(JavaVirtualMachine.class);
+
+  private final UsageThresholdCondition<?> heapCondition = mock(UsageThresholdCondition.class);
+
+  private final UsageThresholdCondition<?> oldGenCondition = mock(UsageThresholdCondition.class);
+
+  private final UsageThresholdCondition<?> directBuffersCondition =
+      mock(UsageThresholdCondition.class);
+
+  @Before
+  public void setUp() {
+    final MemoryPool heapPool = mockMemoryPool(MemoryPool.Type.HEAP, heapCondition);
+    doReturn(heapPool).when(jvm).getHeapMemoryPool();
+    doReturn(Arrays.asList(
+        mockMemoryPool(MemoryPool.Type.OLD_GEN, oldGenCondition),
+        mockMemoryPool(MemoryPool.Type.DIRECT_BUFFERS, directBuffersCondition)))
+        .when(jvm).getMemoryPools();
+
+    doReturn(new Evaluation()).when(heapCondition).check(any(Map.class));
+    doReturn(new Evaluation()).when(oldGenCondition).check(any(Map.class));
+    doReturn(new Evaluation()).when(directBuffersCondition).check(any(Map.class));
+  }
+
+  @Test
+  public void testAndShortCircuits() throws Exception {
+    doReturn(0.5d).when(heapCondition).getProximity();
+
+    final CompositeCondition condition = createCondition("heap >85% AND old_gen >90%");
+
+    checkOrThrow(condition);
+
+    verify(heapCondition).check(any(Map.class));
+    verify(oldGenCondition, never()).check(any(Map.class));
+    verify(logger).debug("Condition '%s' not violated", "leak");
+    assertThat(condition.getProximity(), is(0.5d));
+  }
+
+  @Test
+  public void testAndViolated() throws Exception {
+    violate(heapCondition, "Heap above 85%");
+    violate(oldGenCondition, "Old gen above 90%");
+
+    final CompositeCondition condition = createCondition("heap >85% AND old_gen >90%");
+
+    try {
+      checkOrThrow(condition);
+      fail("The condition should have been violated");
+    } catch (final UsageThresholdConditionViolatedException ex) {
+      assertThat(ex.getMessage(), containsString(
+          "Condition 'leak' (heap >85% AND old_gen >90%) violated"));
+      assertThat(ex.getMessage(), containsString("Heap above 85%"));
+      assertThat(ex.getMessage(), containsString("Old gen above 90%"));
+    }
+  }
+
+  @Test
+  public void testOrShortCircuits() throws Exception {
+    violate(heapCondition, "Heap increased by 10%");
+
+    final CompositeCondition condition =
+        createCondition("heap +10%/5m or direct_buffers > 1GB");
+
+    expectedException.expect(UsageThresholdConditionViolatedException.class);
+    expectedException.expectMessage("Condition 'leak' (heap +10%/5m OR direct_buffers >1GB) "
+        + "violated");
+
+    try {
+      checkOrThrow(condition);
+    } finally {
+      verify(directBuffersCondition, never()).check(any(Map.class));
+    }
+  }
+
+  @Test
+  public void testForRequiresTheConditionToHold() throws Exception {
+    when(clock.getMillis()).thenReturn(0L, 60000L, 90000L, 120000L, 240000L);
+    violate(heapCondition, "Heap above 85%");
+    doReturn(violation("Old gen above 90%"))
+        .doReturn(violation("Old gen above 90%"))
+        .doReturn(new Evaluation())
+        .doReturn(violation("Old gen above 90%"))
+        .doReturn(violation("Old gen above 90%"))
+        .when(oldGenCondition).check(any(Map.class));
+
+    final CompositeCondition condition =
+        createCondition("(heap >85% AND old_gen >90%) FOR 2m");
+
+    // Holding since 0ms
+    checkOrThrow(condition);
+    checkOrThrow(condition);
+    // The streak is interrupted at 90000ms, and starts again at 120000ms
+    checkOrThrow(condition);
+    checkOrThrow(condition);
+
+    expectedException.expect(UsageThresholdConditionViolatedException.class);
+    expectedException.expectMessage("Held for 120000 milliseconds, at least 2m required");
+
+    checkOrThrow(condition);
+  }
+
+  @Test
+  public void testNot() throws Exception {
+    violate(heapCondition, "Heap above 85%");
+
+    final CompositeCondition condition = createCondition("heap >85% AND NOT old_gen >90%");
+
+    expectedException.expect(UsageThresholdConditionViolatedException.class);
+    expectedException.expectMessage("Not violated: old_gen >90%");
+
+    checkOrThrow(condition);
+  }
+
+  @Test
+  public void testOnClassHistogram() throws Exception {
+    assertThat(CompositeConditionConfiguration.parse("leak",
+        "heap >85% AND NOT (class.com.acme.Session >500000 OR old_gen >90%) FOR 2m")
+        .isOnClassHistogram(), is(true));
+    assertThat(CompositeConditionConfiguration.parse("leak", "heap >85% AND old_gen >90%")
+        .isOnClassHistogram(), is(false));
+  }
+
+  @Test
+  public void testUnsupportedMemoryPool() throws Exception {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage(
+        "The memory pool of the threshold 'eden' is not supported by this JVM");
+
+    createCondition("heap >85% AND eden >90%");
+  }
+
+  private CompositeCondition createCondition(final String value) throws Exception {
+    final CompositeConditionConfiguration configuration =
+        CompositeConditionConfiguration.parse("leak", value);
+    final CompositeCondition compiled = (CompositeCondition) configuration.toCondition(jvm);
+    return new CompositeCondition(configuration, compiled.getRoot(), logger) {
+      @Override
+      protected Clock getClock() {
+        return clock;
+      }
+    };
+  }
+
+  private static MemoryPool mockMemoryPool(final MemoryPool.Type type,
+                                           final UsageThresholdCondition<?> condition) {
+    final MemoryPool memoryPool = mock(MemoryPool.class);
+    doReturn(type).when(memoryPool).getType();
+    doAnswer(new Answer<UsageThresholdCondition<?>>() {
+      @Override
+      public UsageThresholdCondition<?> answer(final InvocationOnMock invocation) {
+        final Configuration configuration = (Configuration) invocation.getArguments()[0];
+        return type.getThreshold(configuration) == null ? null : condition;
+      }
+    }).when(memoryPool).toCondition(any(Configuration.class));
+    return memoryPool;
+  }
+
+  private static void violate(final UsageThresholdCondition<?> condition, final String message) {
+    doReturn(violation(message)).when(condition).check(any(Map.class));
+  }
+
+  private static Evaluation violation(final String message) {
+    final Evaluation evaluation = new Evaluation();
+    evaluation.violate(message);
+    return evaluation;
+  }
+
+}
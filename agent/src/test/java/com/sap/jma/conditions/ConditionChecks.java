@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import java.lang.management.MemoryUsage;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Checks conditions in tests, reporting a violation by throwing, so that tests can expect it
+ * with {@link org.junit.rules.ExpectedException} or assert on its reason.
+ */
+public final class ConditionChecks {
+
+  private ConditionChecks() {
+  }
+
+  public static void checkOrThrow(final UsageThresholdCondition<?> condition)
+      throws UsageThresholdConditionViolatedException {
+    checkOrThrow(condition, Collections.<String, MemoryUsage>emptyMap());
+  }
+
+  public static void checkOrThrow(final UsageThresholdCondition<?> condition,
+                                  final Map<String, MemoryUsage> memoryUsages)
+      throws UsageThresholdConditionViolatedException {
+    final Evaluation evaluation = condition.check(memoryUsages);
+    if (evaluation.isViolated()) {
+      throw new UsageThresholdConditionViolatedException(evaluation.getReason().toString());
+    }
+  }
+
+  public static final class UsageThresholdConditionViolatedException extends Exception {
+
+    private UsageThresholdConditionViolatedException(final String message) {
+      super(message);
+    }
+
+  }
+
+}
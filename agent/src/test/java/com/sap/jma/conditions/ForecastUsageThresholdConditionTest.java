@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import static com.sap.jma.conditions.ConditionChecks.checkOrThrow;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.sap.jma.conditions.ConditionChecks.UsageThresholdConditionViolatedException;
+import com.sap.jma.configuration.ForecastUsageThresholdConfiguration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import com.sap.jma.vms.MemoryPool;
+import java.lang.management.MemoryUsage;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ForecastUsageThresholdConditionTest {
+
+  @Rule
+  public final ExpectedException expectedException = ExpectedException.none();
+
+  private final Clock clock = mock(Clock.class);
+
+  private final MemoryPool memoryPool = mock(MemoryPool.class);
+
+  private final MemoryUsage memoryUsage = mock(MemoryUsage.class);
+
+  private final Logger logger = mock(Logger.class);
+
+  @Before
+  public void setup() {
+    doReturn("TestPool").when(memoryPool).getName();
+    doReturn(memoryUsage).when(memoryPool).getMemoryUsage();
+    doReturn(1000L).when(memoryUsage).getMax();
+  }
+
+  @Test
+  public void testForecastViolation() throws Exception {
+    final ForecastUsageThresholdCondition condition = createCondition("<15s");
+
+    // The post-GC usage grows by 0.1% of the maximum every second, from 50%
+    long timestamp = 0L;
+    try {
+      for (; timestamp < 60000L; timestamp += 1000L) {
+        when(clock.getMillis()).thenReturn(timestamp);
+        when(memoryUsage.getUsed()).thenReturn(500L + timestamp / 100L);
+        checkOrThrow(condition);
+      }
+
+      fail("The condition should have been violated");
+    } catch (final UsageThresholdConditionViolatedException ex) {
+      // At 86% usage, 14% are left, which are exhausted in 14s
+      assertThat(timestamp, is(36000L));
+      assertThat(ex.getMessage(), is("Memory pool 'TestPool' at 86% usage, forecast to be "
+          + "exhausted in 14s (R^2: 1), configured horizon is 15s with R^2 of at least 0.8"));
+    }
+  }
+
+  @Test
+  public void testForecastRequiresCoveredWindow() throws Exception {
+    final ForecastUsageThresholdCondition condition = createCondition("<15s/30s");
+
+    // Fast growth, but too few post-GC minima so far
+    for (long timestamp = 0L; timestamp <= 12000L; timestamp += 3000L) {
+      when(clock.getMillis()).thenReturn(timestamp);
+      when(memoryUsage.getUsed()).thenReturn(800L + timestamp / 100L);
+      checkOrThrow(condition);
+    }
+
+    assertThat(condition.getProximity(), is(1d));
+  }
+
+  @Test
+  public void testNoGrowth() throws Exception {
+    final ForecastUsageThresholdCondition condition = createCondition("<15s");
+
+    for (long timestamp = 0L; timestamp <= 60000L; timestamp += 1000L) {
+      when(clock.getMillis()).thenReturn(timestamp);
+      when(memoryUsage.getUsed()).thenReturn(900L);
+      checkOrThrow(condition);
+    }
+
+    assertThat(condition.getProximity(), closeTo(0d, 1e-9));
+    verify(logger, atLeastOnce()).debug("Memory pool '%s' at %s%% usage, post-GC usage not "
+        + "growing", "TestPool", "90");
+  }
+
+  @Test
+  public void testMemoryPoolWithoutMaximum() throws Exception {
+    doReturn(-1L).when(memoryUsage).getMax();
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The memory pool 'TestPool' has no maximum size, so its "
+        + "exhaustion cannot be forecast");
+
+    ForecastUsageThresholdConfiguration.parse(MemoryPool.Type.HEAP, "<15m")
+        .toCondition(memoryPool);
+  }
+
+  @Test
+  public void testDescription() throws Exception {
+    assertThat(createCondition("<15m").toString(),
+        is("Memory pool 'TestPool' forecast to be exhausted in less than 15m"));
+  }
+
+  private ForecastUsageThresholdCondition createCondition(final String value) throws Exception {
+    return new ForecastUsageThresholdCondition(
+        ForecastUsageThresholdConfiguration.parse(MemoryPool.Type.HEAP, value), memoryPool,
+        logger) {
+      @Override
+      protected Clock getClock() {
+        return clock;
+      }
+    };
+  }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import static com.sap.jma.conditions.ConditionChecks.checkOrThrow;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.argThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.sap.jma.conditions.ConditionChecks.UsageThresholdConditionViolatedException;
+import com.sap.jma.configuration.GarbageCollectionOverheadThresholdConfiguration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import com.sap.jma.vms.MemoryPool;
+import com.sap.jma.vms.Snapshot;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
+import java.util.Collections;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class GarbageCollectionOverheadThresholdConditionTest {
+
+  @Rule
+  public final ExpectedException expectedException = ExpectedException.none();
+
+  private final Clock clock = mock(Clock.class);
+
+  private final GarbageCollectorMXBean youngCollector = mock(GarbageCollectorMXBean.class);
+
+  private final GarbageCollectorMXBean oldCollector = mock(GarbageCollectorMXBean.class);
+
+  private final Logger logger = mock(Logger.class);
+
+  @Test
+  public void testNoCollectionTimeReported() throws Exception {
+    doReturn(-1L).when(youngCollector).getCollectionTime();
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage(
+        "No garbage collector of the JVM reports its collection time");
+
+    new GarbageCollectionOverheadThresholdCondition(
+        GarbageCollectionOverheadThresholdConfiguration.parse("20%"),
+        Collections.singletonList(youngCollector), logger);
+  }
+
+  @Test
+  public void testOverheadBelowThreshold() throws Exception {
+    when(clock.getMillis()).thenReturn(0L, 60000L);
+    when(youngCollector.getCollectionTime()).thenReturn(0L, 0L, 3000L);
+    when(oldCollector.getCollectionTime()).thenReturn(0L, 0L, 3000L);
+
+    final GarbageCollectionOverheadThresholdCondition condition = createCondition(">20%/1m");
+
+    checkOrThrow(condition);
+    verify(logger).debug("First measurement of the garbage collection overhead");
+
+    checkOrThrow(condition);
+    verify(logger).debug(rendered("Garbage collection overhead at 10% over the last 1m, "
+        + "configured threshold is 20%"));
+    assertThat(condition.getProximity(), is(0.5d));
+  }
+
+  @Test
+  public void testOverheadAboveThresholdOnlyOnceTimeFrameIsCovered() throws Exception {
+    when(clock.getMillis()).thenReturn(0L, 30000L, 60000L);
+    when(youngCollector.getCollectionTime()).thenReturn(0L, 0L, 15000L, 30000L);
+    when(oldCollector.getCollectionTime()).thenReturn(-1L);
+
+    final GarbageCollectionOverheadThresholdCondition condition = createCondition(">20%/1m");
+
+    checkOrThrow(condition);
+    checkOrThrow(condition);
+    verify(logger).debug(rendered("Garbage collection overhead at 50% over the last 0.5m, "
+        + "configured threshold is 20%"));
+
+    expectedException.expect(UsageThresholdConditionViolatedException.class);
+    expectedException.expectMessage("Garbage collection overhead at 50% over the last 1m, "
+        + "configured threshold is 20%");
+
+    checkOrThrow(condition);
+  }
+
+  @Test
+  public void testSlidingTimeFrame() throws Exception {
+    when(clock.getMillis()).thenReturn(0L, 30000L, 60000L, 90000L);
+    when(youngCollector.getCollectionTime()).thenReturn(0L, 0L, 30000L, 30000L, 30000L);
+    when(oldCollector.getCollectionTime()).thenReturn(-1L);
+
+    final GarbageCollectionOverheadThresholdCondition condition = createCondition(">60%/1m");
+
+    checkOrThrow(condition);
+    checkOrThrow(condition);
+    checkOrThrow(condition);
+    assertThat(condition.measurements.size(), is(3));
+
+    checkOrThrow(condition);
+    assertThat(condition.measurements.size(), is(3));
+    assertThat(condition.measurements.getFirstTimestamp(), is(30000L));
+    verify(logger).debug(rendered("Garbage collection overhead at 0% over the last 1m, "
+        + "configured threshold is 60%"));
+  }
+
+  @Test
+  public void testCollectionTimeIsTakenFromSnapshot() throws Exception {
+    final MemoryPoolMXBean memoryPoolBean = mock(MemoryPoolMXBean.class);
+    doReturn("PS Old Gen").when(memoryPoolBean).getName();
+    doReturn(new MemoryUsage(0L, 42L, 100L, 100L)).when(memoryPoolBean).getUsage();
+    final GarbageCollectorMXBean sampledCollector = mock(GarbageCollectorMXBean.class);
+    when(sampledCollector.getCollectionTime()).thenReturn(0L, 6000L);
+    final Snapshot snapshot = new Snapshot(Collections.singletonList(memoryPoolBean),
+        Collections.<MemoryPool>emptyList(), Collections.singletonList(sampledCollector));
+
+    when(clock.getMillis()).thenReturn(0L, 60000L);
+    doReturn(0L).when(youngCollector).getCollectionTime();
+    doReturn(-1L).when(oldCollector).getCollectionTime();
+
+    final GarbageCollectionOverheadThresholdCondition condition = createCondition(">20%/1m");
+
+    condition.check(snapshot.sample(Collections.<String, MemoryUsage>emptyMap()));
+    condition.check(snapshot.sample(Collections.<String, MemoryUsage>emptyMap()));
+    verify(logger).debug(rendered("Garbage collection overhead at 10% over the last 1m, "
+        + "configured threshold is 20%"));
+    // Only read when the condition was created
+    verify(youngCollector).getCollectionTime();
+  }
+
+  @Test
+  public void testDescription() throws Exception {
+    doReturn(0L).when(youngCollector).getCollectionTime();
+
+    assertThat(createCondition("20%").toString(),
+        is("Garbage collection overhead above 20% over 1m"));
+  }
+
+  private GarbageCollectionOverheadThresholdCondition createCondition(final String value)
+      throws Exception {
+    return new GarbageCollectionOverheadThresholdCondition(
+        GarbageCollectionOverheadThresholdConfiguration.parse(value),
+        Arrays.asList(youngCollector, oldCollector), logger) {
+      @Override
+      protected Clock getClock() {
+        return clock;
+      }
+    };
+  }
+
+  /*
+   * The descriptions are rendered only when logged
+   */
+  private static CharSequence rendered(final String description) {
+    return argThat(Matchers.<CharSequence>hasToString(description));
+  }
+
+}
@@ -6,16 +6,18 @@
 
 package com.sap.jma.conditions;
 
-import static org.hamcrest.Matchers.hasSize;
+import static com.sap.jma.conditions.ConditionChecks.checkOrThrow;
+import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.is;
-import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.argThat;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import com.sap.jma.conditions.UsageThresholdCondition.UsageThresholdConditionViolatedException;
+import com.sap.jma.conditions.ConditionChecks.UsageThresholdConditionViolatedException;
 import com.sap.jma.configuration.IncreaseOverTimeFrameUsageThresholdConfiguration;
 import com.sap.jma.configuration.IntervalTimeUnit;
 import com.sap.jma.logging.Logger;
@@ -24,6 +26,7 @@ import com.sap.jma.vms.MemoryPool;
 import java.lang.management.MemoryUsage;
 import java.util.concurrent.TimeUnit;
 import org.hamcrest.Description;
+import org.hamcrest.Matchers;
 import org.hamcrest.TypeSafeMatcher;
 import org.junit.Before;
 import org.junit.Rule;
@@ -86,36 +89,54 @@ public class IncreaseOverTimeFrameThresholdConditionTest {
 
     assertThat(condition, hasMeasurementPeriodInMillis(1500L));
 
-    condition.evaluate();
+    checkOrThrow(condition);
     verify(logger).debug("First measurement for memory pool '%s'", "TestPool");
 
-    assertThat(condition.measurements, hasSize(1));
-    final IncreaseOverTimeFrameUsageThresholdCondition.Measurement firstPoint =
-        condition.measurements.peek();
-    assertThat(firstPoint.getTimestamp(), is(400L));
+    assertThat(condition.measurements.size(), is(1));
+    assertThat(condition.measurements.getFirstTimestamp(), is(400L));
 
     // 2nd eval should not add a measurement point, too early
-    condition.evaluate();
+    checkOrThrow(condition);
 
-    assertThat(condition.measurements, hasSize(1));
-    assertThat(condition.measurements.peek(), sameInstance(firstPoint));
+    assertThat(condition.measurements.size(), is(1));
+    assertThat(condition.measurements.getFirstTimestamp(), is(400L));
 
     // 3rd eval should add a measurement point, perform check, and fail
     expectedException.expect(UsageThresholdConditionViolatedException.class);
     expectedException.expectMessage(is("Memory pool 'TestPool' at 50% usage, increased from 10% "
         + "by more than maximum 20% increase (actual increase: 40%) over the last 3.0s"));
     try {
-      condition.evaluate();
+      checkOrThrow(condition);
     } finally {
-      assertThat(condition.measurements, hasSize(2));
-      assertThat(condition.measurements.getFirst(), sameInstance(firstPoint));
+      assertThat(condition.measurements.size(), is(2));
+      assertThat(condition.measurements.getFirstTimestamp(), is(400L));
 
-      final IncreaseOverTimeFrameUsageThresholdCondition.Measurement secondPoint =
-          condition.measurements.getLast();
-      assertThat(secondPoint.getTimestamp(), is(3400L));
+      assertThat(condition.measurements.getLastTimestamp(), is(3400L));
     }
   }
 
+  @Test
+  public void testUndefinedMaximumFallsBackToCommitted() throws Exception {
+    // Like the eden space of G1, which has no maximum
+    doReturn(MemoryPool.Type.EDEN_SPACE).when(memoryPool).getType();
+    doReturn(-1L).when(memoryUsage).getMax();
+    doReturn(50L).when(memoryUsage).getCommitted();
+    when(memoryUsage.getUsed()).thenReturn(10L, 25L);
+    when(clock.getMillis()).thenReturn(0L, 1000L);
+
+    final IncreaseOverTimeFrameUsageThresholdCondition condition =
+        createCondition(20d, 1d, TimeUnit.SECONDS);
+
+    checkOrThrow(condition);
+    assertThat(condition.measurements.getFirstValue(), is(20d));
+
+    expectedException.expect(UsageThresholdConditionViolatedException.class);
+    expectedException.expectMessage("Memory pool 'TestPool' at 50% usage, increased from 20% "
+        + "by more than maximum 20% increase (actual increase: 30%) over the last 1.0s");
+
+    checkOrThrow(condition);
+  }
+
   @Test
   public void testMeasurementPointAccumulationWithoutViolation() throws Exception {
     doReturn(100L).when(memoryUsage).getMax();
@@ -128,58 +149,128 @@ public class IncreaseOverTimeFrameThresholdConditionTest {
     assertThat(condition, hasMeasurementPeriodInMillis(1500L));
 
     // 1st eval: collect first measurement and do nothing else
-    condition.evaluate();
+    checkOrThrow(condition);
 
-    assertThat(condition.measurements, hasSize(1));
-    final IncreaseOverTimeFrameUsageThresholdCondition.Measurement firstPoint =
-        condition.measurements.peek();
-    assertThat(firstPoint.getTimestamp(), is(400L));
+    assertThat(condition.measurements.size(), is(1));
+    assertThat(condition.measurements.getFirstTimestamp(), is(400L));
 
     verify(logger).debug("First measurement for memory pool '%s'", "TestPool");
 
     // 2nd eval should not add a measurement point, too early to trigger dump
-    condition.evaluate();
+    checkOrThrow(condition);
 
-    assertThat(condition.measurements, hasSize(2));
-    assertThat(condition.measurements.peek(), sameInstance(firstPoint));
-    final IncreaseOverTimeFrameUsageThresholdCondition.Measurement secondPoint =
-        condition.measurements.getLast();
-    assertThat(secondPoint.getTimestamp(), is(1901L));
+    assertThat(condition.measurements.size(), is(2));
+    assertThat(condition.measurements.getFirstTimestamp(), is(400L));
+    assertThat(condition.measurements.getLastTimestamp(), is(1901L));
 
-    verify(logger).debug("Memory pool '%s' at %s%% usage, changed from %s%% by less than maximum "
-        + "%s%% increase (actual increase: %s%%) over the last %s%s", "TestPool", "5", "10", "20",
-        "-5", 1.5D, "s");
+    verify(logger).debug(rendered("Memory pool 'TestPool' at 5% usage, changed from 10% by "
+        + "less than maximum 20% increase (actual increase: -5%) over the last 1.5s"));
 
     /*
      * 3rd eval should not add a measurement point as not enough time has elapsed before
      * the previous one
      */
-    condition.evaluate();
+    checkOrThrow(condition);
 
-    assertThat(condition.measurements, hasSize(3));
-    assertThat(condition.measurements.getFirst(), sameInstance(firstPoint));
-    final IncreaseOverTimeFrameUsageThresholdCondition.Measurement thirdPoint =
-        condition.measurements.getLast();
-    assertThat(thirdPoint.getTimestamp(), is(3402L));
+    assertThat(condition.measurements.size(), is(3));
+    assertThat(condition.measurements.getFirstTimestamp(), is(400L));
+    assertThat(condition.measurements.getLastTimestamp(), is(3402L));
 
-    verify(logger).debug("Memory pool '%s' at %s%% usage, changed from %s%% by less than maximum "
-        + "%s%% increase (actual increase: %s%%) over the last %s%s", "TestPool", "24", "10", "20",
-        "14", 3.0D, "s");
+    verify(logger).debug(rendered("Memory pool 'TestPool' at 24% usage, changed from 10% by "
+        + "less than maximum 20% increase (actual increase: 14%) over the last 3.0s"));
 
     /*
      * 4th eval should remove first measurement point, perform check, and not fail because
      * usage not changed
      */
-    condition.evaluate();
-    assertThat(condition.measurements, hasSize(3));
-    assertThat(condition.measurements.getFirst(), sameInstance(secondPoint));
-    final IncreaseOverTimeFrameUsageThresholdCondition.Measurement fourthPoint =
-        condition.measurements.getLast();
-    assertThat(fourthPoint.getTimestamp(), is(5002L));
-
-    verify(logger).debug("Memory pool '%s' at %s%% usage, changed from %s%% by less than maximum "
-        + "%s%% increase (actual increase: %s%%) over the last %s%s", "TestPool", "23", "5", "20",
-        "18", 3.1D, "s");
+    checkOrThrow(condition);
+    assertThat(condition.measurements.size(), is(3));
+    assertThat(condition.measurements.getFirstTimestamp(), is(1901L));
+    assertThat(condition.measurements.getLastTimestamp(), is(5002L));
+
+    verify(logger).debug(rendered("Memory pool 'TestPool' at 23% usage, changed from 5% by "
+        + "less than maximum 20% increase (actual increase: 18%) over the last 3.1s"));
+  }
+
+  @Test
+  public void testTrendIgnoresGarbageCollectionSawtooth() throws Exception {
+    doReturn(100L).when(memoryUsage).getMax();
+
+    final IncreaseOverTimeFrameUsageThresholdCondition condition =
+        createTrendCondition("+5%/10s");
+
+    assertThat(condition.trend.getBucketPeriod(), is(1000L));
+
+    /*
+     * Between two collections the usage climbs by 30%, but the post-GC usage is flat: the
+     * condition must not trigger for a full time-frame and more
+     */
+    for (long timestamp = 0L; timestamp < 25000L; timestamp += 250L) {
+      when(clock.getMillis()).thenReturn(timestamp);
+      when(memoryUsage.getUsed()).thenReturn(20L + (timestamp % 1000L) / 250L * 10L);
+      checkOrThrow(condition);
+    }
+
+    assertThat(condition.getProximity(), closeTo(0d, 1e-9));
+  }
+
+  @Test
+  public void testTrendViolation() throws Exception {
+    doReturn(100L).when(memoryUsage).getMax();
+
+    final IncreaseOverTimeFrameUsageThresholdCondition condition =
+        createTrendCondition("+5%/10s");
+
+    // The post-GC usage grows by 1% every second, below a sawtooth of garbage collections
+    long timestamp = 0L;
+    try {
+      for (; timestamp < 25000L; timestamp += 250L) {
+        when(clock.getMillis()).thenReturn(timestamp);
+        when(memoryUsage.getUsed())
+            .thenReturn(10L + timestamp / 1000L + (3L - (timestamp % 1000L) / 250L) * 10L);
+        checkOrThrow(condition);
+      }
+
+      fail("The condition should have been violated");
+    } catch (final UsageThresholdConditionViolatedException ex) {
+      // Six post-GC minima, spanning half the time-frame, are needed
+      assertThat(timestamp, is(6000L));
+      assertThat(ex.getMessage(), is("Memory pool 'TestPool' at 46% usage, post-GC usage "
+          + "trending by 10% over 10.0s (R^2: 1), configured threshold is 5% with R^2 of at "
+          + "least 0.8"));
+    }
+  }
+
+  @Test
+  public void testTrendWithPoorFitDoesNotTrigger() throws Exception {
+    doReturn(100L).when(memoryUsage).getMax();
+
+    final IncreaseOverTimeFrameUsageThresholdCondition condition =
+        createTrendCondition("+5%/10s@0.99");
+
+    // Post-GC usage growing overall, but too erratically to be a leak with the required R^2
+    final long[] minima = {10L, 30L, 12L, 32L, 14L, 34L, 16L, 36L, 18L, 38L};
+    for (long timestamp = 0L; timestamp < 10000L; timestamp += 1000L) {
+      when(clock.getMillis()).thenReturn(timestamp);
+      when(memoryUsage.getUsed()).thenReturn(minima[(int) (timestamp / 1000L)]);
+      checkOrThrow(condition);
+    }
+
+    assertThat(condition.trend.minima.size(), is(9));
+    // The trend alone would have triggered
+    assertThat(condition.getProximity(), closeTo(1d, 1e-9));
+  }
+
+  private IncreaseOverTimeFrameUsageThresholdCondition createTrendCondition(final String value)
+      throws Exception {
+    final IncreaseOverTimeFrameUsageThresholdConfiguration configuration =
+        IncreaseOverTimeFrameUsageThresholdConfiguration.parseTrend(memoryPool.getType(), value);
+    return new IncreaseOverTimeFrameUsageThresholdCondition(configuration, memoryPool, logger) {
+      @Override
+      protected Clock getClock() {
+        return clock;
+      }
+    };
   }
 
   private IncreaseOverTimeFrameUsageThresholdCondition createCondition(final double delta,
@@ -205,4 +296,8 @@ public class IncreaseOverTimeFrameThresholdConditionTest {
     };
   }
 
+  private static CharSequence rendered(final String description) {
+    return argThat(Matchers.<CharSequence>hasToString(description));
+  }
+
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import static com.sap.jma.conditions.ConditionChecks.checkOrThrow;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.sap.jma.conditions.ConditionChecks.UsageThresholdConditionViolatedException;
+import com.sap.jma.configuration.MemoryPressureThresholdConfiguration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.vms.MemoryPressure.Stall;
+import com.sap.jma.vms.MemoryPressure.Window;
+import com.sap.jma.vms.MemoryPressure;
+import java.io.File;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class MemoryPressureThresholdConditionTest {
+
+  @Rule
+  public final ExpectedException expectedException = ExpectedException.none();
+
+  private final MemoryPressure memoryPressure = mock(MemoryPressure.class);
+
+  private final Logger logger = mock(Logger.class);
+
+  @Test
+  public void testViolation() throws Exception {
+    final MemoryPressureThresholdCondition condition = createCondition("some>10%");
+
+    doReturn(4d).when(memoryPressure).getStallPercentage(Stall.SOME, Window.AVG10);
+    checkOrThrow(condition);
+    assertThat(condition.getProximity(), closeTo(0.4d, 1e-9));
+
+    doReturn(12.5d).when(memoryPressure).getStallPercentage(Stall.SOME, Window.AVG10);
+    try {
+      checkOrThrow(condition);
+      fail("The condition should have been violated");
+    } catch (final UsageThresholdConditionViolatedException ex) {
+      assertThat(ex.getMessage(), is("Memory pressure ('some') at 12.5% over the last 10s, "
+          + "configured threshold is 10%"));
+    }
+  }
+
+  @Test
+  public void testFullPressureOverLongerWindow() throws Exception {
+    final MemoryPressureThresholdCondition condition = createCondition("full>5%/avg60");
+
+    doReturn(50d).when(memoryPressure).getStallPercentage(Stall.SOME, Window.AVG60);
+    doReturn(2d).when(memoryPressure).getStallPercentage(Stall.FULL, Window.AVG60);
+    checkOrThrow(condition);
+
+    assertThat(condition.getProximity(), closeTo(0.4d, 1e-9));
+    assertThat(condition.toString(), is("Memory pressure ('full') above 5% over 60s"));
+  }
+
+  @Test
+  public void testUnreadablePressure() throws Exception {
+    final MemoryPressureThresholdCondition condition = createCondition("some>10%");
+
+    final IOException error = new IOException("gone");
+    doThrow(error).when(memoryPressure).sample();
+    doReturn(new File("/proc/pressure/memory")).when(memoryPressure).getFile();
+
+    checkOrThrow(condition);
+
+    verify(logger).error("Cannot read the memory pressure from '/proc/pressure/memory'", error);
+  }
+
+  @Test
+  public void testNoMemoryPressure() throws Exception {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The kernel does not report memory pressure");
+
+    new MemoryPressureThresholdCondition(MemoryPressureThresholdConfiguration.parse("some>10%"),
+        null, logger);
+  }
+
+  private MemoryPressureThresholdCondition createCondition(final String value) throws Exception {
+    return new MemoryPressureThresholdCondition(MemoryPressureThresholdConfiguration.parse(value),
+        memoryPressure, logger);
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import static com.sap.jma.conditions.ConditionChecks.checkOrThrow;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.sap.jma.conditions.ConditionChecks.UsageThresholdConditionViolatedException;
+import com.sap.jma.configuration.PendingFinalizationThresholdConfiguration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import java.lang.management.MemoryMXBean;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class PendingFinalizationThresholdConditionTest {
+
+  @Rule
+  public final ExpectedException expectedException = ExpectedException.none();
+
+  private final Clock clock = mock(Clock.class);
+
+  private final MemoryMXBean memoryBean = mock(MemoryMXBean.class);
+
+  private final Logger logger = mock(Logger.class);
+
+  @Test
+  public void testCountBelowThreshold() throws Exception {
+    doReturn(4000).when(memoryBean).getObjectPendingFinalizationCount();
+
+    final PendingFinalizationThresholdCondition condition = createCondition(">10000");
+
+    checkOrThrow(condition);
+    verify(logger).debug("Objects pending finalization at 4000, configured threshold is 10000");
+    assertThat(condition.getProximity(), is(0.4d));
+  }
+
+  @Test
+  public void testCountAboveThresholdBlamesFinalizerQueue() throws Exception {
+    doReturn(12000).when(memoryBean).getObjectPendingFinalizationCount();
+
+    final PendingFinalizationThresholdCondition condition = createCondition(">10000");
+
+    expectedException.expect(UsageThresholdConditionViolatedException.class);
+    expectedException.expectMessage("Objects pending finalization at 12000, configured "
+        + "threshold is 10000; the heap is retained by the finalizer queue");
+
+    checkOrThrow(condition);
+  }
+
+  @Test
+  public void testIncreaseOnlyOnceTimeFrameIsCovered() throws Exception {
+    when(clock.getMillis()).thenReturn(0L, 30000L, 60000L);
+    when(memoryBean.getObjectPendingFinalizationCount()).thenReturn(100, 6000, 6000);
+
+    final PendingFinalizationThresholdCondition condition = createCondition("+5000/1m");
+
+    checkOrThrow(condition);
+    verify(logger).debug("First measurement of the objects pending finalization");
+
+    checkOrThrow(condition);
+    verify(logger).debug("Objects pending finalization increased by 5900 over the last 0.5m "
+        + "(to 6000), configured threshold is +5000");
+
+    expectedException.expect(UsageThresholdConditionViolatedException.class);
+    expectedException.expectMessage("Objects pending finalization increased by 5900 over the "
+        + "last 1m (to 6000), configured threshold is +5000; the heap is retained by the "
+        + "finalizer queue");
+
+    checkOrThrow(condition);
+  }
+
+  @Test
+  public void testDescription() throws Exception {
+    assertThat(createCondition(">10000").toString(),
+        is("Objects pending finalization above 10000"));
+    assertThat(createCondition("+5000/10m").toString(),
+        is("Objects pending finalization increase above 5000 over 10m"));
+  }
+
+  private PendingFinalizationThresholdCondition createCondition(final String value)
+      throws Exception {
+    return new PendingFinalizationThresholdCondition(
+        PendingFinalizationThresholdConfiguration.parse(value), memoryBean, logger) {
+      @Override
+      protected Clock getClock() {
+        return clock;
+      }
+    };
+  }
+
+}
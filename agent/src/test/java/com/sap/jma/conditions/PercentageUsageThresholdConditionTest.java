@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.sap.jma.configuration.Configuration;
+import com.sap.jma.configuration.PercentageUsageThresholdConfiguration;
+import com.sap.jma.configuration.ThresholdConfiguration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.vms.MemoryPool;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Test;
+
+public class PercentageUsageThresholdConditionTest {
+
+  private final Logger logger = mock(Logger.class);
+
+  private final HeapMemoryPool memoryPool = new HeapMemoryPool();
+
+  @Test
+  public void testNotViolated() {
+    memoryPool.memoryUsage = new MemoryUsage(0L, 40L, 100L, 100L);
+
+    final PercentageUsageThresholdCondition condition = createCondition(80d);
+
+    final Evaluation evaluation =
+        condition.check(Collections.<String, MemoryUsage>emptyMap());
+
+    assertThat(evaluation.isViolated(), is(false));
+    assertThat(condition.getProximity(), is(0.5d));
+  }
+
+  @Test
+  public void testViolated() {
+    memoryPool.memoryUsage = new MemoryUsage(0L, 90L, 100L, 100L);
+
+    final PercentageUsageThresholdCondition condition = createCondition(80d);
+
+    final Evaluation evaluation =
+        condition.check(Collections.<String, MemoryUsage>emptyMap());
+
+    assertThat(evaluation.isViolated(), is(true));
+    assertThat(evaluation.getReason().toString(),
+        is("Memory pool 'Heap' at 90% usage, configured threshold is 80%"));
+  }
+
+  @Test
+  public void testUndefinedMaximumFallsBackToCommitted() {
+    // Like the eden space of G1, which has no maximum
+    final MemoryPool edenSpace = mock(MemoryPool.class);
+    doReturn(MemoryPool.Type.EDEN_SPACE).when(edenSpace).getType();
+    doReturn("G1 Eden Space").when(edenSpace).getName();
+    doReturn(new MemoryUsage(0L, 45L, 50L, -1L)).when(edenSpace).getMemoryUsage();
+
+    final PercentageUsageThresholdCondition condition = new PercentageUsageThresholdCondition(
+        new PercentageUsageThresholdConfiguration(MemoryPool.Type.EDEN_SPACE, 80d), edenSpace,
+        logger);
+
+    final Evaluation evaluation =
+        condition.check(Collections.<String, MemoryUsage>emptyMap());
+
+    assertThat(evaluation.isViolated(), is(true));
+    assertThat(evaluation.getReason().toString(),
+        is("Memory pool 'G1 Eden Space' at 90% usage, configured threshold is 80%"));
+    assertThat(condition.getProximity(), is(1d));
+
+    // Nothing committed either, so there is nothing to compare with
+    doReturn(new MemoryUsage(0L, 0L, 0L, -1L)).when(edenSpace).getMemoryUsage();
+
+    assertThat(condition.check(Collections.<String, MemoryUsage>emptyMap()).isViolated(),
+        is(false));
+    assertThat(condition.getProximity(), is(0d));
+  }
+
+  @Test
+  public void testCheckNotViolatedAllocatesNothing() {
+    final java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+    final com.sun.management.ThreadMXBean allocationBean =
+        (com.sun.management.ThreadMXBean) threadBean;
+    assumeTrue(allocationBean.isThreadAllocatedMemorySupported()
+        && allocationBean.isThreadAllocatedMemoryEnabled());
+
+    memoryPool.memoryUsage = new MemoryUsage(0L, 40L, 100L, 100L);
+
+    final PercentageUsageThresholdCondition condition = createCondition(80d);
+    final Map<String, MemoryUsage> memoryUsages = Collections.emptyMap();
+    final long threadId = Thread.currentThread().getId();
+
+    // Warm up, and measure what reading the allocated bytes allocates by itself
+    long baseline = Long.MAX_VALUE;
+    for (int i = 0; i < 10000; ++i) {
+      condition.check(memoryUsages);
+      final long before = allocationBean.getThreadAllocatedBytes(threadId);
+      baseline = Math.min(baseline, allocationBean.getThreadAllocatedBytes(threadId) - before);
+    }
+
+    final long before = allocationBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < 1000; ++i) {
+      condition.check(memoryUsages);
+    }
+    final long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+    assertThat(allocated - baseline, is(0L));
+  }
+
+  private PercentageUsageThresholdCondition createCondition(final double value) {
+    return new PercentageUsageThresholdCondition(
+        new PercentageUsageThresholdConfiguration(MemoryPool.Type.HEAP, value), memoryPool,
+        logger);
+  }
+
+  /*
+   * Hand-written rather than mocked, as mocks record their invocations
+   */
+  private static final class HeapMemoryPool implements MemoryPool {
+
+    private MemoryUsage memoryUsage;
+
+    @Override
+    public Type getType() {
+      return Type.HEAP;
+    }
+
+    @Override
+    public UsageThresholdCondition<?> toCondition(final Configuration configuration) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean matches(final MemoryPoolMXBean memoryPoolBean) {
+      return false;
+    }
+
+    @Override
+    public String getName() {
+      return "Heap";
+    }
+
+    @Override
+    public MemoryUsage getMemoryUsage() {
+      return memoryUsage;
+    }
+
+    @Override
+    public MemoryUsage getMemoryUsage(final Map<String, MemoryUsage> memoryUsages) {
+      return memoryUsage;
+    }
+
+    @Override
+    public MemoryUsage getCollectionUsage() {
+      return null;
+    }
+
+    @Override
+    public boolean setUsageThreshold(final ThresholdConfiguration configuration) {
+      return false;
+    }
+
+  }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class PostCollectionUsageTrendTest {
+
+  @Test
+  public void testLinearTrend() {
+    final PostCollectionUsageTrend trend = new PostCollectionUsageTrend(10000L);
+
+    // One measurement per bucket: each but the last one becomes a post-GC minimum
+    for (long timestamp = 0L; timestamp <= 4000L; timestamp += 1000L) {
+      trend.add(timestamp, 10d + timestamp / 500d);
+    }
+
+    assertThat(trend.minima.size(), is(4));
+    assertThat(trend.isAvailable(), is(true));
+    assertThat(trend.isCoveringWindow(), is(false));
+    assertThat(trend.getSlope(), closeTo(0.002d, 1e-9));
+    assertThat(trend.getRSquared(), closeTo(1d, 1e-9));
+    assertThat(trend.getValueAt(10000L), closeTo(30d, 1e-9));
+  }
+
+  @Test
+  public void testOnlyMinimaCount() {
+    final PostCollectionUsageTrend trend = new PostCollectionUsageTrend(10000L);
+
+    for (long timestamp = 0L; timestamp <= 6000L; timestamp += 250L) {
+      // Sawtooth between 20 and 50, with flat minima
+      trend.add(timestamp, 20d + (timestamp % 1000L) / 250L * 10d);
+    }
+
+    assertThat(trend.minima.size(), is(6));
+    assertThat(trend.isCoveringWindow(), is(true));
+    assertThat(trend.getSlope(), closeTo(0d, 1e-9));
+    assertThat(trend.getValueAt(6000L), closeTo(20d, 1e-9));
+  }
+
+  @Test
+  public void testPoorFit() {
+    final PostCollectionUsageTrend trend = new PostCollectionUsageTrend(10000L);
+
+    final double[] values = {10d, 20d, 10d, 20d, 0d};
+    for (int i = 0; i < values.length; ++i) {
+      trend.add(1000L * i, values[i]);
+    }
+
+    assertThat(trend.getRSquared(), closeTo(0.2d, 1e-9));
+  }
+
+  @Test
+  public void testSlidingWindow() {
+    final PostCollectionUsageTrend trend = new PostCollectionUsageTrend(10000L);
+
+    for (long timestamp = 0L; timestamp <= 30000L; timestamp += 1000L) {
+      trend.add(timestamp, timestamp < 15000L ? 50d : 10d + timestamp / 1000d);
+    }
+
+    assertThat(trend.minima.getFirstTimestamp(), is(20000L));
+    assertThat(trend.getSlope(), closeTo(0.001d, 1e-9));
+  }
+
+}
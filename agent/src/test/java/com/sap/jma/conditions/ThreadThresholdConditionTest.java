@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.conditions;
+
+import static com.sap.jma.conditions.ConditionChecks.checkOrThrow;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.sap.jma.conditions.ConditionChecks.UsageThresholdConditionViolatedException;
+import com.sap.jma.configuration.ThreadThresholdConfiguration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ThreadThresholdConditionTest {
+
+  @Rule
+  public final ExpectedException expectedException = ExpectedException.none();
+
+  private final Clock clock = mock(Clock.class);
+
+  private final ThreadMXBean threadBean = mock(ThreadMXBean.class);
+
+  private final Logger logger = mock(Logger.class);
+
+  @Test
+  public void testCountBelowThreshold() throws Exception {
+    givenThreads(Arrays.asList("main", "pool-1-thread-1"));
+    doReturn(400).when(threadBean).getThreadCount();
+    doReturn(450).when(threadBean).getPeakThreadCount();
+
+    final ThreadThresholdCondition condition = createCondition(">500");
+
+    checkOrThrow(condition);
+    verify(logger).debug("Live threads at 400 (peak 450), configured threshold is 500");
+    assertThat(condition.getProximity(), is(0.8d));
+  }
+
+  @Test
+  public void testCountAboveThresholdReportsGrowingGroupsOnce() throws Exception {
+    givenThreads(Arrays.asList("main", "pool-1-thread-1"),
+        Arrays.asList("main", "pool-1-thread-1", "pool-1-thread-2", "pool-2-thread-1"));
+    doReturn(501).when(threadBean).getThreadCount();
+    doReturn(501).when(threadBean).getPeakThreadCount();
+
+    final ThreadThresholdCondition condition = createCondition(">500");
+
+    try {
+      checkOrThrow(condition);
+      fail("The condition should have been violated");
+    } catch (final UsageThresholdConditionViolatedException ex) {
+      assertThat(ex.getMessage(), containsString(
+          "Live threads at 501 (peak 501), configured threshold is 500; live threads by name"));
+      assertThat(ex.getMessage(), containsString("'pool-#-thread-#': 3 (+2), newest "
+          + "'pool-2-thread-1' runs com.acme.Task.run(Task.java:42)"));
+      assertThat(ex.getMessage(), containsString("'main': 1 (+0)"));
+    }
+
+    checkOrThrow(condition);
+    verify(logger).debug("%s; already reported",
+        "Live threads at 501 (peak 501), configured threshold is 500");
+  }
+
+  @Test
+  public void testStackFootprintAboveThreshold() throws Exception {
+    givenThreads(Arrays.asList("main"));
+    doReturn(600).when(threadBean).getThreadCount();
+    doReturn(600).when(threadBean).getPeakThreadCount();
+
+    final ThreadThresholdCondition condition = createCondition(">512MB");
+
+    expectedException.expect(UsageThresholdConditionViolatedException.class);
+    expectedException.expectMessage("Estimated thread stack footprint at 600MB (600 live threads, "
+        + "1MB stack size), configured threshold is 512MB");
+
+    checkOrThrow(condition);
+  }
+
+  @Test
+  public void testIncreaseOnlyOnceTimeFrameIsCovered() throws Exception {
+    givenThreads(Arrays.asList("main"));
+    when(clock.getMillis()).thenReturn(0L, 30000L, 60000L);
+    when(threadBean.getThreadCount()).thenReturn(10, 200, 200);
+    doReturn(200).when(threadBean).getPeakThreadCount();
+
+    final ThreadThresholdCondition condition = createCondition("+100/1m");
+
+    checkOrThrow(condition);
+    verify(logger).debug("First measurement of the live threads");
+
+    checkOrThrow(condition);
+    verify(logger).debug("Live threads increased by 190 over the last 0.5m (to 200, peak 200), "
+        + "configured threshold is +100");
+
+    expectedException.expect(UsageThresholdConditionViolatedException.class);
+    expectedException.expectMessage("Live threads increased by 190 over the last 1m (to 200, "
+        + "peak 200), configured threshold is +100");
+
+    checkOrThrow(condition);
+  }
+
+  @Test
+  public void testToGroup() {
+    assertThat(ThreadThresholdCondition.toGroup("pool-13-thread-7"), is("pool-#-thread-#"));
+    assertThat(ThreadThresholdCondition.toGroup("main"), is("main"));
+  }
+
+  @Test
+  public void testDescribeEntryPoint() {
+    assertThat(ThreadThresholdCondition.describeEntryPoint(new StackTraceElement[0]),
+        is("no Java code"));
+    assertThat(ThreadThresholdCondition.describeEntryPoint(new StackTraceElement[] {
+        new StackTraceElement("java.lang.Object", "wait", "Object.java", -2),
+        new StackTraceElement("java.lang.Thread", "run", "Thread.java", 745)}),
+        is("java.lang.Thread.run(Thread.java:745)"));
+  }
+
+  @Test
+  public void testDescription() throws Exception {
+    assertThat(createCondition(">500").toString(), is("Live threads above 500"));
+    assertThat(createCondition(">1.5GB").toString(),
+        is("Estimated thread stack footprint above 1.5GB"));
+    assertThat(createCondition("+100/10m").toString(),
+        is("Live threads increase above 100 over 10m"));
+  }
+
+  /*
+   * Each list of thread names is returned by one call to ThreadMXBean#getThreadInfo, the last one
+   * repeatedly
+   */
+  @SafeVarargs
+  private final void givenThreads(final List<String>... threadNames) {
+    doReturn(new long[0]).when(threadBean).getAllThreadIds();
+
+    final ThreadInfo[][] threadInfos = new ThreadInfo[threadNames.length][];
+    for (int i = 0; i < threadNames.length; ++i) {
+      threadInfos[i] = new ThreadInfo[threadNames[i].size()];
+      for (int j = 0; j < threadInfos[i].length; ++j) {
+        final ThreadInfo threadInfo = mock(ThreadInfo.class);
+        final String threadName = threadNames[i].get(j);
+        doReturn(threadName).when(threadInfo).getThreadName();
+        doReturn((long) j).when(threadInfo).getThreadId();
+        doReturn(new StackTraceElement[] {
+            new StackTraceElement("java.lang.Object", "wait", "Object.java", -2),
+            new StackTraceElement("com.acme.Task", "run", "Task.java", 42),
+            new StackTraceElement("java.util.concurrent.ThreadPoolExecutor$Worker", "run",
+                "ThreadPoolExecutor.java", 617),
+            new StackTraceElement("java.lang.Thread", "run", "Thread.java", 745)})
+            .when(threadInfo).getStackTrace();
+        threadInfos[i][j] = threadInfo;
+      }
+    }
+
+    when(threadBean.getThreadInfo(any(long[].class), anyInt())).thenReturn(threadInfos[0],
+        Arrays.copyOfRange(threadInfos, 1, threadInfos.length));
+  }
+
+  private ThreadThresholdCondition createCondition(final String value) throws Exception {
+    return new ThreadThresholdCondition(ThreadThresholdConfiguration.parse(value), threadBean,
+        1024L * 1024L, logger) {
+      @Override
+      protected Clock getClock() {
+        return clock;
+      }
+    };
+  }
+
+}
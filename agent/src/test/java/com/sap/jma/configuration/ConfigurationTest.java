@@ -7,6 +7,8 @@
 package com.sap.jma.configuration;
 
 import static com.sap.jma.testapi.Matchers.StringMatchers.hasLines;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
@@ -19,7 +21,10 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import com.sap.jma.configuration.Configuration.Property;
 import com.sap.jma.logging.Logger;
 import com.sap.jma.testapi.TemporarySystemProperties;
+import com.sap.jma.vms.MemoryPool.Type;
+import com.sap.jma.vms.MemoryPressure;
 import java.io.File;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
@@ -319,6 +324,236 @@ public class ConfigurationTest {
     Configuration.Builder.initializeFromSystemProperties(logger).build();
   }
 
+  @Test
+  public void testExplicitPercentageUsageThreshold() {
+    temporarySystemProperties
+        .set(Property.OLD_GEN_MEMORY_USAGE_THRESHOLD.getQualifiedName())
+        .to(">85%");
+
+    final Configuration configuration =
+        Configuration.Builder.initializeFromSystemProperties(logger).build();
+    final PercentageUsageThresholdConfiguration config =
+        (PercentageUsageThresholdConfiguration) configuration
+            .getOldGenSpaceMemoryUsageThreshold();
+
+    assertThat(config.getValue(), is(85d));
+  }
+
+  @Test
+  public void testCollectionUsageThreshold() {
+    temporarySystemProperties
+        .set(Property.OLD_GEN_MEMORY_USAGE_THRESHOLD.getQualifiedName())
+        .to("collection:>85%");
+
+    final Configuration configuration =
+        Configuration.Builder.initializeFromSystemProperties(logger).build();
+    final CollectionUsageThresholdConfiguration config =
+        (CollectionUsageThresholdConfiguration) configuration
+            .getOldGenSpaceMemoryUsageThreshold();
+
+    assertThat(config.getMemoryPoolType(), is(Type.OLD_GEN));
+    assertThat(((PercentageUsageThresholdConfiguration) config.getDelegate()).getValue(),
+        is(85d));
+  }
+
+  @Test
+  public void testCollectionUsageThresholdWithIncreaseOverTime() {
+    temporarySystemProperties
+        .set(Property.HEAP_MEMORY_USAGE_THRESHOLD.getQualifiedName())
+        .to("collection:+5%/1h");
+
+    final Configuration configuration =
+        Configuration.Builder.initializeFromSystemProperties(logger).build();
+    final IncreaseOverTimeFrameUsageThresholdConfiguration config =
+        (IncreaseOverTimeFrameUsageThresholdConfiguration)
+            ((CollectionUsageThresholdConfiguration) configuration
+                .getHeapMemoryUsageThreshold()).getDelegate();
+
+    assertThat(config.getDelta(), is(5d));
+    assertThat(config.getTimeFrame(), is(1d));
+    assertThat(config.getTimeUnit(), is(IntervalTimeUnit.HOURS));
+  }
+
+  @Test
+  public void testInvalidCollectionUsageThreshold() {
+    temporarySystemProperties
+        .set(Property.HEAP_MEMORY_USAGE_THRESHOLD.getQualifiedName())
+        .to("collection:");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The value 'collection:' is invalid for the "
+        + "'jma.thresholds.heap' property: cannot parse the value 'collection:' as collection "
+        + "threshold: a threshold must follow the 'collection:' prefix");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testDebouncedThresholds() throws Exception {
+    final Configuration configuration = new Configuration();
+
+    Property.OLD_GEN_MEMORY_USAGE_THRESHOLD.doApply(configuration, "85% for 3 samples rearm 0.9");
+    final Debouncing oldGenDebouncing =
+        configuration.getOldGenSpaceMemoryUsageThreshold().getDebouncing();
+    assertThat(configuration.getOldGenSpaceMemoryUsageThreshold(), hasPercentageValue(85d));
+    assertThat(oldGenDebouncing.getRequiredSamples(), is(3));
+    assertThat(oldGenDebouncing.getRequiredDurationInMillis(), is(0L));
+    assertThat(oldGenDebouncing.getRearmRatio(), is(0.9d));
+
+    Property.HEAP_MEMORY_USAGE_THRESHOLD.doApply(configuration, "collection:90% FOR 30s");
+    final CollectionUsageThresholdConfiguration heapThreshold =
+        (CollectionUsageThresholdConfiguration) configuration.getHeapMemoryUsageThreshold();
+    assertThat(heapThreshold.getDelegate().getDebouncing().getRequiredDurationInMillis(),
+        is(30000L));
+
+    Property.GARBAGE_COLLECTION_OVERHEAD_THRESHOLD.doApply(configuration, ">20%/1m rearm 0.5");
+    final Debouncing gcOverheadDebouncing =
+        configuration.getGarbageCollectionOverheadThreshold().getDebouncing();
+    assertThat(gcOverheadDebouncing.getRequiredSamples(), is(1));
+    assertThat(gcOverheadDebouncing.getRearmRatio(), is(0.5d));
+
+    Property.EDEN_SPACE_MEMORY_USAGE_THRESHOLD.doApply(configuration, "95%");
+    assertThat(configuration.getEdenSpaceMemoryUsageThreshold().getDebouncing(),
+        is(Debouncing.NONE));
+  }
+
+  @Test
+  public void testCheckIntervalClause() throws Exception {
+    final Configuration configuration = new Configuration();
+
+    Property.HEAP_MEMORY_USAGE_THRESHOLD.doApply(configuration, "90% every 250ms");
+    final UsageThresholdConfiguration heapThreshold =
+        configuration.getHeapMemoryUsageThreshold();
+    assertThat(heapThreshold.getCheckInterval().getIntervalInMillis(), is(250L));
+    assertThat(heapThreshold.getCheckInterval().toString(), is("every 250ms"));
+    assertThat(heapThreshold.getDebouncing(), is(Debouncing.NONE));
+
+    Property.OLD_GEN_MEMORY_USAGE_THRESHOLD.doApply(configuration,
+        "85% for 3 samples rearm 0.9 every 1m");
+    final UsageThresholdConfiguration oldGenThreshold =
+        configuration.getOldGenSpaceMemoryUsageThreshold();
+    assertThat(oldGenThreshold.getDebouncing().getRequiredSamples(), is(3));
+    assertThat(oldGenThreshold.getDebouncing().getRearmRatio(), is(0.9d));
+    assertThat(oldGenThreshold.getDebouncing().toString(), is("for 3 samples rearm 0.9"));
+    assertThat(oldGenThreshold.getCheckInterval().getIntervalInMillis(), is(60000L));
+    assertThat(oldGenThreshold.getCheckInterval().toString(), is("every 1m"));
+
+    Property.EDEN_SPACE_MEMORY_USAGE_THRESHOLD.doApply(configuration, "95% for 3 samples");
+    assertThat(configuration.getEdenSpaceMemoryUsageThreshold().getCheckInterval(),
+        is(CheckInterval.NONE));
+    assertThat(CheckInterval.NONE.getIntervalInMillis(), is(0L));
+  }
+
+  @Test
+  public void testInvalidCheckIntervalClause() {
+    temporarySystemProperties
+        .set(Property.OLD_GEN_MEMORY_USAGE_THRESHOLD.getQualifiedName())
+        .to("85% every minute");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("cannot parse the value '85% every minute' as debounced "
+        + "threshold: the interval 'minute' after 'every' must follow the Java pattern");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testInvalidDebouncedThreshold() {
+    temporarySystemProperties
+        .set(Property.OLD_GEN_MEMORY_USAGE_THRESHOLD.getQualifiedName())
+        .to("85% for 3 checks");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The value '85% for 3 checks' is invalid for the "
+        + "'jma.thresholds.old_gen' property: cannot parse the value '85% for 3 checks' as "
+        + "debounced threshold: the clauses 'for 3 checks' must be 'for <n> samples' or "
+        + "'for <time-frame>', optionally followed by 'rearm <ratio>'");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testInvalidRearmRatio() {
+    temporarySystemProperties
+        .set(Property.GARBAGE_COLLECTION_OVERHEAD_THRESHOLD.getQualifiedName())
+        .to(">20% rearm 1.5");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The value '>20% rearm 1.5' is invalid for the "
+        + "'jma.thresholds.gc_overhead' property: cannot parse the value '>20% rearm 1.5' as "
+        + "garbage-collection-overhead threshold: the rearm ratio must be greater than 0 and at "
+        + "most 1");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testAllocationRateThreshold() {
+    temporarySystemProperties
+        .set(Property.ALLOCATION_RATE_THRESHOLD.getQualifiedName())
+        .to(">800MB/s/30s");
+
+    final Configuration configuration =
+        Configuration.Builder.initializeFromSystemProperties(logger).build();
+    final AllocationRateThresholdConfiguration config = configuration.getAllocationRateThreshold();
+
+    assertThat(config.getRateInBytesPerSecond(), is(800d * 1024 * 1024));
+    assertThat(config.getMemorySizeUnit(), is(MemorySizeUnit.MEGABYTE));
+    assertThat(config.getTimeFrame(), is(30d));
+    assertThat(config.getTimeUnit(), is(IntervalTimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testInvalidAllocationRateThreshold() {
+    temporarySystemProperties
+        .set(Property.ALLOCATION_RATE_THRESHOLD.getQualifiedName())
+        .to(">800MB/30s");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The value '>800MB/30s' is invalid for the "
+        + "'jma.thresholds.allocation_rate' property: cannot parse the value '>800MB/30s' as "
+        + "allocation-rate threshold: it must follow the Java pattern "
+        + "'>(\\d*\\.?\\d*\\d)([KMG]?B)/s/(\\d*\\.?\\d*\\d)(ms|s|m|h)'");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testGarbageCollectionOverheadThreshold() throws Exception {
+    final Configuration configuration = new Configuration();
+    assertThat(configuration.getJvmThresholds(), is(empty()));
+
+    Property.GARBAGE_COLLECTION_OVERHEAD_THRESHOLD.doApply(configuration, ">20%/30s");
+    GarbageCollectionOverheadThresholdConfiguration config =
+        configuration.getGarbageCollectionOverheadThreshold();
+    assertThat(config.getPercentage(), is(20d));
+    assertThat(config.getTimeFrame(), is(30d));
+    assertThat(config.getTimeUnit(), is(IntervalTimeUnit.SECONDS));
+    assertThat(configuration.getJvmThresholds(),
+        contains((UsageThresholdConfiguration) config));
+
+    Property.GARBAGE_COLLECTION_OVERHEAD_THRESHOLD.doApply(configuration, "12.5%");
+    config = configuration.getGarbageCollectionOverheadThreshold();
+    assertThat(config.getPercentage(), is(12.5d));
+    assertThat(config.getTimeFrame(), is(1d));
+    assertThat(config.getTimeUnit(), is(IntervalTimeUnit.MINUTES));
+  }
+
+  @Test
+  public void testInvalidGarbageCollectionOverheadThreshold() {
+    temporarySystemProperties
+        .set(Property.GARBAGE_COLLECTION_OVERHEAD_THRESHOLD.getQualifiedName())
+        .to("100%");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The value '100%' is invalid for the "
+        + "'jma.thresholds.gc_overhead' property: cannot parse the value '100%' as "
+        + "garbage-collection-overhead threshold: the garbage collection overhead must be "
+        + "between 0% and 100% (extremes excluded)");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
   @Test
   public void testIncreaseOverTimeUsageThreshold() {
     temporarySystemProperties
@@ -353,6 +588,512 @@ public class ConfigurationTest {
     assertThat(config.getTimeUnit(), is(IntervalTimeUnit.SECONDS));
   }
 
+  @Test
+  public void testTrendUsageThreshold() {
+    temporarySystemProperties
+        .set(Property.HEAP_MEMORY_USAGE_THRESHOLD.getQualifiedName())
+        .to("trend:+5%/1h@0.9");
+
+    final Configuration configuration =
+        Configuration.Builder.initializeFromSystemProperties(logger).build();
+    final IncreaseOverTimeFrameUsageThresholdConfiguration config =
+        (IncreaseOverTimeFrameUsageThresholdConfiguration) configuration
+            .getHeapMemoryUsageThreshold();
+
+    assertThat(config.isTrend(), is(true));
+    assertThat(config.getDelta(), is(5d));
+    assertThat(config.getTimeFrame(), is(1d));
+    assertThat(config.getTimeUnit(), is(IntervalTimeUnit.HOURS));
+    assertThat(config.getMinimumRSquared(), is(0.9d));
+  }
+
+  @Test
+  public void testTrendUsageThresholdDefaultRSquared() {
+    temporarySystemProperties
+        .set(Property.HEAP_MEMORY_USAGE_THRESHOLD.getQualifiedName())
+        .to("trend:+2.5%/30m");
+
+    final Configuration configuration =
+        Configuration.Builder.initializeFromSystemProperties(logger).build();
+    final IncreaseOverTimeFrameUsageThresholdConfiguration config =
+        (IncreaseOverTimeFrameUsageThresholdConfiguration) configuration
+            .getHeapMemoryUsageThreshold();
+
+    assertThat(config.isTrend(), is(true));
+    assertThat(config.getDelta(), is(2.5d));
+    assertThat(config.getMinimumRSquared(), is(0.8d));
+  }
+
+  @Test
+  public void testIncreaseOverTimeUsageThresholdIsNotTrend() {
+    temporarySystemProperties
+        .set(Property.HEAP_MEMORY_USAGE_THRESHOLD.getQualifiedName())
+        .to("+5%/1h");
+
+    final Configuration configuration =
+        Configuration.Builder.initializeFromSystemProperties(logger).build();
+
+    assertThat(((IncreaseOverTimeFrameUsageThresholdConfiguration) configuration
+        .getHeapMemoryUsageThreshold()).isTrend(), is(false));
+  }
+
+  @Test
+  public void testInvalidTrendUsageThresholdRSquared() {
+    temporarySystemProperties
+        .set(Property.HEAP_MEMORY_USAGE_THRESHOLD.getQualifiedName())
+        .to("trend:+5%/1h@1.5");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The value 'trend:+5%/1h@1.5' is invalid for the "
+        + "'jma.thresholds.heap' property: cannot parse the value 'trend:+5%/1h@1.5' as trend "
+        + "threshold: ");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testForecastUsageThreshold() {
+    temporarySystemProperties
+        .set(Property.OLD_GEN_MEMORY_USAGE_THRESHOLD.getQualifiedName())
+        .to("forecast:<15m");
+
+    final Configuration configuration =
+        Configuration.Builder.initializeFromSystemProperties(logger).build();
+    final ForecastUsageThresholdConfiguration config =
+        (ForecastUsageThresholdConfiguration) configuration
+            .getOldGenSpaceMemoryUsageThreshold();
+
+    assertThat(config.getHorizonInMillis(), is(15 * 60 * 1000L));
+    assertThat(config.getHorizonUnit(), is(IntervalTimeUnit.MINUTES));
+    assertThat(config.getWindowInMillis(), is(30 * 60 * 1000L));
+    assertThat(config.getMinimumRSquared(), is(0.8d));
+  }
+
+  @Test
+  public void testForecastUsageThresholdWithWindowAndRSquared() {
+    temporarySystemProperties
+        .set(Property.HEAP_MEMORY_USAGE_THRESHOLD.getQualifiedName())
+        .to("forecast:<90s/1h@0.95");
+
+    final Configuration configuration =
+        Configuration.Builder.initializeFromSystemProperties(logger).build();
+    final ForecastUsageThresholdConfiguration config =
+        (ForecastUsageThresholdConfiguration) configuration.getHeapMemoryUsageThreshold();
+
+    assertThat(config.getHorizonInMillis(), is(90 * 1000L));
+    assertThat(config.getWindowInMillis(), is(60 * 60 * 1000L));
+    assertThat(config.getMinimumRSquared(), is(0.95d));
+  }
+
+  @Test
+  public void testProcessMemoryUsageThresholds() {
+    temporarySystemProperties
+        .set(Property.RESIDENT_SET_MEMORY_USAGE_THRESHOLD.getQualifiedName())
+        .to(">2GB");
+    temporarySystemProperties
+        .set(Property.ANONYMOUS_RESIDENT_SET_MEMORY_USAGE_THRESHOLD.getQualifiedName())
+        .to("+10%/5m");
+
+    final Configuration configuration =
+        Configuration.Builder.initializeFromSystemProperties(logger).build();
+
+    assertThat(configuration.getResidentSetMemoryUsageThreshold().getMemoryPoolType(),
+        is(Type.RESIDENT_SET));
+    assertThat(configuration.getAnonymousResidentSetMemoryUsageThreshold().getMemoryPoolType(),
+        is(Type.ANONYMOUS_RESIDENT_SET));
+    assertThat(configuration.getSwapMemoryUsageThreshold(), nullValue());
+  }
+
+  @Test
+  public void testMemoryPressureThreshold() {
+    temporarySystemProperties
+        .set(Property.MEMORY_PRESSURE_THRESHOLD.getQualifiedName())
+        .to("full>5.5%/avg300");
+
+    final Configuration configuration =
+        Configuration.Builder.initializeFromSystemProperties(logger).build();
+    final MemoryPressureThresholdConfiguration config = configuration.getMemoryPressureThreshold();
+
+    assertThat(config.getStall(), is(MemoryPressure.Stall.FULL));
+    assertThat(config.getPercentage(), is(5.5d));
+    assertThat(config.getWindow(), is(MemoryPressure.Window.AVG300));
+    assertThat(configuration.getJvmThresholds(), contains((UsageThresholdConfiguration) config));
+  }
+
+  @Test
+  public void testInvalidMemoryPressureThreshold() {
+    temporarySystemProperties
+        .set(Property.MEMORY_PRESSURE_THRESHOLD.getQualifiedName())
+        .to("some>10%/avg30");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The value 'some>10%/avg30' is invalid for the "
+        + "'jma.thresholds.memory_pressure' property: cannot parse the value 'some>10%/avg30' as "
+        + "memory-pressure threshold: it must follow the Java pattern");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testThreadCountThreshold() {
+    temporarySystemProperties
+        .set(Property.THREAD_THRESHOLD.getQualifiedName())
+        .to(">500");
+
+    final Configuration configuration =
+        Configuration.Builder.initializeFromSystemProperties(logger).build();
+    final ThreadThresholdConfiguration config = configuration.getThreadThreshold();
+
+    assertThat(config.getKind(), is(ThreadThresholdConfiguration.Kind.COUNT));
+    assertThat(config.getThreadCount(), is(500));
+    assertThat(configuration.getJvmThresholds(), contains((UsageThresholdConfiguration) config));
+  }
+
+  @Test
+  public void testThreadStackFootprintThreshold() {
+    temporarySystemProperties
+        .set(Property.THREAD_THRESHOLD.getQualifiedName())
+        .to(">1.5GB");
+
+    final ThreadThresholdConfiguration config =
+        Configuration.Builder.initializeFromSystemProperties(logger).build().getThreadThreshold();
+
+    assertThat(config.getKind(), is(ThreadThresholdConfiguration.Kind.STACK_FOOTPRINT));
+    assertThat(config.getStackFootprintInBytes(), is(1.5d * 1024 * 1024 * 1024));
+    assertThat(config.getMemorySizeUnit(), is(MemorySizeUnit.GIGABYTE));
+  }
+
+  @Test
+  public void testThreadIncreaseThreshold() {
+    temporarySystemProperties
+        .set(Property.THREAD_THRESHOLD.getQualifiedName())
+        .to("+100/10m");
+
+    final ThreadThresholdConfiguration config =
+        Configuration.Builder.initializeFromSystemProperties(logger).build().getThreadThreshold();
+
+    assertThat(config.getKind(), is(ThreadThresholdConfiguration.Kind.INCREASE));
+    assertThat(config.getThreadCount(), is(100));
+    assertThat(config.getTimeFrame(), is(10d));
+    assertThat(config.getTimeUnit(), is(IntervalTimeUnit.MINUTES));
+  }
+
+  @Test
+  public void testInvalidThreadThreshold() {
+    temporarySystemProperties
+        .set(Property.THREAD_THRESHOLD.getQualifiedName())
+        .to(">0");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The value '>0' is invalid for the 'jma.thresholds.threads' "
+        + "property: cannot parse the value '>0' as thread threshold: the amount of threads must "
+        + "be a positive Java integer");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testClassLoadingThreshold() throws Exception {
+    final Configuration configuration = new Configuration();
+
+    Property.CLASS_LOADING_THRESHOLD.doApply(configuration, "net>2.5/s/10m");
+    ClassLoadingThresholdConfiguration config = configuration.getClassLoadingThreshold();
+    assertThat(config.getKind(), is(ClassLoadingThresholdConfiguration.Kind.NET));
+    assertThat(config.getClassesPerSecond(), is(2.5d));
+    assertThat(config.getTimeFrame(), is(10d));
+    assertThat(config.getTimeUnit(), is(IntervalTimeUnit.MINUTES));
+    assertThat(configuration.getJvmThresholds(),
+        contains((UsageThresholdConfiguration) config));
+
+    Property.CLASS_LOADING_THRESHOLD.doApply(configuration, ">100/s");
+    config = configuration.getClassLoadingThreshold();
+    assertThat(config.getKind(), is(ClassLoadingThresholdConfiguration.Kind.LOADED));
+    assertThat(config.getClassesPerSecond(), is(100d));
+    assertThat(config.getTimeFrame(), is(1d));
+    assertThat(config.getTimeUnit(), is(IntervalTimeUnit.MINUTES));
+
+    Property.CLASS_LOADING_THRESHOLD.doApply(configuration, "");
+    assertThat(configuration.getClassLoadingThreshold(), nullValue());
+  }
+
+  @Test
+  public void testInvalidClassLoadingThreshold() {
+    temporarySystemProperties
+        .set(Property.CLASS_LOADING_THRESHOLD.getQualifiedName())
+        .to("loaded>0/s");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The value 'loaded>0/s' is invalid for the "
+        + "'jma.thresholds.class_loading' property: cannot parse the value 'loaded>0/s' as "
+        + "class-loading threshold: the class loading rate must be positive");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testPendingFinalizationThreshold() throws Exception {
+    final Configuration configuration = new Configuration();
+
+    Property.PENDING_FINALIZATION_THRESHOLD.doApply(configuration, "+5000/10m");
+    PendingFinalizationThresholdConfiguration config =
+        configuration.getPendingFinalizationThreshold();
+    assertThat(config.getKind(), is(PendingFinalizationThresholdConfiguration.Kind.INCREASE));
+    assertThat(config.getObjectCount(), is(5000));
+    assertThat(config.getTimeFrame(), is(10d));
+    assertThat(config.getTimeUnit(), is(IntervalTimeUnit.MINUTES));
+    assertThat(configuration.getJvmThresholds(),
+        contains((UsageThresholdConfiguration) config));
+
+    Property.PENDING_FINALIZATION_THRESHOLD.doApply(configuration, ">10000");
+    config = configuration.getPendingFinalizationThreshold();
+    assertThat(config.getKind(), is(PendingFinalizationThresholdConfiguration.Kind.COUNT));
+    assertThat(config.getObjectCount(), is(10000));
+
+    Property.PENDING_FINALIZATION_THRESHOLD.doApply(configuration, "");
+    assertThat(configuration.getPendingFinalizationThreshold(), nullValue());
+  }
+
+  @Test
+  public void testInvalidPendingFinalizationThreshold() {
+    temporarySystemProperties
+        .set(Property.PENDING_FINALIZATION_THRESHOLD.getQualifiedName())
+        .to(">0");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The value '>0' is invalid for the "
+        + "'jma.thresholds.pending_finalization' property: cannot parse the value '>0' as "
+        + "pending-finalization threshold: the amount of objects must be a positive Java "
+        + "integer (0 < n <= 2147483647)");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testClassHistogramThresholds() {
+    temporarySystemProperties
+        .set(Property.CLASS_HISTOGRAM_THRESHOLD.getQualifiedName() + "com.acme.Session")
+        .to(">500000");
+    temporarySystemProperties
+        .set(Property.CLASS_HISTOGRAM_THRESHOLD.getQualifiedName() + "com.acme.*")
+        .to(">1.5GB");
+    temporarySystemProperties
+        .set(Property.CLASS_HISTOGRAM_THRESHOLD.getQualifiedName() + "com.acme.cache.Entry")
+        .to("+20% for 3 samples");
+
+    final Configuration configuration =
+        Configuration.Builder.initializeFromSystemProperties(logger).build();
+
+    final Map<String, ClassHistogramThresholdConfiguration> thresholds =
+        configuration.getClassHistogramThresholds();
+    assertThat(thresholds.keySet(),
+        contains("com.acme.*", "com.acme.Session", "com.acme.cache.Entry"));
+
+    ClassHistogramThresholdConfiguration config = thresholds.get("com.acme.Session");
+    assertThat(config.getClassPattern(), is("com.acme.Session"));
+    assertThat(config.getKind(), is(ClassHistogramThresholdConfiguration.Kind.INSTANCES));
+    assertThat(config.getValue(), is(500000d));
+
+    config = thresholds.get("com.acme.*");
+    assertThat(config.getKind(), is(ClassHistogramThresholdConfiguration.Kind.BYTES));
+    assertThat(config.getValue(), is(1.5d * 1024 * 1024 * 1024));
+    assertThat(config.getMemorySizeUnit(), is(MemorySizeUnit.GIGABYTE));
+
+    config = thresholds.get("com.acme.cache.Entry");
+    assertThat(config.getKind(), is(ClassHistogramThresholdConfiguration.Kind.GROWTH));
+    assertThat(config.getValue(), is(20d));
+    assertThat(config.getDebouncing().getRequiredSamples(), is(3));
+
+    assertThat(configuration.getJvmThresholds(), is(empty()));
+  }
+
+  @Test
+  public void testInvalidClassHistogramThreshold() {
+    temporarySystemProperties
+        .set(Property.CLASS_HISTOGRAM_THRESHOLD.getQualifiedName() + "com.acme.*Session")
+        .to(">500000");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The value '>500000' is invalid for the "
+        + "'jma.thresholds.class.com.acme.*Session' property: cannot parse the value '>500000' "
+        + "as class histogram threshold: 'com.acme.*Session' is neither the fully-qualified name "
+        + "of a class nor a package followed by '.*'");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testNativeMemoryUsageThresholds() {
+    temporarySystemProperties
+        .set(Property.NATIVE_MEMORY_USAGE_THRESHOLD.getQualifiedName() + "thread")
+        .to(">200MB");
+    temporarySystemProperties
+        .set(Property.NATIVE_MEMORY_USAGE_THRESHOLD.getQualifiedName() + "Java_Heap")
+        .to("80%");
+
+    final Configuration configuration =
+        Configuration.Builder.initializeFromSystemProperties(logger).build();
+
+    assertThat(configuration.getNativeMemoryThresholds().keySet(),
+        contains("java_heap", "thread"));
+
+    final AbsoluteUsageThresholdConfiguration config =
+        (AbsoluteUsageThresholdConfiguration) configuration.getNativeMemoryThreshold("Thread");
+    assertThat(config.getMemoryPoolType(), is(Type.NATIVE_MEMORY));
+    assertThat(config.getTargetValueInBytes(), is(200d * 1024 * 1024));
+    assertThat(configuration.getNativeMemoryThreshold("code"), nullValue());
+  }
+
+  @Test
+  public void testInvalidNativeMemoryUsageThreshold() {
+    temporarySystemProperties
+        .set(Property.NATIVE_MEMORY_USAGE_THRESHOLD.getQualifiedName() + "thread")
+        .to("<=>42CI");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The value '<=>42CI' is invalid for the "
+        + "'jma.thresholds.nmt.thread' property: cannot parse the value '<=>42CI' as absolute "
+        + "threshold");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testMemoryPoolPatternThresholds() {
+    temporarySystemProperties
+        .set(Property.MEMORY_POOL_PATTERN_THRESHOLD.getQualifiedName() + "ZHeap]")
+        .to("80%");
+    temporarySystemProperties
+        .set(Property.MEMORY_POOL_PATTERN_THRESHOLD.getQualifiedName() + "ZGC .* Generation]")
+        .to(">2GB");
+
+    final Configuration configuration =
+        Configuration.Builder.initializeFromSystemProperties(logger).build();
+
+    assertThat(configuration.getMemoryPoolPatternThresholds().keySet(),
+        contains("ZGC .* Generation", "ZHeap"));
+
+    final PercentageUsageThresholdConfiguration config =
+        (PercentageUsageThresholdConfiguration)
+            configuration.getMemoryPoolPatternThreshold("ZHeap");
+    assertThat(config.getMemoryPoolType(), is(Type.OTHER));
+    assertThat(config.getValue(), is(80d));
+    assertThat(configuration.getMemoryPoolPatternThreshold("ZGC Old Generation"),
+        notNullValue());
+    // The pattern must match the whole name
+    assertThat(configuration.getMemoryPoolPatternThreshold("ZHeap2"), nullValue());
+  }
+
+  @Test
+  public void testInvalidMemoryPoolPattern() {
+    temporarySystemProperties
+        .set(Property.MEMORY_POOL_PATTERN_THRESHOLD.getQualifiedName() + "Shenandoah*[]")
+        .to("80%");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The value '80%' is invalid for the "
+        + "'jma.thresholds.pool[Shenandoah*[]' property: 'Shenandoah*[' is not a valid Java "
+        + "regular expression");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testUnclosedMemoryPoolPattern() {
+    temporarySystemProperties
+        .set(Property.MEMORY_POOL_PATTERN_THRESHOLD.getQualifiedName() + "ZHeap")
+        .to("80%");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("the pattern of the memory pool names must be enclosed in "
+        + "square brackets, e.g., 'jma.thresholds.pool[ZHeap]'");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testCompositeConditions() {
+    temporarySystemProperties
+        .set(Property.COMPOSITE_CONDITION.getQualifiedName() + "Leak")
+        .to("old_gen > 85% AND gc_overhead >20% FOR 2m");
+    temporarySystemProperties
+        .set(Property.COMPOSITE_CONDITION.getQualifiedName() + "native")
+        .to("(heap +10%/5m OR nmt.thread >200MB) and not rss <1GB");
+
+    final Configuration configuration =
+        Configuration.Builder.initializeFromSystemProperties(logger).build();
+
+    assertThat(configuration.getCompositeConditions().keySet(), contains("leak", "native"));
+    assertThat(configuration.getCompositeConditions().get("leak").getName(), is("leak"));
+    assertThat(configuration.getJvmThresholds(), is(empty()));
+  }
+
+  @Test
+  public void testInvalidCompositeConditionUnknownThreshold() {
+    temporarySystemProperties
+        .set(Property.COMPOSITE_CONDITION.getQualifiedName() + "leak")
+        .to("old_gen >85% AND java >20%");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The value 'old_gen >85% AND java >20%' is invalid for the "
+        + "'jma.conditions.leak' property: cannot parse the value 'old_gen >85% AND java >20%' "
+        + "as composite condition: 'java' is not a known threshold");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testInvalidCompositeConditionThreshold() {
+    temporarySystemProperties
+        .set(Property.COMPOSITE_CONDITION.getQualifiedName() + "leak")
+        .to("old_gen >85% AND gc_overhead >200%");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("as composite condition: invalid threshold 'gc_overhead "
+        + ">200%': cannot parse the value '>200%' as garbage-collection-overhead threshold");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testInvalidCompositeConditionSyntax() {
+    temporarySystemProperties
+        .set(Property.COMPOSITE_CONDITION.getQualifiedName() + "leak")
+        .to("(old_gen >85% AND heap >90% FOR");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("as composite condition: expected a time-frame after "
+        + "'FOR', but the expression ended");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testInvalidCompositeConditionReportOnlyThreshold() {
+    temporarySystemProperties
+        .set(Property.COMPOSITE_CONDITION.getQualifiedName() + "leak")
+        .to("heap >90% OR threads >500");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("as composite condition: the 'threads' threshold is only "
+        + "reported, so it cannot be combined with other thresholds");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
+  @Test
+  public void testInvalidForecastUsageThreshold() {
+    temporarySystemProperties
+        .set(Property.HEAP_MEMORY_USAGE_THRESHOLD.getQualifiedName())
+        .to("forecast:>15m");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The value 'forecast:>15m' is invalid for the "
+        + "'jma.thresholds.heap' property: cannot parse the value 'forecast:>15m' as forecast "
+        + "threshold: it must follow the Java pattern");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
   @Test
   public void testInvalidIncreaseOverTimeUsageThresholdMissingDelta() {
     temporarySystemProperties
@@ -465,6 +1206,76 @@ public class ConfigurationTest {
     assertThat(configuration.getCheckIntervalInMillis(), is(10800000L));
   }
 
+  @Test
+  public void testAdaptiveCheckInterval() throws Exception {
+    final Configuration configuration = new Configuration();
+    assertThat(configuration.getMinCheckIntervalInMillis(), is(-1L));
+    assertThat(configuration.getMaxCheckIntervalInMillis(), is(-1L));
+
+    Property.CHECK_INTERVAL.doApply(configuration, "5s");
+    assertThat(configuration.getMinCheckIntervalInMillis(), is(5000L));
+    assertThat(configuration.getMaxCheckIntervalInMillis(), is(5000L));
+
+    Property.MIN_CHECK_INTERVAL.doApply(configuration, "500ms");
+    Property.MAX_CHECK_INTERVAL.doApply(configuration, "1m");
+    assertThat(configuration.getCheckIntervalInMillis(), is(5000L));
+    assertThat(configuration.getMinCheckIntervalInMillis(), is(500L));
+    assertThat(configuration.getMaxCheckIntervalInMillis(), is(60000L));
+  }
+
+  @Test
+  public void testAdaptiveCheckIntervalRequiresCheckInterval() throws Exception {
+    final Configuration.Builder builder =
+        Configuration.Builder.initializeFromSystemProperties(logger)
+            .with(Property.ENABLED, "true")
+            .with(Property.MAX_CHECK_INTERVAL, "1m");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The 'jma.check_interval.min' and 'jma.check_interval.max' "
+        + "properties require the 'jma.check_interval' property to be specified");
+
+    builder.build();
+  }
+
+  @Test
+  public void testMinCheckIntervalGreaterThanCheckInterval() throws Exception {
+    final Configuration.Builder builder =
+        Configuration.Builder.initializeFromSystemProperties(logger)
+            .with(Property.ENABLED, "true")
+            .with(Property.CHECK_INTERVAL, "1s")
+            .with(Property.MIN_CHECK_INTERVAL, "2s");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The value of the 'jma.check_interval.min' property cannot "
+        + "be greater than the one of the 'jma.check_interval' property");
+
+    builder.build();
+  }
+
+  @Test
+  public void testCheckMode() throws Exception {
+    final Configuration configuration = new Configuration();
+    assertThat(configuration.getCheckMode(), is(CheckMode.INTERVAL));
+
+    Property.CHECK_MODE.doApply(configuration, "gc");
+    assertThat(configuration.getCheckMode(), is(CheckMode.GARBAGE_COLLECTION));
+
+    Property.CHECK_MODE.doApply(configuration, "interval");
+    assertThat(configuration.getCheckMode(), is(CheckMode.INTERVAL));
+  }
+
+  @Test
+  public void testInvalidCheckMode() {
+    temporarySystemProperties.set(Property.CHECK_MODE.getQualifiedName())
+        .to("NOPE");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The value 'NOPE' is invalid for the 'jma.check_mode' "
+        + "property: allowed values are: interval, gc");
+
+    Configuration.Builder.initializeFromSystemProperties(logger).build();
+  }
+
   @Test
   public void testMalformedIntervalUnknownTimeUnit() throws Exception {
     temporarySystemProperties
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.utils;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class SlidingTimeSeriesTest {
+
+  @Test
+  public void testSamplesAreRetainedOncePerSamplingPeriod() {
+    // Sampling period of 100ms
+    final SlidingTimeSeries timeSeries = new SlidingTimeSeries(6000L);
+
+    timeSeries.slide(1000L, 1d);
+    timeSeries.slide(1050L, 2d);
+    assertThat(timeSeries.size(), is(1));
+
+    timeSeries.slide(1100L, 3d);
+    assertThat(timeSeries.size(), is(2));
+    assertThat(timeSeries.getLastValue(), is(3d));
+  }
+
+  @Test
+  public void testSlidingKeepsTheTimeFrameCovered() {
+    final SlidingTimeSeries timeSeries = new SlidingTimeSeries(6000L);
+
+    for (long timestamp = 1000L; timestamp <= 20000L; timestamp += 1000L) {
+      timeSeries.slide(timestamp, timestamp);
+    }
+
+    // The most recent sample older than the time-frame is kept
+    assertThat(timeSeries.getFirstTimestamp(), is(14000L));
+    assertThat(timeSeries.getLastTimestamp(), is(20000L));
+    assertThat(timeSeries.size(), is(7));
+  }
+
+  @Test
+  public void testFrequentSlidesDoNotOverflow() {
+    final SlidingTimeSeries timeSeries = new SlidingTimeSeries(6000L);
+
+    for (long timestamp = 0L; timestamp <= 60000L; timestamp += 10L) {
+      timeSeries.slide(timestamp, timestamp);
+    }
+
+    assertThat(timeSeries.getFirstTimestamp(), is(54000L));
+    assertThat(timeSeries.getLastTimestamp(), is(60000L));
+    assertThat(timeSeries.size(), is(SlidingTimeSeries.RESOLUTION + 1));
+  }
+
+}
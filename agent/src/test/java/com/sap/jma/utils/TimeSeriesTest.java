@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.utils;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class TimeSeriesTest {
+
+  @Rule
+  public final ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void testAppendAndEvictWhenFull() {
+    final TimeSeries timeSeries = new TimeSeries(3);
+    assertThat(timeSeries.isEmpty(), is(true));
+
+    timeSeries.add(1L, 10d);
+    timeSeries.add(2L, 20d);
+    timeSeries.add(3L, 30d);
+    assertThat(timeSeries.isFull(), is(true));
+
+    timeSeries.add(4L, 40d);
+    assertThat(timeSeries.size(), is(3));
+    assertThat(timeSeries.getFirstTimestamp(), is(2L));
+    assertThat(timeSeries.getFirstValue(), is(20d));
+    assertThat(timeSeries.getLastTimestamp(), is(4L));
+    assertThat(timeSeries.getLastValue(), is(40d));
+    assertThat(timeSeries.getValue(1), is(30d));
+  }
+
+  @Test
+  public void testRemoveOlderThan() {
+    final TimeSeries timeSeries = new TimeSeries(4);
+    timeSeries.add(1L, 10d);
+    timeSeries.add(2L, 20d);
+    timeSeries.add(3L, 30d);
+    timeSeries.add(4L, 40d);
+    // Wrap around
+    timeSeries.removeFirst();
+    timeSeries.add(5L, 50d);
+
+    assertThat(timeSeries.removeOlderThan(4L, 0), is(2));
+    assertThat(timeSeries.getFirstTimestamp(), is(4L));
+
+    assertThat(timeSeries.removeOlderThan(10L, 1), is(1));
+    assertThat(timeSeries.size(), is(1));
+    assertThat(timeSeries.getFirstTimestamp(), is(5L));
+  }
+
+  @Test
+  public void testWindowQueries() {
+    final TimeSeries timeSeries = new TimeSeries(4);
+    timeSeries.add(0L, 1d);
+    timeSeries.add(1000L, 40d);
+    timeSeries.add(2000L, 30d);
+    timeSeries.add(3000L, 35d);
+    timeSeries.add(4000L, 20d);
+
+    assertThat(timeSeries.indexOfFirstSince(0L), is(0));
+    assertThat(timeSeries.indexOfFirstSince(1500L), is(1));
+    assertThat(timeSeries.indexOfFirstSince(2000L), is(1));
+    assertThat(timeSeries.indexOfFirstSince(5000L), is(4));
+
+    assertThat(timeSeries.getMinimumSince(2500L), is(20d));
+    assertThat(timeSeries.getMaximumSince(2500L), is(35d));
+    assertThat(timeSeries.getMaximumSince(0L), is(40d));
+    assertThat(Double.isNaN(timeSeries.getMinimumSince(4001L)), is(true));
+  }
+
+  @Test
+  public void testEmpty() {
+    final TimeSeries timeSeries = new TimeSeries(2);
+    timeSeries.add(1L, 1d);
+    timeSeries.clear();
+
+    expectedException.expect(IndexOutOfBoundsException.class);
+    expectedException.expectMessage("Index 0 out of bounds for a time series of size 0");
+
+    timeSeries.getFirstTimestamp();
+  }
+
+  @Test
+  public void testInvalidCapacity() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The capacity must be at least 1, found 0");
+
+    new TimeSeries(0);
+  }
+
+  @Test
+  public void testSteadyStateDoesNotAllocate() {
+    assumeTrue(ManagementFactory.getThreadMXBean()
+        instanceof com.sun.management.ThreadMXBean);
+
+    final com.sun.management.ThreadMXBean threadBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threadBean.isThreadAllocatedMemorySupported()
+        && threadBean.isThreadAllocatedMemoryEnabled());
+
+    final long threadId = Thread.currentThread().getId();
+    final TimeSeries timeSeries = new TimeSeries(64);
+
+    // Warm up, so that neither class loading nor the first calls are accounted for
+    sample(timeSeries, 0L);
+    threadBean.getThreadAllocatedBytes(threadId);
+    final long before = threadBean.getThreadAllocatedBytes(threadId);
+
+    sample(timeSeries, 100000L);
+
+    assertThat(threadBean.getThreadAllocatedBytes(threadId) - before, is(0L));
+  }
+
+  private static void sample(final TimeSeries timeSeries, final long start) {
+    for (long timestamp = start; timestamp < start + 100000L; timestamp += 10L) {
+      timeSeries.add(timestamp, timestamp % 100L);
+      timeSeries.removeOlderThan(timestamp - 500L, 1);
+      timeSeries.getMinimumSince(timestamp - 250L);
+    }
+  }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.utils;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class TimerWheelTest {
+
+  @Rule
+  public final ExpectedException expectedException = ExpectedException.none();
+
+  private final List<String> expired = new ArrayList<>();
+
+  @Test
+  public void testExpireInDeadlineOrder() {
+    final TimerWheel<String> wheel = new TimerWheel<>(250L, 64, 1000L);
+    final TimerWheel.Timeout<String> fast = wheel.newTimeout("fast");
+    final TimerWheel.Timeout<String> slow = wheel.newTimeout("slow");
+    wheel.schedule(slow, 61000L);
+    wheel.schedule(fast, 1250L);
+
+    assertThat(wheel.size(), is(2));
+    assertThat(wheel.getNextDeadline(), is(1250L));
+
+    wheel.expire(1249L, expired);
+    assertThat(expired, is(empty()));
+
+    wheel.expire(1250L, expired);
+    assertThat(expired, contains("fast"));
+    assertThat(fast.isScheduled(), is(false));
+    assertThat(wheel.getNextDeadline(), is(61000L));
+
+    expired.clear();
+    wheel.expire(61000L, expired);
+    assertThat(expired, contains("slow"));
+    assertThat(wheel.isEmpty(), is(true));
+    assertThat(wheel.getNextDeadline(), is(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testDeadlinesBeyondOneRotation() {
+    // One rotation spans 4 seconds
+    final TimerWheel<String> wheel = new TimerWheel<>(1000L, 4, 0L);
+    final TimerWheel.Timeout<String> hourly = wheel.newTimeout("hourly");
+    final TimerWheel.Timeout<String> secondly = wheel.newTimeout("secondly");
+    wheel.schedule(hourly, 3600000L);
+    wheel.schedule(secondly, 1000L);
+
+    // Both share a bucket, but only one is due
+    wheel.expire(1000L, expired);
+    assertThat(expired, contains("secondly"));
+    assertThat(wheel.getNextDeadline(), is(3600000L));
+
+    expired.clear();
+    wheel.expire(3599999L, expired);
+    assertThat(expired, is(empty()));
+
+    wheel.expire(3600000L, expired);
+    assertThat(expired, contains("hourly"));
+  }
+
+  @Test
+  public void testRescheduleAndCancel() {
+    final TimerWheel<String> wheel = new TimerWheel<>(100L, 8, 0L);
+    final TimerWheel.Timeout<String> timeout = wheel.newTimeout("task");
+
+    wheel.schedule(timeout, 500L);
+    wheel.schedule(timeout, 200L);
+    assertThat(wheel.size(), is(1));
+    assertThat(timeout.getDeadlineInMillis(), is(200L));
+
+    wheel.cancel(timeout);
+    assertThat(wheel.isEmpty(), is(true));
+
+    wheel.expire(1000L, expired);
+    assertThat(expired, is(empty()));
+
+    // Deadlines in the past expire at the next expiration
+    wheel.schedule(timeout, 0L);
+    wheel.expire(1000L, expired);
+    assertThat(expired, contains("task"));
+  }
+
+  @Test
+  public void testInvalidTick() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The tick must be at least 1 millisecond, found 0");
+
+    new TimerWheel<String>(0L, 64, 0L);
+  }
+
+  @Test
+  public void testSteadyStateDoesNotAllocate() {
+    assumeTrue(ManagementFactory.getThreadMXBean()
+        instanceof com.sun.management.ThreadMXBean);
+
+    final com.sun.management.ThreadMXBean threadBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threadBean.isThreadAllocatedMemorySupported()
+        && threadBean.isThreadAllocatedMemoryEnabled());
+
+    final long threadId = Thread.currentThread().getId();
+    final TimerWheel<String> wheel = new TimerWheel<>(250L, 64, 0L);
+    final TimerWheel.Timeout<String> fast = wheel.newTimeout("fast");
+    final TimerWheel.Timeout<String> slow = wheel.newTimeout("slow");
+    wheel.schedule(fast, 250L);
+    wheel.schedule(slow, 60000L);
+
+    // Warm up, so that neither class loading nor the compilation of the loop are accounted for
+    for (long start = 0L; start < 5000000L; start += 1000000L) {
+      tick(wheel, fast, slow, start);
+    }
+    threadBean.getThreadAllocatedBytes(threadId);
+    final long before = threadBean.getThreadAllocatedBytes(threadId);
+
+    tick(wheel, fast, slow, 5000000L);
+
+    assertThat(threadBean.getThreadAllocatedBytes(threadId) - before, is(0L));
+  }
+
+  private void tick(final TimerWheel<String> wheel, final TimerWheel.Timeout<String> fast,
+                    final TimerWheel.Timeout<String> slow, final long start) {
+    for (long now = start; now < start + 1000000L; now = wheel.getNextDeadline()) {
+      expired.clear();
+      wheel.expire(now, expired);
+      if (!fast.isScheduled()) {
+        wheel.schedule(fast, now + 250L);
+      }
+      if (!slow.isScheduled()) {
+        wheel.schedule(slow, now + 60000L);
+      }
+    }
+  }
+
+}
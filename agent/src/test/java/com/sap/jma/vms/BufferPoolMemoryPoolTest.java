@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.sap.jma.conditions.AbsoluteUsageThresholdCondition;
+import com.sap.jma.configuration.AbsoluteUsageThresholdConfiguration;
+import com.sap.jma.configuration.Configuration;
+import com.sap.jma.configuration.PercentageUsageThresholdConfiguration;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class BufferPoolMemoryPoolTest {
+
+  @Rule
+  public final ExpectedException expectedException = ExpectedException.none();
+
+  private final BufferPoolMXBean bufferPoolBean = mock(BufferPoolMXBean.class);
+
+  private final Configuration configuration = mock(Configuration.class);
+
+  @Test
+  public void testType() {
+    doReturn("direct").when(bufferPoolBean).getName();
+    assertThat(MemoryPool.Type.from(bufferPoolBean), is(MemoryPool.Type.DIRECT_BUFFERS));
+
+    doReturn("mapped").when(bufferPoolBean).getName();
+    assertThat(MemoryPool.Type.from(bufferPoolBean), is(MemoryPool.Type.MAPPED_BUFFERS));
+  }
+
+  @Test
+  public void testUnsupportedBufferPool() {
+    doReturn("mapped - 'non-volatile memory'").when(bufferPoolBean).getName();
+
+    expectedException.expect(IllegalArgumentException.class);
+
+    MemoryPool.Type.from(bufferPoolBean);
+  }
+
+  @Test
+  public void testMemoryUsage() {
+    doReturn(3L).when(bufferPoolBean).getCount();
+    doReturn(3000L).when(bufferPoolBean).getMemoryUsed();
+    doReturn(2048L).when(bufferPoolBean).getTotalCapacity();
+
+    final BufferPoolMemoryPool memoryPool =
+        new BufferPoolMemoryPool(MemoryPool.Type.DIRECT_BUFFERS, bufferPoolBean, 10000L);
+
+    assertThat(memoryPool.getName(), is("direct"));
+    assertThat(memoryPool.getCount(), is(3L));
+
+    final MemoryUsage memoryUsage = memoryPool.getMemoryUsage();
+    assertThat(memoryUsage.getUsed(), is(3000L));
+    assertThat(memoryUsage.getCommitted(), is(3000L));
+    assertThat(memoryUsage.getMax(), is(10000L));
+    assertThat(memoryPool.getMemoryUsage(Collections.<String, MemoryUsage>emptyMap()).getUsed(),
+        is(3000L));
+    assertThat(memoryPool.getCollectionUsage() == null, is(true));
+  }
+
+  @Test
+  public void testUnlimitedBufferPool() throws Exception {
+    doReturn(3000L).when(bufferPoolBean).getMemoryUsed();
+    doReturn(4096L).when(bufferPoolBean).getTotalCapacity();
+
+    final BufferPoolMemoryPool memoryPool =
+        new BufferPoolMemoryPool(MemoryPool.Type.MAPPED_BUFFERS, bufferPoolBean, -1L);
+
+    assertThat(memoryPool.getMemoryUsage().getCommitted(), is(4096L));
+    assertThat(memoryPool.getMemoryUsage().getMax(), is(-1L));
+
+    doReturn(AbsoluteUsageThresholdConfiguration.parse(MemoryPool.Type.MAPPED_BUFFERS, ">2GB"))
+        .when(configuration).getMappedBuffersMemoryUsageThreshold();
+    assertThat(memoryPool.toCondition(configuration),
+        instanceOf(AbsoluteUsageThresholdCondition.class));
+
+    doReturn(PercentageUsageThresholdConfiguration.parse(MemoryPool.Type.MAPPED_BUFFERS, "80%"))
+        .when(configuration).getMappedBuffersMemoryUsageThreshold();
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The buffer pool 'mapped' has no maximum size, so only "
+        + "absolute thresholds can be applied to it");
+
+    memoryPool.toCondition(configuration);
+  }
+
+  @Test
+  public void testMaxDirectMemorySize() {
+    assertThat(JavaVirtualMachine.Factory.getMaxDirectMemorySize(
+        Collections.<String>emptyList(), 512L), is(512L));
+    assertThat(JavaVirtualMachine.Factory.getMaxDirectMemorySize(
+        Arrays.asList("-Xmx1g", "-XX:MaxDirectMemorySize=256m"), 512L), is(256L * 1024 * 1024));
+    assertThat(JavaVirtualMachine.Factory.getMaxDirectMemorySize(
+        Arrays.asList("-XX:MaxDirectMemorySize=1G", "-XX:MaxDirectMemorySize=4096"), 512L),
+        is(4096L));
+    assertThat(JavaVirtualMachine.Factory.getMaxDirectMemorySize(
+        Collections.singletonList("-XX:MaxDirectMemorySize=0"), 512L), is(512L));
+  }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import com.sap.jma.utils.Supplier;
+import org.junit.Test;
+
+public class ClassHistogramTest {
+
+  private static final String JDK11_HISTOGRAM = "\n"
+      + " num     #instances         #bytes  class name (module)\n"
+      + "-------------------------------------------------------\n"
+      + "   1:        500000       24000000  com.acme.Session\n"
+      + "   2:         40000        1280000  java.lang.String (java.base@11.0.2)\n"
+      + "   3:          2000          64000  com.acme.cache.Entry\n"
+      + "   4:            10            320  com.acme.SessionManager\n"
+      + "   5:             3             96  com.acmecorp.Other\n"
+      + "Total        542013       25344416\n";
+
+  private final Supplier<String> histogramSupplier = mock(Supplier.class);
+
+  private final Clock clock = mock(Clock.class);
+
+  private final Logger logger = mock(Logger.class);
+
+  private final ClassHistogram subject = new ClassHistogram(histogramSupplier, clock, logger);
+
+  @Test
+  public void testClasses() {
+    doReturn(JDK11_HISTOGRAM).when(histogramSupplier).get();
+
+    final int session = subject.register("com.acme.Session");
+    final int string = subject.register("java.lang.String");
+    final int unknown = subject.register("com.acme.Unknown");
+
+    assertThat(subject.getInstances(session), is(500000L));
+    assertThat(subject.getBytes(session), is(24000000L));
+    assertThat(subject.getInstances(string), is(40000L));
+    assertThat(subject.getBytes(string), is(1280000L));
+    // Classes without live instances are not in the histogram
+    assertThat(subject.getInstances(unknown), is(0L));
+    assertThat(subject.getBytes(unknown), is(0L));
+  }
+
+  @Test
+  public void testPackages() {
+    doReturn(JDK11_HISTOGRAM).when(histogramSupplier).get();
+
+    final int acme = subject.register("com.acme.*");
+
+    // 'com.acmecorp.Other' is not in 'com.acme'
+    assertThat(subject.getInstances(acme), is(502010L));
+    assertThat(subject.getBytes(acme), is(24064320L));
+  }
+
+  @Test
+  public void testPatternsAreRegisteredOnce() {
+    assertThat(subject.register("com.acme.*"), is(0));
+    assertThat(subject.register("com.acme.Session"), is(1));
+    assertThat(subject.register("com.acme.*"), is(0));
+  }
+
+  @Test
+  public void testSamplesAreCached() {
+    doReturn(JDK11_HISTOGRAM).when(histogramSupplier).get();
+    final int session = subject.register("com.acme.Session");
+    final int acme = subject.register("com.acme.*");
+
+    doReturn(0L).when(clock).getMillis();
+    subject.getInstances(session);
+    doReturn(ClassHistogram.MAX_SAMPLE_AGE_IN_MILLIS - 1).when(clock).getMillis();
+    subject.getInstances(acme);
+
+    verify(histogramSupplier, times(1)).get();
+
+    doReturn(ClassHistogram.MAX_SAMPLE_AGE_IN_MILLIS).when(clock).getMillis();
+    subject.getBytes(session);
+
+    verify(histogramSupplier, times(2)).get();
+  }
+
+  @Test
+  public void testSampleAgeStartsWhenHistogramIsDone() {
+    doReturn(JDK11_HISTOGRAM).when(histogramSupplier).get();
+    final int session = subject.register("com.acme.Session");
+
+    // The full garbage collection of the class histogram takes 5 seconds
+    when(clock.getMillis())
+        .thenReturn(0L, 5000L, 5000L + ClassHistogram.MAX_SAMPLE_AGE_IN_MILLIS - 1);
+    subject.getInstances(session);
+    subject.getInstances(session);
+
+    verify(histogramSupplier, times(1)).get();
+  }
+
+  @Test
+  public void testClassHistogramNotAvailable() {
+    final IllegalStateException error = new IllegalStateException("No diagnostic command");
+    doThrow(error).when(histogramSupplier).get();
+
+    final int session = subject.register("com.acme.Session");
+
+    assertThat(subject.getInstances(session), is(-1L));
+    assertThat(subject.getBytes(session), is(-1L));
+    verify(logger).error("Cannot sample the class histogram", error);
+  }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.sap.jma.utils.Supplier;
+import com.sap.jma.vms.ClassLoaderStatistics.ClassLoaderType;
+import java.util.List;
+import org.junit.Test;
+
+public class ClassLoaderStatisticsTest {
+
+  private static final String JDK8_STATISTICS = ""
+      + "ClassLoader         Parent              CLD*               Classes   ChunkSz   BlockSz"
+      + "  Type\n"
+      + "0x00000007c0049ca0  0x00000007c004a040  0x00007f4c5c0e74a0       1       768       617"
+      + "  sun.reflect.DelegatingClassLoader\n"
+      + "0x00000007c0049ca1  0x00000007c004a040  0x00007f4c5c0e74a8       1       768       617"
+      + "  sun.reflect.DelegatingClassLoader\n"
+      + "0x00000007c004a040  0x00000007c004a698  0x00007f4c5c0de3f0     478   2826240   2571248"
+      + "  sun.misc.Launcher$AppClassLoader\n"
+      + "                                                                 12     24576      8648"
+      + "   + unsafe anonymous classes\n"
+      + "0x0000000000000000  0x0000000000000000  0x00007f4c5c0599e0    2046  12423168  12232248"
+      + "  <boot class loader>\n"
+      + "Total = 4                                                      2538  15275520  14813377"
+      + "  \n"
+      + "ChunkSz: Total size of all allocated metaspace chunks\n"
+      + "BlockSz: Total size of all allocated metaspace blocks (each chunk has several blocks)\n";
+
+  private final Supplier<String> statisticsSupplier = mock(Supplier.class);
+
+  private final ClassLoaderStatistics subject = new ClassLoaderStatistics(statisticsSupplier);
+
+  @Test
+  public void testAggregatedByTypeAndSortedByMetaspace() {
+    doReturn(JDK8_STATISTICS).when(statisticsSupplier).get();
+
+    final List<ClassLoaderType> classLoaderTypes = subject.getClassLoaderTypes();
+    assertThat(classLoaderTypes.size(), is(3));
+
+    assertThat(classLoaderTypes.get(0).getName(), is("<boot class loader>"));
+    assertThat(classLoaderTypes.get(0).getClassLoaderCount(), is(1));
+    assertThat(classLoaderTypes.get(0).getClassCount(), is(2046L));
+    assertThat(classLoaderTypes.get(0).getChunkSizeInBytes(), is(12423168L));
+
+    // Anonymous classes are accounted to the class loader on the line above
+    assertThat(classLoaderTypes.get(1).getName(), is("sun.misc.Launcher$AppClassLoader"));
+    assertThat(classLoaderTypes.get(1).getClassCount(), is(490L));
+    assertThat(classLoaderTypes.get(1).getChunkSizeInBytes(), is(2826240L + 24576L));
+
+    assertThat(classLoaderTypes.get(2).getName(), is("sun.reflect.DelegatingClassLoader"));
+    assertThat(classLoaderTypes.get(2).getClassLoaderCount(), is(2));
+    assertThat(classLoaderTypes.get(2).getClassCount(), is(2L));
+    assertThat(classLoaderTypes.get(2).getChunkSizeInBytes(), is(1536L));
+  }
+
+  @Test
+  public void testNoOutput() {
+    doReturn(null).when(statisticsSupplier).get();
+
+    assertThat(subject.getClassLoaderTypes(), is(empty()));
+  }
+
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import static com.sap.jma.conditions.ConditionChecks.checkOrThrow;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.sap.jma.conditions.ConditionChecks.UsageThresholdConditionViolatedException;
+import com.sap.jma.conditions.UsageThresholdCondition;
+import com.sap.jma.configuration.Configuration;
+import com.sap.jma.configuration.PercentageUsageThresholdConfiguration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import java.io.File;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+public class ControlGroupMemoryTest {
+
+  private static final long MB = 1024L * 1024L;
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Rule
+  public final ExpectedException expectedException = ExpectedException.none();
+
+  private final Clock clock = mock(Clock.class);
+
+  private final Logger logger = mock(Logger.class);
+
+  private final Configuration configuration = mock(Configuration.class);
+
+  private File root;
+
+  private File procSelfCgroup;
+
+  private long now;
+
+  @Before
+  public void setup() throws Exception {
+    root = temporaryFolder.newFolder("cgroup");
+    procSelfCgroup = temporaryFolder.newFile("proc_self_cgroup");
+  }
+
+  @Test
+  public void testVersion2InOwnNamespace() throws Exception {
+    write(procSelfCgroup, "0::/\n");
+    writeVersion2(root, 600 * MB, "1073741824", 100 * MB, 0L, 0L);
+
+    final ControlGroupMemory subject = createControlGroupMemory();
+
+    assertThat(subject.isVersion2(), is(true));
+    assertThat(subject.getUsageInBytes(), is(600 * MB));
+    assertThat(subject.getWorkingSetInBytes(), is(500 * MB));
+    assertThat(subject.getLimitInBytes(), is(1024 * MB));
+    assertThat(subject.getHighEvents(), is(0L));
+    assertThat(subject.getMaxEvents(), is(0L));
+  }
+
+  @Test
+  public void testVersion2NestedUnlimited() throws Exception {
+    write(procSelfCgroup, "0::/system.slice/app.service\n");
+    final File directory = new File(root, "system.slice/app.service");
+    writeVersion2(directory, 600 * MB, "max\n", 0L, 0L, 0L);
+
+    final ControlGroupMemory subject = createControlGroupMemory();
+
+    assertThat(subject.getUsageInBytes(), is(600 * MB));
+    assertThat(subject.getLimitInBytes(), is(-1L));
+  }
+
+  @Test
+  public void testVersion1() throws Exception {
+    write(procSelfCgroup, "12:cpu,cpuacct:/docker/abc\n"
+        + "11:memory:/docker/abc\n"
+        + "0::/\n");
+    final File directory = new File(root, "memory");
+    write(new File(directory, "memory.usage_in_bytes"), String.valueOf(300 * MB));
+    write(new File(directory, "memory.limit_in_bytes"), "9223372036854771712\n");
+    write(new File(directory, "memory.stat"), "cache 0\ninactive_file 1\n"
+        + "total_inactive_file " + (50 * MB) + "\n");
+    write(new File(directory, "memory.failcnt"), "3\n");
+
+    final ControlGroupMemory subject = createControlGroupMemory();
+
+    assertThat(subject.isVersion2(), is(false));
+    assertThat(subject.getUsageInBytes(), is(300 * MB));
+    assertThat(subject.getWorkingSetInBytes(), is(250 * MB));
+    assertThat(subject.getLimitInBytes(), is(-1L));
+    assertThat(subject.getHighEvents(), is(-1L));
+    assertThat(subject.getMaxEvents(), is(3L));
+  }
+
+  @Test
+  public void testNoControlGroup() throws Exception {
+    write(procSelfCgroup, "0::/\n");
+
+    assertThat(createControlGroupMemory(), nullValue());
+  }
+
+  @Test
+  public void testMemoryPool() throws Exception {
+    write(procSelfCgroup, "0::/\n");
+    writeVersion2(root, 600 * MB, "1073741824", 100 * MB, 0L, 0L);
+
+    final ControlGroupMemoryPool memoryPool =
+        new ControlGroupMemoryPool(createControlGroupMemory());
+
+    final MemoryUsage memoryUsage = memoryPool.getMemoryUsage();
+    assertThat(memoryUsage.getUsed(), is(500 * MB));
+    assertThat(memoryUsage.getCommitted(), is(600 * MB));
+    assertThat(memoryUsage.getMax(), is(1024 * MB));
+  }
+
+  @Test
+  public void testThresholdAndEvents() throws Exception {
+    write(procSelfCgroup, "0::/\n");
+    writeVersion2(root, 600 * MB, "1073741824", 100 * MB, 2L, 0L);
+
+    final UsageThresholdCondition<?> condition =
+        new ControlGroupMemoryPool(createControlGroupMemory()).toCondition(configuration);
+
+    // Below 90%, and no new events
+    nextSample();
+    checkOrThrow(condition);
+
+    // The 'high' boundary has been reached since the previous check
+    writeVersion2(root, 600 * MB, "1073741824", 100 * MB, 3L, 0L);
+    nextSample();
+    try {
+      checkOrThrow(condition);
+      fail("The condition should have been violated");
+    } catch (final UsageThresholdConditionViolatedException ex) {
+      assertThat(ex.getMessage(), is("Memory pool 'Container' reached its 'memory.high' boundary "
+          + "1 time(s) since the previous check"));
+    }
+
+    // No new events
+    nextSample();
+    checkOrThrow(condition);
+
+    writeVersion2(root, 1000 * MB, "1073741824", 10 * MB, 3L, 0L);
+    nextSample();
+    try {
+      checkOrThrow(condition);
+      fail("The condition should have been violated");
+    } catch (final UsageThresholdConditionViolatedException ex) {
+      assertThat(ex.getMessage(), is("Memory pool 'Container' at 96.68% usage, "
+          + "configured threshold is 90%"));
+    }
+  }
+
+  @Test
+  public void testThresholdCheckedAlongWithEvents() throws Exception {
+    write(procSelfCgroup, "0::/\n");
+    writeVersion2(root, 1000 * MB, "1073741824", 10 * MB, 0L, 0L);
+
+    final UsageThresholdCondition<?> condition =
+        new ControlGroupMemoryPool(createControlGroupMemory()).toCondition(configuration);
+
+    // Both the limit has been reached and the threshold is exceeded since the previous check
+    writeVersion2(root, 1000 * MB, "1073741824", 10 * MB, 0L, 1L);
+    nextSample();
+    try {
+      checkOrThrow(condition);
+      fail("The condition should have been violated");
+    } catch (final UsageThresholdConditionViolatedException ex) {
+      assertThat(ex.getMessage(), is("Memory pool 'Container' reached its limit 1 time(s) since "
+          + "the previous check; Memory pool 'Container' at 96.68% usage, configured threshold "
+          + "is 90%"));
+    }
+  }
+
+  @Test
+  public void testRelativeThresholdWithoutLimit() throws Exception {
+    write(procSelfCgroup, "0::/\n");
+    writeVersion2(root, 600 * MB, "max", 100 * MB, 0L, 0L);
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The control group of the JVM has no memory limit, so only "
+        + "absolute thresholds can be applied to 'Container'");
+
+    new ControlGroupMemoryPool(createControlGroupMemory()).toCondition(configuration);
+  }
+
+  private ControlGroupMemory createControlGroupMemory() throws Exception {
+    doReturn(PercentageUsageThresholdConfiguration.parse(MemoryPool.Type.CONTAINER, "90%"))
+        .when(configuration).getContainerMemoryUsageThreshold();
+    doReturn(now).when(clock).getMillis();
+    return ControlGroupMemory.create(root, procSelfCgroup, clock, logger);
+  }
+
+  private void nextSample() {
+    now += ControlGroupMemory.MAX_SAMPLE_AGE_IN_MILLIS;
+    doReturn(now).when(clock).getMillis();
+  }
+
+  private static void writeVersion2(final File directory, final long current, final String max,
+                                    final long inactiveFile, final long highEvents,
+                                    final long maxEvents) throws Exception {
+    write(new File(directory, "memory.current"), current + "\n");
+    write(new File(directory, "memory.max"), max);
+    write(new File(directory, "memory.stat"), "anon " + (current - inactiveFile) + "\n"
+        + "file " + inactiveFile + "\n"
+        + "active_file 0\n"
+        + "inactive_file " + inactiveFile + "\n");
+    write(new File(directory, "memory.events"), "low 0\n"
+        + "high " + highEvents + "\n"
+        + "max " + maxEvents + "\n"
+        + "oom 0\n"
+        + "oom_kill 0\n");
+  }
+
+  private static void write(final File file, final String content) throws Exception {
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+  }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.sap.jma.conditions.PercentageUsageThresholdCondition;
+import com.sap.jma.configuration.Configuration;
+import com.sap.jma.configuration.PercentageUsageThresholdConfiguration;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class GenericMemoryPoolTest {
+
+  @Rule
+  public final ExpectedException expectedException = ExpectedException.none();
+
+  private final MemoryPoolMXBean memoryPoolBean = mock(MemoryPoolMXBean.class);
+
+  private final Configuration configuration = mock(Configuration.class);
+
+  @Test
+  public void testUnknownMemoryPool() {
+    doReturn("ZHeap").when(memoryPoolBean).getName();
+
+    expectedException.expect(IllegalArgumentException.class);
+
+    MemoryPool.Type.from(memoryPoolBean);
+  }
+
+  @Test
+  public void testMemoryUsage() {
+    doReturn("ZHeap").when(memoryPoolBean).getName();
+    doReturn(new MemoryUsage(0L, 300L, 400L, 1000L)).when(memoryPoolBean).getUsage();
+
+    final GenericMemoryPool memoryPool = new GenericMemoryPool(memoryPoolBean);
+
+    assertThat(memoryPool.getName(), is("ZHeap"));
+    assertThat(memoryPool.getType(), is(MemoryPool.Type.OTHER));
+    assertThat(memoryPool.matches(memoryPoolBean), is(true));
+    assertThat(memoryPool.getMemoryUsage().getMax(), is(1000L));
+    assertThat(memoryPool.getCollectionUsage(), nullValue());
+  }
+
+  @Test
+  public void testUndefinedMaxFallsBackToCommitted() {
+    doReturn("ZGC Young Generation").when(memoryPoolBean).getName();
+    doReturn(new MemoryUsage(0L, 300L, 400L, -1L)).when(memoryPoolBean).getUsage();
+    doReturn(new MemoryUsage(0L, 100L, 400L, -1L)).when(memoryPoolBean).getCollectionUsage();
+
+    final GenericMemoryPool memoryPool = new GenericMemoryPool(memoryPoolBean);
+
+    assertThat(memoryPool.getMemoryUsage().getUsed(), is(300L));
+    assertThat(memoryPool.getMemoryUsage().getMax(), is(400L));
+    assertThat(memoryPool.getCollectionUsage().getMax(), is(400L));
+    assertThat(memoryPool.getMemoryUsage(Collections.singletonMap("ZGC Young Generation",
+        new MemoryUsage(0L, 350L, 500L, -1L))).getMax(), is(500L));
+  }
+
+  @Test
+  public void testPatternThreshold() throws Exception {
+    doReturn("ZHeap").when(memoryPoolBean).getName();
+
+    final GenericMemoryPool memoryPool = new GenericMemoryPool(memoryPoolBean);
+    assertThat(memoryPool.toCondition(configuration), nullValue());
+
+    doReturn(PercentageUsageThresholdConfiguration.parse(MemoryPool.Type.OTHER, "80%"))
+        .when(configuration).getMemoryPoolPatternThreshold("ZHeap");
+    assertThat(memoryPool.toCondition(configuration),
+        instanceOf(PercentageUsageThresholdCondition.class));
+  }
+
+  @Test
+  public void testPatternThresholdOnKnownMemoryPool() throws Exception {
+    doReturn("G1 Old Gen").when(memoryPoolBean).getName();
+    doReturn(PercentageUsageThresholdConfiguration.parse(MemoryPool.Type.OTHER, "80%"))
+        .when(configuration).getMemoryPoolPatternThreshold("G1 Old Gen");
+
+    final MemoryPoolImpl memoryPool =
+        new MemoryPoolImpl(MemoryPool.Type.from(memoryPoolBean), memoryPoolBean);
+    assertThat(memoryPool.toCondition(configuration),
+        instanceOf(PercentageUsageThresholdCondition.class));
+
+    // The threshold of the memory pool itself wins over the ones on patterns
+    doReturn(PercentageUsageThresholdConfiguration.parse(MemoryPool.Type.OLD_GEN, "90%"))
+        .when(configuration).getOldGenSpaceMemoryUsageThreshold();
+    assertThat(((PercentageUsageThresholdConfiguration) memoryPool.toCondition(configuration)
+        .getUsageThresholdConfiguration()).getValue(), is(90d));
+  }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.sap.jma.utils.Supplier;
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class MemoryPoolImplTest {
+
+  private int heapReadings;
+
+  private final MemoryPoolImpl heapMemoryPool = new MemoryPoolImpl(MemoryPool.Type.HEAP,
+      Arrays.asList("PS Eden Space", "PS Old Gen"), new Supplier<MemoryUsage>() {
+        @Override
+        public MemoryUsage get() {
+          ++heapReadings;
+          return new MemoryUsage(64L, 100L, 300L, 1000L);
+        }
+      }, null);
+
+  @Test
+  public void testHeapIsSummedFromMemoryPools() {
+    final Map<String, MemoryUsage> memoryUsages = new HashMap<>();
+    memoryUsages.put("PS Eden Space", new MemoryUsage(0L, 10L, 50L, -1L));
+    memoryUsages.put("PS Old Gen", new MemoryUsage(0L, 40L, 150L, 800L));
+
+    final MemoryUsage memoryUsage = heapMemoryPool.getMemoryUsage(memoryUsages);
+    assertThat(memoryUsage.getInit(), is(64L));
+    assertThat(memoryUsage.getUsed(), is(50L));
+    assertThat(memoryUsage.getCommitted(), is(200L));
+    assertThat(memoryUsage.getMax(), is(1000L));
+
+    // The aggregate is read once, and its usage reused while the memory pools do not change
+    assertThat(heapMemoryPool.getMemoryUsage(memoryUsages), sameInstance(memoryUsage));
+    assertThat(heapReadings, is(1));
+
+    memoryUsages.put("PS Old Gen", new MemoryUsage(0L, 80L, 150L, 800L));
+    assertThat(heapMemoryPool.getMemoryUsage(memoryUsages).getUsed(), is(90L));
+    assertThat(heapReadings, is(1));
+  }
+
+  @Test
+  public void testHeapIsReadWhenMemoryPoolsAreMissing() {
+    final Map<String, MemoryUsage> memoryUsages = new HashMap<>();
+    memoryUsages.put("PS Old Gen", new MemoryUsage(0L, 40L, 150L, 800L));
+
+    assertThat(heapMemoryPool.getMemoryUsage(memoryUsages).getUsed(), is(100L));
+    assertThat(heapReadings, is(1));
+  }
+
+}
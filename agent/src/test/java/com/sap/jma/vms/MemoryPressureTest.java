@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.sap.jma.vms.MemoryPressure.Stall;
+import com.sap.jma.vms.MemoryPressure.Window;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MemoryPressureTest {
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testStallPercentages() throws Exception {
+    final File pressureFile = temporaryFolder.newFile("memory.pressure");
+    write(pressureFile, "some avg10=12.53 avg60=3.10 avg300=0.00 total=2036512\n"
+        + "full avg10=7.00 avg60=1.5 avg300=0.00 total=1024\n");
+
+    final MemoryPressure subject = new MemoryPressure(pressureFile);
+    subject.sample();
+
+    assertThat(subject.getStallPercentage(Stall.SOME, Window.AVG10), closeTo(12.53d, 1e-9));
+    assertThat(subject.getStallPercentage(Stall.SOME, Window.AVG60), closeTo(3.1d, 1e-9));
+    assertThat(subject.getStallPercentage(Stall.SOME, Window.AVG300), is(0d));
+    assertThat(subject.getStallPercentage(Stall.FULL, Window.AVG10), is(7d));
+    assertThat(subject.getStallPercentage(Stall.FULL, Window.AVG60), closeTo(1.5d, 1e-9));
+
+    write(pressureFile, "some avg10=0.00 avg60=0.00 avg300=0.00 total=2036512\n");
+    subject.sample();
+
+    assertThat(subject.getStallPercentage(Stall.SOME, Window.AVG10), is(0d));
+    // Not reported by older kernels system-wide
+    assertThat(subject.getStallPercentage(Stall.FULL, Window.AVG10), is(-1d));
+  }
+
+  private static void write(final File file, final String content) throws Exception {
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+  }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.sap.jma.conditions.AbsoluteUsageThresholdCondition;
+import com.sap.jma.configuration.AbsoluteUsageThresholdConfiguration;
+import com.sap.jma.configuration.Configuration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import com.sap.jma.utils.Supplier;
+import java.lang.management.MemoryUsage;
+import org.junit.Test;
+
+public class NativeMemoryTrackingTest {
+
+  private static final String JDK8_SUMMARY = "\n"
+      + "Native Memory Tracking:\n"
+      + "\n"
+      + "Total: reserved=1457645KB, committed=160689KB\n"
+      + "-                 Java Heap (reserved=65536KB, committed=40960KB)\n"
+      + "                            (mmap: reserved=65536KB, committed=40960KB) \n"
+      + " \n"
+      + "-                     Class (reserved=1066105KB, committed=14201KB)\n"
+      + "                            (classes #2275)\n"
+      + "                            (malloc=8313KB #1591) \n"
+      + " \n"
+      + "-                    Thread (reserved=20597KB, committed=20597KB)\n"
+      + "                            (thread #21)\n"
+      + "                            (stack: reserved=20480KB, committed=20480KB)\n";
+
+  private static final String JDK17_SUMMARY = "\n"
+      + "Native Memory Tracking:\n"
+      + "\n"
+      + "(Omitting categories weighting less than 1KB)\n"
+      + "\n"
+      + "Total: reserved=1457645KB, committed=160689KB\n"
+      + "       malloc: 19017KB #27813\n"
+      + "       mmap:   reserved=1438628KB, committed=141672KB\n"
+      + "\n"
+      + "-                 Java Heap (reserved=65536KB, committed=40960KB)\n"
+      + "                            (mmap: reserved=65536KB, committed=40960KB) \n"
+      + " \n"
+      + "-                    Thread (reserved=1MB, committed=512KB)\n"
+      + "                            (thread #21)\n"
+      + "\n"
+      + "-        Arena Chunk (reserved=2048B, committed=2048B)\n";
+
+  private final Supplier<String> summarySupplier = mock(Supplier.class);
+
+  private final Clock clock = mock(Clock.class);
+
+  private final Logger logger = mock(Logger.class);
+
+  private final NativeMemoryTracking subject =
+      new NativeMemoryTracking(summarySupplier, clock, logger);
+
+  @Test
+  public void testJdk8Summary() {
+    doReturn(JDK8_SUMMARY).when(summarySupplier).get();
+
+    assertThat(subject.getCommittedInBytes("Total"), is(160689L * 1024));
+    assertThat(subject.getReservedInBytes("Total"), is(1457645L * 1024));
+    assertThat(subject.getCommittedInBytes("Java Heap"), is(40960L * 1024));
+    assertThat(subject.getReservedInBytes("Java Heap"), is(65536L * 1024));
+    assertThat(subject.getCommittedInBytes("Class"), is(14201L * 1024));
+    assertThat(subject.getCommittedInBytes("Thread"), is(20597L * 1024));
+  }
+
+  @Test
+  public void testJdk17SummaryWithUnits() {
+    doReturn(JDK17_SUMMARY).when(summarySupplier).get();
+
+    assertThat(subject.getCommittedInBytes("Total"), is(160689L * 1024));
+    assertThat(subject.getReservedInBytes("Thread"), is(1024L * 1024));
+    assertThat(subject.getCommittedInBytes("Thread"), is(512L * 1024));
+    assertThat(subject.getCommittedInBytes("Arena Chunk"), is(2048L));
+  }
+
+  @Test
+  public void testMissingCategories() {
+    doReturn(JDK8_SUMMARY).doReturn(JDK17_SUMMARY).when(summarySupplier).get();
+
+    doReturn(0L).when(clock).getMillis();
+    assertThat(subject.getCommittedInBytes("Class"), is(14201L * 1024));
+
+    doReturn(NativeMemoryTracking.MAX_SAMPLE_AGE_IN_MILLIS).when(clock).getMillis();
+
+    // 'Class' was reported only in the former sample
+    assertThat(subject.getCommittedInBytes("Class"), is(-1L));
+    assertThat(subject.getReservedInBytes("Class"), is(-1L));
+    assertThat(subject.getCommittedInBytes("Unknown"), is(-1L));
+  }
+
+  @Test
+  public void testConfigurationNames() {
+    doReturn(JDK17_SUMMARY).when(summarySupplier).get();
+
+    assertThat(NativeMemoryTracking.toConfigurationName("Java Heap"), is("java_heap"));
+    assertThat(subject.getCategory("java_heap"), is("Java Heap"));
+    assertThat(subject.getCategory("ARENA_CHUNK"), is("Arena Chunk"));
+    assertThat(subject.getCategory("class"), nullValue());
+  }
+
+  @Test
+  public void testSamplesAreCached() {
+    doReturn(JDK8_SUMMARY).when(summarySupplier).get();
+
+    doReturn(0L).when(clock).getMillis();
+    subject.getCommittedInBytes("Thread");
+    doReturn(NativeMemoryTracking.MAX_SAMPLE_AGE_IN_MILLIS - 1).when(clock).getMillis();
+    subject.getCommittedInBytes("Class");
+
+    verify(summarySupplier, times(1)).get();
+
+    doReturn(NativeMemoryTracking.MAX_SAMPLE_AGE_IN_MILLIS).when(clock).getMillis();
+    subject.getCommittedInBytes("Thread");
+
+    verify(summarySupplier, times(2)).get();
+  }
+
+  @Test
+  public void testNativeMemoryTrackingNotAvailable() {
+    final IllegalStateException error = new IllegalStateException("NMT disabled");
+    doThrow(error).when(summarySupplier).get();
+
+    assertThat(subject.getCategory("thread"), nullValue());
+    verify(logger).error("Cannot sample the native memory tracking summary", error);
+  }
+
+  @Test
+  public void testNativeMemoryPool() throws Exception {
+    doReturn(JDK8_SUMMARY).when(summarySupplier).get();
+
+    final NativeMemoryPool memoryPool = new NativeMemoryPool(subject, "Thread");
+    assertThat(memoryPool.getName(), is("Thread (native memory)"));
+    assertThat(memoryPool.getType(), is(MemoryPool.Type.NATIVE_MEMORY));
+
+    final MemoryUsage memoryUsage = memoryPool.getMemoryUsage();
+    assertThat(memoryUsage.getUsed(), is(20597L * 1024));
+    assertThat(memoryUsage.getCommitted(), is(20597L * 1024));
+    assertThat(memoryUsage.getMax(), is(20597L * 1024));
+
+    final Configuration configuration = mock(Configuration.class);
+    doReturn(AbsoluteUsageThresholdConfiguration.parse(MemoryPool.Type.NATIVE_MEMORY, ">10MB"))
+        .when(configuration).getNativeMemoryThreshold("thread");
+    assertThat(memoryPool.toCondition(configuration),
+        instanceOf(AbsoluteUsageThresholdCondition.class));
+  }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.sap.jma.conditions.IncreaseOverTimeFrameUsageThresholdCondition;
+import com.sap.jma.configuration.Configuration;
+import com.sap.jma.configuration.IncreaseOverTimeFrameUsageThresholdConfiguration;
+import com.sap.jma.logging.Logger;
+import com.sap.jma.time.Clock;
+import java.io.File;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+public class ProcessMemoryTest {
+
+  private static final String STATUS = "Name:\tjava\n"
+      + "Umask:\t0022\n"
+      + "State:\tS (sleeping)\n"
+      + "VmPeak:\t 4719532 kB\n"
+      + "VmSize:\t 4653996 kB\n"
+      + "VmHWM:\t  212344 kB\n"
+      + "VmRSS:\t  204800 kB\n"
+      + "RssAnon:\t  163840 kB\n"
+      + "RssFile:\t   40960 kB\n"
+      + "RssShmem:\t       0 kB\n"
+      + "VmSwap:\t    1024 kB\n"
+      + "Threads:\t21\n";
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Rule
+  public final ExpectedException expectedException = ExpectedException.none();
+
+  private final Clock clock = mock(Clock.class);
+
+  private final Logger logger = mock(Logger.class);
+
+  @Test
+  public void testStatus() throws Exception {
+    final ProcessMemory subject = createProcessMemory(STATUS);
+
+    assertThat(subject.getResidentSetInBytes(), is(204800L * 1024));
+    assertThat(subject.getAnonymousResidentSetInBytes(), is(163840L * 1024));
+    assertThat(subject.getSwapInBytes(), is(1024L * 1024));
+  }
+
+  @Test
+  public void testOldKernelWithoutAnonymousResidentSet() throws Exception {
+    final ProcessMemory subject =
+        createProcessMemory("VmRSS:\t  204800 kB\nVmSwap:\t       0 kB\n");
+
+    assertThat(subject.getResidentSetInBytes(), is(204800L * 1024));
+    assertThat(subject.getAnonymousResidentSetInBytes(), is(-1L));
+    assertThat(subject.getSwapInBytes(), is(0L));
+  }
+
+  @Test
+  public void testResampling() throws Exception {
+    final File statusFile = temporaryFolder.newFile("status");
+    write(statusFile, STATUS);
+    final ProcessMemory subject = new ProcessMemory(statusFile, clock, logger);
+
+    doReturn(0L).when(clock).getMillis();
+    assertThat(subject.getResidentSetInBytes(), is(204800L * 1024));
+
+    write(statusFile, STATUS.replace("204800", "307200"));
+
+    // Cached
+    doReturn(ProcessMemory.MAX_SAMPLE_AGE_IN_MILLIS - 1).when(clock).getMillis();
+    assertThat(subject.getResidentSetInBytes(), is(204800L * 1024));
+
+    doReturn(ProcessMemory.MAX_SAMPLE_AGE_IN_MILLIS).when(clock).getMillis();
+    assertThat(subject.getResidentSetInBytes(), is(307200L * 1024));
+  }
+
+  @Test
+  public void testUnreadableStatus() throws Exception {
+    doReturn(true).when(logger).isDebugEnabled();
+    final File statusFile = new File(temporaryFolder.getRoot(), "missing");
+    final ProcessMemory subject = new ProcessMemory(statusFile, clock, logger);
+
+    doReturn(0L).when(clock).getMillis();
+    assertThat(subject.getResidentSetInBytes(), is(-1L));
+    verify(logger).error(anyString(), any(Throwable.class));
+
+    // Logged as error only once while the failure persists
+    doReturn(ProcessMemory.MAX_SAMPLE_AGE_IN_MILLIS).when(clock).getMillis();
+    assertThat(subject.getResidentSetInBytes(), is(-1L));
+    verify(logger).error(anyString(), any(Throwable.class));
+    verify(logger).debug(eq("Still cannot read the memory usage of the process from '%s': %s"),
+        eq(statusFile), anyString());
+
+    write(statusFile, STATUS);
+    doReturn(2 * ProcessMemory.MAX_SAMPLE_AGE_IN_MILLIS).when(clock).getMillis();
+    assertThat(subject.getResidentSetInBytes(), is(204800L * 1024));
+    verify(logger).info("Reading the memory usage of the process from '%s' again", statusFile);
+  }
+
+  @Test
+  public void testProcessMemoryPool() throws Exception {
+    final ProcessMemory processMemory = createProcessMemory(STATUS);
+
+    final ProcessMemoryPool memoryPool =
+        new ProcessMemoryPool(MemoryPool.Type.ANONYMOUS_RESIDENT_SET, processMemory, 1L << 30);
+    assertThat(memoryPool.getName(), is("Process anonymous RSS"));
+
+    final MemoryUsage memoryUsage = memoryPool.getMemoryUsage();
+    assertThat(memoryUsage.getUsed(), is(163840L * 1024));
+    assertThat(memoryUsage.getCommitted(), is(163840L * 1024));
+    assertThat(memoryUsage.getMax(), is(1L << 30));
+
+    final Configuration configuration = mock(Configuration.class);
+    doReturn(IncreaseOverTimeFrameUsageThresholdConfiguration.parse(
+        MemoryPool.Type.ANONYMOUS_RESIDENT_SET, "+5%/1m"))
+        .when(configuration).getAnonymousResidentSetMemoryUsageThreshold();
+    assertThat(memoryPool.toCondition(configuration),
+        instanceOf(IncreaseOverTimeFrameUsageThresholdCondition.class));
+  }
+
+  @Test
+  public void testProcessMemoryPoolReusesMemoryUsage() throws Exception {
+    final File statusFile = temporaryFolder.newFile("status");
+    write(statusFile, STATUS);
+    final ProcessMemoryPool memoryPool = new ProcessMemoryPool(MemoryPool.Type.RESIDENT_SET,
+        new ProcessMemory(statusFile, clock, logger), 1L << 30);
+
+    doReturn(0L).when(clock).getMillis();
+    final MemoryUsage memoryUsage = memoryPool.getMemoryUsage();
+
+    // Fresh sample
+    assertThat(memoryPool.getMemoryUsage(), sameInstance(memoryUsage));
+
+    write(statusFile, STATUS.replace("204800", "307200"));
+    doReturn(ProcessMemory.MAX_SAMPLE_AGE_IN_MILLIS).when(clock).getMillis();
+    assertThat(memoryPool.getMemoryUsage(), not(sameInstance(memoryUsage)));
+    assertThat(memoryPool.getMemoryUsage().getUsed(), is(307200L * 1024));
+  }
+
+  @Test
+  public void testProcessMemoryPoolWithoutMaximum() throws Exception {
+    final ProcessMemoryPool memoryPool = new ProcessMemoryPool(MemoryPool.Type.SWAP,
+        createProcessMemory(STATUS), -1L);
+
+    final Configuration configuration = mock(Configuration.class);
+    doReturn(IncreaseOverTimeFrameUsageThresholdConfiguration.parse(MemoryPool.Type.SWAP,
+        "+5%/1m")).when(configuration).getSwapMemoryUsageThreshold();
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("The maximum of the process memory 'Process swap' is not "
+        + "known, so only absolute thresholds can be applied to it");
+
+    memoryPool.toCondition(configuration);
+  }
+
+  private ProcessMemory createProcessMemory(final String status) throws Exception {
+    final File statusFile = temporaryFolder.newFile();
+    write(statusFile, status);
+    return new ProcessMemory(statusFile, clock, logger);
+  }
+
+  private static void write(final File file, final String content) throws Exception {
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+  }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2017 SAP SE or an SAP affiliate company. All rights reserved.
+ * This file is licensed under the Apache Software License, v. 2 except as noted
+ * otherwise in the LICENSE file at the root of the repository.
+ */
+
+package com.sap.jma.vms;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Test;
+
+public class SnapshotTest {
+
+  private static final Map<String, MemoryUsage> NO_USAGES = Collections.emptyMap();
+
+  private final MemoryPoolMXBean oldGenBean = mock(MemoryPoolMXBean.class);
+
+  private final MemoryPool directBuffers = mock(MemoryPool.class);
+
+  @Test
+  public void testUnchangedUsagesAreKept() {
+    final MemoryUsage memoryUsage = new MemoryUsage(0L, 42L, 100L, 100L);
+    doReturn("PS Old Gen").when(oldGenBean).getName();
+    when(oldGenBean.getUsage()).thenReturn(memoryUsage, new MemoryUsage(0L, 42L, 100L, 100L),
+        new MemoryUsage(0L, 43L, 100L, 100L));
+
+    final Snapshot snapshot = new Snapshot(Collections.singletonList(oldGenBean),
+        Collections.<MemoryPool>emptyList(), Collections.<GarbageCollectorMXBean>emptyList());
+
+    assertThat(snapshot.sample(NO_USAGES).get("PS Old Gen"), sameInstance(memoryUsage));
+    assertThat(snapshot.sample(NO_USAGES).get("PS Old Gen"), sameInstance(memoryUsage));
+    assertThat(snapshot.sample(NO_USAGES).get("PS Old Gen").getUsed(), is(43L));
+  }
+
+  @Test
+  public void testMemoryPoolsAreReadAtFirstLookup() {
+    final MemoryUsage memoryUsage = new MemoryUsage(0L, 1024L, 2048L, 4096L);
+    doReturn("direct").when(directBuffers).getName();
+    doReturn(memoryUsage).when(directBuffers).getMemoryUsage();
+
+    final Snapshot snapshot = new Snapshot(Collections.<MemoryPoolMXBean>emptyList(),
+        Arrays.asList(directBuffers, directBuffers),
+        Collections.<GarbageCollectorMXBean>emptyList());
+
+    snapshot.sample(NO_USAGES);
+    verify(directBuffers, never()).getMemoryUsage();
+
+    assertThat(snapshot.get("direct"), sameInstance(memoryUsage));
+    assertThat(snapshot.get("direct"), sameInstance(memoryUsage));
+    verify(directBuffers).getMemoryUsage();
+
+    snapshot.sample(NO_USAGES);
+    assertThat(snapshot.get("direct"), sameInstance(memoryUsage));
+    verify(directBuffers, times(2)).getMemoryUsage();
+
+    assertThat(snapshot.get("mapped"), nullValue());
+  }
+
+  @Test
+  public void testGarbageCollectionCounters() {
+    final GarbageCollectorMXBean youngCollector = mock(GarbageCollectorMXBean.class);
+    final GarbageCollectorMXBean oldCollector = mock(GarbageCollectorMXBean.class);
+    doReturn(10L).when(youngCollector).getCollectionCount();
+    doReturn(200L).when(youngCollector).getCollectionTime();
+    doReturn(-1L).when(oldCollector).getCollectionCount();
+    doReturn(-1L).when(oldCollector).getCollectionTime();
+
+    final Snapshot snapshot = new Snapshot(Collections.<MemoryPoolMXBean>emptyList(),
+        Collections.<MemoryPool>emptyList(), Arrays.asList(youngCollector, oldCollector));
+
+    snapshot.sample(NO_USAGES);
+    assertThat(snapshot.getCollectionCount(), is(10L));
+    assertThat(snapshot.getCollectionTimeInMillis(), is(200L));
+
+    doReturn(-1L).when(youngCollector).getCollectionTime();
+    snapshot.sample(NO_USAGES);
+    assertThat(snapshot.getCollectionTimeInMillis(), is(-1L));
+  }
+
+}